@@ -0,0 +1,33 @@
+package com.example.mahjong.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * ベンチマークを実行するエントリーポイントです。
+ * JMHのコマンドライン引数（ベンチマーク名の正規表現、-f、-wi など）をそのまま受け付け、
+ * 常にGCプロファイラを有効にして、1操作あたりの割り当て量（gc.alloc.rate.norm）も出力します。
+ *
+ * <pre>
+ * mvn -Pjmh package
+ * java -jar target/benchmarks.jar                 # すべて
+ * java -jar target/benchmarks.jar JudgeBenchmark  # Judgeのみ
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+	private BenchmarkRunner() {}
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
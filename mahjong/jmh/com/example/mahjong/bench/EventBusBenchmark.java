@@ -0,0 +1,68 @@
+package com.example.mahjong.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.mahjong.model.GameEventBus;
+import com.example.mahjong.model.GameEventType;
+import com.example.mahjong.model.Table;
+
+/**
+ * {@link GameEventBus}の配信のベンチマークです。
+ * 購読者は別のスレッドで読み進めるため、ここで測るのはゲームループ側の配信の時間と割り当て量だけです。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventBusBenchmark {
+	/** バスのない卓 */
+	private final Table idle = new Table();
+	/** 購読者が1つある卓 */
+	private final Table table = new Table();
+	/** 購読 */
+	private GameEventBus.Subscription subscription;
+	/** 購読者が受け取った牌IDの合計（最適化で購読者が消えないように） */
+	private long sum;
+	/** 配信する牌ID */
+	private int tile;
+
+	@Setup
+	public void setUp() {
+		this.subscription = this.table.getEventBus().subscribe(event -> this.sum += event.getTile());
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.subscription.close();
+	}
+
+	/**
+	 * 購読者がいない卓で配信します（バスがないので何もしません）。
+	 */
+	@Benchmark
+	public void publishWithoutBus() {
+		this.idle.publish(GameEventType.DISCARD, 0, this.tile++ % 34, -1, 0, 0L);
+	}
+
+	/**
+	 * 購読者が1つある卓で配信します。
+	 */
+	@Benchmark
+	public void publishOneSubscriber() {
+		this.table.publish(GameEventType.DISCARD, 0, this.tile++ % 34, -1, 0, 0L);
+	}
+}
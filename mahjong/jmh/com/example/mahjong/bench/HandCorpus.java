@@ -0,0 +1,212 @@
+package com.example.mahjong.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.example.mahjong.model.AgariCorpus;
+import com.example.mahjong.model.Table;
+import com.example.mahjong.model.TileType;
+
+/**
+ * ベンチマークで使う手牌の集まり（コーパス）を作るクラスです。
+ * 同じシードからは常に同じ手牌が作られるため、実行ごとの結果を比べられます。
+ *
+ * <ul>
+ * <li>random: シャッフルした牌山から配った14枚（ほとんどがあがりにもテンパイにも遠い手）</li>
+ * <li>tenpai: あがり形から1枚抜いた13枚に、ランダムな1枚をツモった14枚</li>
+ * <li>winning: 一般形（4面子1雀頭）と七対子のあがり形の14枚</li>
+ * <li>corpus-winning: {@link AgariCorpus}のコーパスから選んだあがり形の14枚</li>
+ * <li>corpus-tenpai: コーパスから選んだテンパイ形の13枚に、ランダムな1枚をツモった14枚</li>
+ * </ul>
+ * コーパスを使う種類は、システムプロパティ{@value #CORPUS_FILE}でコーパスのファイルを指定してください。
+ * <pre>
+ * java -Dmahjong.corpus=agari.mjac -jar target/benchmarks.jar JudgeBenchmark -p corpus=corpus-winning,corpus-tenpai
+ * </pre>
+ */
+public final class HandCorpus {
+	/** コーパスの種類: 配牌 */
+	public static final String RANDOM = "random";
+	/** コーパスの種類: テンパイ */
+	public static final String TENPAI = "tenpai";
+	/** コーパスの種類: あがり */
+	public static final String WINNING = "winning";
+	/** コーパスの種類: コーパスのファイルのあがり形 */
+	public static final String CORPUS_WINNING = "corpus-winning";
+	/** コーパスの種類: コーパスのファイルのテンパイ形 */
+	public static final String CORPUS_TENPAI = "corpus-tenpai";
+	/** コーパスのファイルを指定するシステムプロパティ */
+	public static final String CORPUS_FILE = "mahjong.corpus";
+
+	/**
+	 * プライベートコンストラクタにより、このクラスのインスタンス化を防ぎます。
+	 */
+	private HandCorpus() {}
+
+	/**
+	 * 指定した種類の手牌カウント配列(34)を作ります。
+	 *
+	 * @param kind コーパスの種類（{@link #RANDOM}, {@link #TENPAI}, {@link #WINNING}, {@link #CORPUS_WINNING}, {@link #CORPUS_TENPAI}）
+	 * @param size 手牌の数
+	 * @param seed 乱数のシード
+	 * @return 手牌カウント配列の配列
+	 * @throws IllegalArgumentException 種類が不明な場合や、コーパスのファイルが指定されていない場合
+	 * @throws UncheckedIOException コーパスのファイルを読めなかった場合
+	 */
+	public static int[][] counts(String kind, int size, long seed) {
+		if (CORPUS_WINNING.equals(kind) || CORPUS_TENPAI.equals(kind)) {
+			return fromFile(CORPUS_TENPAI.equals(kind), size, seed);
+		}
+		Random random = new Random(seed);
+		int[][] hands = new int[size][];
+		for (int i = 0; i < size; i++) {
+			switch (kind) {
+			case RANDOM:
+				hands[i] = randomDeal(random, 14);
+				break;
+			case TENPAI:
+				hands[i] = tenpai(random);
+				break;
+			case WINNING:
+				hands[i] = winning(random);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown corpus: " + kind);
+			}
+		}
+		return hands;
+	}
+
+	/**
+	 * 手牌カウント配列を、牌IDの順に並べた牌のリストに変換します。
+	 *
+	 * @param handCount 手牌カウント配列(34)
+	 * @return 牌のリスト
+	 */
+	public static List<TileType> toList(int[] handCount) {
+		List<TileType> hand = new ArrayList<>();
+		for (int id = 0; id < 34; id++) {
+			for (int n = 0; n < handCount[id]; n++) {
+				hand.add(TileType.getTile(id));
+			}
+		}
+		return hand;
+	}
+
+	/**
+	 * コーパスのファイルから手牌を選びます。テンパイ形には、手牌に4枚ない牌をランダムに1枚ツモらせます。
+	 * コーパスの件数がsizeより少なければ、選んだ手牌を繰り返して埋めます。
+	 */
+	private static int[][] fromFile(boolean tenpai, int size, long seed) {
+		String file = System.getProperty(CORPUS_FILE);
+		if (file == null) {
+			throw new IllegalArgumentException("コーパスのファイルをシステムプロパティ" + CORPUS_FILE + "で指定してください。");
+		}
+		int[][] sample;
+		try {
+			sample = AgariCorpus.sample(Paths.get(file), tenpai, size, seed);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (sample.length == 0) {
+			throw new IllegalArgumentException("コーパスに" + (tenpai ? "テンパイ形" : "あがり形") + "がありません: " + file);
+		}
+		Random random = new Random(seed);
+		int[][] hands = new int[size][];
+		for (int i = 0; i < size; i++) {
+			int[] counts = sample[i % sample.length].clone();
+			if (tenpai) {
+				int draw;
+				do {
+					draw = random.nextInt(34);
+				} while (counts[draw] >= 4);
+				counts[draw]++;
+			}
+			hands[i] = counts;
+		}
+		return hands;
+	}
+
+	/**
+	 * シャッフルした牌山から指定した枚数を配ります。
+	 */
+	private static int[] randomDeal(Random random, int tiles) {
+		List<TileType> wall = new Table().createWall();
+		Collections.shuffle(wall, random);
+		int[] counts = new int[34];
+		for (int i = 0; i < tiles; i++) {
+			counts[wall.get(i).getId()]++;
+		}
+		return counts;
+	}
+
+	/**
+	 * あがり形から1枚抜き、別の1枚をツモった形を作ります。
+	 */
+	private static int[] tenpai(Random random) {
+		int[] counts = winning(random);
+		counts[pick(counts, random)]--;
+		int draw;
+		do {
+			draw = random.nextInt(34);
+		} while (counts[draw] >= 4);
+		counts[draw]++;
+		return counts;
+	}
+
+	/**
+	 * あがり形を作ります。8回に1回は七対子、それ以外は雀頭と刻子・順子を積み上げた一般形です。
+	 */
+	private static int[] winning(Random random) {
+		int[] counts = new int[34];
+		if (random.nextInt(8) == 0) {
+			int pairs = 0;
+			while (pairs < 7) {
+				int id = random.nextInt(34);
+				if (counts[id] == 0) {
+					counts[id] = 2;
+					pairs++;
+				}
+			}
+			return counts;
+		}
+		counts[random.nextInt(34)] += 2;
+		int mentsu = 0;
+		while (mentsu < 4) {
+			if (random.nextInt(10) < 3) {
+				int id = random.nextInt(34);
+				if (counts[id] <= 1) {
+					counts[id] += 3;
+					mentsu++;
+				}
+			} else {
+				int id = random.nextInt(3) * 9 + random.nextInt(7);
+				if (counts[id] < 4 && counts[id + 1] < 4 && counts[id + 2] < 4) {
+					counts[id]++;
+					counts[id + 1]++;
+					counts[id + 2]++;
+					mentsu++;
+				}
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * 手牌からランダムに1枚選び、その牌IDを返します。
+	 */
+	private static int pick(int[] counts, Random random) {
+		int n = random.nextInt(14);
+		for (int id = 0; id < 34; id++) {
+			n -= counts[id];
+			if (n < 0) {
+				return id;
+			}
+		}
+		throw new IllegalStateException("手牌が14枚ではありません。");
+	}
+}
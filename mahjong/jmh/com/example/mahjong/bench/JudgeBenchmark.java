@@ -0,0 +1,139 @@
+package com.example.mahjong.bench;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.mahjong.model.AgariCorpusGenerator;
+import com.example.mahjong.model.CallMatrix;
+import com.example.mahjong.model.Hands;
+import com.example.mahjong.model.Judge;
+import com.example.mahjong.model.TileType;
+
+/**
+ * {@link Judge}のよく呼ばれる判定のベンチマークです。
+ * 手牌はコーパス（{@link HandCorpus}）を順番に使い、呼び出しごとに次の手牌へ進みます。
+ * 既定では乱数で作った手牌を使います。{@link AgariCorpusGenerator}で作ったコーパスの手牌を使う場合は、
+ * {@code -Dmahjong.corpus=ファイル}を付けて{@code -p corpus=corpus-winning,corpus-tenpai}を指定してください。
+ * 割り当て量は {@code -prof gc}（{@link BenchmarkRunner}では既定で有効）で確認してください。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JudgeBenchmark {
+	/** コーパスの手牌の数（2のべき乗） */
+	private static final int SIZE = 1024;
+
+	/** 使うコーパスの種類（{@link HandCorpus#CORPUS_WINNING}などは-pで指定した場合だけ） */
+	@Param({ HandCorpus.RANDOM, HandCorpus.TENPAI, HandCorpus.WINNING })
+	public String corpus;
+
+	/** 14枚の手牌カウント配列 */
+	private int[][] counts;
+	/** 14枚の手牌のリスト */
+	private List<TileType>[] hands;
+	/** 鳴き判定用の13枚の手牌のリスト */
+	private List<TileType>[] hands13;
+	/** 鳴き判定用の捨て牌（手牌から抜いた1枚） */
+	private Map<Integer, List<TileType>>[] discards;
+	/** 鳴き判定用の13枚の手牌カウント配列 */
+	private int[][] counts13;
+	/** 13枚の手牌の待ち牌のビット集合 */
+	private long[] waits13;
+	/** {@link CallMatrix}に渡す席ごとの手牌（席0が捨てた席） */
+	private final int[][] seatCounts = new int[4][];
+	/** {@link CallMatrix}に渡す席ごとの待ち牌 */
+	private final long[] seatWaits = new long[4];
+	/** 次に使う手牌の番号 */
+	private int index;
+
+	@SuppressWarnings("unchecked")
+	@Setup
+	public void setUp() {
+		this.counts = HandCorpus.counts(this.corpus, SIZE, 20240601L);
+		this.hands = new List[SIZE];
+		this.hands13 = new List[SIZE];
+		this.discards = new Map[SIZE];
+		this.counts13 = new int[SIZE][];
+		this.waits13 = new long[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			this.hands[i] = HandCorpus.toList(this.counts[i]);
+			List<TileType> hand13 = HandCorpus.toList(this.counts[i]);
+			TileType discard = hand13.remove(i % hand13.size());
+			this.hands13[i] = hand13;
+			Map<Integer, List<TileType>> map = new HashMap<>();
+			map.put(1, List.of(discard));
+			this.discards[i] = map;
+			this.counts13[i] = this.counts[i].clone();
+			this.counts13[i][discard.getId()]--;
+			this.waits13[i] = Judge.judgeMachi(this.counts13[i]);
+		}
+		// 参照表の構築を計測に含めないよう、先に一度呼んでおく
+		Judge.shanten(this.counts[0]);
+		Judge.judgeAgariByTable(this.counts[0]);
+	}
+
+	private int next() {
+		int i = this.index;
+		this.index = (i + 1) & (SIZE - 1);
+		return i;
+	}
+
+	@Benchmark
+	public int judgeAgari() {
+		return Judge.judgeAgari(this.counts[next()]);
+	}
+
+	@Benchmark
+	public int judgeAgariByTable() {
+		return Judge.judgeAgariByTable(this.counts[next()]);
+	}
+
+	@Benchmark
+	public int judgeTempai() {
+		return Judge.judgeTempai(this.counts[next()]);
+	}
+
+	@Benchmark
+	public int shanten() {
+		return Judge.shanten(this.counts[next()]);
+	}
+
+	@Benchmark
+	public List<Boolean> canCall() {
+		int i = next();
+		return Judge.canCall(this.hands13[i], this.discards[i], 0);
+	}
+
+	@Benchmark
+	public int callMatrix() {
+		int i = next();
+		for (int seat = 1; seat < 4; seat++) {
+			int j = (i + seat) & (SIZE - 1);
+			this.seatCounts[seat] = this.counts13[j];
+			this.seatWaits[seat] = this.waits13[j];
+		}
+		return CallMatrix.evaluate(0, this.discards[i].get(1).get(0).getId(), this.seatCounts, this.seatWaits, 0);
+	}
+
+	@Benchmark
+	public List<Hands> judgeHand() {
+		return Judge.judgeHand(this.hands[next()]);
+	}
+}
@@ -0,0 +1,123 @@
+package com.example.mahjong.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.example.mahjong.model.Table;
+import com.example.mahjong.model.TileType;
+import com.example.mahjong.model.Wall;
+import com.example.mahjong.model.WallFactory;
+
+/**
+ * {@link Table}の牌山の生成と配牌のベンチマークです。
+ * dealHandは牌山を書き換えるため、各ベンチマークはシャッフル済みの牌山を複製してから配ります。
+ * 複製の分の時間と割り当ては{@link #copyWall()}で確認できます。
+ * {@link Wall}を使うベンチマークは、複製の代わりにカーソルを先頭に戻すだけで同じ牌山を配り直します。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TableBenchmark {
+	/** ベンチマーク対象の卓 */
+	private Table table;
+	/** シャッフル済みの牌山（複製元） */
+	private List<TileType> template;
+	/** 配列の牌山 */
+	private final Wall wall = new Wall();
+	/** 配列の牌山をシャッフルする乱数（比較用の{@link Random}） */
+	private final Random random = new Random(20240601L);
+	/** 配列の牌山をシャッフルする乱数。スレッドごとに独立した乱数列を持ちます */
+	private final WallFactory factory = new WallFactory(20240601L);
+	/** 配牌先の手牌カウント配列 */
+	private final int[][] counts = new int[4][34];
+
+	@Setup
+	public void setUp() {
+		this.table = new Table();
+		this.template = this.table.createShuffledWall();
+		this.wall.fill(this.template);
+	}
+
+	@Benchmark
+	public List<TileType> createShuffledWall() {
+		return this.table.createShuffledWall();
+	}
+
+	@Benchmark
+	public List<TileType> copyWall() {
+		return new ArrayList<>(this.template);
+	}
+
+	/**
+	 * 4人に13枚ずつ配牌します。
+	 */
+	@Benchmark
+	public void dealHaipai(Blackhole blackhole) {
+		List<TileType> wall = new ArrayList<>(this.template);
+		for (int seat = 0; seat < 4; seat++) {
+			blackhole.consume(this.table.dealHand(wall, 13));
+		}
+	}
+
+	/**
+	 * 配牌後の牌山から、王牌14枚を残して1枚ずつツモします（1局分のツモ）。
+	 */
+	@Benchmark
+	public void dealTsumo(Blackhole blackhole) {
+		List<TileType> wall = new ArrayList<>(this.template);
+		this.table.dealHand(wall, 52);
+		while (wall.size() > 14) {
+			blackhole.consume(this.table.dealHand(wall, 1));
+		}
+	}
+
+	@Benchmark
+	public Wall shuffleWall() {
+		this.wall.shuffle(this.random);
+		return this.wall;
+	}
+
+	/**
+	 * {@link WallFactory}で牌山をシャッフルします。{@code -t}でスレッドを増やしても乱数を共有しません。
+	 */
+	@Benchmark
+	public Wall shuffleWallFactory() {
+		this.factory.shuffle(this.wall);
+		return this.wall;
+	}
+
+	/**
+	 * 配列の牌山で、4人に13枚ずつ配牌してから王牌を残して1枚ずつツモします（1局分）。
+	 */
+	@Benchmark
+	public int wallHaipaiAndTsumo() {
+		this.wall.rewind();
+		for (int[] count : this.counts) {
+			Arrays.fill(count, 0);
+			this.wall.deal(count, 13);
+		}
+		int sum = 0;
+		for (int id = this.wall.draw(); id >= 0; id = this.wall.draw()) {
+			sum += id;
+		}
+		return sum;
+	}
+}
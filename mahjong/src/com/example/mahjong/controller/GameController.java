@@ -1,13 +1,13 @@
 package com.example.mahjong.controller;
 
-import java.util.Collections;
 import java.util.List;
 
+import com.example.mahjong.model.AgariContext;
+import com.example.mahjong.model.DiscardAnalyzer;
 import com.example.mahjong.model.Player;
 import com.example.mahjong.model.Table;
 import com.example.mahjong.model.TileType;
 import com.example.mahjong.model.Hands;
-import com.example.mahjong.model.Judge;
 import com.example.mahjong.view.ConsoleView;
 
 /**
@@ -21,6 +21,10 @@ public class GameController {
     private Player player;
     /** ユーザーインターフェースを担当するビュー */
     private ConsoleView view;
+    /** 打牌の候補を評価するアナライザー */
+    private DiscardAnalyzer analyzer;
+    /** 打牌の見込み点数の計算に使うあがり状況 */
+    private AgariContext adviceContext;
 
     /**
      * GameControllerの新しいインスタンスを生成します。
@@ -30,6 +34,8 @@ public class GameController {
         this.table = new Table();
         this.player = new Player();
         this.view = new ConsoleView();
+        this.analyzer = new DiscardAnalyzer();
+        this.adviceContext = new AgariContext();
     }
 
     /**
@@ -45,6 +51,7 @@ public class GameController {
         }
 
         table.setWall(table.createShuffledWall());
+        table.revealDora();
         player.haipai(table.dealHand(table.getWall(), 13));
 
         gameLoop();
@@ -61,32 +68,34 @@ public class GameController {
         boolean gameFinished = false;
         while (!gameFinished) {
             // 1. ツモ (牌を1枚引く)
-            List<TileType> drawnTileList = table.dealHand(table.getWall(), 1);
-            if (drawnTileList.isEmpty()) {
+            TileType drawnTile = table.draw();
+            if (drawnTile == null) {
                 System.out.println("牌山がなくなりました。流局です。");
                 break;
             }
-            TileType drawnTile = drawnTileList.get(0);
-            player.tsumo(Collections.singletonList(drawnTile));
+            player.tsumo(drawnTile);
             view.showDrawnTile(drawnTile);
 
-            // 2. Check for Agari or Tenpai
-            List<Integer> judgeResult = Judge.judgeDuringTheGame(player.getHand());
-            if (judgeResult.get(0) == 1) { // Agari
+            // 2. Check for Agari or Tenpai (agari is a bit test on every tsumo; tenpai is searched only when asked)
+            if (player.isAgari()) {
                 List<Hands> winningHands = player.agari();
                 view.showAgari(winningHands);
                 gameFinished = true;
                 continue;
             }
-            if (judgeResult.get(1) == 1) { // Tenpai
+            if (player.isTenpai()) {
                 view.showTenpai();
             }
 
             // 3. Discard a tile
+            adviceContext.setSeatWind(player.getWind());
+            adviceContext.setFieldWind(table.getFieldWind());
+            adviceContext.setRiichi(player.isRiichi());
+            view.showDiscardAdvice(analyzer.analyze(player, table, adviceContext));
             view.displayHand(player.getHand());
             int discardIndex = view.getDiscardTileIndex(player.getHand().size());
             TileType discardedTile = player.discard(discardIndex);
-            // table.setDiscard(...); // The old discard logic needs refactoring
+            table.addDiscard(player.getWind(), discardedTile);
             view.showDiscardedTile(discardedTile);
 
             // This is a simplified loop. In a real game, you'd handle other players' turns, calls (pon, chi, kan), etc.
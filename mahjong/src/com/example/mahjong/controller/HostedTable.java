@@ -0,0 +1,98 @@
+package com.example.mahjong.controller;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+
+/**
+ * {@link TableHost}で動いている1つの卓です。卓の状態の確認と、取り消しに使います。
+ */
+public final class HostedTable {
+    /** 卓の番号 */
+    private final long id;
+    /** 牌山のシード */
+    private final long seed;
+    /** 行う対局の数 */
+    private final long games;
+    /** ゲームループの仮想スレッド */
+    private final Thread thread;
+    /** 卓が閉じたときに完了する結果 */
+    private final CompletableFuture<SimulationResult> completion = new CompletableFuture<>();
+    /** 終わった対局の数 */
+    private volatile long gamesPlayed;
+    /** 取り消されたか */
+    private volatile boolean cancelled;
+
+    /**
+     * 卓を生成します。ゲームループのスレッドは作るだけで、開始は{@link TableHost}が行います。
+     */
+    HostedTable(long id, long seed, long games, ThreadFactory factory, Consumer<HostedTable> loop) {
+        this.id = id;
+        this.seed = seed;
+        this.games = games;
+        this.thread = factory.newThread(() -> loop.accept(this));
+    }
+
+    /**
+     * 卓を取り消します。入力を待っている場合は割り込みで待ちを抜け、今の対局の途中で卓を閉じます。
+     * すでに閉じている場合は何もしません。
+     */
+    public void cancel() {
+        if (!this.completion.isDone()) {
+            this.cancelled = true;
+            this.thread.interrupt();
+        }
+    }
+
+    /**
+     * 卓が閉じたときに完了する結果を返します。
+     * 正常に終われば集計結果で、取り消されれば取り消し、対局中に例外が発生すればその例外で完了します。
+     *
+     * @return 卓の結果
+     */
+    public CompletableFuture<SimulationResult> getCompletion() {
+        return this.completion;
+    }
+
+    /**
+     * 卓が閉じているかを返します。
+     *
+     * @return 閉じていればtrue
+     */
+    public boolean isDone() {
+        return this.completion.isDone();
+    }
+
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getGamesPlayed() {
+        return gamesPlayed;
+    }
+
+    void setGamesPlayed(long gamesPlayed) {
+        this.gamesPlayed = gamesPlayed;
+    }
+
+    Thread getThread() {
+        return thread;
+    }
+
+    @Override
+    public String toString() {
+        return "HostedTable[" + this.id + ", " + this.gamesPlayed + "/" + this.games + "]";
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.mahjong.controller;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.example.mahjong.model.CallMatrix;
+import com.example.mahjong.model.Strategy;
+import com.example.mahjong.model.Table;
+
+/**
+ * 人間やネットワークの向こうのプレイヤーが座る席です。
+ *
+ * ゲームループは判断が必要になると{@link #getPending()}に尋ねている内容を置き、{@link #submit(long, int)}で答えが渡されるまで待ちます。
+ * 問いには{@link #getQuestion()}で番号がつき、答えはその番号と一緒に渡します。時間切れの後に届いた答えのように、
+ * 今の問いと番号が違う答えは捨てるため、前の問いへの答えが次の問いの答えとして使われることはありません。
+ * 答えは1つだけ置いておけるので、ゲームループが待ち始める前に届いた答えも、問いの番号が合っていれば受け取ります。
+ * 待っている間の仮想スレッドは止まっているだけなので、入力を待つ卓がいくつあってもプラットフォームスレッドは増えません。
+ * 制限時間を指定した場合は、時間内に答えがなければ代わりの戦略で判断します。
+ */
+public class QueuedSeatInput implements SeatInput {
+
+    /**
+     * ゲームループが尋ねている内容です。
+     */
+    public enum Request {
+        /** 捨てる牌（答えは牌ID） */
+        DISCARD,
+        /** リーチするか（答えは1か0） */
+        RIICHI,
+        /** ロンするか（答えは1か0） */
+        RON,
+        /** ポンするか（答えは1か0） */
+        PON,
+        /** チーするか（答えは1か0） */
+        CHII
+    }
+
+    /** 答えを1つだけ置いておく場所。問いを置くたびに空にします */
+    private final ArrayBlockingQueue<Answer> answers = new ArrayBlockingQueue<>(1);
+    /** 制限時間（ナノ秒）。0なら制限なし */
+    private final long timeoutNanos;
+    /** 時間切れのときに使う戦略 */
+    private final Strategy fallback;
+    /** 尋ねている内容。尋ねていなければnull */
+    private volatile Request pending;
+    /** 尋ねている牌のID（ツモした牌や捨て牌）。なければ-1 */
+    private volatile int pendingTile = -1;
+    /** 尋ねている問いの番号。問いを置くたびに増えます */
+    private volatile long question;
+
+    /**
+     * 問いの番号つきの答えです。
+     */
+    private static final class Answer {
+        /** 答えた問いの番号 */
+        final long question;
+        /** 答え */
+        final int value;
+
+        Answer(long question, int value) {
+            this.question = question;
+            this.value = value;
+        }
+    }
+
+    /**
+     * 制限時間なしで答えを待つ席を生成します。
+     */
+    public QueuedSeatInput() {
+        this(0, TimeUnit.NANOSECONDS, null);
+    }
+
+    /**
+     * 制限時間つきで答えを待つ席を生成します。
+     *
+     * @param timeout 制限時間。0なら制限なし
+     * @param unit 制限時間の単位
+     * @param fallback 時間切れのときに使う戦略。nullなら既定の戦略
+     */
+    public QueuedSeatInput(long timeout, TimeUnit unit, Strategy fallback) {
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.fallback = fallback != null ? fallback : new Strategy() {};
+    }
+
+    /**
+     * ゲームループに答えを渡します。何も尋ねていないか、今の問いと番号が違えば何もしません。
+     * ゲームループがまだ待ち始めていなくても、答えは置いておかれ、待ち始めたときに受け取られます。
+     * 同じ問いへの答えがまだ受け取られずに残っている場合は、その答えを優先してfalseを返します。
+     * 手牌にない牌を捨てようとした答えは無視され、ゲームループは次の答えを待ち続けます。
+     *
+     * @param question 答える問いの番号（{@link #getQuestion()}）
+     * @param answer 牌ID、またはするなら1・しないなら0
+     * @return 答えを置けたならtrue
+     */
+    public boolean submit(long question, int answer) {
+        Answer submitted = new Answer(question, answer);
+        while (true) {
+            if (this.pending == null || question != this.question) {
+                return false;
+            }
+            if (this.answers.offer(submitted)) {
+                return true;
+            }
+            Answer queued = this.answers.peek();
+            if (queued != null && queued.question == question) {
+                return false;
+            }
+            // 前の問いへの答えが残っているので捨てて置き直す
+            if (queued != null) {
+                this.answers.remove(queued);
+            }
+        }
+    }
+
+    /**
+     * ゲームループが尋ねている内容を返します。
+     *
+     * @return 尋ねている内容。尋ねていなければnull
+     */
+    public Request getPending() {
+        return this.pending;
+    }
+
+    /**
+     * 尋ねている問いの番号を返します。{@link #getPending()}が変わらなくても、問いを置き直せば番号は変わります。
+     *
+     * @return 問いの番号
+     */
+    public long getQuestion() {
+        return this.question;
+    }
+
+    /**
+     * 尋ねている牌のIDを返します。捨てる牌ならツモした牌、鳴きやロンなら捨て牌です。
+     *
+     * @return 牌ID。なければ-1
+     */
+    public int getPendingTile() {
+        return this.pendingTile;
+    }
+
+    @Override
+    public int selectDiscard(int[] handCount, int drawnTile, Table table, int seat) throws InterruptedException {
+        ask(Request.DISCARD, drawnTile);
+        try {
+            long deadline = System.nanoTime() + this.timeoutNanos;
+            while (true) {
+                Integer answer = await(deadline);
+                if (answer == null) {
+                    return this.fallback.selectDiscard(handCount, drawnTile, table, seat);
+                }
+                if (answer >= 0 && answer < handCount.length && handCount[answer] > 0) {
+                    return answer;
+                }
+            }
+        } finally {
+            this.pending = null;
+        }
+    }
+
+    @Override
+    public boolean declareRiichi(int[] handCount, long waitMask, Table table, int seat) throws InterruptedException {
+        ask(Request.RIICHI, -1);
+        try {
+            Integer answer = await(System.nanoTime() + this.timeoutNanos);
+            return answer == null ? this.fallback.declareRiichi(handCount, waitMask, table, seat) : answer != 0;
+        } finally {
+            this.pending = null;
+        }
+    }
+
+    @Override
+    public boolean call(int action, int tileId, int[] handCount, Table table, int seat) throws InterruptedException {
+        ask(action == CallMatrix.RON ? Request.RON : action == CallMatrix.PON ? Request.PON : Request.CHII, tileId);
+        try {
+            Integer answer = await(System.nanoTime() + this.timeoutNanos);
+            return answer == null ? this.fallback.call(action, tileId, handCount, table, seat) : answer != 0;
+        } finally {
+            this.pending = null;
+        }
+    }
+
+    private void ask(Request request, int tile) {
+        this.answers.clear();
+        this.pendingTile = tile;
+        this.question++;
+        this.pending = request;
+    }
+
+    /**
+     * 今の問いへの答えを待ちます。番号の違う答えは捨てて待ち続けます。
+     *
+     * @param deadline 待つ期限（{@link System#nanoTime()}の値）。制限時間がなければ使いません
+     * @return 答え。時間切れならnull
+     */
+    private Integer await(long deadline) throws InterruptedException {
+        while (true) {
+            Answer answer;
+            if (this.timeoutNanos == 0) {
+                answer = this.answers.take();
+            } else {
+                answer = this.answers.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (answer == null) {
+                    return null;
+                }
+            }
+            if (answer.question == this.question) {
+                return answer.value;
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.mahjong.controller;
+
+import java.util.concurrent.CancellationException;
+
+import com.example.mahjong.model.Strategy;
+import com.example.mahjong.model.Table;
+
+/**
+ * {@link TableHost}の卓の1つの席に、打牌などの判断を入力するインターフェースです。
+ *
+ * 卓のゲームループは仮想スレッドで動くため、人間の入力やネットワークを待って長くブロックしても、
+ * プラットフォームスレッドを占有しません。卓が閉じられるとブロック中のスレッドに割り込みが入るので、
+ * 待っている場合は{@link InterruptedException}をそのまま投げてください。
+ * 渡される配列と卓はゲームループのものなので、書き換えた場合は戻る前に元に戻してください。
+ */
+public interface SeatInput {
+
+    /**
+     * 3n+2枚の手牌から捨てる牌を選びます。
+     *
+     * @param handCount 副露していない部分の手牌カウント配列(34)
+     * @param drawnTile ツモした牌のID。鳴いた直後なら-1
+     * @param table 卓
+     * @param seat 自分の席
+     * @return 捨てる牌のID。手牌にある牌でなければなりません
+     * @throws InterruptedException 卓が閉じられた場合
+     */
+    int selectDiscard(int[] handCount, int drawnTile, Table table, int seat) throws InterruptedException;
+
+    /**
+     * テンパイしたときにリーチするかを決めます。
+     *
+     * @param handCount 打牌後の手牌カウント配列(34)
+     * @param waitMask 待ち牌のビット集合
+     * @param table 卓
+     * @param seat 自分の席
+     * @return リーチするならtrue
+     * @throws InterruptedException 卓が閉じられた場合
+     */
+    boolean declareRiichi(int[] handCount, long waitMask, Table table, int seat) throws InterruptedException;
+
+    /**
+     * ほかの席の捨て牌に対して、ロン・ポン・チーをするかを決めます。
+     *
+     * @param action {@link com.example.mahjong.model.CallMatrix#RON}などの行動
+     * @param tileId 捨て牌のID
+     * @param handCount 自分の手牌カウント配列(34)
+     * @param table 卓
+     * @param seat 自分の席
+     * @return するならtrue
+     * @throws InterruptedException 卓が閉じられた場合
+     */
+    boolean call(int action, int tileId, int[] handCount, Table table, int seat) throws InterruptedException;
+
+    /**
+     * 戦略をそのまま使う、ブロックしない席（ボット）を作ります。
+     *
+     * @param strategy 戦略
+     * @return 席の入力
+     */
+    static SeatInput bot(Strategy strategy) {
+        return new SeatInput() {
+            @Override
+            public int selectDiscard(int[] handCount, int drawnTile, Table table, int seat) {
+                return strategy.selectDiscard(handCount, drawnTile, table, seat);
+            }
+
+            @Override
+            public boolean declareRiichi(int[] handCount, long waitMask, Table table, int seat) {
+                return strategy.declareRiichi(handCount, waitMask, table, seat);
+            }
+
+            @Override
+            public boolean call(int action, int tileId, int[] handCount, Table table, int seat) {
+                return strategy.call(action, tileId, handCount, table, seat);
+            }
+        };
+    }
+
+    /**
+     * 席の入力を、ゲームループが使う戦略に変換します。
+     * 待っている間に割り込まれた場合は、割り込み状態を戻して{@link CancellationException}を投げ、ゲームループを抜けます。
+     *
+     * @param input 席の入力
+     * @return 戦略
+     */
+    static Strategy asStrategy(SeatInput input) {
+        return new Strategy() {
+            @Override
+            public int selectDiscard(int[] handCount, int drawnTile, Table table, int seat) {
+                try {
+                    return input.selectDiscard(handCount, drawnTile, table, seat);
+                } catch (InterruptedException e) {
+                    throw cancelled();
+                }
+            }
+
+            @Override
+            public boolean declareRiichi(int[] handCount, long waitMask, Table table, int seat) {
+                try {
+                    return input.declareRiichi(handCount, waitMask, table, seat);
+                } catch (InterruptedException e) {
+                    throw cancelled();
+                }
+            }
+
+            @Override
+            public boolean call(int action, int tileId, int[] handCount, Table table, int seat) {
+                try {
+                    return input.call(action, tileId, handCount, table, seat);
+                } catch (InterruptedException e) {
+                    throw cancelled();
+                }
+            }
+
+            private CancellationException cancelled() {
+                Thread.currentThread().interrupt();
+                return new CancellationException("卓が閉じられました。");
+            }
+        };
+    }
+}
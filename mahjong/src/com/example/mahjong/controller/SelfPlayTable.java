@@ -0,0 +1,479 @@
+package com.example.mahjong.controller;
+
+import java.util.List;
+import java.util.function.IntFunction;
+
+import com.example.mahjong.model.AgariContext;
+import com.example.mahjong.model.CallMatrix;
+import com.example.mahjong.model.GameEventType;
+import com.example.mahjong.model.Judge;
+import com.example.mahjong.model.MentsuDecomposer;
+import com.example.mahjong.model.Score;
+import com.example.mahjong.model.ScoreCalculator;
+import com.example.mahjong.model.Strategy;
+import com.example.mahjong.model.Table;
+import com.example.mahjong.model.TileType;
+import com.example.mahjong.model.Wall;
+import com.example.mahjong.model.WallFactory;
+import com.example.mahjong.model.YakuEvaluator;
+import com.example.mahjong.record.GameRecorder;
+import com.example.mahjong.record.RecordFormat;
+
+/**
+ * 1つのワーカーが使う、コンソールを使わない自動対局の卓です。
+ *
+ * 卓・牌山・手牌カウント配列・判定器などを1組だけ持ち、局ごとに作り直さずに使い回します。
+ * 対局ごとに{@link WallFactory#forGame(long, long)}で牌山を作るため、同じシードと対局の番号からは、
+ * どのワーカーが処理しても同じ対局になります（戦略が乱数を使わない場合）。
+ *
+ * ルールは東風戦で、親のあがりかテンパイでの流局なら連荘、4回親が流れるか誰かの点数がマイナスになれば終了です。
+ * ロンは頭ハネで、ダブロンと途中流局はありません。鳴きはポンとチーだけで、カンはしません。
+ * ルールを簡単にするため、リーチ宣言牌で放銃してもリーチは成立したものとし、宣言した席が払ったリーチ棒はあがった席が受け取ります。
+ * 局の進行は{@link GameEventType}のイベントとして卓から配信します。購読者がいなければ配信の処理は行いません。
+ * {@link GameRecorder}を設定すれば、すべての局を牌譜として記録します。
+ */
+final class SelfPlayTable {
+    /** 配給原点 */
+    private static final int INITIAL_POINTS = 25000;
+    /** 流局時のノーテン罰符の合計 */
+    private static final int NOTEN_PENALTY = 3000;
+    /** 1対局の局数の上限（連荘が続きすぎた場合の打ち切り） */
+    private static final int MAX_HANDS = 64;
+
+    /** 席ごとの戦略 */
+    private final Strategy[] strategies = new Strategy[4];
+    /** 卓（捨て牌・見えている牌・フリテン・積み棒） */
+    private final Table table = new Table();
+    /** 席ごとの、副露していない部分の手牌カウント配列 */
+    private final int[][] hands = new int[4][34];
+    /** 席ごとの待ち牌のビット集合 */
+    private final long[] waits = new long[4];
+    /** 席ごとの、ロンに使える待ち牌のビット集合（作業用） */
+    private final long[] ronWaits = new long[4];
+    /** 席ごとの副露と自風 */
+    private final AgariContext[] contexts = new AgariContext[4];
+    /** あがり判定に使うあがり状況（作業用） */
+    private final AgariContext context = new AgariContext();
+    /** 席ごとの点数 */
+    private final int[] points = new int[4];
+    /** 席ごとの点数の増減（作業用） */
+    private final int[] deltas = new int[4];
+    /** リーチしている席のビット集合 */
+    private int riichiSeats;
+    /** 供託されているリーチ棒の数 */
+    private int sticks;
+    /** 牌山 */
+    private Wall wall;
+    private final YakuEvaluator evaluator = new YakuEvaluator();
+    private final ScoreCalculator calculator = new ScoreCalculator();
+    /** 集計結果 */
+    private final SimulationResult result = new SimulationResult();
+    /** 局の記録。記録しなければnull */
+    private GameRecorder recorder;
+    /** 対局中の全体のシード */
+    private long seed;
+    /** 対局中の対局の番号 */
+    private long game;
+
+    /**
+     * 席ごとの戦略を作って卓を生成します。
+     *
+     * @param strategies 席(0〜3)を受け取って戦略を返す関数
+     */
+    SelfPlayTable(IntFunction<? extends Strategy> strategies) {
+        for (int seat = 0; seat < 4; seat++) {
+            this.strategies[seat] = strategies.apply(seat);
+            this.contexts[seat] = new AgariContext();
+        }
+    }
+
+    /**
+     * 1対局（東風戦）を最後まで行い、結果を集計に加えます。
+     *
+     * @param seed 全体のシード
+     * @param game 対局の番号
+     */
+    void playGame(long seed, long game) {
+        this.seed = seed;
+        this.game = game;
+        this.table.setWallFactory(WallFactory.forGame(seed, game));
+        for (int seat = 0; seat < 4; seat++) {
+            this.points[seat] = INITIAL_POINTS;
+        }
+        this.sticks = 0;
+        int dealer = 0;
+        int honba = 0;
+        int dealerChanges = 0;
+        for (int hand = 0; hand < MAX_HANDS && dealerChanges < 4; hand++) {
+            int winner = playHand(dealer, honba, hand);
+            this.result.hands++;
+            if (isBusted()) {
+                break;
+            }
+            boolean dealerKeeps = winner == dealer || winner < 0 && this.waits[dealer] != 0;
+            if (winner < 0 || dealerKeeps) {
+                honba++;
+            } else {
+                honba = 0;
+            }
+            if (!dealerKeeps) {
+                dealer = (dealer + 1) & 3;
+                dealerChanges++;
+            }
+        }
+        for (int seat = 0; seat < 4; seat++) {
+            this.result.points[seat] += this.points[seat] - INITIAL_POINTS;
+        }
+        this.result.games++;
+    }
+
+    /**
+     * 1局を行います。
+     *
+     * @param dealer 親の席
+     * @param honba 積み棒の数
+     * @param index 対局の中での局の番号
+     * @return あがった席。流局なら-1
+     */
+    private int playHand(int dealer, int honba, int index) {
+        startHand(dealer, honba, index);
+        int seat = dealer;
+        boolean draw = true;
+        while (true) {
+            int[] hand = this.hands[seat];
+            int drawn = -1;
+            if (draw) {
+                drawn = this.wall.draw();
+                if (drawn < 0) {
+                    exhaustiveDraw();
+                    endRound();
+                    return -1;
+                }
+                hand[drawn]++;
+                this.table.publish(GameEventType.DRAW, seat, drawn, -1, 0, 0L);
+                if (this.recorder != null) {
+                    this.recorder.draw(seat, drawn);
+                }
+                if ((this.waits[seat] >>> drawn & 1L) != 0 && win(seat, drawn, -1)) {
+                    endRound();
+                    return seat;
+                }
+            }
+
+            boolean riichi = (this.riichiSeats >>> seat & 1) != 0;
+            int discard = riichi && drawn >= 0 ? drawn : this.strategies[seat].selectDiscard(hand, drawn, this.table, seat);
+            if (discard < 0 || discard >= 34 || hand[discard] == 0) {
+                throw new IllegalStateException("Strategy for seat " + seat + " returned an invalid discard: " + discard);
+            }
+            hand[discard]--;
+            if (discard != drawn) {
+                this.waits[seat] = Judge.judgeMachi(hand);
+            }
+            boolean declared = false;
+            if (!riichi && this.waits[seat] != 0 && this.contexts[seat].isMenzen() && this.points[seat] >= 1000
+                    && this.wall.remaining() >= 4
+                    && this.strategies[seat].declareRiichi(hand, this.waits[seat], this.table, seat)) {
+                this.riichiSeats |= 1 << seat;
+                declared = true;
+                this.points[seat] -= 1000;
+                this.sticks++;
+                this.table.setRiichiStick(this.sticks);
+                this.result.riichi++;
+                this.table.publish(GameEventType.RIICHI, seat, discard, -1, 0, this.waits[seat]);
+            }
+            this.table.addDiscard(seat, TileType.getTile(discard));
+            if (this.recorder != null) {
+                this.recorder.discard(seat, discard, discard == drawn, declared);
+            }
+            this.table.publish(GameEventType.DISCARD, seat, discard, -1, discard == drawn ? 1 : 0, this.waits[seat]);
+
+            for (int s = 0; s < 4; s++) {
+                this.ronWaits[s] = this.table.ronWaitMask(s, this.waits[s]);
+            }
+            int matrix = CallMatrix.evaluate(seat, discard, this.hands, this.ronWaits, this.riichiSeats);
+            for (int i = 1; i < 4; i++) {
+                int other = (seat + i) & 3;
+                if ((CallMatrix.options(matrix, other) & CallMatrix.RON) != 0) {
+                    if (win(other, discard, seat)) {
+                        endRound();
+                        return other;
+                    }
+                    this.table.passRon(other, (this.riichiSeats >>> other & 1) != 0);
+                }
+            }
+
+            int caller = this.wall.remaining() > 0 ? call(seat, discard, matrix) : -1;
+            if (caller >= 0) {
+                seat = caller;
+                draw = false;
+            } else {
+                seat = (seat + 1) & 3;
+                draw = true;
+            }
+        }
+    }
+
+    /**
+     * 局の始めの状態にし、配牌します。
+     */
+    private void startHand(int dealer, int honba, int index) {
+        Table table = this.table;
+        table.shuffleWall();
+        if (this.recorder != null) {
+            this.recorder.beginRound(this.seed, this.game, index, dealer, 0, honba, this.sticks, this.points,
+                    table.getLiveWall());
+        }
+        table.clearVisible();
+        table.clearFuriten();
+        for (List<TileType> discards : table.getDiscard().values()) {
+            discards.clear();
+        }
+        table.setHonba(honba);
+        table.setRiichiStick(this.sticks);
+        this.wall = table.getLiveWall();
+        table.revealDora();
+        this.riichiSeats = 0;
+        for (int seat = 0; seat < 4; seat++) {
+            int[] hand = this.hands[seat];
+            for (int t = 0; t < 34; t++) {
+                hand[t] = 0;
+            }
+            this.wall.deal(hand, 13);
+            this.waits[seat] = Judge.judgeMachi(hand);
+            AgariContext ctx = this.contexts[seat];
+            ctx.reset();
+            ctx.setSeatWind((seat - dealer) & 3);
+            ctx.setFieldWind(0);
+        }
+        table.publish(GameEventType.HAND_START, dealer, -1, -1, honba, 0L);
+    }
+
+    /**
+     * あがれるかを調べ、あがれるなら点数を移します。
+     * ツモなら手牌にツモした牌が入っている状態で、ロンなら戦略があがると決めた場合だけあがります。
+     *
+     * @param seat あがる席
+     * @param tile あがり牌
+     * @param loser 放銃した席。ツモなら-1
+     * @return あがったならtrue。役がないか、ロンを見逃したならfalse
+     */
+    private boolean win(int seat, int tile, int loser) {
+        boolean tsumo = loser < 0;
+        int[] hand = this.hands[seat];
+        AgariContext ctx = this.context;
+        ctx.copyFrom(this.contexts[seat]);
+        ctx.setTsumo(tsumo);
+        ctx.setAgariTile(tile);
+        ctx.setRiichi((this.riichiSeats >>> seat & 1) != 0);
+        if (this.wall.remaining() == 0) {
+            if (tsumo) {
+                ctx.setHaitei(true);
+            } else {
+                ctx.setHoutei(true);
+            }
+        }
+        if (!tsumo) {
+            hand[tile]++;
+        }
+        try {
+            if (this.evaluator.evaluate(hand, ctx) == 0L) {
+                return false;
+            }
+            if (!tsumo && !this.strategies[seat].call(CallMatrix.RON, tile, hand, this.table, seat)) {
+                return false;
+            }
+            Score score = this.calculator.calculate(this.evaluator, ctx, countDora(hand, ctx), seat, loser,
+                    this.table.getHonba(), this.sticks);
+            for (int s = 0; s < 4; s++) {
+                this.points[s] += score.getDelta(s);
+            }
+            if (this.recorder != null) {
+                // 待ちの形はあがり牌を除いた13枚形で求める（ツモでもロンでも、ここでは手牌に入っている）
+                hand[tile]--;
+                int waitShape = Judge.judgeMachiShape(hand, tile);
+                hand[tile]++;
+                this.recorder.win(seat, tile, loser, waitShape, score);
+            }
+            this.sticks = 0;
+            this.table.setRiichiStick(0);
+            this.result.han += score.getHan();
+            this.table.publish(GameEventType.WIN, seat, tile, loser, score.getHan(), score.getHands());
+            if (tsumo) {
+                this.result.tsumo++;
+            } else {
+                this.result.ron++;
+            }
+            return true;
+        } finally {
+            if (!tsumo) {
+                hand[tile]--;
+            }
+        }
+    }
+
+    /**
+     * 手牌と副露にあるドラの枚数を数えます。リーチしていれば裏ドラも数えます。
+     */
+    private int countDora(int[] hand, AgariContext ctx) {
+        int dora = 0;
+        for (int i = 0; i < this.wall.getIndicatorCount(); i++) {
+            dora += countTile(hand, ctx, TileType.doraOf(this.wall.getIndicator(i)));
+            if (ctx.isRiichi()) {
+                dora += countTile(hand, ctx, TileType.doraOf(this.wall.getUraIndicator(i)));
+            }
+        }
+        return dora;
+    }
+
+    private static int countTile(int[] hand, AgariContext ctx, int tile) {
+        int count = hand[tile];
+        for (int i = 0; i < ctx.getMeldCount(); i++) {
+            int first = ctx.getMeldTile(i);
+            switch (ctx.getMeldKind(i)) {
+                case MentsuDecomposer.KOUTSU:
+                    count += first == tile ? 3 : 0;
+                    break;
+                case MentsuDecomposer.SHUNTSU:
+                    count += tile >= first && tile <= first + 2 ? 1 : 0;
+                    break;
+                default:
+                    count += first == tile ? 4 : 0;
+                    break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * ポン・チーできる席に順に尋ね、鳴いた席があれば手牌と副露を更新します。
+     * ポンできる席をチーできる席より先に尋ねます。河底牌は鳴けないため、呼び出し側で除きます。
+     *
+     * @return 鳴いた席。誰も鳴かなければ-1
+     */
+    private int call(int discarder, int tile, int matrix) {
+        for (int i = 1; i < 4; i++) {
+            int seat = (discarder + i) & 3;
+            if ((CallMatrix.options(matrix, seat) & CallMatrix.PON) != 0
+                    && this.strategies[seat].call(CallMatrix.PON, tile, this.hands[seat], this.table, seat)) {
+                this.hands[seat][tile] -= 2;
+                this.contexts[seat].addMeld(MentsuDecomposer.KOUTSU, tile, true);
+                this.table.addExposed(tile, 2);
+                if (this.recorder != null) {
+                    this.recorder.call(RecordFormat.PON, seat, tile, tile, discarder);
+                }
+                this.table.publish(GameEventType.CALL, seat, tile, discarder, CallMatrix.PON, tile);
+                this.result.calls++;
+                return seat;
+            }
+        }
+        int seat = (discarder + 1) & 3;
+        if ((CallMatrix.options(matrix, seat) & CallMatrix.CHII) != 0
+                && this.strategies[seat].call(CallMatrix.CHII, tile, this.hands[seat], this.table, seat)) {
+            int[] hand = this.hands[seat];
+            int number = tile % 9;
+            int first;
+            if (number >= 2 && hand[tile - 2] > 0 && hand[tile - 1] > 0) {
+                first = tile - 2;
+            } else if (number >= 1 && number <= 7 && hand[tile - 1] > 0 && hand[tile + 1] > 0) {
+                first = tile - 1;
+            } else {
+                first = tile;
+            }
+            for (int t = first; t < first + 3; t++) {
+                if (t != tile) {
+                    hand[t]--;
+                    this.table.addExposed(t, 1);
+                }
+            }
+            this.contexts[seat].addMeld(MentsuDecomposer.SHUNTSU, first, true);
+            if (this.recorder != null) {
+                this.recorder.call(RecordFormat.CHII, seat, tile, first, discarder);
+            }
+            this.table.publish(GameEventType.CALL, seat, tile, discarder, CallMatrix.CHII, first);
+            this.result.calls++;
+            return seat;
+        }
+        return -1;
+    }
+
+    /**
+     * 荒牌流局の処理です。テンパイの席がノーテンの席から罰符を受け取ります。
+     */
+    private void exhaustiveDraw() {
+        int tenpai = 0;
+        int tenpaiSeats = 0;
+        for (int seat = 0; seat < 4; seat++) {
+            if (this.waits[seat] != 0) {
+                tenpai++;
+                tenpaiSeats |= 1 << seat;
+            }
+        }
+        for (int seat = 0; seat < 4; seat++) {
+            int delta = 0;
+            if (tenpai > 0 && tenpai < 4) {
+                delta = this.waits[seat] != 0 ? NOTEN_PENALTY / tenpai : -NOTEN_PENALTY / (4 - tenpai);
+            }
+            this.deltas[seat] = delta;
+            this.points[seat] += delta;
+        }
+        this.result.draws++;
+        if (this.recorder != null) {
+            this.recorder.exhaustiveDraw(tenpaiSeats, this.deltas);
+        }
+        this.table.publish(GameEventType.EXHAUSTIVE_DRAW, -1, -1, -1, 0, tenpaiSeats);
+    }
+
+    /**
+     * 局の記録を終えます。
+     */
+    private void endRound() {
+        if (this.recorder != null) {
+            this.recorder.endRound();
+        }
+    }
+
+    private boolean isBusted() {
+        for (int seat = 0; seat < 4; seat++) {
+            if (this.points[seat] < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 直前の対局の終了時（対局中なら今）の点数を返します。
+     *
+     * @param seat 席(0〜3)
+     * @return 点数
+     */
+    int getPoints(int seat) {
+        return this.points[seat];
+    }
+
+    /**
+     * 局の記録先を設定します。nullなら記録しません。
+     *
+     * @param recorder 局の記録
+     */
+    void setRecorder(GameRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    GameRecorder getRecorder() {
+        return this.recorder;
+    }
+
+    /**
+     * 卓を返します。{@link Table#getEventBus()}で対局のイベントを購読できます。
+     *
+     * @return 卓
+     */
+    Table getTable() {
+        return this.table;
+    }
+
+    SimulationResult getResult() {
+        return this.result;
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.mahjong.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import com.example.mahjong.model.Strategy;
+import com.example.mahjong.record.GameRecorder;
+import com.example.mahjong.record.RecordWriter;
+
+/**
+ * コンソールを使わずに、戦略どうしで大量に対局させるエンジンです。
+ *
+ * ワーカー（スレッド）ごとに{@link SelfPlayTable}を1つずつ持ち、対局の番号を少しずつまとめて取り合って処理します。
+ * ワーカーどうしで共有するのは次の対局の番号だけで、集計もワーカーごとに行って最後に足し合わせます。
+ * 対局ごとの牌山はシードと対局の番号だけで決まるため、スレッドの数を変えても同じ結果になります。
+ * 記録先のディレクトリを設定すると、すべての局をワーカーごとの{@link GameRecorder}で記録し、1つの{@link RecordWriter}に追記します。
+ * 1つのワーカーが失敗したら残りのワーカーも次の対局の前で止め、すべて終わるのを待ってから{@link RecordWriter}を閉じます。
+ */
+public class SimulationEngine {
+    /** 1回に取る対局の数 */
+    private static final int BATCH = 16;
+
+    /** 席(0〜3)を受け取って戦略を返す関数。ワーカーごとに呼び出します */
+    private final IntFunction<? extends Strategy> strategies;
+    /** ワーカーの数 */
+    private final int threads;
+    /** 全体のシード */
+    private final long seed;
+    /** 局の記録を書き込むディレクトリ。記録しなければnull */
+    private Path recordDirectory;
+
+    /**
+     * SimulationEngineの新しいインスタンスを生成します。
+     * 戦略はワーカーごとに作るため、状態を持つ戦略でもスレッド間で共有されません。
+     *
+     * @param strategies 席(0〜3)を受け取って戦略を返す関数
+     * @param threads ワーカーの数
+     * @param seed 全体のシード
+     */
+    public SimulationEngine(IntFunction<? extends Strategy> strategies, int threads, long seed) {
+        this.strategies = strategies;
+        this.threads = Math.max(1, threads);
+        this.seed = seed;
+    }
+
+    /**
+     * 自動対局を行います。
+     * <pre>
+     * java com.example.mahjong.controller.SimulationEngine [対局数] [--threads N] [--seed S] [--record ディレクトリ]
+     * </pre>
+     *
+     * @param args コマンドライン引数
+     * @throws InterruptedException 中断された場合
+     * @throws IOException 記録の書き込みに失敗した場合
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        long games = 10000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = System.nanoTime();
+        Path records = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if ("--seed".equals(args[i]) && i + 1 < args.length) {
+                seed = Long.parseLong(args[++i]);
+            } else if ("--record".equals(args[i]) && i + 1 < args.length) {
+                records = Paths.get(args[++i]);
+            } else if (i == 0) {
+                games = Long.parseLong(args[i]);
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        SimulationEngine engine = new SimulationEngine(seat -> new Strategy() {}, threads, seed);
+        engine.setRecordDirectory(records);
+        SimulationResult result = engine.run(games);
+        System.out.println("シード " + seed + "、" + threads + "スレッド");
+        System.out.println(result);
+    }
+
+    /**
+     * 指定した数の対局を行い、集計結果を返します。
+     *
+     * @param games 対局の数
+     * @return 集計結果
+     * @throws InterruptedException 中断された場合
+     * @throws IOException 記録の書き込みに失敗した場合
+     * @throws IllegalStateException 戦略が不正な打牌を返すなど、対局中に例外が発生した場合
+     */
+    public SimulationResult run(long games) throws InterruptedException, IOException {
+        long start = System.nanoTime();
+        RecordWriter writer = this.recordDirectory == null ? null
+                : new RecordWriter(this.recordDirectory, "sim-" + Long.toHexString(this.seed));
+        AtomicLong next = new AtomicLong();
+        AtomicBoolean failed = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        List<Future<SimulationResult>> workers = new ArrayList<>(this.threads);
+        SimulationResult result = new SimulationResult();
+        try {
+            for (int i = 0; i < this.threads; i++) {
+                workers.add(pool.submit(() -> {
+                    try {
+                        SelfPlayTable table = new SelfPlayTable(this.strategies);
+                        if (writer != null) {
+                            table.setRecorder(new GameRecorder(writer));
+                        }
+                        long first;
+                        while (!failed.get() && (first = next.getAndAdd(BATCH)) < games) {
+                            long last = Math.min(first + BATCH, games);
+                            for (long game = first; game < last && !failed.get(); game++) {
+                                table.playGame(this.seed, game);
+                            }
+                        }
+                        if (writer != null) {
+                            table.getRecorder().flush();
+                        }
+                        return table.getResult();
+                    } catch (RuntimeException | Error e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }));
+            }
+            for (Future<SimulationResult> worker : workers) {
+                result.merge(worker.get());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw new IllegalStateException("自動対局に失敗しました。", e.getCause());
+        } finally {
+            failed.set(true);
+            pool.shutdownNow();
+            // 書き込み中のワーカーが残ったまま閉じないよう、すべて終わるのを待つ
+            awaitTermination(pool);
+            if (writer != null) {
+                writer.close();
+            }
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * スレッドプールのワーカーがすべて終わるまで待ちます。待つ間に割り込まれても待ち続け、終わった後に割り込み状態を戻します。
+     */
+    private static void awaitTermination(ExecutorService pool) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Path getRecordDirectory() {
+        return recordDirectory;
+    }
+
+    /**
+     * 局の記録を書き込むディレクトリを設定します。nullなら記録しません。
+     * セグメントのファイル名は「sim-シードの16進数-番号.mjr」です。
+     *
+     * @param recordDirectory ディレクトリ
+     */
+    public void setRecordDirectory(Path recordDirectory) {
+        this.recordDirectory = recordDirectory;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+}
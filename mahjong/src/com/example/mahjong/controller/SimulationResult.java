@@ -0,0 +1,118 @@
+package com.example.mahjong.controller;
+
+/**
+ * 自動対局（{@link SimulationEngine}）の集計結果です。
+ * ワーカーごとに1つずつ持って書き込み、最後に{@link #merge(SimulationResult)}でまとめるため、同期はしていません。
+ */
+public class SimulationResult {
+    /** 対局（東風戦）の数 */
+    long games;
+    /** 局の数 */
+    long hands;
+    /** ツモあがりの数 */
+    long tsumo;
+    /** ロンあがりの数 */
+    long ron;
+    /** 流局の数 */
+    long draws;
+    /** リーチの数 */
+    long riichi;
+    /** ポン・チーの数 */
+    long calls;
+    /** あがりの翻の合計（役満は13翻として数えます） */
+    long han;
+    /** 席ごとの点数の増減の合計 */
+    final long[] points = new long[4];
+    /** かかった時間（ナノ秒） */
+    long elapsedNanos;
+
+    /**
+     * 別の結果を足し合わせます。かかった時間は足しません。
+     *
+     * @param other 足す結果
+     */
+    public void merge(SimulationResult other) {
+        this.games += other.games;
+        this.hands += other.hands;
+        this.tsumo += other.tsumo;
+        this.ron += other.ron;
+        this.draws += other.draws;
+        this.riichi += other.riichi;
+        this.calls += other.calls;
+        this.han += other.han;
+        for (int seat = 0; seat < 4; seat++) {
+            this.points[seat] += other.points[seat];
+        }
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getHands() {
+        return hands;
+    }
+
+    public long getTsumo() {
+        return tsumo;
+    }
+
+    public long getRon() {
+        return ron;
+    }
+
+    public long getDraws() {
+        return draws;
+    }
+
+    public long getRiichi() {
+        return riichi;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    /**
+     * 指定した席（起家からの順番）の点数の増減の合計を返します。
+     *
+     * @param seat 席(0〜3)
+     * @return 点数の増減の合計
+     */
+    public long getPoints(int seat) {
+        return points[seat];
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * 1秒あたりの対局数を返します。
+     *
+     * @return 対局数/秒
+     */
+    public double getGamesPerSecond() {
+        return this.elapsedNanos == 0 ? 0.0 : this.games * 1e9 / this.elapsedNanos;
+    }
+
+    /**
+     * 1秒あたりの局数を返します。
+     *
+     * @return 局数/秒
+     */
+    public double getHandsPerSecond() {
+        return this.elapsedNanos == 0 ? 0.0 : this.hands * 1e9 / this.elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        long wins = this.tsumo + this.ron;
+        return String.format("%,d対局 %,d局（%.1f秒, %,.0f対局/秒, %,.0f局/秒）%n"
+                + "ツモ %,d / ロン %,d / 流局 %,d / リーチ %,d / 鳴き %,d / 平均 %.2f翻%n"
+                + "点数の増減: 東 %+,d / 南 %+,d / 西 %+,d / 北 %+,d",
+                this.games, this.hands, this.elapsedNanos / 1e9, getGamesPerSecond(), getHandsPerSecond(),
+                this.tsumo, this.ron, this.draws, this.riichi, this.calls, wins == 0 ? 0.0 : (double) this.han / wins,
+                this.points[0], this.points[1], this.points[2], this.points[3]);
+    }
+}
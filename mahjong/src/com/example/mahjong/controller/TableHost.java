@@ -0,0 +1,268 @@
+package com.example.mahjong.controller;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.mahjong.model.Strategy;
+
+/**
+ * 1つのJVMで多数の卓を同時に動かすホストです。
+ *
+ * 卓ごとのゲームループ（{@link SelfPlayTable}）を1本の仮想スレッドで動かし、席の判断は{@link SeatInput}から受け取ります。
+ * 人間の席（{@link QueuedSeatInput}）が入力を待っている間、仮想スレッドはキャリアスレッドから外れて止まるため、
+ * 入力待ちの卓が1万以上あってもプラットフォームスレッドはCPUの数程度しか使いません。
+ *
+ * 同時に開ける卓の数は{@link Semaphore}で制限し、上限を超えた{@link #open}は断るか、空くまで待ちます。
+ * 卓の開始・対局の終了・卓の終了は{@link TableListener}に通知します。
+ */
+public class TableHost implements AutoCloseable {
+    /** 同時に開ける卓の数の許可 */
+    private final Semaphore permits;
+    /** 同時に開ける卓の数の上限 */
+    private final int maxTables;
+    /** ゲームループの仮想スレッドを作るファクトリ */
+    private final ThreadFactory factory = Thread.ofVirtual().name("table-", 0).factory();
+    /** 開いている卓 */
+    private final Map<Long, HostedTable> tables = new ConcurrentHashMap<>();
+    /** リスナー */
+    private final List<TableListener> listeners = new CopyOnWriteArrayList<>();
+    /** 次の卓の番号 */
+    private final AtomicLong nextId = new AtomicLong();
+    /** 閉じたか */
+    private volatile boolean closed;
+
+    /**
+     * TableHostの新しいインスタンスを生成します。
+     *
+     * @param maxTables 同時に開ける卓の数の上限
+     */
+    public TableHost(int maxTables) {
+        if (maxTables <= 0) {
+            throw new IllegalArgumentException("卓の数の上限は1以上にしてください: " + maxTables);
+        }
+        this.maxTables = maxTables;
+        this.permits = new Semaphore(maxTables);
+    }
+
+    /**
+     * 入力を待ったままの卓を多数開き、スレッドの数とヒープの使用量を表示します。
+     * <pre>
+     * java com.example.mahjong.controller.TableHost [卓の数]
+     * </pre>
+     *
+     * @param args コマンドライン引数
+     * @throws InterruptedException 中断された場合
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        SeatInput bot = SeatInput.bot(new Strategy() {});
+        Runtime runtime = Runtime.getRuntime();
+        try (TableHost host = new TableHost(count)) {
+            long start = System.nanoTime();
+            QueuedSeatInput[] humans = new QueuedSeatInput[count];
+            for (int i = 0; i < count; i++) {
+                humans[i] = new QueuedSeatInput();
+                host.open(new SeatInput[] { humans[i], bot, bot, bot }, i, Long.MAX_VALUE);
+            }
+            // すべての卓が最初の打牌の入力待ちで止まるまで待つ
+            for (QueuedSeatInput human : humans) {
+                while (human.getPending() == null) {
+                    Thread.sleep(1);
+                }
+            }
+            System.gc();
+            System.out.printf("%,d卓が入力待ち（%.1f秒）: プラットフォームスレッド %d, ヒープ %,d KB%n",
+                    host.getOpenTables(), (System.nanoTime() - start) / 1e9,
+                    ManagementFactory.getThreadMXBean().getThreadCount(),
+                    (runtime.totalMemory() - runtime.freeMemory()) / 1024);
+        }
+    }
+
+    /**
+     * リスナーを追加します。追加した後に開始・終了したことだけが通知されます。
+     *
+     * @param listener リスナー
+     */
+    public void addListener(TableListener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * リスナーを削除します。
+     *
+     * @param listener リスナー
+     */
+    public void removeListener(TableListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * 卓を開いて、ゲームループを始めます。卓の数が上限に達していれば断ります。
+     *
+     * @param seats 席ごとの入力(4)
+     * @param seed 牌山のシード。対局ごとの牌山は{@link com.example.mahjong.model.WallFactory#forGame(long, long)}で作ります
+     * @param games 行う対局の数。{@link Long#MAX_VALUE}なら取り消されるまで続けます
+     * @return 開いた卓
+     * @throws RejectedExecutionException 卓の数が上限に達している場合
+     * @throws IllegalStateException ホストが閉じている場合
+     */
+    public HostedTable open(SeatInput[] seats, long seed, long games) {
+        checkSeats(seats);
+        if (!this.permits.tryAcquire()) {
+            throw new RejectedExecutionException("卓の数が上限(" + this.maxTables + ")に達しています。");
+        }
+        return start(seats, seed, games);
+    }
+
+    /**
+     * 卓を開いて、ゲームループを始めます。卓の数が上限に達していれば、空くまで指定した時間だけ待ちます。
+     *
+     * @param seats 席ごとの入力(4)
+     * @param seed 牌山のシード
+     * @param games 行う対局の数。{@link Long#MAX_VALUE}なら取り消されるまで続けます
+     * @param timeout 待つ時間
+     * @param unit 待つ時間の単位
+     * @return 開いた卓
+     * @throws InterruptedException 待っている間に割り込まれた場合
+     * @throws RejectedExecutionException 時間内に空かなかった場合
+     * @throws IllegalStateException ホストが閉じている場合
+     */
+    public HostedTable open(SeatInput[] seats, long seed, long games, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        checkSeats(seats);
+        if (!this.permits.tryAcquire(timeout, unit)) {
+            throw new RejectedExecutionException("卓の数が上限(" + this.maxTables + ")に達しています。");
+        }
+        return start(seats, seed, games);
+    }
+
+    private void checkSeats(SeatInput[] seats) {
+        if (seats.length != 4) {
+            throw new IllegalArgumentException("席は4つ必要です: " + seats.length);
+        }
+        if (this.closed) {
+            throw new IllegalStateException("ホストは閉じています。");
+        }
+    }
+
+    /**
+     * 許可を得た卓を登録し、仮想スレッドを開始します。
+     */
+    private HostedTable start(SeatInput[] seats, long seed, long games) {
+        SeatInput[] inputs = seats.clone();
+        HostedTable table = new HostedTable(this.nextId.getAndIncrement(), seed, games, this.factory,
+                t -> run(t, inputs));
+        this.tables.put(table.getId(), table);
+        table.getThread().start();
+        if (this.closed) {
+            table.cancel();
+        }
+        return table;
+    }
+
+    /**
+     * 卓のゲームループです。卓の仮想スレッドで動きます。
+     */
+    private void run(HostedTable table, SeatInput[] seats) {
+        Throwable failure = null;
+        try {
+            for (TableListener listener : this.listeners) {
+                notify(() -> listener.tableOpened(table));
+            }
+            SelfPlayTable game = new SelfPlayTable(seat -> SeatInput.asStrategy(seats[seat]));
+            for (long g = 0; g < table.getGames(); g++) {
+                if (table.isCancelled()) {
+                    throw new CancellationException("卓が閉じられました。");
+                }
+                game.playGame(table.getSeed(), g);
+                table.setGamesPlayed(g + 1);
+                long finished = g;
+                for (TableListener listener : this.listeners) {
+                    int[] points = new int[4];
+                    for (int seat = 0; seat < 4; seat++) {
+                        points[seat] = game.getPoints(seat);
+                    }
+                    notify(() -> listener.gameFinished(table, finished, points));
+                }
+            }
+            table.getCompletion().complete(game.getResult());
+        } catch (CancellationException e) {
+            table.getCompletion().cancel(false);
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            table.getCompletion().completeExceptionally(e);
+        } finally {
+            this.tables.remove(table.getId());
+            this.permits.release();
+            Throwable cause = failure;
+            for (TableListener listener : this.listeners) {
+                notify(() -> listener.tableClosed(table, cause));
+            }
+        }
+    }
+
+    /**
+     * リスナーを呼び出します。リスナーが投げた例外は卓を止めずに、スレッドの例外ハンドラに渡します。
+     */
+    private static void notify(Runnable call) {
+        try {
+            call.run();
+        } catch (RuntimeException e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    /**
+     * 開いている卓の数を返します。
+     *
+     * @return 卓の数
+     */
+    public int getOpenTables() {
+        return this.maxTables - this.permits.availablePermits();
+    }
+
+    public int getMaxTables() {
+        return maxTables;
+    }
+
+    /**
+     * 開いている卓を返します。
+     *
+     * @param id 卓の番号
+     * @return 卓。閉じているか、なければnull
+     */
+    public HostedTable getTable(long id) {
+        return this.tables.get(id);
+    }
+
+    /**
+     * 新しい卓を断るようにし、開いている卓をすべて取り消して、閉じるまで待ちます。
+     * 待っている間に割り込まれた場合は、待つのをやめて割り込み状態を戻してから返ります。
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        List<HostedTable> open = new ArrayList<>(this.tables.values());
+        for (HostedTable table : open) {
+            table.cancel();
+        }
+        try {
+            for (HostedTable table : open) {
+                table.getThread().join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.mahjong.controller;
+
+/**
+ * {@link TableHost}の卓の開始・対局の終了・卓の終了を受け取るリスナーです。
+ *
+ * どのメソッドもその卓の仮想スレッドから呼び出されるため、同じ卓の通知が同時に届くことはありませんが、
+ * 別の卓の通知は並行して届きます。必要なものだけを上書きしてください。
+ * リスナーが投げた例外は卓のスレッドの{@link Thread.UncaughtExceptionHandler}に渡され、卓はそのまま続きます。
+ */
+public interface TableListener {
+
+    /**
+     * 卓が開いて、最初の対局を始める直前に呼び出されます。
+     *
+     * @param table 卓
+     */
+    default void tableOpened(HostedTable table) {
+    }
+
+    /**
+     * 1対局が終わるたびに呼び出されます。
+     *
+     * @param table 卓
+     * @param game 終わった対局の番号（0から）
+     * @param points 席ごとの終了時の点数(4)。呼び出しごとに新しい配列です
+     */
+    default void gameFinished(HostedTable table, long game, int[] points) {
+    }
+
+    /**
+     * 卓が閉じたときに必ず1回呼び出されます。正常に終わったか、取り消されたかは{@link HostedTable}で確かめられます。
+     *
+     * @param table 卓
+     * @param failure 対局中に発生した例外。正常に終わったか取り消された場合はnull
+     */
+    default void tableClosed(HostedTable table, Throwable failure) {
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.mahjong.model;
+
+/**
+ * あがりの状況（あがり牌、ツモかロンか、風、リーチなど）と副露した面子をまとめるクラスです。
+ * {@link YakuEvaluator} に手牌と一緒に渡して役を判定します。
+ *
+ * 大量のあがりを続けて判定するときに毎回生成しなくて済むよう、{@link #reset()}で初期状態に戻して使い回せます。
+ * 風やあがり牌が分からない場合は-1のままにしておくと、それに依存する役は判定しません。
+ */
+public final class AgariContext {
+	/** 副露・暗槓の面子の種類: 槓子 */
+	public static final int KANTSU = 2;
+
+	/** あがり牌のID。不明なら-1 */
+	private int agariTile;
+	/** ツモあがりならtrue、ロンならfalse */
+	private boolean tsumo;
+	/** 自風（0:東, 1:南, 2:西, 3:北）。不明なら-1 */
+	private int seatWind;
+	/** 場風（0:東, 1:南, 2:西, 3:北）。不明なら-1 */
+	private int fieldWind;
+	/** リーチしているかどうか */
+	private boolean riichi;
+	/** ダブルリーチかどうか */
+	private boolean doubleRiichi;
+	/** 一発かどうか */
+	private boolean ippatsu;
+	/** 海底牌でのツモかどうか */
+	private boolean haitei;
+	/** 河底牌でのロンかどうか */
+	private boolean houtei;
+	/** 嶺上牌でのツモかどうか */
+	private boolean rinshan;
+	/** 槍槓でのロンかどうか */
+	private boolean chankan;
+	/** 天和かどうか */
+	private boolean tenhou;
+	/** 地和かどうか */
+	private boolean chiihou;
+	/** 副露・暗槓した面子の数 */
+	private int meldCount;
+	/** 副露・暗槓した面子の種類（{@link MentsuDecomposer#KOUTSU}, {@link MentsuDecomposer#SHUNTSU}, {@link #KANTSU}） */
+	private final int[] meldKinds = new int[4];
+	/** 副露・暗槓した面子の牌ID（順子は最も小さい牌） */
+	private final int[] meldTiles = new int[4];
+	/** 副露した面子ならtrue、暗槓ならfalse */
+	private final boolean[] meldOpen = new boolean[4];
+
+	/**
+	 * AgariContextの新しいインスタンスを生成します。
+	 */
+	public AgariContext() {
+		reset();
+	}
+
+	/**
+	 * すべての項目を初期状態（ロン・門前・あがり牌と風は不明）に戻します。
+	 */
+	public void reset() {
+		this.agariTile = -1;
+		this.tsumo = false;
+		this.seatWind = -1;
+		this.fieldWind = -1;
+		this.riichi = false;
+		this.doubleRiichi = false;
+		this.ippatsu = false;
+		this.haitei = false;
+		this.houtei = false;
+		this.rinshan = false;
+		this.chankan = false;
+		this.tenhou = false;
+		this.chiihou = false;
+		this.meldCount = 0;
+	}
+
+	/**
+	 * 別のインスタンスの内容をすべて写します。
+	 * 並列に判定するとき、スレッドごとのインスタンスに元の状況を写してから書き換えるために使います。
+	 *
+	 * @param other 写す元のあがり状況
+	 */
+	public void copyFrom(AgariContext other) {
+		this.agariTile = other.agariTile;
+		this.tsumo = other.tsumo;
+		this.seatWind = other.seatWind;
+		this.fieldWind = other.fieldWind;
+		this.riichi = other.riichi;
+		this.doubleRiichi = other.doubleRiichi;
+		this.ippatsu = other.ippatsu;
+		this.haitei = other.haitei;
+		this.houtei = other.houtei;
+		this.rinshan = other.rinshan;
+		this.chankan = other.chankan;
+		this.tenhou = other.tenhou;
+		this.chiihou = other.chiihou;
+		this.meldCount = other.meldCount;
+		for (int i = 0; i < other.meldCount; i++) {
+			this.meldKinds[i] = other.meldKinds[i];
+			this.meldTiles[i] = other.meldTiles[i];
+			this.meldOpen[i] = other.meldOpen[i];
+		}
+	}
+
+	/**
+	 * 副露・暗槓した面子を追加します。
+	 *
+	 * @param kind 面子の種類（{@link MentsuDecomposer#KOUTSU}, {@link MentsuDecomposer#SHUNTSU}, {@link #KANTSU}）
+	 * @param tile 面子の牌ID（順子は最も小さい牌）
+	 * @param open 副露した面子ならtrue、暗槓ならfalse
+	 * @throws IllegalStateException すでに4つの面子がある場合
+	 */
+	public void addMeld(int kind, int tile, boolean open) {
+		if (this.meldCount == 4) {
+			throw new IllegalStateException("副露できる面子は4つまでです。");
+		}
+		this.meldKinds[this.meldCount] = kind;
+		this.meldTiles[this.meldCount] = tile;
+		this.meldOpen[this.meldCount] = open;
+		this.meldCount++;
+	}
+
+	/**
+	 * 門前（副露なし。暗槓は含んでよい）かどうかを返します。
+	 *
+	 * @return 門前ならtrue
+	 */
+	public boolean isMenzen() {
+		for (int i = 0; i < this.meldCount; i++) {
+			if (this.meldOpen[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 自風が親（東）かどうかを返します。
+	 *
+	 * @return 親ならtrue
+	 */
+	public boolean isDealer() {
+		return this.seatWind == 0;
+	}
+
+	public int getMeldCount() {
+		return meldCount;
+	}
+
+	public int getMeldKind(int index) {
+		return meldKinds[index];
+	}
+
+	public int getMeldTile(int index) {
+		return meldTiles[index];
+	}
+
+	public boolean isMeldOpen(int index) {
+		return meldOpen[index];
+	}
+
+	public int getAgariTile() {
+		return agariTile;
+	}
+
+	public void setAgariTile(int agariTile) {
+		this.agariTile = agariTile;
+	}
+
+	public boolean isTsumo() {
+		return tsumo;
+	}
+
+	public void setTsumo(boolean tsumo) {
+		this.tsumo = tsumo;
+	}
+
+	public int getSeatWind() {
+		return seatWind;
+	}
+
+	public void setSeatWind(int seatWind) {
+		this.seatWind = seatWind;
+	}
+
+	public int getFieldWind() {
+		return fieldWind;
+	}
+
+	public void setFieldWind(int fieldWind) {
+		this.fieldWind = fieldWind;
+	}
+
+	public boolean isRiichi() {
+		return riichi;
+	}
+
+	public void setRiichi(boolean riichi) {
+		this.riichi = riichi;
+	}
+
+	public boolean isDoubleRiichi() {
+		return doubleRiichi;
+	}
+
+	public void setDoubleRiichi(boolean doubleRiichi) {
+		this.doubleRiichi = doubleRiichi;
+	}
+
+	public boolean isIppatsu() {
+		return ippatsu;
+	}
+
+	public void setIppatsu(boolean ippatsu) {
+		this.ippatsu = ippatsu;
+	}
+
+	public boolean isHaitei() {
+		return haitei;
+	}
+
+	public void setHaitei(boolean haitei) {
+		this.haitei = haitei;
+	}
+
+	public boolean isHoutei() {
+		return houtei;
+	}
+
+	public void setHoutei(boolean houtei) {
+		this.houtei = houtei;
+	}
+
+	public boolean isRinshan() {
+		return rinshan;
+	}
+
+	public void setRinshan(boolean rinshan) {
+		this.rinshan = rinshan;
+	}
+
+	public boolean isChankan() {
+		return chankan;
+	}
+
+	public void setChankan(boolean chankan) {
+		this.chankan = chankan;
+	}
+
+	public boolean isTenhou() {
+		return tenhou;
+	}
+
+	public void setTenhou(boolean tenhou) {
+		this.tenhou = tenhou;
+	}
+
+	public boolean isChiihou() {
+		return chiihou;
+	}
+
+	public void setChiihou(boolean chiihou) {
+		this.chiihou = chiihou;
+	}
+}
@@ -0,0 +1,195 @@
+package com.example.mahjong.model;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * {@link AgariCorpusGenerator}が書き出す、あがり形・テンパイ形の回帰テスト用コーパスの形式と読み込みを定義するクラスです。
+ *
+ * ファイルの形式（数値はすべてリトルエンディアン）:
+ * <pre>
+ * ヘッダ   : "MJAC"(4バイト) バージョン(1バイト)
+ * レコード : 種類(1バイト) キー(10バイト) [待ち(5バイト)]
+ * </pre>
+ * 種類の下位ビットはあがり形の種類（{@link #STANDARD}, {@link #CHIITOI}, {@link #KOKUSHI}の論理和）で、
+ * {@link #TENPAI}が立っているレコードは13枚のテンパイ形です。テンパイ形のレコードだけが待ち（ビットiが牌IDi）を持ちます。
+ * テンパイ形の種類の下位ビットは、待ち牌を足したあがり形のうち、どれかで成立する種類の論理和です。
+ *
+ * キーは牌種ごとの5進数キー（{@link AgariTable}と同じ）を萬子21ビット・筒子21ビット・索子21ビット・字牌17ビットの
+ * 順に下位から詰めた80ビットの値です。
+ */
+public final class AgariCorpus {
+	/** ファイルの先頭の識別子 */
+	static final byte[] MAGIC = { 'M', 'J', 'A', 'C' };
+	/** 形式のバージョン */
+	static final int VERSION = 1;
+
+	/** 種類: 一般形のあがり */
+	public static final int STANDARD = 1;
+	/** 種類: 七対子のあがり */
+	public static final int CHIITOI = 2;
+	/** 種類: 国士無双のあがり */
+	public static final int KOKUSHI = 4;
+	/** 種類: 13枚のテンパイ形（待ちを持つ） */
+	public static final int TENPAI = 0x80;
+
+	/** キーのバイト数 */
+	static final int KEY_BYTES = 10;
+	/** 待ちのバイト数 */
+	static final int WAIT_BYTES = 5;
+
+	/**
+	 * コーパスのレコードを1つずつ受け取るコールバックです。
+	 */
+	@FunctionalInterface
+	public interface Visitor {
+		/**
+		 * レコードを1つ受け取ります。
+		 *
+		 * @param kind 種類（{@link #TENPAI}と、あがり形の種類の論理和）
+		 * @param handCount 手牌カウント配列(34)。次のレコードで上書きされます
+		 * @param waits テンパイ形なら待ちのビット集合、あがり形なら0
+		 */
+		void visit(int kind, int[] handCount, long waits);
+	}
+
+	/**
+	 * プライベートコンストラクタにより、このクラスのインスタンス化を防ぎます。
+	 */
+	private AgariCorpus() {}
+
+	/**
+	 * コーパスを先頭から読み、レコードを1つずつコールバックに渡します。ファイル全体をメモリに読み込みません。
+	 *
+	 * @param file コーパスのファイル
+	 * @param visitor レコードを受け取るコールバック
+	 * @return 読み込んだレコードの数
+	 * @throws IOException 読み込みに失敗した場合や、形式が正しくない場合
+	 */
+	public static long forEach(Path file, Visitor visitor) throws IOException {
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+			return forEach(in, visitor);
+		}
+	}
+
+	/**
+	 * ストリームからコーパスを読み、レコードを1つずつコールバックに渡します。
+	 *
+	 * @param in コーパスのストリーム
+	 * @param visitor レコードを受け取るコールバック
+	 * @return 読み込んだレコードの数
+	 * @throws IOException 読み込みに失敗した場合や、形式が正しくない場合
+	 */
+	public static long forEach(InputStream in, Visitor visitor) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		byte[] header = new byte[MAGIC.length + 1];
+		data.readFully(header);
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (header[i] != MAGIC[i]) {
+				throw new IOException("コーパスのファイルではありません。");
+			}
+		}
+		if (header[MAGIC.length] != VERSION) {
+			throw new IOException("Unsupported corpus version: " + header[MAGIC.length]);
+		}
+		byte[] record = new byte[1 + KEY_BYTES + WAIT_BYTES];
+		int[] handCount = new int[34];
+		long records = 0;
+		while (true) {
+			int kind = data.read();
+			if (kind < 0) {
+				return records;
+			}
+			int length = (kind & TENPAI) != 0 ? KEY_BYTES + WAIT_BYTES : KEY_BYTES;
+			try {
+				data.readFully(record, 1, length);
+			} catch (EOFException e) {
+				throw new IOException("コーパスのレコードが途中で終わっています。", e);
+			}
+			long low = readLong(record, 1, 8);
+			long high = readLong(record, 9, 2);
+			decode(low, high, handCount);
+			long waits = (kind & TENPAI) != 0 ? readLong(record, 1 + KEY_BYTES, WAIT_BYTES) : 0L;
+			visitor.visit(kind, handCount, waits);
+			records++;
+		}
+	}
+
+	/**
+	 * コーパスから、あがり形かテンパイ形のレコードを指定した数だけ無作為に選びます（リザーバーサンプリング）。
+	 * ファイル全体を1回読むだけで、選んだ手牌以外はメモリに残しません。同じシードからは常に同じ手牌を選びます。
+	 * ベンチマークや差分テストの入力に使います。
+	 *
+	 * @param file コーパスのファイル
+	 * @param tenpai テンパイ形（13枚）を選ぶならtrue、あがり形（14枚）を選ぶならfalse
+	 * @param size 選ぶ手牌の数
+	 * @param seed 乱数のシード
+	 * @return 手牌カウント配列(34)の配列。該当するレコードがsizeより少なければ、そのすべて
+	 * @throws IOException 読み込みに失敗した場合や、形式が正しくない場合
+	 */
+	public static int[][] sample(Path file, boolean tenpai, int size, long seed) throws IOException {
+		SplittableRandom random = new SplittableRandom(seed);
+		int[][] hands = new int[size][];
+		long[] seen = new long[1];
+		forEach(file, (kind, handCount, waits) -> {
+			if (((kind & TENPAI) != 0) != tenpai) {
+				return;
+			}
+			long n = seen[0]++;
+			int slot = n < size ? (int) n : (int) random.nextLong(n + 1);
+			if (slot < size) {
+				hands[slot] = handCount.clone();
+			}
+		});
+		return seen[0] < size ? Arrays.copyOf(hands, (int) seen[0]) : hands;
+	}
+
+	/**
+	 * 4つの牌種のキーを80ビットのキーの下位64ビットに詰めます。
+	 */
+	static long low(int man, int pin, int sou, int honor) {
+		return man | (long) pin << 21 | (long) sou << 42 | ((long) honor & 1L) << 63;
+	}
+
+	/**
+	 * 4つの牌種のキーを80ビットのキーの上位16ビットに詰めます。
+	 */
+	static int high(int honor) {
+		return honor >>> 1;
+	}
+
+	/**
+	 * 80ビットのキーを手牌カウント配列に戻します。
+	 */
+	static void decode(long low, long high, int[] handCount) {
+		decodeSuit((int) (low & 0x1FFFFF), 0, AgariTable.SUIT_SIZE, handCount);
+		decodeSuit((int) (low >>> 21 & 0x1FFFFF), 9, AgariTable.SUIT_SIZE, handCount);
+		decodeSuit((int) (low >>> 42 & 0x1FFFFF), 18, AgariTable.SUIT_SIZE, handCount);
+		decodeSuit((int) (low >>> 63) | (int) high << 1, 27, AgariTable.HONOR_SIZE, handCount);
+	}
+
+	private static void decodeSuit(int key, int offset, int size, int[] handCount) {
+		for (int r = 0; r < size; r++) {
+			handCount[offset + r] = key % 5;
+			key /= 5;
+		}
+	}
+
+	/**
+	 * バイト列からリトルエンディアンの値を読みます。
+	 */
+	private static long readLong(byte[] bytes, int offset, int length) {
+		long value = 0L;
+		for (int i = length - 1; i >= 0; i--) {
+			value = value << 8 | (bytes[offset + i] & 0xFF);
+		}
+		return value;
+	}
+}
@@ -0,0 +1,497 @@
+package com.example.mahjong.model;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 14枚のあがり形（一般形・七対子・国士無双）をすべて列挙し、{@link AgariCorpus}の形式で書き出すクラスです。
+ * 指定すると、13枚のテンパイ形もすべて待ち付きで書き出します。
+ *
+ * 一般形は、牌種ごとに「面子だけ」「面子と雀頭」に分解できるキーの一覧を{@link AgariTable}から作り、
+ * 雀頭を持つ牌種と各牌種の面子数の組み合わせごとに一覧の直積をたどって列挙します。
+ * 同じ枚数の並びは必ず1回しか現れないため、重複を取り除く処理はいりません。
+ * 七対子は一般形でもあるものを除いて列挙し、国士無双は13通りです。
+ *
+ * テンパイ形は、あがり形から1枚抜いた13枚のうち、抜いた牌がその13枚の最も小さい待ち牌であるものだけを書き出します。
+ * どのテンパイ形も「最も小さい待ち牌を足したあがり形」からちょうど1回だけ作られるため、やはり重複しません。
+ *
+ * 列挙は小さな単位に分けてスレッドプールで並列に行い、結果は単位の順番どおりにファイルへ流し込みます。
+ * 書き込み待ちの単位の数には上限があるため、全体をメモリに保持することはありません。
+ * 出力は一時ファイルに書いてから置き換えるので、途中で失敗しても古いファイルは壊れません。
+ */
+public final class AgariCorpusGenerator {
+	/** スレッドあたりの、書き込み待ちにできる単位の数 */
+	private static final int WINDOW_PER_THREAD = 4;
+	/** 列挙の終わりを表す印 */
+	private static final Future<Chunk> END = CompletableFuture.completedFuture(null);
+
+	/** 数牌で面子だけに分解できるキーの一覧（面子数ごと） */
+	private static final int[][] SUIT_MENTSU = new int[5][];
+	/** 数牌で面子と雀頭に分解できるキーの一覧（面子数ごと） */
+	private static final int[][] SUIT_PAIR = new int[5][];
+	/** 字牌で面子だけに分解できるキーの一覧（面子数ごと） */
+	private static final int[][] HONOR_MENTSU = new int[5][];
+	/** 字牌で面子と雀頭に分解できるキーの一覧（面子数ごと） */
+	private static final int[][] HONOR_PAIR = new int[5][];
+
+	static {
+		collect(AgariTable.SUIT_KEYS, AgariTable.SUIT_SIZE, false, SUIT_MENTSU, SUIT_PAIR);
+		collect(AgariTable.HONOR_KEYS, AgariTable.HONOR_SIZE, true, HONOR_MENTSU, HONOR_PAIR);
+	}
+
+	/** テンパイ形も書き出すかどうか */
+	private final boolean tenpai;
+	/** 列挙に使うスレッドの数 */
+	private final int threads;
+
+	/**
+	 * AgariCorpusGeneratorの新しいインスタンスを生成します。
+	 *
+	 * @param tenpai テンパイ形も書き出すならtrue
+	 * @param threads 列挙に使うスレッドの数
+	 */
+	public AgariCorpusGenerator(boolean tenpai, int threads) {
+		this.tenpai = tenpai;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * コーパスを生成します。
+	 * <pre>
+	 * java com.example.mahjong.model.AgariCorpusGenerator 出力ファイル [--no-tenpai] [--threads N]
+	 * </pre>
+	 *
+	 * @param args コマンドライン引数
+	 * @throws IOException 書き込みに失敗した場合
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.out.println("使い方: AgariCorpusGenerator 出力ファイル [--no-tenpai] [--threads N]");
+			return;
+		}
+		boolean tenpai = true;
+		int threads = Runtime.getRuntime().availableProcessors();
+		for (int i = 1; i < args.length; i++) {
+			if ("--no-tenpai".equals(args[i])) {
+				tenpai = false;
+			} else if ("--threads".equals(args[i]) && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			} else {
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+		long start = System.nanoTime();
+		long[] counts = new AgariCorpusGenerator(tenpai, threads).generate(Paths.get(args[0]));
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("あがり形 %,d 件、テンパイ形 %,d 件、%,d バイト（%.1f秒, %,.0f件/秒）%n",
+				counts[0], counts[1], Files.size(Paths.get(args[0])), seconds, (counts[0] + counts[1]) / seconds);
+	}
+
+	/**
+	 * コーパスを生成してファイルに書き出します。
+	 *
+	 * @param file 出力先のファイル
+	 * @return [0]にあがり形の件数、[1]にテンパイ形の件数
+	 * @throws IOException 書き込みに失敗した場合や、中断された場合
+	 */
+	public long[] generate(Path file) throws IOException {
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+		BlockingQueue<Future<Chunk>> pending = new ArrayBlockingQueue<>(this.threads * WINDOW_PER_THREAD);
+		Thread producer = new Thread(() -> {
+			try {
+				forEachUnit(unit -> pending.put(pool.submit(unit)));
+				pending.put(END);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, "corpus-producer");
+		producer.setDaemon(true);
+		producer.start();
+
+		long[] counts = new long[2];
+		boolean moved = false;
+		try {
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 20)) {
+				out.write(AgariCorpus.MAGIC);
+				out.write(AgariCorpus.VERSION);
+				while (true) {
+					Future<Chunk> future = pending.take();
+					if (future == END) {
+						break;
+					}
+					Chunk chunk = future.get();
+					out.write(chunk.data, 0, chunk.length);
+					counts[0] += chunk.agari;
+					counts[1] += chunk.tenpai;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("コーパスの生成が中断されました。");
+			} catch (ExecutionException e) {
+				throw new IOException("コーパスの生成に失敗しました。", e.getCause());
+			} finally {
+				producer.interrupt();
+				pool.shutdownNow();
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			moved = true;
+		} finally {
+			// 失敗したら書きかけの一時ファイルを残さない
+			if (!moved) {
+				try {
+					Files.deleteIfExists(temp);
+				} catch (IOException ignored) {
+					// 後片付けに失敗しても元の例外を投げる
+				}
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * 列挙の単位を順番に渡す先です。
+	 */
+	@FunctionalInterface
+	private interface UnitSink {
+		void accept(Callable<Chunk> unit) throws InterruptedException;
+	}
+
+	/**
+	 * 列挙の単位を、ファイルに書く順番で作ります。
+	 * 一般形は「雀頭の牌種・各牌種の面子数・萬子のキー」ごと、七対子は小さいほうから2つの対子ごとに1単位です。
+	 */
+	private void forEachUnit(UnitSink sink) throws InterruptedException {
+		int[] mentsu = new int[4];
+		for (int pairSuit = 0; pairSuit < 4; pairSuit++) {
+			for (mentsu[0] = 0; mentsu[0] <= 4; mentsu[0]++) {
+				for (mentsu[1] = 0; mentsu[0] + mentsu[1] <= 4; mentsu[1]++) {
+					for (mentsu[2] = 0; mentsu[0] + mentsu[1] + mentsu[2] <= 4; mentsu[2]++) {
+						mentsu[3] = 4 - mentsu[0] - mentsu[1] - mentsu[2];
+						int[][] lists = new int[4][];
+						for (int s = 0; s < 4; s++) {
+							lists[s] = list(s, s == pairSuit, mentsu[s]);
+						}
+						for (int man : lists[0]) {
+							int ps = pairSuit;
+							sink.accept(() -> standard(man, lists[1], lists[2], lists[3], ps));
+						}
+					}
+				}
+			}
+		}
+		for (int first = 0; first < 34; first++) {
+			for (int second = first + 1; second < 34; second++) {
+				int a = first;
+				int b = second;
+				sink.accept(() -> chiitoi(a, b));
+			}
+		}
+		sink.accept(this::kokushi);
+	}
+
+	/**
+	 * 萬子のキーを固定して、一般形のあがり形を列挙します。
+	 */
+	private Chunk standard(int man, int[] pins, int[] sous, int[] honors, int pairSuit) {
+		Chunk chunk = new Chunk();
+		HandState state = new HandState();
+		for (int pin : pins) {
+			for (int sou : sous) {
+				for (int honor : honors) {
+					state.set(man, pin, sou, honor);
+					emit(state, chunk);
+				}
+			}
+		}
+		return chunk;
+	}
+
+	/**
+	 * 小さいほうから2つの対子を固定して、七対子のあがり形を列挙します（一般形でもあるものを除く）。
+	 */
+	private Chunk chiitoi(int first, int second) {
+		Chunk chunk = new Chunk();
+		HandState state = new HandState();
+		int[] pairs = new int[7];
+		pairs[0] = first;
+		pairs[1] = second;
+		chiitoi(state, chunk, pairs, 2, second + 1);
+		return chunk;
+	}
+
+	private void chiitoi(HandState state, Chunk chunk, int[] pairs, int depth, int from) {
+		if (depth == 7) {
+			state.clear();
+			for (int id : pairs) {
+				state.add(id);
+				state.add(id);
+			}
+			if ((state.kind() & AgariCorpus.STANDARD) == 0) {
+				emit(state, chunk);
+			}
+			return;
+		}
+		for (int id = from; id <= 34 - (7 - depth); id++) {
+			pairs[depth] = id;
+			chiitoi(state, chunk, pairs, depth + 1, id + 1);
+		}
+	}
+
+	/**
+	 * 国士無双のあがり形（13通り）を列挙します。
+	 */
+	private Chunk kokushi() {
+		Chunk chunk = new Chunk();
+		HandState state = new HandState();
+		for (int pair = 0; pair < 34; pair++) {
+			if ((YakuEvaluator.YAOCHU_MASK >>> pair & 1L) == 0) {
+				continue;
+			}
+			state.clear();
+			for (int id = 0; id < 34; id++) {
+				if ((YakuEvaluator.YAOCHU_MASK >>> id & 1L) != 0) {
+					state.add(id);
+				}
+			}
+			state.add(pair);
+			emit(state, chunk);
+		}
+		return chunk;
+	}
+
+	/**
+	 * あがり形を1件書き、必要ならそこから作られるテンパイ形を書きます。
+	 */
+	private void emit(HandState state, Chunk chunk) {
+		chunk.record(state.kind(), state, 0L, false);
+		chunk.agari++;
+		if (!this.tenpai) {
+			return;
+		}
+		int[] c = state.counts;
+		for (int t = 0; t < 34; t++) {
+			if (c[t] == 0) {
+				continue;
+			}
+			state.remove(t);
+			boolean smallest = true;
+			for (int u = 0; u < t && smallest; u++) {
+				if (c[u] < 4) {
+					state.add(u);
+					smallest = state.kind() == 0;
+					state.remove(u);
+				}
+			}
+			if (smallest) {
+				state.add(t);
+				int kind = state.kind();
+				state.remove(t);
+				long waits = 1L << t;
+				for (int u = t + 1; u < 34; u++) {
+					if (c[u] < 4) {
+						state.add(u);
+						int k = state.kind();
+						if (k != 0) {
+							waits |= 1L << u;
+							kind |= k;
+						}
+						state.remove(u);
+					}
+				}
+				chunk.record(AgariCorpus.TENPAI | kind, state, waits, true);
+				chunk.tenpai++;
+			}
+			state.add(t);
+		}
+	}
+
+	/**
+	 * 牌種・雀頭の有無・面子数に当てはまるキーの一覧を返します。
+	 */
+	private static int[] list(int suit, boolean pair, int mentsu) {
+		if (suit == 3) {
+			return pair ? HONOR_PAIR[mentsu] : HONOR_MENTSU[mentsu];
+		}
+		return pair ? SUIT_PAIR[mentsu] : SUIT_MENTSU[mentsu];
+	}
+
+	/**
+	 * 表のすべてのキーを調べて、面子数ごとの一覧を作ります。
+	 */
+	private static void collect(int keys, int size, boolean honor, int[][] mentsuLists, int[][] pairLists) {
+		int[] mentsuSizes = new int[5];
+		int[] pairSizes = new int[5];
+		for (int pass = 0; pass < 2; pass++) {
+			if (pass == 1) {
+				for (int m = 0; m < 5; m++) {
+					mentsuLists[m] = new int[mentsuSizes[m]];
+					pairLists[m] = new int[pairSizes[m]];
+					mentsuSizes[m] = 0;
+					pairSizes[m] = 0;
+				}
+			}
+			for (int key = 0; key < keys; key++) {
+				int tiles = 0;
+				for (int k = key; k > 0; k /= 5) {
+					tiles += k % 5;
+				}
+				if (tiles > 14) {
+					continue;
+				}
+				if (tiles % 3 == 0 && (honor ? AgariTable.isHonorMentsu(key) : AgariTable.isSuitMentsu(key))) {
+					int m = tiles / 3;
+					if (pass == 1) {
+						mentsuLists[m][mentsuSizes[m]] = key;
+					}
+					mentsuSizes[m]++;
+				} else if (tiles % 3 == 2 && (honor ? AgariTable.isHonorPair(key) : AgariTable.isSuitPair(key))) {
+					int m = (tiles - 2) / 3;
+					if (pass == 1) {
+						pairLists[m][pairSizes[m]] = key;
+					}
+					pairSizes[m]++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 列挙中の手牌です。牌を1枚足し引きするたびに、あがり判定に必要な値を差分で更新します。
+	 */
+	private static final class HandState {
+		/** 手牌カウント配列 */
+		final int[] counts = new int[34];
+		/** 牌種ごとの5進数キー */
+		final int[] keys = new int[4];
+		/** 牌種ごとの枚数 */
+		final int[] tiles = new int[4];
+		/** ちょうど2枚の牌の種類数 */
+		int pairs;
+		/** 么九牌の種類数 */
+		int yaochuKinds;
+		/** 么九牌以外の枚数 */
+		int simples;
+		/** 総枚数 */
+		int total;
+
+		void clear() {
+			Arrays.fill(this.counts, 0);
+			Arrays.fill(this.keys, 0);
+			Arrays.fill(this.tiles, 0);
+			this.pairs = 0;
+			this.yaochuKinds = 0;
+			this.simples = 0;
+			this.total = 0;
+		}
+
+		void set(int man, int pin, int sou, int honor) {
+			clear();
+			addSuit(man, 0, AgariTable.SUIT_SIZE);
+			addSuit(pin, 9, AgariTable.SUIT_SIZE);
+			addSuit(sou, 18, AgariTable.SUIT_SIZE);
+			addSuit(honor, 27, AgariTable.HONOR_SIZE);
+		}
+
+		private void addSuit(int key, int offset, int size) {
+			for (int r = 0; r < size; r++) {
+				for (int n = key % 5; n > 0; n--) {
+					add(offset + r);
+				}
+				key /= 5;
+			}
+		}
+
+		void add(int id) {
+			int before = this.counts[id]++;
+			this.keys[id / 9] += AgariTable.POW5[id % 9];
+			this.tiles[id / 9]++;
+			this.total++;
+			this.pairs += (before == 1 ? 1 : 0) - (before == 2 ? 1 : 0);
+			if ((YakuEvaluator.YAOCHU_MASK >>> id & 1L) == 0) {
+				this.simples++;
+			} else if (before == 0) {
+				this.yaochuKinds++;
+			}
+		}
+
+		void remove(int id) {
+			int before = this.counts[id]--;
+			this.keys[id / 9] -= AgariTable.POW5[id % 9];
+			this.tiles[id / 9]--;
+			this.total--;
+			this.pairs += (before == 3 ? 1 : 0) - (before == 2 ? 1 : 0);
+			if ((YakuEvaluator.YAOCHU_MASK >>> id & 1L) == 0) {
+				this.simples--;
+			} else if (before == 1) {
+				this.yaochuKinds--;
+			}
+		}
+
+		/**
+		 * 14枚のあがり形としての種類を返します。あがり形でなければ0です。
+		 */
+		int kind() {
+			if (this.total != 14) {
+				return 0;
+			}
+			int kind = 0;
+			if (AgariTable.isAgari(this.keys[0], this.keys[1], this.keys[2], this.keys[3],
+					this.tiles[0], this.tiles[1], this.tiles[2], this.tiles[3])) {
+				kind |= AgariCorpus.STANDARD;
+			}
+			if (this.pairs == 7) {
+				kind |= AgariCorpus.CHIITOI;
+			}
+			if (this.yaochuKinds == 13 && this.simples == 0) {
+				kind |= AgariCorpus.KOKUSHI;
+			}
+			return kind;
+		}
+	}
+
+	/**
+	 * 1つの単位の出力（レコードのバイト列と件数）です。
+	 */
+	private static final class Chunk {
+		byte[] data = new byte[1 << 12];
+		int length;
+		long agari;
+		long tenpai;
+
+		void record(int kind, HandState state, long waits, boolean withWaits) {
+			int size = 1 + AgariCorpus.KEY_BYTES + (withWaits ? AgariCorpus.WAIT_BYTES : 0);
+			if (this.length + size > this.data.length) {
+				this.data = Arrays.copyOf(this.data, this.data.length * 2);
+			}
+			int[] keys = state.keys;
+			this.data[this.length++] = (byte) kind;
+			put(AgariCorpus.low(keys[0], keys[1], keys[2], keys[3]), 8);
+			put(AgariCorpus.high(keys[3]), 2);
+			if (withWaits) {
+				put(waits, AgariCorpus.WAIT_BYTES);
+			}
+		}
+
+		private void put(long value, int bytes) {
+			for (int i = 0; i < bytes; i++) {
+				this.data[this.length++] = (byte) (value >>> (8 * i));
+			}
+		}
+	}
+}
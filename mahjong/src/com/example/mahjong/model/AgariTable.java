@@ -0,0 +1,216 @@
+package com.example.mahjong.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * 牌種ごと（萬子・筒子・索子・字牌）のあがり形を事前計算しておく参照表です。
+ * {@link Judge#judgeAgariByTable(int[])} から利用されます。
+ *
+ * 1種類の牌の枚数は0〜4枚なので、各牌種の枚数並びは5進数のキー
+ * （1の牌の枚数 × 5^0 + 2の牌の枚数 × 5^1 + ...）として表せます。
+ * キーごとに「面子だけに分解できるか」「面子と雀頭1つに分解できるか」をビットで保持します。
+ *
+ * メモリ使用量:
+ * 数牌は 5^9 = 1,953,125 キー × 2ビット = 約488KB（long 61,036個）、
+ * 字牌は 5^7 = 78,125 キー × 2ビット = 約20KB（long 2,442個）です。
+ * 表はこのクラスが初めて使われたときに{@link TableFile}から読み込まれ、以後は読み取り専用です。
+ * ファイルがなければ一度だけ構築し、次回以降の起動のためにファイルへ保存します。
+ */
+final class AgariTable {
+	/** 数牌1色のランク数 */
+	static final int SUIT_SIZE = 9;
+	/** 字牌のランク数 */
+	static final int HONOR_SIZE = 7;
+	/** 数牌1色のキーの総数 (5^9) */
+	static final int SUIT_KEYS = 1953125;
+	/** 字牌のキーの総数 (5^7) */
+	static final int HONOR_KEYS = 78125;
+	/** 5のべき乗表。POW5[i] はランクiの牌1枚分のキーの重みです。 */
+	static final int[] POW5 = { 1, 5, 25, 125, 625, 3125, 15625, 78125, 390625, 1953125 };
+
+	/** 表のファイルのバージョン。表の作り方を変えたら上げます */
+	private static final int VERSION = 1;
+	/** 数牌1色のビット集合のlongの数 */
+	private static final int SUIT_LONGS = (SUIT_KEYS + 63) >>> 6;
+	/** 字牌のビット集合のlongの数 */
+	private static final int HONOR_LONGS = (HONOR_KEYS + 63) >>> 6;
+
+	/** 数牌で、面子だけに分解できるキーのビット集合 */
+	private static final LongBuffer SUIT_MENTSU;
+	/** 数牌で、面子と雀頭1つに分解できるキーのビット集合 */
+	private static final LongBuffer SUIT_PAIR;
+	/** 字牌で、面子だけに分解できるキーのビット集合 */
+	private static final LongBuffer HONOR_MENTSU;
+	/** 字牌で、面子と雀頭1つに分解できるキーのビット集合 */
+	private static final LongBuffer HONOR_PAIR;
+
+	static {
+		ByteBuffer data = TableFile.load("agari", VERSION, (SUIT_LONGS * 2 + HONOR_LONGS * 2) * Long.BYTES,
+				AgariTable::build);
+		SUIT_MENTSU = longs(data, 0, SUIT_LONGS);
+		SUIT_PAIR = longs(data, SUIT_LONGS, SUIT_LONGS);
+		HONOR_MENTSU = longs(data, SUIT_LONGS * 2, HONOR_LONGS);
+		HONOR_PAIR = longs(data, SUIT_LONGS * 2 + HONOR_LONGS, HONOR_LONGS);
+	}
+
+	/**
+	 * プライベートコンストラクタにより、このクラスのインスタンス化を防ぎます。
+	 */
+	private AgariTable() {}
+
+	/**
+	 * 表の本体を作ります。数牌の面子・数牌の雀頭・字牌の面子・字牌の雀頭の順に並べます。
+	 */
+	private static void build(ByteBuffer data) {
+		long[] suitMentsu = new long[SUIT_LONGS];
+		long[] suitPair = new long[SUIT_LONGS];
+		long[] honorMentsu = new long[HONOR_LONGS];
+		long[] honorPair = new long[HONOR_LONGS];
+		int[] counts = new int[SUIT_SIZE];
+		build(counts, SUIT_SIZE, true, 0, 0, suitMentsu, suitPair);
+		build(counts, HONOR_SIZE, false, 0, 0, honorMentsu, honorPair);
+		data.asLongBuffer().put(suitMentsu).put(suitPair).put(honorMentsu).put(honorPair);
+	}
+
+	/**
+	 * 本体の一部分をlongの並びとして取り出します。
+	 */
+	private static LongBuffer longs(ByteBuffer data, int from, int length) {
+		return data.slice(from * Long.BYTES, length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+	}
+
+	/**
+	 * 面子を最大4つまで積み上げながら、到達したキーを表に書き込みます。
+	 * 面子の種類は番号の昇順にしか選ばないため、同じ組み合わせを二度たどることはありません。
+	 * 刻子はランク0〜size-1、順子はランク0〜6をそれぞれ size, size+1, ... の番号として扱います。
+	 */
+	private static void build(int[] counts, int size, boolean sequences, int from, int mentsu,
+			long[] mentsuBits, long[] pairBits) {
+		int key = key(counts, 0, size);
+		set(mentsuBits, key);
+		for (int p = 0; p < size; p++) {
+			if (counts[p] <= 2) {
+				set(pairBits, key + 2 * POW5[p]);
+			}
+		}
+		if (mentsu == 4) {
+			return;
+		}
+		int kinds = sequences ? size + 7 : size;
+		for (int k = from; k < kinds; k++) {
+			if (k < size) {
+				if (counts[k] <= 1) {
+					counts[k] += 3;
+					build(counts, size, sequences, k, mentsu + 1, mentsuBits, pairBits);
+					counts[k] -= 3;
+				}
+			} else {
+				int s = k - size;
+				if (counts[s] < 4 && counts[s + 1] < 4 && counts[s + 2] < 4) {
+					counts[s]++;
+					counts[s + 1]++;
+					counts[s + 2]++;
+					build(counts, size, sequences, k, mentsu + 1, mentsuBits, pairBits);
+					counts[s]--;
+					counts[s + 1]--;
+					counts[s + 2]--;
+				}
+			}
+		}
+	}
+
+	private static void set(long[] bits, int key) {
+		bits[key >>> 6] |= 1L << key;
+	}
+
+	private static boolean get(LongBuffer bits, int key) {
+		return (bits.get(key >>> 6) & (1L << key)) != 0;
+	}
+
+	/**
+	 * 手牌カウント配列の一部分（1つの牌種）から5進数のキーを作ります。
+	 *
+	 * @param handCount 手牌カウント配列
+	 * @param offset 牌種の先頭ID（0, 9, 18, 27のいずれか）
+	 * @param size 牌種のランク数（数牌は9、字牌は7）
+	 * @return 牌種のキー
+	 */
+	static int key(int[] handCount, int offset, int size) {
+		int key = 0;
+		for (int i = offset + size - 1; i >= offset; i--) {
+			key = key * 5 + handCount[i];
+		}
+		return key;
+	}
+
+	/**
+	 * 数牌1色のキーが面子だけに分解できるかを返します。
+	 */
+	static boolean isSuitMentsu(int key) {
+		return get(SUIT_MENTSU, key);
+	}
+
+	/**
+	 * 数牌1色のキーが面子と雀頭1つに分解できるかを返します。
+	 */
+	static boolean isSuitPair(int key) {
+		return get(SUIT_PAIR, key);
+	}
+
+	/**
+	 * 字牌のキーが面子だけに分解できるかを返します。
+	 */
+	static boolean isHonorMentsu(int key) {
+		return get(HONOR_MENTSU, key);
+	}
+
+	/**
+	 * 字牌のキーが面子と雀頭1つに分解できるかを返します。
+	 */
+	static boolean isHonorPair(int key) {
+		return get(HONOR_PAIR, key);
+	}
+
+	/**
+	 * 4つの牌種のキーから、全体が「面子 + 雀頭1つ」に分解できるかを判定します。
+	 * 各牌種の枚数が3の倍数なら面子のみ、3で割って2余るなら雀頭込みで分解できる必要があり、
+	 * 雀頭を持つ牌種はちょうど1つでなければなりません。
+	 *
+	 * @param man 萬子のキー
+	 * @param pin 筒子のキー
+	 * @param sou 索子のキー
+	 * @param honor 字牌のキー
+	 * @param manTiles 萬子の枚数
+	 * @param pinTiles 筒子の枚数
+	 * @param souTiles 索子の枚数
+	 * @param honorTiles 字牌の枚数
+	 * @return 基本形のあがり形ならtrue
+	 */
+	static boolean isAgari(int man, int pin, int sou, int honor,
+			int manTiles, int pinTiles, int souTiles, int honorTiles) {
+		int pairs = 0;
+		switch (manTiles % 3) {
+		case 0: if (!isSuitMentsu(man)) return false; break;
+		case 2: if (!isSuitPair(man)) return false; pairs++; break;
+		default: return false;
+		}
+		switch (pinTiles % 3) {
+		case 0: if (!isSuitMentsu(pin)) return false; break;
+		case 2: if (!isSuitPair(pin)) return false; pairs++; break;
+		default: return false;
+		}
+		switch (souTiles % 3) {
+		case 0: if (!isSuitMentsu(sou)) return false; break;
+		case 2: if (!isSuitPair(sou)) return false; pairs++; break;
+		default: return false;
+		}
+		switch (honorTiles % 3) {
+		case 0: if (!isHonorMentsu(honor)) return false; break;
+		case 2: if (!isHonorPair(honor)) return false; pairs++; break;
+		default: return false;
+		}
+		return pairs == 1;
+	}
+}
@@ -1,15 +1,109 @@
 package com.example.mahjong.model;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * 麻雀の面子の一人、コンピュータープレイヤーの一人目を定義するクラスです。
  * 面子クラスを継承します。
+ *
+ * 打牌は持っている{@link Strategy}の既定の戦略（向聴数が最も小さくなる牌を切る）で選び、鳴きはしません。
  */
 public class CP1 extends Mentsu implements Observer {
 	private static final int id = 1;
-	
+	/** 打牌を選ぶ戦略 */
+	private final Strategy strategy = new Strategy() {};
+	/** 手牌のリスト。常にソートされた状態を保ちます。 */
+	private final List<TileType> hand = new ArrayList<>();
+	/** 手牌の枚数を牌IDごとに数えた配列。手牌リストと常に同じ内容を保ちます。 */
+	private final int[] handCount = new int[34];
+	/** 直前にツモした牌のID。鳴いた直後などツモしていなければ-1 */
+	private int lastTsumo = -1;
+
 	@Override
 	public void update(SubjectTable table) {
-		
+
+	}
+
+	/**
+	 * 牌をツモり、手牌に加えます。
+	 *
+	 * @param tsumo ツモしてきた牌を含むリスト（通常は1枚）
+	 */
+	@Override
+	void tsumo(List<TileType> tsumo) {
+		for (TileType tile : tsumo) {
+			add(tile);
+			this.lastTsumo = tile.getId();
+		}
+	}
+
+	/**
+	 * 捨てる牌を選び、手牌から取り除きます。
+	 *
+	 * @return 捨てる牌（1枚）のリスト。手牌がなければ空のリスト
+	 */
+	@Override
+	public List<TileType> selectDiscard() {
+		if (this.hand.isEmpty()) {
+			return new ArrayList<>();
+		}
+		int tileId = this.strategy.selectDiscard(this.handCount, this.lastTsumo, null, id);
+		TileType discard = TileType.getTile(tileId);
+		this.hand.remove(discard);
+		this.handCount[tileId]--;
+		this.lastTsumo = -1;
+		List<TileType> discards = new ArrayList<>(1);
+		discards.add(discard);
+		return discards;
 	}
 
+	/**
+	 * CP1は鳴かないため、何もしません。
+	 *
+	 * @param discard 他のプレイヤーの捨て牌
+	 */
+	@Override
+	public void call(TileType discard) {
+
+	}
+
+	@Override
+	public void pon(List<TileType> discard) {
+		addAll(discard);
+	}
+
+	@Override
+	public void chii(List<TileType> discard) {
+		addAll(discard);
+	}
+
+	@Override
+	public void kan(List<TileType> discard) {
+		addAll(discard);
+	}
+
+	/**
+	 * 鳴いた牌を手牌に加えます。鳴いた直後はツモしていない扱いになります。
+	 */
+	private void addAll(List<TileType> tiles) {
+		for (TileType tile : tiles) {
+			add(tile);
+		}
+		this.lastTsumo = -1;
+	}
+
+	/**
+	 * ソート順を保ったまま牌を1枚手牌に加えます。
+	 */
+	private void add(TileType tile) {
+		int index = Collections.binarySearch(this.hand, tile);
+		this.hand.add(index < 0 ? -index - 1 : index, tile);
+		this.handCount[tile.getId()]++;
+	}
+
+	public List<TileType> getHand() {
+		return hand;
+	}
 }
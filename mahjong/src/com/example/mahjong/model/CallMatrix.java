@@ -0,0 +1,197 @@
+package com.example.mahjong.model;
+
+/**
+ * 1枚の捨て牌に対して、ほかの3人が取れる行動（ポン・大明槓・チー・ロン）を一度に調べるクラスです。
+ *
+ * 結果は1つのintに詰めて返します。
+ * <pre>
+ * ビット 0〜15 : 席ごとの行動。席sの行動は (matrix >>> (s * 4)) & 0xF（{@link #PON}, {@link #KAN}, {@link #CHII}, {@link #RON}の論理和）
+ * ビット16〜18 : 優先される席 + 1（誰も行動できなければ0）
+ * ビット20〜23 : 優先される席の行動
+ * </pre>
+ * 席は風の番号（0:東, 1:南, 2:西, 3:北）で、捨てた席の次（下家）から反時計回りに調べます。
+ * 優先順位はロン &gt; ポン・カン &gt; チーで、ロンが複数あるときは捨てた席に近いほう（頭ハネ）を優先します。
+ * チーは下家だけ、リーチしている席はロンだけが取れます。
+ *
+ * ロンは{@link Player#getWaitMask()}のような、あらかじめ求めておいた待ち牌のビットを引くだけで判定するため、
+ * あがり判定の探索は行いません。フリテンは{@link Table#ronWaitMask(int, long)}で待ち牌のビットを消して表します。
+ * 配列もオブジェクトも作らないので、打牌のたびに呼び出しても負担になりません。
+ */
+public final class CallMatrix {
+	/** 行動: ポン */
+	public static final int PON = 1;
+	/** 行動: 大明槓 */
+	public static final int KAN = 2;
+	/** 行動: チー */
+	public static final int CHII = 4;
+	/** 行動: ロン */
+	public static final int RON = 8;
+
+	/** 優先される席の位置 */
+	private static final int CALLER_SHIFT = 16;
+	/** 優先される席の行動の位置 */
+	private static final int ACTION_SHIFT = 20;
+
+	/**
+	 * プライベートコンストラクタにより、このクラスのインスタンス化を防ぎます。
+	 */
+	private CallMatrix() {}
+
+	/**
+	 * プレイヤーの手牌から、捨て牌に対する全員の行動を調べます。
+	 *
+	 * @param discarder 捨てた席
+	 * @param tile 捨て牌
+	 * @param players 席ごとのプレイヤー(4)。nullの席は調べません
+	 * @return 行動を詰めた値
+	 */
+	public static int evaluate(int discarder, TileType tile, Player[] players) {
+		return evaluate(discarder, tile, players, null);
+	}
+
+	/**
+	 * プレイヤーの手牌から、捨て牌に対する全員の行動を調べます。フリテンの席にはロンを付けません。
+	 *
+	 * @param discarder 捨てた席
+	 * @param tile 捨て牌（{@link Table#addDiscard(int, TileType)}で記録した後のもの）
+	 * @param players 席ごとのプレイヤー(4)。nullの席は調べません
+	 * @param table フリテンを記録している卓。nullならフリテンを考えません
+	 * @return 行動を詰めた値
+	 */
+	public static int evaluate(int discarder, TileType tile, Player[] players, Table table) {
+		int id = tile.getId();
+		int matrix = 0;
+		for (int i = 1; i < 4; i++) {
+			int seat = (discarder + i) & 3;
+			Player player = players[seat];
+			if (player != null) {
+				long waits = table == null ? player.getWaitMask() : table.ronWaitMask(seat, player.getWaitMask());
+				matrix |= options(player.getHandCount(), waits, id, i, player.isRiichi()) << (seat * 4);
+			}
+		}
+		return resolve(matrix, discarder);
+	}
+
+	/**
+	 * 手牌のカウント配列と待ち牌のビットから、捨て牌に対する全員の行動を調べます。
+	 *
+	 * @param discarder 捨てた席
+	 * @param tileId 捨て牌のID
+	 * @param handCounts 席ごとの手牌カウント配列(4 × 34)。nullの席は調べません
+	 * @param waitMasks 席ごとの、ロンに使える待ち牌のビット集合(4)。フリテンの席は0にしておきます（{@link Table#ronWaitMask(int, long)}）
+	 * @param riichiSeats リーチしている席のビット集合（ビットsが席s）
+	 * @return 行動を詰めた値
+	 */
+	public static int evaluate(int discarder, int tileId, int[][] handCounts, long[] waitMasks, int riichiSeats) {
+		int matrix = 0;
+		for (int i = 1; i < 4; i++) {
+			int seat = (discarder + i) & 3;
+			if (handCounts[seat] != null) {
+				matrix |= options(handCounts[seat], waitMasks[seat], tileId, i, (riichiSeats >>> seat & 1) != 0)
+						<< (seat * 4);
+			}
+		}
+		return resolve(matrix, discarder);
+	}
+
+	/**
+	 * 1つの席が捨て牌に対して取れる行動を調べます。
+	 *
+	 * @param handCount その席の手牌カウント配列(34)
+	 * @param waitMask その席の待ち牌のビット集合
+	 * @param tileId 捨て牌のID
+	 * @param distance 捨てた席から見た位置（1:下家, 2:対面, 3:上家）
+	 * @param riichi その席がリーチしているか
+	 * @return {@link #PON}, {@link #KAN}, {@link #CHII}, {@link #RON}の論理和
+	 */
+	public static int options(int[] handCount, long waitMask, int tileId, int distance, boolean riichi) {
+		int options = (int) (waitMask >>> tileId & 1L) << 3;
+		if (riichi) {
+			return options;
+		}
+		int count = handCount[tileId];
+		if (count >= 2) {
+			options |= count >= 3 ? PON | KAN : PON;
+		}
+		if (distance == 1 && Judge.canChii(handCount, tileId)) {
+			options |= CHII;
+		}
+		return options;
+	}
+
+	/**
+	 * 席ごとの行動（実際に宣言されたものなど）から、優先される席と行動を決め直します。
+	 * ビット0〜15だけを見て、ビット16〜23を書き直します。
+	 *
+	 * @param matrix 席ごとの行動を詰めた値
+	 * @param discarder 捨てた席
+	 * @return 優先される席と行動を書き込んだ値
+	 */
+	public static int resolve(int matrix, int discarder) {
+		int options = matrix & 0xFFFF;
+		int caller = -1;
+		int action = 0;
+		for (int i = 1; i < 4; i++) {
+			int seat = (discarder + i) & 3;
+			int seatOptions = options >>> (seat * 4) & 0xF;
+			if ((seatOptions & RON) != 0) {
+				caller = seat;
+				action = RON;
+				break;
+			}
+			if ((seatOptions & (PON | KAN)) != 0 && (action & (PON | KAN)) == 0) {
+				caller = seat;
+				action = seatOptions & (PON | KAN);
+			} else if ((seatOptions & CHII) != 0 && action == 0) {
+				caller = seat;
+				action = CHII;
+			}
+		}
+		return options | (caller + 1) << CALLER_SHIFT | action << ACTION_SHIFT;
+	}
+
+	/**
+	 * 指定した席の行動を取り出します。
+	 *
+	 * @param matrix 行動を詰めた値
+	 * @param seat 席
+	 * @return {@link #PON}, {@link #KAN}, {@link #CHII}, {@link #RON}の論理和
+	 */
+	public static int options(int matrix, int seat) {
+		return matrix >>> (seat * 4) & 0xF;
+	}
+
+	/**
+	 * 優先される席を取り出します。
+	 *
+	 * @param matrix 行動を詰めた値
+	 * @return 優先される席。誰も行動できなければ-1
+	 */
+	public static int caller(int matrix) {
+		return (matrix >>> CALLER_SHIFT & 7) - 1;
+	}
+
+	/**
+	 * 優先される席の行動を取り出します。ロンならロンだけ、ポン・カンならその2つだけを返します。
+	 *
+	 * @param matrix 行動を詰めた値
+	 * @return 優先される行動。誰も行動できなければ0
+	 */
+	public static int action(int matrix) {
+		return matrix >>> ACTION_SHIFT & 0xF;
+	}
+
+	/**
+	 * ロンできる席をすべて返します。ダブロンを認めるルールで使います。
+	 *
+	 * @param matrix 行動を詰めた値
+	 * @return ロンできる席のビット集合（ビットsが席s）
+	 */
+	public static int ronSeats(int matrix) {
+		int seats = 0;
+		for (int seat = 0; seat < 4; seat++) {
+			seats |= (matrix >>> (seat * 4 + 3) & 1) << seat;
+		}
+		return seats;
+	}
+}
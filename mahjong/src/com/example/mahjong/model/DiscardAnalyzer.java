@@ -0,0 +1,212 @@
+package com.example.mahjong.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 14枚の手牌について、切れる牌の種類ごとに「何を切るのがよいか」を評価し、順位をつけるクラスです。
+ *
+ * 候補ごとに、切った後の向聴数・受け入れ（{@link Ukeire}）を求め、テンパイになる候補は待ちの形と
+ * ロンあがりの見込み点数（{@link YakuEvaluator}, {@link ScoreCalculator}）まで求めます。
+ * 候補は{@link ForkJoinPool}で並列に評価します。作業用のオブジェクトはスレッドごとに使い回すため、
+ * 1手ごとの解析で判定用のオブジェクトを作り直すことはありません。
+ *
+ * 1手あたりの時間の上限を指定でき、上限を過ぎた候補は見込み点数の計算を省きます（向聴数と受け入れは必ず求めます）。
+ * 人間向けの表示と、自動で打つ席の両方から使えます。
+ */
+public final class DiscardAnalyzer {
+	/** 1手あたりの時間の上限の既定値（5ミリ秒） */
+	public static final long DEFAULT_BUDGET_NANOS = 5_000_000L;
+
+	/** 順位づけの基準: 向聴数が小さい順、見えていない受け入れが多い順、良形、見込み点数が高い順 */
+	private static final Comparator<DiscardOption> RANKING = Comparator
+			.comparingInt(DiscardOption::getShanten)
+			.thenComparing(Comparator.comparingInt(DiscardOption::getUnseen).reversed())
+			.thenComparing(option -> option.isGoodShape() ? 0 : 1)
+			.thenComparing(Comparator.comparingInt(DiscardOption::getExpectedScore).reversed())
+			.thenComparingInt(option -> option.getTile().getId());
+
+	/** スレッドごとの作業用オブジェクト */
+	private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+	/** 候補を評価するスレッドプール */
+	private final ForkJoinPool pool;
+
+	/**
+	 * 共通のForkJoinPoolを使うDiscardAnalyzerを生成します。
+	 */
+	public DiscardAnalyzer() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * 指定したForkJoinPoolを使うDiscardAnalyzerを生成します。
+	 *
+	 * @param pool 候補を評価するスレッドプール
+	 */
+	public DiscardAnalyzer(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * プレイヤーの手牌と卓に見えている牌から、既定の時間の上限で打牌の候補を評価します。
+	 *
+	 * @param player ツモした後のプレイヤー
+	 * @param table 場に見えている牌を持つ卓
+	 * @param context 見込み点数の計算に使うあがり状況（風・リーチ・副露）。nullなら見込み点数を計算しません
+	 * @return 順位の高い順に並べた候補
+	 */
+	public List<DiscardOption> analyze(Player player, Table table, AgariContext context) {
+		return analyze(player.getHandCount(), table.getVisible(), context, DEFAULT_BUDGET_NANOS);
+	}
+
+	/**
+	 * 打牌の候補を並列に評価し、順位の高い順に返します。
+	 *
+	 * @param handCount 3n+2枚の手牌カウント配列(34)。書き換えません
+	 * @param visible 場に見えている牌の枚数(34)。自分の手牌は含めません
+	 * @param context 見込み点数の計算に使うあがり状況。nullなら見込み点数を計算しません。
+	 *                自風が不明(-1)の場合は子として計算します
+	 * @param budgetNanos 時間の上限（ナノ秒）。過ぎた候補は見込み点数を-1にします
+	 * @return 順位の高い順に並べた候補
+	 */
+	public List<DiscardOption> analyze(int[] handCount, int[] visible, AgariContext context, long budgetNanos) {
+		long deadline = System.nanoTime() + budgetNanos;
+		int[] candidates = new int[34];
+		int size = 0;
+		for (int i = 0; i < 34; i++) {
+			if (handCount[i] > 0) {
+				candidates[size++] = i;
+			}
+		}
+		DiscardOption[] results = new DiscardOption[size];
+		int[] hand = Arrays.copyOf(handCount, 34);
+		this.pool.invoke(new CandidateTask(hand, visible, context, deadline, candidates, results, 0, size));
+
+		List<DiscardOption> ranked = new ArrayList<>(Arrays.asList(results));
+		ranked.sort(RANKING);
+		return ranked;
+	}
+
+	/**
+	 * 候補の範囲を半分ずつに分けて並列に評価するタスクです。
+	 * RecursiveActionはSerializableですが、このタスクを直列化することはないため、直列化できない型のフィールドはtransientにしています。
+	 */
+	private static final class CandidateTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] handCount;
+		private final int[] visible;
+		private final transient AgariContext context;
+		private final long deadline;
+		private final int[] candidates;
+		private final transient DiscardOption[] results;
+		private final int from;
+		private final int to;
+
+		CandidateTask(int[] handCount, int[] visible, AgariContext context, long deadline,
+				int[] candidates, DiscardOption[] results, int from, int to) {
+			this.handCount = handCount;
+			this.visible = visible;
+			this.context = context;
+			this.deadline = deadline;
+			this.candidates = candidates;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= 1) {
+				for (int i = this.from; i < this.to; i++) {
+					this.results[i] = WORKSPACE.get().evaluate(this.handCount, this.visible, this.context,
+							this.deadline, this.candidates[i]);
+				}
+				return;
+			}
+			int mid = (this.from + this.to) >>> 1;
+			invokeAll(new CandidateTask(this.handCount, this.visible, this.context, this.deadline,
+					this.candidates, this.results, this.from, mid),
+					new CandidateTask(this.handCount, this.visible, this.context, this.deadline,
+							this.candidates, this.results, mid, this.to));
+		}
+	}
+
+	/**
+	 * 1つのスレッドが候補を評価するための作業用オブジェクトです。
+	 */
+	private static final class Workspace {
+		private final int[] counts = new int[34];
+		private final Ukeire ukeire = new Ukeire();
+		private final YakuEvaluator evaluator = new YakuEvaluator();
+		private final ScoreCalculator calculator = new ScoreCalculator();
+		private final AgariContext context = new AgariContext();
+
+		/**
+		 * 1つの打牌を評価します。
+		 */
+		DiscardOption evaluate(int[] handCount, int[] visible, AgariContext base, long deadline, int discard) {
+			int[] counts = this.counts;
+			System.arraycopy(handCount, 0, counts, 0, 34);
+			this.ukeire.analyze(counts, visible, 1L << discard);
+			int shanten = this.ukeire.getShanten(discard);
+			long accept = this.ukeire.getAcceptMask(discard);
+			int unseen = this.ukeire.getUnseen(discard);
+			int shapes = 0;
+			int expected = -1;
+			if (shanten == 0) {
+				counts[discard]--;
+				for (long m = accept; m != 0; m &= m - 1) {
+					shapes |= Judge.judgeMachiShape(counts, Long.numberOfTrailingZeros(m));
+				}
+				if (base != null && System.nanoTime() < deadline) {
+					expected = expectedScore(counts, handCount, visible, base, accept, deadline);
+				}
+				counts[discard]++;
+			}
+			return new DiscardOption(TileType.getTile(discard), shanten, accept, unseen, shapes, expected);
+		}
+
+		/**
+		 * テンパイの手牌について、待ち牌ごとのロンあがりの点数を見えていない枚数で重みづけした平均を求めます。
+		 * 役のない待ち牌は0点として数えます。時間の上限を過ぎた場合は-1を返します。
+		 */
+		private int expectedScore(int[] counts13, int[] handCount, int[] visible, AgariContext base,
+				long accept, long deadline) {
+			AgariContext context = this.context;
+			context.copyFrom(base);
+			context.setTsumo(false);
+			if (context.getSeatWind() < 0) {
+				context.setSeatWind(1);
+			}
+			int winner = context.getSeatWind();
+			int loser = (winner + 1) & 3;
+			long total = 0L;
+			int weight = 0;
+			for (long m = accept; m != 0; m &= m - 1) {
+				if (System.nanoTime() >= deadline) {
+					return -1;
+				}
+				int t = Long.numberOfTrailingZeros(m);
+				int copies = Math.max(0, 4 - handCount[t] - visible[t]);
+				if (copies == 0) {
+					continue;
+				}
+				counts13[t]++;
+				context.setAgariTile(t);
+				if (this.evaluator.evaluate(counts13, context) != 0L) {
+					total += (long) copies
+							* this.calculator.calculate(this.evaluator, context, 0, winner, loser, 0, 0).getGain();
+				}
+				counts13[t]--;
+				weight += copies;
+			}
+			return weight == 0 ? 0 : (int) (total / weight);
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.example.mahjong.model;
+
+/**
+ * {@link DiscardAnalyzer}が求めた、1つの打牌の候補の評価です。
+ */
+public final class DiscardOption {
+	/** 切る牌 */
+	private final TileType tile;
+	/** 切った後の向聴数 */
+	private final int shanten;
+	/** 向聴数を下げるツモ牌のマスク */
+	private final long acceptMask;
+	/** 受け入れのうち、まだ見えていない枚数 */
+	private final int unseen;
+	/** テンパイの場合の待ちの形（{@link Machi#bit()}の論理和）。テンパイでなければ0 */
+	private final int waitShapes;
+	/** テンパイの場合の、ロンあがり1回あたりの見込み点数。見積もっていなければ-1 */
+	private final int expectedScore;
+
+	/**
+	 * DiscardOptionの新しいインスタンスを生成します。
+	 *
+	 * @param tile 切る牌
+	 * @param shanten 切った後の向聴数
+	 * @param acceptMask 向聴数を下げるツモ牌のマスク
+	 * @param unseen 受け入れのうち、まだ見えていない枚数
+	 * @param waitShapes 待ちの形
+	 * @param expectedScore 見込み点数。見積もっていなければ-1
+	 */
+	DiscardOption(TileType tile, int shanten, long acceptMask, int unseen, int waitShapes, int expectedScore) {
+		this.tile = tile;
+		this.shanten = shanten;
+		this.acceptMask = acceptMask;
+		this.unseen = unseen;
+		this.waitShapes = waitShapes;
+		this.expectedScore = expectedScore;
+	}
+
+	public TileType getTile() {
+		return tile;
+	}
+
+	public int getShanten() {
+		return shanten;
+	}
+
+	public long getAcceptMask() {
+		return acceptMask;
+	}
+
+	/**
+	 * 受け入れの種類数を返します。
+	 *
+	 * @return 受け入れの種類数
+	 */
+	public int getAcceptKinds() {
+		return Long.bitCount(acceptMask);
+	}
+
+	public int getUnseen() {
+		return unseen;
+	}
+
+	public int getWaitShapes() {
+		return waitShapes;
+	}
+
+	/**
+	 * 両面待ちを含む良形のテンパイかどうかを返します。
+	 *
+	 * @return 両面待ちを含むならtrue
+	 */
+	public boolean isGoodShape() {
+		return (waitShapes & Machi.RYANMEN.bit()) != 0;
+	}
+
+	public int getExpectedScore() {
+		return expectedScore;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(tile).append(" ");
+		sb.append(shanten == 0 ? "テンパイ" : shanten + "向聴");
+		sb.append(" 受け入れ").append(getAcceptKinds()).append("種").append(unseen).append("枚");
+		if (expectedScore >= 0) {
+			sb.append(" 見込み").append(expectedScore).append("点");
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,79 @@
+package com.example.mahjong.model;
+
+/**
+ * {@link GameEventBus}のリングバッファの1つの枠、または購読者に渡す1件のイベントです。
+ *
+ * リングバッファの枠は使い回すため、配信してもオブジェクトは作りません。
+ * 購読者にはその購読者専用のインスタンスに写したものを渡すので、{@link GameEventHandler#onEvent(GameEvent)}の中では
+ * 書き換えられる心配なく読めますが、戻った後は次のイベントで上書きされます。残しておく場合は値を写してください。
+ * 各項目の意味は{@link GameEventType}の種類ごとの説明のとおりです。
+ */
+public final class GameEvent {
+	/** 枠に書き込み中であることを表す番号 */
+	static final long WRITING = -1L;
+
+	/** 配信の通し番号。枠では、書き込みが終わったときに最後に書き込みます */
+	volatile long sequence = WRITING;
+	/** 種類 */
+	GameEventType type;
+	/** 行動した席 */
+	int seat = -1;
+	/** 牌ID */
+	int tile = -1;
+	/** 相手の席（鳴かれた・放銃した席） */
+	int from = -1;
+	/** 種類ごとの整数の情報 */
+	int info;
+	/** 種類ごとのビット集合などの情報 */
+	long value;
+
+	/**
+	 * 別のイベントの内容を写します。通し番号も写します。
+	 *
+	 * @param other 写すイベント
+	 * @param sequence 写したイベントの通し番号
+	 */
+	void copyFrom(GameEvent other, long sequence) {
+		this.type = other.type;
+		this.seat = other.seat;
+		this.tile = other.tile;
+		this.from = other.from;
+		this.info = other.info;
+		this.value = other.value;
+		this.sequence = sequence;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public GameEventType getType() {
+		return type;
+	}
+
+	public int getSeat() {
+		return seat;
+	}
+
+	public int getTile() {
+		return tile;
+	}
+
+	public int getFrom() {
+		return from;
+	}
+
+	public int getInfo() {
+		return info;
+	}
+
+	public long getValue() {
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		return "GameEvent[" + this.sequence + " " + this.type + " seat=" + this.seat + " tile=" + this.tile
+				+ " from=" + this.from + " info=" + this.info + " value=" + Long.toHexString(this.value) + "]";
+	}
+}
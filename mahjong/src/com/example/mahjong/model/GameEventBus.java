@@ -0,0 +1,280 @@
+package com.example.mahjong.model;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 卓のイベント（ツモ・打牌・鳴き・リーチ・あがりなど）を、ゲームループを止めずに購読者へ配信するバスです。
+ *
+ * イベントは最初に確保したリングバッファの枠に書き込むだけなので、配信でオブジェクトは作りません。
+ * 購読者はそれぞれ専用のスレッド（既定は仮想スレッド）と自分の読み取り位置（通し番号）を持ち、自分の速さで読み進めます。
+ * ゲームループは購読者を待たないため、遅い購読者（ログ・観戦配信・AIなど）があっても対局は止まりません。
+ * 購読者がリングバッファの大きさ以上に遅れた場合は、上書きされたイベントを読み飛ばし、その数を{@link Subscription#getDropped()}で数えます。
+ *
+ * 配信（{@link #publish}）は1つのスレッド（その卓のゲームループ）からだけ呼び出してください。
+ * 購読の追加と解除はどのスレッドからでもできます。
+ */
+public final class GameEventBus {
+	/** 既定のリングバッファの大きさ */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	/** 購読者のスレッドを作る既定のファクトリ */
+	private static final ThreadFactory DEFAULT_FACTORY = Thread.ofVirtual().name("game-event-", 0).factory();
+	/** 購読者がいないときの配列 */
+	private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+
+	/** リングバッファ */
+	private final GameEvent[] ring;
+	/** 通し番号からリングバッファの位置を求めるマスク */
+	private final int mask;
+	/** 最後に配信したイベントの通し番号。まだなければ-1 */
+	private volatile long cursor = -1L;
+	/** 購読者（追加・解除のたびに作り直します） */
+	private volatile Subscription[] subscriptions = NO_SUBSCRIPTIONS;
+
+	/**
+	 * 既定の大きさ（{@value #DEFAULT_CAPACITY}件）のバスを生成します。
+	 */
+	public GameEventBus() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * 指定した大きさのバスを生成します。大きさは2の累乗に切り上げます。
+	 *
+	 * @param capacity リングバッファに保持するイベントの数
+	 */
+	public GameEventBus(int capacity) {
+		if (capacity <= 0 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Invalid capacity: " + capacity);
+		}
+		int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+		this.ring = new GameEvent[size];
+		for (int i = 0; i < size; i++) {
+			this.ring[i] = new GameEvent();
+		}
+		this.mask = size - 1;
+	}
+
+	/**
+	 * イベントを配信します。購読者を待たずに戻ります。
+	 *
+	 * @param type 種類
+	 * @param seat 行動した席
+	 * @param tile 牌ID
+	 * @param from 相手の席
+	 * @param info 種類ごとの整数の情報
+	 * @param value 種類ごとのビット集合などの情報
+	 * @see GameEventType
+	 */
+	public void publish(GameEventType type, int seat, int tile, int from, int info, long value) {
+		long sequence = this.cursor + 1;
+		GameEvent slot = this.ring[(int) sequence & this.mask];
+		slot.sequence = GameEvent.WRITING;
+		VarHandle.storeStoreFence();
+		slot.type = type;
+		slot.seat = seat;
+		slot.tile = tile;
+		slot.from = from;
+		slot.info = info;
+		slot.value = value;
+		slot.sequence = sequence;
+		this.cursor = sequence;
+		for (Subscription subscription : this.subscriptions) {
+			if (subscription.waiting) {
+				LockSupport.unpark(subscription.thread);
+			}
+		}
+	}
+
+	/**
+	 * 購読を始めます。これから配信されるイベントを、購読者専用の仮想スレッドで受け取ります。
+	 *
+	 * @param handler 購読者
+	 * @return 購読。不要になったら{@link Subscription#close()}で解除します
+	 */
+	public Subscription subscribe(GameEventHandler handler) {
+		return subscribe(handler, DEFAULT_FACTORY);
+	}
+
+	/**
+	 * 購読を始めます。これから配信されるイベントを、指定したファクトリで作ったスレッドで受け取ります。
+	 *
+	 * @param handler 購読者
+	 * @param factory 購読者のスレッドを作るファクトリ
+	 * @return 購読。不要になったら{@link Subscription#close()}で解除します
+	 */
+	public Subscription subscribe(GameEventHandler handler, ThreadFactory factory) {
+		Subscription subscription = new Subscription(this, handler, this.cursor + 1);
+		subscription.thread = factory.newThread(subscription::run);
+		synchronized (this.ring) {
+			Subscription[] current = this.subscriptions;
+			Subscription[] next = Arrays.copyOf(current, current.length + 1);
+			next[current.length] = subscription;
+			this.subscriptions = next;
+		}
+		subscription.thread.start();
+		return subscription;
+	}
+
+	private void remove(Subscription subscription) {
+		synchronized (this.ring) {
+			Subscription[] current = this.subscriptions;
+			for (int i = 0; i < current.length; i++) {
+				if (current[i] == subscription) {
+					Subscription[] next = new Subscription[current.length - 1];
+					System.arraycopy(current, 0, next, 0, i);
+					System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+					this.subscriptions = next;
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 最後に配信したイベントの通し番号を返します。
+	 *
+	 * @return 通し番号。まだ配信していなければ-1
+	 */
+	public long getCursor() {
+		return this.cursor;
+	}
+
+	/**
+	 * リングバッファの大きさを返します。
+	 *
+	 * @return 保持できるイベントの数
+	 */
+	public int getCapacity() {
+		return this.ring.length;
+	}
+
+	/**
+	 * 1つの購読です。購読者専用のスレッドで、自分の読み取り位置からイベントを順に読み進めます。
+	 */
+	public static final class Subscription implements AutoCloseable {
+		private final GameEventBus bus;
+		private final GameEventHandler handler;
+		/** 購読者に渡すイベント（枠から写したもの） */
+		private final GameEvent event = new GameEvent();
+		/** 購読者のスレッド */
+		private Thread thread;
+		/** 次に読むイベントの通し番号 */
+		private long next;
+		/** 最後に購読者に渡したイベントの通し番号 */
+		private volatile long sequence;
+		/** 読み飛ばしたイベントの数 */
+		private volatile long dropped;
+		/** 解除したときの最後の通し番号。この番号までを渡し終えたらスレッドを終えます */
+		private volatile long limit = Long.MAX_VALUE;
+		/** 解除されていないか */
+		private volatile boolean running = true;
+		/** 新しいイベントを待って止まっているか */
+		private volatile boolean waiting;
+
+		private Subscription(GameEventBus bus, GameEventHandler handler, long next) {
+			this.bus = bus;
+			this.handler = handler;
+			this.next = next;
+			this.sequence = next - 1;
+		}
+
+		private void run() {
+			GameEventBus bus = this.bus;
+			GameEvent[] ring = bus.ring;
+			long next = this.next;
+			while (true) {
+				long available = Math.min(bus.cursor, this.limit);
+				if (next > available) {
+					if (!this.running) {
+						break;
+					}
+					this.waiting = true;
+					if (next > bus.cursor && this.running) {
+						LockSupport.park(this);
+					}
+					this.waiting = false;
+					continue;
+				}
+				if (available - next >= ring.length) {
+					long skip = available - ring.length + 1 - next;
+					this.dropped += skip;
+					next += skip;
+				}
+				GameEvent slot = ring[(int) next & bus.mask];
+				if (slot.sequence == next) {
+					this.event.copyFrom(slot, next);
+					VarHandle.acquireFence();
+					if (slot.sequence == next) {
+						deliver();
+						this.sequence = next++;
+						continue;
+					}
+				}
+				// 写している間に上書きされた
+				this.dropped++;
+				next++;
+			}
+			this.next = next;
+		}
+
+		private void deliver() {
+			try {
+				this.handler.onEvent(this.event);
+			} catch (RuntimeException e) {
+				Thread thread = Thread.currentThread();
+				thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+			}
+		}
+
+		/**
+		 * 購読を解除します。解除するまでに配信されたイベントを購読者に渡し終えてから、スレッドの終了を待ちます。
+		 * 解除した後に配信されたイベントは渡さないため、配信が続いていても待ち続けることはありません。
+		 * 購読者のスレッドから呼び出した場合は待ちません。
+		 */
+		@Override
+		public void close() {
+			this.limit = this.bus.cursor;
+			this.running = false;
+			LockSupport.unpark(this.thread);
+			this.bus.remove(this);
+			if (Thread.currentThread() != this.thread) {
+				try {
+					this.thread.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+		/**
+		 * 最後に購読者に渡したイベントの通し番号を返します。
+		 *
+		 * @return 通し番号
+		 */
+		public long getSequence() {
+			return this.sequence;
+		}
+
+		/**
+		 * 遅れすぎて読み飛ばしたイベントの数を返します。
+		 *
+		 * @return 読み飛ばしたイベントの数
+		 */
+		public long getDropped() {
+			return this.dropped;
+		}
+
+		/**
+		 * まだ購読者に渡していないイベントの数を返します。
+		 *
+		 * @return 遅れているイベントの数
+		 */
+		public long getLag() {
+			return this.bus.cursor - this.sequence;
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package com.example.mahjong.model;
+
+/**
+ * {@link GameEventBus}のイベントを受け取る購読者です。購読ごとの専用スレッドから呼び出されます。
+ */
+@FunctionalInterface
+public interface GameEventHandler {
+	/**
+	 * イベントを1件受け取ります。
+	 *
+	 * @param event イベント。戻った後は次のイベントで上書きされます
+	 */
+	void onEvent(GameEvent event);
+}
@@ -0,0 +1,24 @@
+package com.example.mahjong.model;
+
+/**
+ * {@link GameEventBus}で配信するイベントの種類です。
+ * 各種類で{@link GameEvent}のどの項目を使うかは、それぞれの説明のとおりです。使わない項目は-1か0です。
+ */
+public enum GameEventType {
+	/** 種類を問わない状態の更新（{@link SubjectTable#notifyObservers()}） */
+	UPDATE,
+	/** 局の開始。seat:親, info:本場 */
+	HAND_START,
+	/** ツモ。seat:ツモした席, tile:ツモした牌 */
+	DRAW,
+	/** 打牌。seat:捨てた席, tile:捨て牌, info:ツモ切りなら1, value:打牌後の待ち牌のビット集合 */
+	DISCARD,
+	/** ポン・チー・カン。seat:鳴いた席, tile:鳴いた牌, from:捨てた席, info:{@link CallMatrix#PON}などの行動, value:面子の最も小さい牌 */
+	CALL,
+	/** リーチ。seat:リーチした席, tile:宣言牌, value:待ち牌のビット集合 */
+	RIICHI,
+	/** あがり。seat:あがった席, tile:あがり牌, from:放銃した席（ツモなら-1）, info:翻数, value:成立した役のビット集合 */
+	WIN,
+	/** 荒牌流局。value:テンパイしている席のビット集合 */
+	EXHAUSTIVE_DRAW
+}
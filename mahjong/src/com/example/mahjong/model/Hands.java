@@ -1,5 +1,9 @@
 package com.example.mahjong.model;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
 /**
  * 麻雀の役を定義する列挙型です。
  * 各役は、ID、日本語名、門前での翻数、副露（鳴き）した場合の翻数を保持します。
@@ -11,9 +15,94 @@ public enum Hands {
     PINFU(1, "ピンフ", 1, 0),
     /** 七対子（チートイツ） */
     CHITOI(2, "七対子", 2, 2),
+    /** 立直（リーチ） */
+    RIICHI(3, "リーチ", 1, 0),
+    /** 両立直（ダブルリーチ） */
+    DOUBLE_RIICHI(4, "ダブルリーチ", 2, 0),
+    /** 一発 */
+    IPPATSU(5, "一発", 1, 0),
+    /** 門前清自摸和（メンゼンツモ） */
+    MENZEN_TSUMO(6, "メンゼンツモ", 1, 0),
+    /** 一盃口（イーペーコー） */
+    IIPEIKOU(7, "イーペーコー", 1, 0),
+    /** 役牌 白 */
+    HAKU(8, "役牌 白", 1, 1),
+    /** 役牌 發 */
+    HATSU(9, "役牌 發", 1, 1),
+    /** 役牌 中 */
+    CHUN(10, "役牌 中", 1, 1),
+    /** 役牌 自風 */
+    JIKAZE(11, "役牌 自風", 1, 1),
+    /** 役牌 場風 */
+    BAKAZE(12, "役牌 場風", 1, 1),
+    /** 嶺上開花（リンシャンカイホウ） */
+    RINSHAN(13, "リンシャンカイホウ", 1, 1),
+    /** 槍槓（チャンカン） */
+    CHANKAN(14, "チャンカン", 1, 1),
+    /** 海底摸月（ハイテイ） */
+    HAITEI(15, "ハイテイ", 1, 1),
+    /** 河底撈魚（ホウテイ） */
+    HOUTEI(16, "ホウテイ", 1, 1),
+    /** 混全帯么九（チャンタ） */
+    CHANTA(17, "チャンタ", 2, 1),
+    /** 一気通貫（イッツー） */
+    ITTSU(18, "一気通貫", 2, 1),
+    /** 三色同順 */
+    SANSHOKU(19, "三色同順", 2, 1),
+    /** 三色同刻 */
+    SANSHOKU_DOUKOU(20, "三色同刻", 2, 2),
+    /** 対々和（トイトイ） */
+    TOITOI(21, "トイトイ", 2, 2),
+    /** 三暗刻（サンアンコー） */
+    SANANKOU(22, "三暗刻", 2, 2),
+    /** 三槓子（サンカンツ） */
+    SANKANTSU(23, "三槓子", 2, 2),
+    /** 小三元（ショウサンゲン） */
+    SHOUSANGEN(24, "小三元", 2, 2),
+    /** 混老頭（ホンロウトウ） */
+    HONROUTOU(25, "混老頭", 2, 2),
+    /** 混一色（ホンイツ） */
+    HONITSU(26, "混一色", 3, 2),
+    /** 純全帯么九（ジュンチャン） */
+    JUNCHAN(27, "純チャン", 3, 2),
+    /** 二盃口（リャンペーコー） */
+    RYANPEIKOU(28, "二盃口", 3, 0),
+    /** 清一色（チンイツ） */
+    CHINITSU(29, "清一色", 6, 5),
+    /** 国士無双 */
+    KOKUSHI(30, "国士無双", 13, 0),
+    /** 四暗刻（スーアンコー） */
+    SUUANKOU(31, "四暗刻", 13, 0),
+    /** 大三元（ダイサンゲン） */
+    DAISANGEN(32, "大三元", 13, 13),
+    /** 小四喜（ショウスーシー） */
+    SHOUSUUSHII(33, "小四喜", 13, 13),
+    /** 大四喜（ダイスーシー） */
+    DAISUUSHII(34, "大四喜", 13, 13),
+    /** 字一色（ツーイーソー） */
+    TSUUIISOU(35, "字一色", 13, 13),
+    /** 緑一色（リューイーソー） */
+    RYUUIISOU(36, "緑一色", 13, 13),
+    /** 清老頭（チンロウトウ） */
+    CHINROUTOU(37, "清老頭", 13, 13),
+    /** 九蓮宝燈（チューレンポウトウ） */
+    CHUUREN(38, "九蓮宝燈", 13, 0),
+    /** 四槓子（スーカンツ） */
+    SUUKANTSU(39, "四槓子", 13, 13),
+    /** 天和（テンホウ） */
+    TENHOU(40, "天和", 13, 0),
+    /** 地和（チーホウ） */
+    CHIIHOU(41, "地和", 13, 0),
     /** 役なし */
     NONE(99, "役なし", 0, 0);
 
+    /** 役満の翻数 */
+    public static final int YAKUMAN_HAN = 13;
+    /** すべての役満のビット集合 */
+    public static final long YAKUMAN_MASK = yakumanMask();
+    /** {@link #values()}の複製を避けるための定数一覧 */
+    private static final Hands[] VALUES = values();
+
     /** 役を識別するためのID */
     private final int id;
     /** 役の日本語名 */
@@ -84,6 +173,91 @@ public enum Hands {
 		return this.calledHan;
 	}
 
+    /**
+     * 門前かどうかに応じた翻数を返します。
+     *
+     * @param menzen 門前ならtrue
+     * @return 翻数。副露で成立しない役は0
+     */
+	public int getHan(boolean menzen) {
+		return menzen ? this.han : this.calledHan;
+	}
+
+    /**
+     * 役満かどうかを返します。
+     *
+     * @return 役満ならtrue
+     */
+	public boolean isYakuman() {
+		return this.han >= YAKUMAN_HAN;
+	}
+
+    /**
+     * 役の集合をビットで表すときの、この役のビットを返します。
+     *
+     * @return {@code 1L << ordinal()}
+     */
+	public long bit() {
+		return 1L << ordinal();
+	}
+
+    /**
+     * 役のビット集合を{@link EnumSet}に変換します。
+     *
+     * @param mask {@link #bit()}の論理和
+     * @return 役の集合
+     */
+	public static EnumSet<Hands> toSet(long mask) {
+		EnumSet<Hands> set = EnumSet.noneOf(Hands.class);
+		for (Hands hand : VALUES) {
+			if ((mask & hand.bit()) != 0) {
+				set.add(hand);
+			}
+		}
+		return set;
+	}
+
+    /**
+     * 役のビット集合を、宣言順に並べたリストに変換します。
+     *
+     * @param mask {@link #bit()}の論理和
+     * @return 役のリスト
+     */
+	public static List<Hands> toList(long mask) {
+		List<Hands> list = new ArrayList<>(Long.bitCount(mask));
+		for (Hands hand : VALUES) {
+			if ((mask & hand.bit()) != 0) {
+				list.add(hand);
+			}
+		}
+		return list;
+	}
+
+    /**
+     * 役のビット集合の翻数の合計を返します。
+     *
+     * @param mask {@link #bit()}の論理和
+     * @param menzen 門前ならtrue
+     * @return 翻数の合計
+     */
+	public static int sumHan(long mask, boolean menzen) {
+		int han = 0;
+		for (long m = mask; m != 0; m &= m - 1) {
+			han += VALUES[Long.numberOfTrailingZeros(m)].getHan(menzen);
+		}
+		return han;
+	}
+
+	private static long yakumanMask() {
+		long mask = 0L;
+		for (Hands hand : values()) {
+			if (hand.isYakuman()) {
+				mask |= hand.bit();
+			}
+		}
+		return mask;
+	}
+
 
 
 }
@@ -16,6 +16,17 @@ public final class Judge {
 	 */
 	private Judge() {}
 
+	/** 么九牌（一・九牌と字牌）のID */
+	private static final int[] YAOCHU = { 0, 8, 9, 17, 18, 26, 27, 28, 29, 30, 31, 32, 33 };
+	/** {@link PackedHand}の枚数を書き出す、スレッドごとの作業用配列 */
+	private static final ThreadLocal<int[]> COUNTS = ThreadLocal.withInitial(() -> new int[34]);
+	/** 役の判定に使う、スレッドごとのYakuEvaluator */
+	private static final ThreadLocal<YakuEvaluator> EVALUATOR = ThreadLocal.withInitial(YakuEvaluator::new);
+	/** 平和の判定に使う、スレッドごとのあがり状況（あがり牌だけを設定します） */
+	private static final ThreadLocal<AgariContext> PINFU_CONTEXT = ThreadLocal.withInitial(AgariContext::new);
+	/** あがり状況を指定しない役の判定に使う、門前・ロン扱いのあがり状況（書き換えません） */
+	private static final AgariContext DEFAULT_CONTEXT = new AgariContext();
+
 	/**
 	 * ゲーム中の手牌の状態（あがり、テンパイ）を判定します。
 	 *
@@ -32,17 +43,41 @@ public final class Judge {
 
 	/**
 	 * 手牌から成立している役を判定します。
-	 * 現在はタンヤオと七対子のみを判定します。
+	 * あがり牌や風などが分からない状態（門前・ロン扱い）で判定するため、それらに依存する役は含みません。
 	 *
 	 * @param hand 判定対象の手牌リスト
-	 * @return 成立している役 ({@link Hands}) のリスト
+	 * @return 成立している役 ({@link Hands}) のリスト。あがり形でない場合や役がない場合は空のリスト
 	 */
 	public static List<Hands> judgeHand(List<TileType> hand){
-		List<Hands> hands = new ArrayList<>();
-		int[] handCount = newHandCount(hand);
-		hands.add(tanyao(handCount));
-		hands.add(sevenPairs(handCount));
-		return hands;
+		return judgeHand(hand, DEFAULT_CONTEXT);
+	}
+
+	/**
+	 * あがり状況を指定して、手牌から成立している役を判定します。
+	 *
+	 * @param hand 判定対象の手牌リスト（副露した面子を除く）
+	 * @param context あがり牌・ツモかロンか・風・副露した面子などのあがり状況
+	 * @return 成立している役 ({@link Hands}) のリスト。あがり形でない場合や役がない場合は空のリスト
+	 */
+	public static List<Hands> judgeHand(List<TileType> hand, AgariContext context) {
+		int[] handCount = COUNTS.get();
+		Arrays.fill(handCount, 0);
+		for (TileType tile : hand) {
+			handCount[tile.getId()]++;
+		}
+		return Hands.toList(judgeHandMask(handCount, context));
+	}
+
+	/**
+	 * あがり状況を指定して、手牌カウント配列から成立している役をビット集合で判定します。
+	 * スレッドごとの{@link YakuEvaluator}を使い回すため、判定のたびにオブジェクトを作りません。
+	 *
+	 * @param handCount あがり牌を含む、副露していない部分の手牌カウント配列(34)。判定後は元の状態に戻っています
+	 * @param context あがり牌・ツモかロンか・風・副露した面子などのあがり状況
+	 * @return 成立した役のビット集合（{@link Hands#bit()}の論理和）。あがり形でない場合や役がない場合は0
+	 */
+	public static long judgeHandMask(int[] handCount, AgariContext context) {
+		return EVALUATOR.get().evaluate(handCount, context);
 	}
 
 	/**
@@ -52,6 +87,7 @@ public final class Judge {
 	 * @param discard 捨て牌の情報を持つマップ（キー：プレイヤーの風、値：捨て牌のリスト）
 	 * @param myWind 自分の風
 	 * @return 各アクションの可否を示すboolean型のリスト。[0]:ポン, [1]:カン, [2]:チー, [3]:ロン
+	 * @see CallMatrix
 	 */
 	public static List<Boolean> canCall(List<TileType> hand, Map<Integer, List<TileType>> discard, int myWind) {
 		TileType discardTile = discard.values().iterator().next().get(0);
@@ -118,15 +154,17 @@ public final class Judge {
 
 	/**
 	 * 指定された捨て牌でロンあがりが可能かを判定します。
+	 * 待ち牌のビットを持っている場合は、{@link CallMatrix}のようにそちらを引くほうが速くなります。
 	 *
-	 * @param handCount 自分の手牌のカウント配列
+	 * @param handCount 自分の手牌のカウント配列。判定中に書き換えますが、戻る時点で元に戻っています
 	 * @param discardId 捨て牌のID
 	 * @return ロンあがりが可能な場合は`true`
 	 */
 	public static boolean canRon(int[] handCount, int discardId) {
-		int[] tempHandCount = handCount.clone();
-		tempHandCount[discardId]++;
-		return judgeAgari(tempHandCount) == 1;
+		handCount[discardId]++;
+		boolean agari = judgeAgariByTable(handCount) == 1;
+		handCount[discardId]--;
+		return agari;
 	}
 
 	/**
@@ -143,89 +181,284 @@ public final class Judge {
 		return judgeAgari(handCount) == 1;
 	}
 
-	// TODO
 	/**
-	 * すべての待ちパターンを調べます。戻り値は未定です。
+	 * 3n+1枚の手牌の待ち牌をすべて調べます。
+	 * 手牌を「面子 + 雀頭 + 未完成のブロック1つ」に分解する探索を一度だけ行い、
+	 * 各分解で残った未完成ブロック（単騎・双碰・両面・辺張・嵌張）の待ちを集めます。
+	 * 七対子と国士無双の待ちも含めます。手牌の中で4枚使い切っている牌は待ちに含めません。
+	 *
+	 * @param handCount13 ツモ前の手牌カウント配列(34)。探索中に書き換えますが、戻る時点で元に戻っています
+	 * @return ビットiが牌IDiの待ちを表すビット集合。テンパイしていなければ0
 	 */
-	public static void judgeMachi() {
+	public static long judgeMachi(int[] handCount13) {
+		int tiles = countTiles(handCount13);
+		if (tiles % 3 != 1) {
+			return 0L;
+		}
+		long machi = searchMachi(handCount13, 0, tiles / 3, false, 0L, -1, -1);
+		int chiitoiTanki = chiitoiTanki(handCount13, tiles);
+		if (chiitoiTanki >= 0) {
+			machi |= 1L << chiitoiTanki;
+		}
+		machi |= kokushiMachi(handCount13, tiles);
+		for (int i = 0; i < handCount13.length; i++) {
+			if (handCount13[i] >= 4) {
+				machi &= ~(1L << i);
+			}
+		}
+		return machi;
+	}
 
+	/**
+	 * 指定したあがり牌に対して成立する待ちの形をすべて調べます。
+	 * 同じあがり牌でも分解の仕方によって複数の形に取れる場合があるため、{@link Machi#bit()}の論理和で返します。
+	 * 七対子と国士無双の待ちは単騎として扱います。
+	 *
+	 * @param handCount13 ツモ前の手牌カウント配列(34)。探索中に書き換えますが、戻る時点で元に戻っています
+	 * @param agariTileId あがり牌のID
+	 * @return 成立する待ちの形のビット集合。あがり牌が待ちでなければ0
+	 */
+	public static int judgeMachiShape(int[] handCount13, int agariTileId) {
+		int tiles = countTiles(handCount13);
+		if (tiles % 3 != 1 || handCount13[agariTileId] >= 4) {
+			return 0;
+		}
+		int shape = (int) searchMachi(handCount13, 0, tiles / 3, false, 0L, -1, agariTileId);
+		if (chiitoiTanki(handCount13, tiles) == agariTileId
+				|| (kokushiMachi(handCount13, tiles) >>> agariTileId & 1L) != 0) {
+			shape |= Machi.TANKI.bit();
+		}
+		return shape;
 	}
 
 	/**
-	 * リャンメンかどうかを調べます。
-	 * 
-	 * @param 手牌のカウント配列
-	 * @param あがり牌のID
-	 * @retuern リャンメンならtrue
+	 * 【再帰メソッド】手牌を面子・雀頭・未完成ブロック1つに分解し、待ちを集めます。
+	 * judgeMachiとjudgeMachiShapeの補助メソッドです。配列はその場で増減させ、戻る前に元に戻します。
+	 *
+	 * @param handCount 手牌カウント配列
+	 * @param start 残っている牌を探し始める位置
+	 * @param mentsu 残り必要な面子の数（両面などの搭子は面子1つ分として数えます）
+	 * @param jantou 雀頭（単騎の場合はその牌）が決まっていればtrue
+	 * @param waits 使用済みの未完成ブロックの待ち牌ビット。未使用なら0
+	 * @param shape 使用済みの未完成ブロックの待ちの形のID。未使用なら-1
+	 * @param target 待ちの形を調べるあがり牌のID。待ち牌を集めるときは-1
+	 * @return targetが-1なら待ち牌のビット集合、そうでなければ待ちの形のビット集合
 	 */
-	public static boolean isRyammen(int[] handCount, int agariTileId) {
-		if (agariTileId < 27) {
-			// あがり、〇、〇パターン
-			if (agariTileId % 9 != 7 || agariTileId % 9 != 8) {
-				int[] cnt = handCount.clone();
-				cnt[agariTileId]--;
-				cnt[agariTileId + 1]--;
-				cnt[agariTileId + 2]--;
-				if (judgeAgari(cnt) == 1) {
-					return true;
-				}
+	private static long searchMachi(int[] handCount, int start, int mentsu, boolean jantou,
+			long waits, int shape, int target) {
+		int i = findFirstTile(handCount, start);
+		if (i == -1) {
+			if (mentsu != 0 || !jantou || shape < 0) {
+				return 0L;
 			}
-			// 〇、〇、あがりパターン
-			if (agariTileId % 9 != 0 || agariTileId % 9 != 1) {
-				int[] cnt = handCount.clone();
-				cnt[agariTileId]--;
-				cnt[agariTileId + 1]--;
-				cnt[agariTileId + 2]--;
-				if (judgeAgari(cnt) == 1) {
-					return true;
-				}
+			if (target < 0) {
+				return waits;
 			}
+			return (waits >>> target & 1L) != 0 ? 1L << shape : 0L;
 		}
-		return false;
+		long result = 0L;
+		// 刻子
+		if (mentsu > 0 && handCount[i] >= 3) {
+			handCount[i] -= 3;
+			result |= searchMachi(handCount, i, mentsu - 1, jantou, waits, shape, target);
+			handCount[i] += 3;
+		}
+		// 順子
+		boolean suited = i < 27;
+		int rank = i % 9;
+		if (mentsu > 0 && suited && rank <= 6 && handCount[i + 1] >= 1 && handCount[i + 2] >= 1) {
+			handCount[i]--;
+			handCount[i + 1]--;
+			handCount[i + 2]--;
+			result |= searchMachi(handCount, i, mentsu - 1, jantou, waits, shape, target);
+			handCount[i]++;
+			handCount[i + 1]++;
+			handCount[i + 2]++;
+		}
+		// 雀頭
+		if (!jantou && handCount[i] >= 2) {
+			handCount[i] -= 2;
+			result |= searchMachi(handCount, i, mentsu, true, waits, shape, target);
+			handCount[i] += 2;
+		}
+		if (shape >= 0) {
+			return result;
+		}
+		// ここから下は未完成ブロック（分解ごとに1つだけ）
+		// 単騎: この牌が雀頭の片割れになる
+		if (!jantou) {
+			handCount[i]--;
+			result |= searchMachi(handCount, i, mentsu, true, 1L << i, Machi.TANKI.getId(), target);
+			handCount[i]++;
+		}
+		if (mentsu == 0) {
+			return result;
+		}
+		// 双碰: この対子が刻子になる
+		if (handCount[i] >= 2) {
+			handCount[i] -= 2;
+			result |= searchMachi(handCount, i, mentsu - 1, jantou, 1L << i, Machi.SHANPON.getId(), target);
+			handCount[i] += 2;
+		}
+		// 両面・辺張: i, i+1
+		if (suited && rank <= 7 && handCount[i + 1] >= 1) {
+			long w;
+			int s;
+			if (rank == 0) {
+				w = 1L << (i + 2);
+				s = Machi.PENCHAN.getId();
+			} else if (rank == 7) {
+				w = 1L << (i - 1);
+				s = Machi.PENCHAN.getId();
+			} else {
+				w = (1L << (i - 1)) | (1L << (i + 2));
+				s = Machi.RYANMEN.getId();
+			}
+			handCount[i]--;
+			handCount[i + 1]--;
+			result |= searchMachi(handCount, i, mentsu - 1, jantou, w, s, target);
+			handCount[i]++;
+			handCount[i + 1]++;
+		}
+		// 嵌張: i, i+2
+		if (suited && rank <= 6 && handCount[i + 2] >= 1) {
+			handCount[i]--;
+			handCount[i + 2]--;
+			result |= searchMachi(handCount, i, mentsu - 1, jantou, 1L << (i + 1), Machi.KANCHAN.getId(), target);
+			handCount[i]++;
+			handCount[i + 2]++;
+		}
+		return result;
 	}
 
 	/**
-	 * カンチャンかどうかを調べます。
+	 * 13枚の手牌が七対子の単騎待ち（対子6組と1枚）であれば、その待ち牌のIDを返します。
+	 *
+	 * @param handCount13 手牌カウント配列(34)
+	 * @param tiles 手牌の枚数
+	 * @return 待ち牌のID。七対子のテンパイでなければ-1
 	 */
-	public static boolean isKanchan(int[] handCount, int agariTileId) {
-		if (agariTileId < 27) {
-			if (agariTileId % 9 != 0 && agariTileId % 9 != 9) {
-				int[] cnt = handCount.clone();
-				cnt[agariTileId - 1]--;
-				cnt[agariTileId]--;
-				cnt[agariTileId + 1]--;
-				if (judgeAgari(cnt) == 1) {
-					return true;
-				}
+	private static int chiitoiTanki(int[] handCount13, int tiles) {
+		if (tiles != 13) {
+			return -1;
+		}
+		int pairs = 0;
+		int single = -1;
+		for (int i = 0; i < handCount13.length; i++) {
+			if (handCount13[i] == 2) {
+				pairs++;
+			} else if (handCount13[i] == 1) {
+				single = i;
 			}
 		}
-		return false;
+		return pairs == 6 ? single : -1;
 	}
 
-	// TODO
 	/**
-	 * シャンポンかどうか調べます。
+	 * 13枚の手牌が国士無双のテンパイであれば、その待ち牌のビット集合を返します。
+	 * 么九牌13種が1枚ずつなら13面待ち、12種のうち1種が対子なら足りない1種の単騎待ちです。
+	 *
+	 * @param handCount13 手牌カウント配列(34)
+	 * @param tiles 手牌の枚数
+	 * @return ビットiが牌IDiの待ちを表すビット集合。国士無双のテンパイでなければ0
 	 */
-	public static boolean isShampon(int[] handCount, int agariTileId) {
-		if (handCount[agariTileId] >= 3) {
-			int[] cnt = handCount.clone();
-			cnt[agariTileId] -= 3;
-			if (judgeAgari(cnt) == 1) {
-				return true;
+	private static long kokushiMachi(int[] handCount13, int tiles) {
+		if (tiles != 13) {
+			return 0L;
+		}
+		long all = 0L;
+		long missing = 0L;
+		int yaochu = 0;
+		int pairs = 0;
+		for (int id : YAOCHU) {
+			int c = handCount13[id];
+			if (c > 2) {
+				return 0L;
+			}
+			if (c == 0) {
+				missing |= 1L << id;
+			} else if (c == 2) {
+				pairs++;
 			}
+			all |= 1L << id;
+			yaochu += c;
 		}
-		return false;
+		if (yaochu != 13 || pairs > 1) {
+			return 0L;
+		}
+		return pairs == 0 ? all : missing;
 	}
 
-	public static boolean isPenchan() {
-		return false;
+	/**
+	 * リャンメンかどうかを調べます。
+	 *
+	 * @param handCount あがり牌を含む手牌のカウント配列
+	 * @param agariTileId あがり牌のID
+	 * @return リャンメンに取れるならtrue
+	 */
+	public static boolean isRyammen(int[] handCount, int agariTileId) {
+		return hasMachiShape(handCount, agariTileId, Machi.RYANMEN);
+	}
+
+	/**
+	 * カンチャンかどうかを調べます。
+	 *
+	 * @param handCount あがり牌を含む手牌のカウント配列
+	 * @param agariTileId あがり牌のID
+	 * @return カンチャンに取れるならtrue
+	 */
+	public static boolean isKanchan(int[] handCount, int agariTileId) {
+		return hasMachiShape(handCount, agariTileId, Machi.KANCHAN);
+	}
+
+	/**
+	 * シャンポンかどうか調べます。
+	 *
+	 * @param handCount あがり牌を含む手牌のカウント配列
+	 * @param agariTileId あがり牌のID
+	 * @return シャンポンに取れるならtrue
+	 */
+	public static boolean isShampon(int[] handCount, int agariTileId) {
+		return hasMachiShape(handCount, agariTileId, Machi.SHANPON);
+	}
+
+	/**
+	 * ペンチャンかどうか調べます。
+	 *
+	 * @param handCount あがり牌を含む手牌のカウント配列
+	 * @param agariTileId あがり牌のID
+	 * @return ペンチャンに取れるならtrue
+	 */
+	public static boolean isPenchan(int[] handCount, int agariTileId) {
+		return hasMachiShape(handCount, agariTileId, Machi.PENCHAN);
+	}
+
+	/**
+	 * あがり牌を含む手牌から、あがり牌を抜いた形で指定の待ちに取れるかを調べます。
+	 */
+	private static boolean hasMachiShape(int[] handCount, int agariTileId, Machi machi) {
+		if (handCount[agariTileId] == 0) {
+			return false;
+		}
+		handCount[agariTileId]--;
+		int shape = judgeMachiShape(handCount, agariTileId);
+		handCount[agariTileId]++;
+		return (shape & machi.bit()) != 0;
 	}
 
 	/**
 	 * handCount配列の中で、1以上の値を持つ最初のインデックス（牌）を見つけます
 	 */
 	private static int findFirstTile(int[] handCount) {
-		for (int i = 0; i < handCount.length; i++) {
+		return findFirstTile(handCount, 0);
+	}
+
+	/**
+	 * handCount配列の中で、指定位置以降にある1以上の値を持つ最初のインデックス（牌）を見つけます。
+	 * 面子を抜き出すたびに先頭の牌は前にしか進まないため、再帰の各段ではここから探せば十分です。
+	 */
+	private static int findFirstTile(int[] handCount, int from) {
+		for (int i = from; i < handCount.length; i++) {
 			if (handCount[i] > 0) {
 				return i;
 			}
@@ -249,40 +482,39 @@ public final class Judge {
 
 	/**
 	 * 引数のツモ前手牌int型配列がテンパイしているかを判定するメソッド
-	 * judgeTempai(int[] handCount)の補助メソッドです
-	 * 
+	 * 待ち牌（{@link #judgeMachi(int[])}）が1つ以上あるかで判定します。
+	 * 向聴数が0でも、待ちが手牌に4枚ある牌だけならテンパイではありません。
+	 *
 	 * @param ツモ前手牌のint型配列(34)
 	 * @return テンパイならtrue
 	 */
 	public static boolean judgeTempai13(int[] handCount13) {
-		for (int i = 0; i < 34; i++) {
-			if (handCount13[i] < 4) {
-				int[] handCount14 = handCount13.clone();
-				handCount14[i]++;
-
-				if (judgeAgari(handCount14) == 1) {
-					return true;
-				}
-			}
-		}
-		return false;
+		// 向聴数が0でない手牌は、待ちを探すまでもない
+		return shanten(handCount13) == 0 && judgeMachi(handCount13) != 0L;
 	}
 
 	/**
 	 * 引数の手牌int型配列がテンパイしているかを判定するメソッドです
-	 * 
+	 * 3n+1枚なら{@link #judgeTempai13(int[])}と同じです。
+	 * 3n+2枚（ツモ後）なら、あがり形か、何かを切れば{@link #judgeTempai13(int[])}でテンパイになるかで判定します。
+	 *
 	 * @param 手牌のint型配列(34)
-	 * @return テンパイならtrue
-	 * 
+	 * @return テンパイなら1
 	 */
 	public static int judgeTempai(int[] handCount) {
-		int[] cnt = new int[34];
-		for (int i = 0; i < cnt.length; i++) {
-			cnt = handCount;
-			if (cnt[i] >= 1) {
-				int[] handCount13 = handCount.clone();
-				handCount13[i]--;
-				if (judgeTempai13(handCount13)) {
+		int shanten = shanten(handCount);
+		if (shanten != 0) {
+			return shanten < 0 ? 1 : 0;
+		}
+		if (countTiles(handCount) % 3 == 1) {
+			return judgeMachi(handCount) != 0L ? 1 : 0;
+		}
+		for (int i = 0; i < handCount.length; i++) {
+			if (handCount[i] > 0) {
+				handCount[i]--;
+				boolean tenpai = judgeTempai13(handCount);
+				handCount[i]++;
+				if (tenpai) {
 					return 1;
 				}
 			}
@@ -290,6 +522,91 @@ public final class Judge {
 		return 0;
 	}
 
+	/**
+	 * 手牌の向聴数を返します。
+	 * 一般形・七対子・国士無双のうち最も小さい値を返します。
+	 * 13枚の手牌ならテンパイで0、14枚の手牌ならあがり形で-1になります。
+	 * 待ちが手牌に4枚ある牌だけの形も0になるため、テンパイかどうかは{@link #judgeTempai(int[])}で判定します。
+	 *
+	 * @param handCount 手牌カウント配列(34)。各要素は0〜4であること
+	 * @return 向聴数
+	 */
+	public static int shanten(int[] handCount) {
+		int shanten = shantenStandard(handCount);
+		if (countTiles(handCount) >= 13) {
+			shanten = Math.min(shanten, shantenChiitoi(handCount));
+			shanten = Math.min(shanten, shantenKokushi(handCount));
+		}
+		return shanten;
+	}
+
+	/**
+	 * 一般形（4面子1雀頭）の向聴数を返します。
+	 * 牌種ごとに事前計算した面子・搭子の数を表から引き、4つを合成して求めます。
+	 * 副露して手牌が減っている場合は、残りの枚数から必要な面子数を決めます。
+	 *
+	 * @param handCount 手牌カウント配列(34)
+	 * @return 一般形の向聴数
+	 * @see ShantenTable
+	 */
+	public static int shantenStandard(int[] handCount) {
+		int man = 0, pin = 0, sou = 0, honor = 0;
+		for (int i = 8; i >= 0; i--) {
+			man = man * 5 + handCount[i];
+			pin = pin * 5 + handCount[i + 9];
+			sou = sou * 5 + handCount[i + 18];
+		}
+		for (int i = 33; i >= 27; i--) {
+			honor = honor * 5 + handCount[i];
+		}
+		int value = ShantenTable.combine(
+				ShantenTable.combine(ShantenTable.suit(man), ShantenTable.suit(pin)),
+				ShantenTable.combine(ShantenTable.suit(sou), ShantenTable.honor(honor)));
+		return ShantenTable.shanten(value, countTiles(handCount) / 3);
+	}
+
+	/**
+	 * 七対子の向聴数を返します。
+	 * 同じ牌4枚は2組の対子として数えられないため、種類数が7に満たない分も加えます。
+	 *
+	 * @param handCount 手牌カウント配列(34)
+	 * @return 七対子の向聴数
+	 */
+	public static int shantenChiitoi(int[] handCount) {
+		int pairs = 0;
+		int kinds = 0;
+		for (int i = 0; i < handCount.length; i++) {
+			if (handCount[i] >= 1) {
+				kinds++;
+				if (handCount[i] >= 2) {
+					pairs++;
+				}
+			}
+		}
+		return 6 - pairs + Math.max(0, 7 - kinds);
+	}
+
+	/**
+	 * 国士無双の向聴数を返します。
+	 *
+	 * @param handCount 手牌カウント配列(34)
+	 * @return 国士無双の向聴数
+	 */
+	public static int shantenKokushi(int[] handCount) {
+		int kinds = 0;
+		boolean pair = false;
+		for (int i = 0; i < YAOCHU.length; i++) {
+			int c = handCount[YAOCHU[i]];
+			if (c >= 1) {
+				kinds++;
+				if (c >= 2) {
+					pair = true;
+				}
+			}
+		}
+		return 13 - kinds - (pair ? 1 : 0);
+	}
+
 	/**
 	 * 雀頭を抜いた形の手牌カウント配列から、残りの面子数を返すメソッドです。
 	 * 
@@ -297,29 +614,43 @@ public final class Judge {
 	 * @return 残りの面子数
 	 */
 	public static int remainMentsu(int[] handCount) {
-		int remainMentsu = 4;
-		int tiles = Arrays.stream(handCount).sum();
-		remainMentsu = tiles / 3;
-		return remainMentsu;
+		return countTiles(handCount) / 3;
 	}
 
 	/**
-	 * 手牌が基本形であがっているかを判定するメソッドです。
-	 * 雀頭候補を二枚抜き出し、残り4面子を再起呼び出しで処理します。
-	 * 
+	 * 手牌カウント配列の総枚数を返します。
+	 * ストリームを使わずに数えるため、呼び出しごとのオブジェクト生成がありません。
+	 *
+	 * @param handCount 手牌カウント配列
+	 * @return 牌の総枚数
+	 */
+	private static int countTiles(int[] handCount) {
+		int tiles = 0;
+		for (int i = 0; i < handCount.length; i++) {
+			tiles += handCount[i];
+		}
+		return tiles;
+	}
+
+	/**
+	 * 手牌があがっているか（基本形・七対子・国士無双）を判定するメソッドです。
+	 * 基本形は、雀頭候補を二枚抜き出し、残り4面子を再起呼び出しで処理します。
+	 * 配列はコピーせずにその場で増減させ、判定後に必ず元の状態へ戻します。
+	 *
 	 * @param 手牌IDのint型配列
 	 * @return 上がり形が成立していればtrue
 	 */
 	public static int judgeAgari(int[] handCount) {
-		if (sevenPairs(handCount) == Hands.CHITOI) {
+		if (sevenPairs(handCount) == Hands.CHITOI || isKokushi(handCount)) {
 			return 1;
 		}
+		int remainMentsu = (countTiles(handCount) - 2) / 3;
 		for (int i = 0; i < handCount.length; i++) {
 			if (handCount[i] >= 2) {
-				int[] cnt = handCount.clone();
-				cnt[i] -= 2;
-				int remainMentsu = remainMentsu(cnt);
-				if (is4MentsuRecursive(cnt, remainMentsu)) {
+				handCount[i] -= 2;
+				boolean agari = canSplitMentsu(handCount, 0, remainMentsu);
+				handCount[i] += 2;
+				if (agari) {
 					return 1;
 				}
 			}
@@ -327,62 +658,229 @@ public final class Judge {
 		return 0;
 	}
 
+	/**
+	 * 手牌があがっているかを、牌種ごとの事前計算表を引いて判定するメソッドです。
+	 * 手牌を萬子(0-8)・筒子(9-17)・索子(18-26)・字牌(27-33)に分け、4回の表引きで答えます（七対子と国士無双は別に数えて判定します）。
+	 * 3n+2枚の手牌に対しては{@link #judgeAgari(int[])}と同じ結果を返します。
+	 *
+	 * @param handCount 手牌カウント配列(34)。各要素は0〜4であること
+	 * @return 上がり形が成立していれば1、そうでなければ0
+	 * @see AgariTable
+	 */
+	public static int judgeAgariByTable(int[] handCount) {
+		if (sevenPairs(handCount) == Hands.CHITOI || isKokushi(handCount)) {
+			return 1;
+		}
+		int man = 0, pin = 0, sou = 0, honor = 0;
+		int manTiles = 0, pinTiles = 0, souTiles = 0, honorTiles = 0;
+		for (int i = 8; i >= 0; i--) {
+			man = man * 5 + handCount[i];
+			manTiles += handCount[i];
+			pin = pin * 5 + handCount[i + 9];
+			pinTiles += handCount[i + 9];
+			sou = sou * 5 + handCount[i + 18];
+			souTiles += handCount[i + 18];
+		}
+		for (int i = 33; i >= 27; i--) {
+			honor = honor * 5 + handCount[i];
+			honorTiles += handCount[i];
+		}
+		return AgariTable.isAgari(man, pin, sou, honor, manTiles, pinTiles, souTiles, honorTiles) ? 1 : 0;
+	}
+
+	/**
+	 * {@link PackedHand}で表した手牌があがっているかを判定します。
+	 * 一般形は牌種ごとの値から直接表を引きます。七対子と国士無双は、スレッドごとの作業用配列に書き出した枚数で
+	 * {@link #judgeAgariByTable(int[])}と同じ判定を行うため、呼び出しのたびに配列を作りません。
+	 *
+	 * @param hand 3n+2枚の手牌
+	 * @return 上がり形が成立していれば1、そうでなければ0
+	 * @see #judgeAgariByTable(int[])
+	 */
+	public static int judgeAgari(PackedHand hand) {
+		int[] counts = hand.toCounts(COUNTS.get());
+		if (sevenPairs(counts) == Hands.CHITOI || isKokushi(counts)) {
+			return 1;
+		}
+		return AgariTable.isAgari(hand.key(PackedHand.MAN), hand.key(PackedHand.PIN),
+				hand.key(PackedHand.SOU), hand.key(PackedHand.HONOR),
+				hand.tiles(PackedHand.MAN), hand.tiles(PackedHand.PIN),
+				hand.tiles(PackedHand.SOU), hand.tiles(PackedHand.HONOR)) ? 1 : 0;
+	}
+
+	/**
+	 * {@link PackedHand}で表した手牌の向聴数を返します。
+	 * 一般形は牌種ごとの値から直接表を引き、七対子と国士無双は{@link #shantenChiitoi(int[])}・{@link #shantenKokushi(int[])}に任せます。
+	 *
+	 * @param hand 手牌
+	 * @return 向聴数
+	 * @see #shanten(int[])
+	 */
+	public static int shanten(PackedHand hand) {
+		int value = ShantenTable.combine(
+				ShantenTable.combine(ShantenTable.suit(hand.key(PackedHand.MAN)),
+						ShantenTable.suit(hand.key(PackedHand.PIN))),
+				ShantenTable.combine(ShantenTable.suit(hand.key(PackedHand.SOU)),
+						ShantenTable.honor(hand.key(PackedHand.HONOR))));
+		int shanten = ShantenTable.shanten(value, hand.size() / 3);
+		if (hand.size() >= 13) {
+			int[] counts = hand.toCounts(COUNTS.get());
+			shanten = Math.min(shanten, shantenChiitoi(counts));
+			shanten = Math.min(shanten, shantenKokushi(counts));
+		}
+		return shanten;
+	}
+
+	/**
+	 * {@link PackedHand}で表した3n+1枚の手牌の待ち牌をすべて調べます。
+	 * {@link JudgeBatch}と同じく、1枚足したときに変わる牌種のキーだけを変えて表を引きます。
+	 *
+	 * @param hand 3n+1枚の手牌（書き換えません）
+	 * @return ビットiが牌IDiの待ちを表すビット集合
+	 * @see #judgeMachi(int[])
+	 */
+	public static long judgeMachi(PackedHand hand) {
+		if (hand.size() % 3 != 1) {
+			return 0L;
+		}
+		return machiByTable(hand.toCounts(COUNTS.get()));
+	}
+
+	/**
+	 * 3n+1枚の手牌の待ち牌を、1枚足した形を表で引いて求めます。
+	 * 1つの牌を足しても変わるのは1つの牌種のキーだけなので、ほかの牌種のキーはそのまま使います。
+	 * 結果は{@link #judgeMachi(int[])}と同じです。{@link #judgeMachi(PackedHand)}と{@link JudgeBatch}から使います。
+	 *
+	 * @param counts 手牌カウント配列(34)
+	 * @return ビットiが牌IDiの待ちを表すビット集合
+	 */
+	static long machiByTable(int[] counts) {
+		int man = 0, pin = 0, sou = 0, honor = 0;
+		int manTiles = 0, pinTiles = 0, souTiles = 0, honorTiles = 0;
+		int pairs = 0;
+		for (int i = 8; i >= 0; i--) {
+			man = man * 5 + counts[i];
+			manTiles += counts[i];
+			pin = pin * 5 + counts[i + 9];
+			pinTiles += counts[i + 9];
+			sou = sou * 5 + counts[i + 18];
+			souTiles += counts[i + 18];
+		}
+		for (int i = 33; i >= 27; i--) {
+			honor = honor * 5 + counts[i];
+			honorTiles += counts[i];
+		}
+		if ((manTiles + pinTiles + souTiles + honorTiles) % 3 != 1) {
+			return 0L;
+		}
+		for (int i = 0; i < 34; i++) {
+			if (counts[i] == 2) {
+				pairs++;
+			}
+		}
+		long machi = 0L;
+		for (int t = 0; t < 34; t++) {
+			int c = counts[t];
+			if (c >= 4) {
+				continue;
+			}
+			// 七対子: 足した後にちょうど2枚の牌が7種類
+			if (pairs + (c == 1 ? 1 : 0) - (c == 2 ? 1 : 0) == 7) {
+				machi |= 1L << t;
+				continue;
+			}
+			int add = AgariTable.POW5[t % 9];
+			boolean agari;
+			switch (t / 9) {
+			case 0:
+				agari = AgariTable.isAgari(man + add, pin, sou, honor, manTiles + 1, pinTiles, souTiles, honorTiles);
+				break;
+			case 1:
+				agari = AgariTable.isAgari(man, pin + add, sou, honor, manTiles, pinTiles + 1, souTiles, honorTiles);
+				break;
+			case 2:
+				agari = AgariTable.isAgari(man, pin, sou + add, honor, manTiles, pinTiles, souTiles + 1, honorTiles);
+				break;
+			default:
+				agari = AgariTable.isAgari(man, pin, sou, honor + add, manTiles, pinTiles, souTiles, honorTiles + 1);
+				break;
+			}
+			if (agari) {
+				machi |= 1L << t;
+			}
+		}
+		// 国士無双は表にないので、么九牌の枚数から別に求める
+		return machi | kokushiMachi(counts, manTiles + pinTiles + souTiles + honorTiles);
+	}
+
+	/**
+	 * 14枚の手牌が国士無双のあがり形（么九牌13種と、そのうち1種の対子）かを判定します。
+	 * 14枚で国士無双の向聴数が-1なら、么九牌以外の牌は含まれません。
+	 */
+	private static boolean isKokushi(int[] handCount) {
+		return countTiles(handCount) == 14 && shantenKokushi(handCount) == -1;
+	}
+
 	/**
 	 * 【再帰メソッド】残りの手牌で指定された数の面子を作れるかを判定します。
 	 * judgeAgariメソッドの補助メソッドです。
-	 * * @param handCount 雀頭や面子を抜いた後の手牌カウント配列 (コピーを渡すこと推奨)
-	 * 
+	 * 渡された配列は判定中に書き換えられますが、戻る時点では元の状態に復元されています。
+	 *
+	 * @param handCount 雀頭や面子を抜いた後の手牌カウント配列
 	 * @param requiredMenzen 残り必要な面子の数
 	 * @return 成立していれば true
 	 */
 	public static boolean is4MentsuRecursive(int[] handCount, int requiredMenzen) {
+		return canSplitMentsu(handCount, 0, requiredMenzen);
+	}
+
+	/**
+	 * 【再帰メソッド】配列をその場で書き換えながら面子を抜き出すバックトラック探索です。
+	 * 刻子・順子を抜いて再帰し、戻ったら抜いた牌を足し戻すため、探索中に配列を一切生成しません。
+	 * 抜き出しは常に残っている最初の牌から行うので、探索開始位置は前にしか進みません。
+	 *
+	 * @param handCount 手牌カウント配列（探索後は元の状態に戻ります）
+	 * @param start 残っている牌を探し始める位置
+	 * @param requiredMenzen 残り必要な面子の数
+	 * @return 成立していれば true
+	 */
+	private static boolean canSplitMentsu(int[] handCount, int start, int requiredMenzen) {
 		// 1. ベースケース: 必要な面子が0になったら成功
 		if (requiredMenzen == 0) {
 			return true;
 		}
 
 		// 2. 処理開始位置の決定 (残っている最初の牌)
-		int startTileId = findFirstTile(handCount);
+		int startTileId = findFirstTile(handCount, start);
 
 		// 牌が残っていないのに必要な面子がある場合は失敗
 		if (startTileId == -1) {
 			return false;
 		}
 
-		// **********************************************
 		// 3. 刻子 (コーツ) 抜き出しを試行
-		// **********************************************
 		if (handCount[startTileId] >= 3) {
-			// コピーを作成し、刻子を抜き出す
-			int[] cntForKotsu = handCount.clone();
-			cntForKotsu[startTileId] -= 3;
-
-			// 残りの面子 requiredMenzen-1 が作れるか再帰的にチェック
-			if (is4MentsuRecursive(cntForKotsu, requiredMenzen - 1)) {
-				return true; // 成功
+			handCount[startTileId] -= 3;
+			boolean found = canSplitMentsu(handCount, startTileId, requiredMenzen - 1);
+			handCount[startTileId] += 3;
+			if (found) {
+				return true;
 			}
 		}
 
-		// **********************************************
 		// 4. 順子 (シュンツ) 抜き出しを試行
-		// **********************************************
-		// 数牌かつ 9牌ではない (IDが7, 8, 16, 17, 25, 26ではない) ことをチェック
-		if (startTileId < 27 && (startTileId % 9) < 7) {
-			int nextTile1 = startTileId + 1;
-			int nextTile2 = startTileId + 2;
-
-			if (handCount[nextTile1] >= 1 && handCount[nextTile2] >= 1) {
-				// 順子を抜き出すための新しいコピー
-				int[] cntForShuntsu = handCount.clone();
-
-				cntForShuntsu[startTileId] -= 1;
-				cntForShuntsu[nextTile1] -= 1;
-				cntForShuntsu[nextTile2] -= 1;
-
-				// 残りの面子 requiredMenzen-1 が作れるか再帰的にチェック
-				if (is4MentsuRecursive(cntForShuntsu, requiredMenzen - 1)) {
-					return true; // 成功
-				}
+		// 数牌かつ 8・9牌ではない (IDが7, 8, 16, 17, 25, 26ではない) ことをチェック
+		if (startTileId < 27 && (startTileId % 9) < 7
+				&& handCount[startTileId + 1] >= 1 && handCount[startTileId + 2] >= 1) {
+			handCount[startTileId]--;
+			handCount[startTileId + 1]--;
+			handCount[startTileId + 2]--;
+			boolean found = canSplitMentsu(handCount, startTileId, requiredMenzen - 1);
+			handCount[startTileId]++;
+			handCount[startTileId + 1]++;
+			handCount[startTileId + 2]++;
+			if (found) {
+				return true;
 			}
 		}
 
@@ -463,8 +961,18 @@ public final class Judge {
 		return false;
 	}
 
+	/**
+	 * 平和を判定するメソッドです。
+	 * 門前のロンとして判定し、風が分からないため雀頭は三元牌だけを役牌とみなします。
+	 *
+	 * @param handCount あがり牌を含む手牌カウント配列
+	 * @param agariTile あがり牌のID
+	 * @return 成立なら1、非成立なら0
+	 */
 	public static int pinfu(int[] handCount, int agariTile) {
-		return 0;
+		AgariContext context = PINFU_CONTEXT.get();
+		context.setAgariTile(agariTile);
+		return (judgeHandMask(handCount, context) & Hands.PINFU.bit()) != 0 ? 1 : 0;
 	}
 
 	/**
@@ -474,15 +982,12 @@ public final class Judge {
 	 * @return 成立なら1、非成立なら0
 	 */
 	public static Hands tanyao(int[] handCount) {
-		int[] cnt = handCount.clone();
-		if (cnt[0] == 0 && cnt[8] == 0 && cnt[9] == 0 && cnt[17] == 0 && cnt[18] == 0 &&
-				cnt[26] == 0 && cnt[27] == 0 && cnt[28] == 0 && cnt[29] == 0 && cnt[30] == 0 &&
-				cnt[31] == 0 && cnt[32] == 0 && cnt[33] == 0) {
-			return Hands.TANYAO;
-		} else {
-			// TODO: removeIf()を使ってラムダ式で消す条件とか決めてできるらしーぞ
-			return Hands.NONE;
+		for (int id : YAOCHU) {
+			if (handCount[id] != 0) {
+				return Hands.NONE;
+			}
 		}
+		return Hands.TANYAO;
 	}
 
 	/**
@@ -0,0 +1,197 @@
+package com.example.mahjong.model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 大量の手牌をまとめて判定する、{@link Judge}の一括版です。
+ *
+ * 手牌は次のどちらかの形で1つの配列に並べて渡します。
+ * <ul>
+ * <li>byte配列: 1つの手牌につき34要素（牌IDごとの枚数）。i番目の手牌は {@code [i * 34, i * 34 + 34)}</li>
+ * <li>long配列: 1つの手牌につき4要素（{@link PackedHand}の萬子・筒子・索子・字牌の値）。i番目の手牌は {@code [i * 4, i * 4 + 4)}</li>
+ * </ul>
+ * 結果は呼び出し側が用意した配列のi番目に書き込みます。
+ *
+ * 手牌の範囲を半分ずつに分けて{@link ForkJoinPool}で並列に処理するため、コア数に応じて速くなります。
+ * 作業用の配列は分割した範囲ごとに1つだけ作り、手牌ごとにはオブジェクトを生成しません。
+ * 判定はすべて{@link AgariTable}・{@link ShantenTable}の表引きで行います。
+ */
+public final class JudgeBatch {
+	/** これ以下の数の手牌は分割せずに1つのスレッドで処理します */
+	private static final int THRESHOLD = 2048;
+
+	/** 処理の種類: あがり判定 */
+	private static final int AGARI = 0;
+	/** 処理の種類: 向聴数 */
+	private static final int SHANTEN = 1;
+	/** 処理の種類: 待ち牌 */
+	private static final int MACHI = 2;
+
+	/**
+	 * プライベートコンストラクタにより、このクラスのインスタンス化を防ぎます。
+	 */
+	private JudgeBatch() {}
+
+	/**
+	 * 手牌をまとめてあがり判定します。結果は{@link Judge#judgeAgariByTable(int[])}と同じです。
+	 *
+	 * @param hands 手牌を34要素ずつ並べた配列
+	 * @param out あがり形なら1、そうでなければ0を書き込む配列（手牌の数以上の長さ）
+	 * @throws IllegalArgumentException 配列の長さが合わない場合
+	 */
+	public static void judgeAgari(byte[] hands, byte[] out) {
+		run(hands, null, out, null, AGARI, count(hands.length, 34, out.length));
+	}
+
+	/**
+	 * 手牌をまとめて向聴数を求めます。結果は{@link Judge#shanten(int[])}と同じです。
+	 *
+	 * @param hands 手牌を34要素ずつ並べた配列
+	 * @param out 向聴数（あがり形なら-1）を書き込む配列（手牌の数以上の長さ）
+	 * @throws IllegalArgumentException 配列の長さが合わない場合
+	 */
+	public static void shanten(byte[] hands, byte[] out) {
+		run(hands, null, out, null, SHANTEN, count(hands.length, 34, out.length));
+	}
+
+	/**
+	 * 3n+1枚の手牌をまとめて待ち牌を求めます。結果は{@link Judge#judgeMachi(int[])}と同じです。
+	 *
+	 * @param hands 手牌を34要素ずつ並べた配列
+	 * @param out 待ち牌のビット集合（ビットiが牌IDi）を書き込む配列（手牌の数以上の長さ）
+	 * @throws IllegalArgumentException 配列の長さが合わない場合
+	 */
+	public static void judgeMachi(byte[] hands, long[] out) {
+		run(hands, null, null, out, MACHI, count(hands.length, 34, out.length));
+	}
+
+	/**
+	 * {@link PackedHand}の形で並べた手牌をまとめてあがり判定します。
+	 *
+	 * @param packed 手牌を4要素ずつ並べた配列
+	 * @param out あがり形なら1、そうでなければ0を書き込む配列（手牌の数以上の長さ）
+	 * @throws IllegalArgumentException 配列の長さが合わない場合
+	 */
+	public static void judgeAgari(long[] packed, byte[] out) {
+		run(null, packed, out, null, AGARI, count(packed.length, 4, out.length));
+	}
+
+	/**
+	 * {@link PackedHand}の形で並べた手牌をまとめて向聴数を求めます。
+	 *
+	 * @param packed 手牌を4要素ずつ並べた配列
+	 * @param out 向聴数（あがり形なら-1）を書き込む配列（手牌の数以上の長さ）
+	 * @throws IllegalArgumentException 配列の長さが合わない場合
+	 */
+	public static void shanten(long[] packed, byte[] out) {
+		run(null, packed, out, null, SHANTEN, count(packed.length, 4, out.length));
+	}
+
+	/**
+	 * {@link PackedHand}の形で並べた3n+1枚の手牌をまとめて待ち牌を求めます。
+	 *
+	 * @param packed 手牌を4要素ずつ並べた配列
+	 * @param out 待ち牌のビット集合（ビットiが牌IDi）を書き込む配列（手牌の数以上の長さ）
+	 * @throws IllegalArgumentException 配列の長さが合わない場合
+	 */
+	public static void judgeMachi(long[] packed, long[] out) {
+		run(null, packed, null, out, MACHI, count(packed.length, 4, out.length));
+	}
+
+	/**
+	 * 手牌をlong配列のi番目に書き込みます。
+	 *
+	 * @param hand 書き込む手牌
+	 * @param packed 書き込み先の配列
+	 * @param index 手牌の番号
+	 */
+	public static void put(PackedHand hand, long[] packed, int index) {
+		int offset = index * 4;
+		packed[offset] = hand.suit(PackedHand.MAN);
+		packed[offset + 1] = hand.suit(PackedHand.PIN);
+		packed[offset + 2] = hand.suit(PackedHand.SOU);
+		packed[offset + 3] = hand.suit(PackedHand.HONOR);
+	}
+
+	/**
+	 * 配列の長さを確かめて、手牌の数を返します。
+	 */
+	private static int count(int length, int stride, int outLength) {
+		if (length % stride != 0) {
+			throw new IllegalArgumentException("Input length " + length + " is not a multiple of " + stride);
+		}
+		int n = length / stride;
+		if (outLength < n) {
+			throw new IllegalArgumentException("Output length " + outLength + " is shorter than " + n + " hands");
+		}
+		return n;
+	}
+
+	private static void run(byte[] hands, long[] packed, byte[] out, long[] machiOut, int op, int n) {
+		if (n == 0) {
+			return;
+		}
+		ForkJoinPool.commonPool().invoke(new BatchTask(hands, packed, out, machiOut, op, 0, n));
+	}
+
+	/**
+	 * 手牌の範囲を半分ずつに分けて並列に判定するタスクです。
+	 */
+	private static final class BatchTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final byte[] hands;
+		private final long[] packed;
+		private final byte[] out;
+		private final long[] machiOut;
+		private final int op;
+		private final int from;
+		private final int to;
+
+		BatchTask(byte[] hands, long[] packed, byte[] out, long[] machiOut, int op, int from, int to) {
+			this.hands = hands;
+			this.packed = packed;
+			this.out = out;
+			this.machiOut = machiOut;
+			this.op = op;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > THRESHOLD) {
+				int mid = (this.from + this.to) >>> 1;
+				invokeAll(new BatchTask(this.hands, this.packed, this.out, this.machiOut, this.op, this.from, mid),
+						new BatchTask(this.hands, this.packed, this.out, this.machiOut, this.op, mid, this.to));
+				return;
+			}
+			int[] counts = new int[34];
+			for (int i = this.from; i < this.to; i++) {
+				if (this.hands != null) {
+					int offset = i * 34;
+					for (int id = 0; id < 34; id++) {
+						counts[id] = this.hands[offset + id];
+					}
+				} else {
+					int offset = i * 4;
+					for (int id = 0; id < 34; id++) {
+						counts[id] = (int) (this.packed[offset + id / 9] >>> ((id % 9) * 3) & 7);
+					}
+				}
+				switch (this.op) {
+				case AGARI:
+					this.out[i] = (byte) Judge.judgeAgariByTable(counts);
+					break;
+				case SHANTEN:
+					this.out[i] = (byte) Judge.shanten(counts);
+					break;
+				default:
+					this.machiOut[i] = Judge.machiByTable(counts);
+					break;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.example.mahjong.model;
+
+/**
+ * 待ちの形を定義する列挙型です。
+ * {@link Judge#judgeMachiShape(int[], int)} は、成立する待ちの形を{@link #bit()}の論理和で返します。
+ */
+public enum Machi {
+    /** 両面待ち */
+    RYANMEN(0, "両面"),
+    /** 嵌張待ち */
+    KANCHAN(1, "嵌張"),
+    /** 辺張待ち */
+    PENCHAN(2, "辺張"),
+    /** 双碰待ち */
+    SHANPON(3, "双碰"),
+    /** 単騎待ち */
+    TANKI(4, "単騎");
+
+    /** 待ちを識別するためのID */
+    private final int id;
+    /** 待ちの日本語名 */
+    private final String name;
+
+    /**
+     * Machi enumのコンストラクタです。
+     *
+     * @param id   待ちのID
+     * @param name 待ちの日本語名
+     */
+    Machi(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    /**
+     * 待ちの日本語名を返します。
+     *
+     * @return 待ちの名前
+     */
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+    /**
+     * 待ちのIDを返します。
+     *
+     * @return 待ちID
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * 待ちの日本語名を返します。
+     *
+     * @return 待ちの名前
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * 待ちの形の集合をビットで表すときの、この待ちのビットを返します。
+     *
+     * @return {@code 1 << id}
+     */
+    public int bit() {
+        return 1 << this.id;
+    }
+}
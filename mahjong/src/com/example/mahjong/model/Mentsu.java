@@ -6,8 +6,9 @@ import java.util.List;
  * 麻雀の参加者（プレイヤーやCPU）の基本となる抽象クラスです。
  * 参加者が共通して持つべき状態や、実行すべき基本的なアクションを定義します。
  * {@link Player} クラスはこのクラスを継承します。
+ * 打牌や鳴きを決める{@link Strategy}は継承せず、参加者ごとに別のオブジェクトとして持ちます。
  */
-public abstract class Mentsu implements Observer, Strategy {
+public abstract class Mentsu implements Observer {
     /** 参加者の手牌 */
     private List<TileType> hand;
     /** リーチ状態かどうか */
@@ -42,7 +43,6 @@ public abstract class Mentsu implements Observer, Strategy {
      *
      * @return 選択された捨て牌のリスト
      */
-    @Override
     public abstract List<TileType> selectDiscard();
 
     /**
@@ -0,0 +1,112 @@
+package com.example.mahjong.model;
+
+/**
+ * あがり形の手牌を「雀頭1つ + 面子」に分解する方法を、すべて列挙するクラスです。
+ * {@link Judge#is4MentsuRecursive(int[], int)} が最初に見つかった分解で止まるのに対し、
+ * こちらは111222333を「刻子3つ」と「順子3つ」の両方として数えるように、成立する分解をすべて訪問します。
+ *
+ * 分解は毎回リストを作らず、このインスタンスが持つ配列に書き込んでから{@link Visitor}に渡します。
+ * 渡された配列は次の分解で上書きされるため、必要な値はコールバックの中で読み取ってください。
+ * インスタンスはスレッドセーフではないので、スレッドごとに1つ用意してください。
+ */
+public final class MentsuDecomposer {
+	/** 面子の種類: 刻子 */
+	public static final int KOUTSU = 0;
+	/** 面子の種類: 順子 */
+	public static final int SHUNTSU = 1;
+
+	/**
+	 * 分解を1つずつ受け取るコールバックです。
+	 */
+	@FunctionalInterface
+	public interface Visitor {
+		/**
+		 * 分解を1つ受け取ります。
+		 *
+		 * @param jantou 雀頭の牌ID
+		 * @param kinds 各面子の種類（{@link #KOUTSU}または{@link #SHUNTSU}）。先頭からcount個が有効です
+		 * @param tiles 各面子の牌ID（刻子はその牌、順子は最も小さい牌）。先頭からcount個が有効です
+		 * @param count 面子の数
+		 */
+		void visit(int jantou, int[] kinds, int[] tiles, int count);
+	}
+
+	/** 面子の種類を書き込む作業用配列 */
+	private final int[] kinds = new int[4];
+	/** 面子の牌IDを書き込む作業用配列 */
+	private final int[] tiles = new int[4];
+	/** 現在の雀頭 */
+	private int jantou;
+	/** 見つかった分解の数 */
+	private int found;
+
+	/**
+	 * 手牌のすべての分解を列挙し、1つずつコールバックに渡します。
+	 * 副露して手牌が減っている場合は、残りの枚数から面子数を決めます（14枚なら4面子）。
+	 *
+	 * @param handCount 3n+2枚の手牌カウント配列(34)。探索中に書き換えますが、戻る時点で元に戻っています
+	 * @param visitor 分解を受け取るコールバック
+	 * @return 見つかった分解の数
+	 */
+	public int decompose(int[] handCount, Visitor visitor) {
+		int total = 0;
+		for (int i = 0; i < handCount.length; i++) {
+			total += handCount[i];
+		}
+		this.found = 0;
+		if (total % 3 != 2 || total > 14) {
+			return 0;
+		}
+		int mentsu = (total - 2) / 3;
+		for (int i = 0; i < handCount.length; i++) {
+			if (handCount[i] >= 2) {
+				handCount[i] -= 2;
+				this.jantou = i;
+				search(handCount, 0, 0, mentsu, -1, visitor);
+				handCount[i] += 2;
+			}
+		}
+		return this.found;
+	}
+
+	/**
+	 * 【再帰メソッド】残っている最初の牌を含む面子を抜きながら分解を列挙します。
+	 * 同じ牌から刻子と順子の両方を抜く場合は、刻子を先に抜く順番だけを数えます。
+	 *
+	 * @param handCount 手牌カウント配列
+	 * @param start 残っている牌を探し始める位置
+	 * @param depth すでに抜いた面子の数
+	 * @param mentsu 抜く必要がある面子の総数
+	 * @param noKoutsu 直前に順子を抜いた牌のID。この牌からは刻子を抜きません
+	 * @param visitor 分解を受け取るコールバック
+	 */
+	private void search(int[] handCount, int start, int depth, int mentsu, int noKoutsu, Visitor visitor) {
+		if (depth == mentsu) {
+			this.found++;
+			visitor.visit(this.jantou, this.kinds, this.tiles, depth);
+			return;
+		}
+		int i = start;
+		while (handCount[i] == 0) {
+			i++;
+		}
+		if (i != noKoutsu && handCount[i] >= 3) {
+			handCount[i] -= 3;
+			this.kinds[depth] = KOUTSU;
+			this.tiles[depth] = i;
+			search(handCount, i, depth + 1, mentsu, -1, visitor);
+			handCount[i] += 3;
+		}
+		if (i < 27 && i % 9 <= 6 && handCount[i + 1] >= 1 && handCount[i + 2] >= 1) {
+			handCount[i]--;
+			handCount[i + 1]--;
+			handCount[i + 2]--;
+			this.kinds[depth] = SHUNTSU;
+			this.tiles[depth] = i;
+			search(handCount, i, depth + 1, mentsu, i, visitor);
+			handCount[i]++;
+			handCount[i + 1]++;
+			handCount[i + 2]++;
+		}
+	}
+}
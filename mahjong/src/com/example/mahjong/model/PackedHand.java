@@ -0,0 +1,294 @@
+package com.example.mahjong.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 34種類の牌の枚数を、牌種ごとに1つのlongへ詰めて保持する手牌の表現です。
+ * 1種類の牌の枚数（0〜4）を3ビットで表し、萬子・筒子・索子・字牌の4つのlongに格納します。
+ * ランクrの牌は、その牌種のlongの r×3 ビット目から始まる3ビットに入ります。
+ *
+ * {@code List<TileType>} や {@code int[34]} と違い、牌の追加・削除は定数時間で、
+ * 判定のたびに配列を作る必要がありません。{@link #equals(Object)} と {@link #hashCode()} は
+ * 牌の枚数だけで決まるため、キャッシュのキーとしても使えます。
+ * ただし可変なので、マップのキーに使っている間は書き換えないでください（必要なら{@link #copy()}します）。
+ */
+public final class PackedHand {
+	/** 萬子の牌種番号 */
+	public static final int MAN = 0;
+	/** 筒子の牌種番号 */
+	public static final int PIN = 1;
+	/** 索子の牌種番号 */
+	public static final int SOU = 2;
+	/** 字牌の牌種番号 */
+	public static final int HONOR = 3;
+
+	/** 萬子の枚数（3ビット × 9） */
+	private long man;
+	/** 筒子の枚数（3ビット × 9） */
+	private long pin;
+	/** 索子の枚数（3ビット × 9） */
+	private long sou;
+	/** 字牌の枚数（3ビット × 7） */
+	private long honor;
+	/** 牌の総枚数 */
+	private int size;
+
+	/**
+	 * 空の手牌を生成します。
+	 */
+	public PackedHand() {
+	}
+
+	/**
+	 * 4つの牌種の値を指定して手牌を生成します。
+	 * 一括判定などで、配列に並べた値から復元するときに使います。
+	 *
+	 * @param man 萬子の値
+	 * @param pin 筒子の値
+	 * @param sou 索子の値
+	 * @param honor 字牌の値
+	 */
+	public PackedHand(long man, long pin, long sou, long honor) {
+		this.man = man;
+		this.pin = pin;
+		this.sou = sou;
+		this.honor = honor;
+		this.size = countTiles(man, 9) + countTiles(pin, 9) + countTiles(sou, 9) + countTiles(honor, 7);
+	}
+
+	/**
+	 * 牌のリストから手牌を生成します。
+	 *
+	 * @param hand 牌のリスト
+	 * @return 生成した手牌
+	 * @throws IllegalArgumentException 同じ牌が5枚以上含まれる場合
+	 */
+	public static PackedHand of(List<TileType> hand) {
+		PackedHand packed = new PackedHand();
+		for (TileType tile : hand) {
+			packed.add(tile.getId());
+		}
+		return packed;
+	}
+
+	/**
+	 * 手牌カウント配列から手牌を生成します。
+	 *
+	 * @param handCount 手牌カウント配列(34)
+	 * @return 生成した手牌
+	 * @throws IllegalArgumentException 枚数が0〜4の範囲外の場合
+	 */
+	public static PackedHand of(int[] handCount) {
+		PackedHand packed = new PackedHand();
+		for (int i = 0; i < handCount.length; i++) {
+			if (handCount[i] < 0 || handCount[i] > 4) {
+				throw new IllegalArgumentException("Invalid tile count: " + handCount[i] + " for ID " + i);
+			}
+			packed.set(i / 9, i % 9, handCount[i]);
+		}
+		packed.size = countTiles(packed.man, 9) + countTiles(packed.pin, 9)
+				+ countTiles(packed.sou, 9) + countTiles(packed.honor, 7);
+		return packed;
+	}
+
+	/**
+	 * この手牌の複製を返します。
+	 *
+	 * @return 同じ枚数を持つ新しい手牌
+	 */
+	public PackedHand copy() {
+		return new PackedHand(this.man, this.pin, this.sou, this.honor);
+	}
+
+	/**
+	 * 牌を1枚加えます。
+	 *
+	 * @param tile 加える牌
+	 */
+	public void add(TileType tile) {
+		add(tile.getId());
+	}
+
+	/**
+	 * 牌を1枚加えます。
+	 *
+	 * @param id 加える牌のID
+	 * @throws IllegalArgumentException すでに4枚ある場合
+	 */
+	public void add(int id) {
+		int suit = id / 9;
+		int shift = (id % 9) * 3;
+		long bits = get(suit);
+		if ((bits >>> shift & 7) >= 4) {
+			throw new IllegalArgumentException("Too many tiles of ID " + id);
+		}
+		put(suit, bits + (1L << shift));
+		this.size++;
+	}
+
+	/**
+	 * 牌を1枚取り除きます。
+	 *
+	 * @param tile 取り除く牌
+	 */
+	public void remove(TileType tile) {
+		remove(tile.getId());
+	}
+
+	/**
+	 * 牌を1枚取り除きます。
+	 *
+	 * @param id 取り除く牌のID
+	 * @throws IllegalArgumentException その牌を持っていない場合
+	 */
+	public void remove(int id) {
+		int suit = id / 9;
+		int shift = (id % 9) * 3;
+		long bits = get(suit);
+		if ((bits >>> shift & 7) == 0) {
+			throw new IllegalArgumentException("No tile of ID " + id);
+		}
+		put(suit, bits - (1L << shift));
+		this.size--;
+	}
+
+	/**
+	 * 指定した牌の枚数を返します。
+	 *
+	 * @param id 牌のID
+	 * @return 枚数(0〜4)
+	 */
+	public int count(int id) {
+		return (int) (get(id / 9) >>> ((id % 9) * 3) & 7);
+	}
+
+	/**
+	 * 牌の総枚数を返します。
+	 *
+	 * @return 総枚数
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * 牌を{@link TileType}の順に並べたリストに変換します。
+	 *
+	 * @return 牌のリスト
+	 */
+	public List<TileType> toList() {
+		List<TileType> hand = new ArrayList<>(this.size);
+		for (int id = 0; id < 34; id++) {
+			for (int n = count(id); n > 0; n--) {
+				hand.add(TileType.getTile(id));
+			}
+		}
+		return hand;
+	}
+
+	/**
+	 * 手牌カウント配列に書き出します。
+	 *
+	 * @param handCount 書き出し先の配列(34)
+	 * @return 引数の配列
+	 */
+	public int[] toCounts(int[] handCount) {
+		for (int id = 0; id < 34; id++) {
+			handCount[id] = count(id);
+		}
+		return handCount;
+	}
+
+	/**
+	 * 牌種の値（3ビット × ランク数）をそのまま返します。
+	 *
+	 * @param suit 牌種番号（{@link #MAN}, {@link #PIN}, {@link #SOU}, {@link #HONOR}）
+	 * @return 牌種の値
+	 */
+	public long suit(int suit) {
+		return get(suit);
+	}
+
+	/**
+	 * 牌種の枚数を、{@link AgariTable}などの参照表で使う5進数のキーに変換します。
+	 *
+	 * @param suit 牌種番号
+	 * @return 5進数のキー
+	 */
+	int key(int suit) {
+		long bits = get(suit);
+		int key = 0;
+		for (int shift = suit == HONOR ? 18 : 24; shift >= 0; shift -= 3) {
+			key = key * 5 + (int) (bits >>> shift & 7);
+		}
+		return key;
+	}
+
+	/**
+	 * 牌種の枚数の合計を返します。
+	 *
+	 * @param suit 牌種番号
+	 * @return 牌種の枚数
+	 */
+	int tiles(int suit) {
+		return countTiles(get(suit), suit == HONOR ? 7 : 9);
+	}
+
+	private static int countTiles(long bits, int ranks) {
+		int tiles = 0;
+		for (int r = 0; r < ranks; r++) {
+			tiles += (int) (bits >>> (r * 3) & 7);
+		}
+		return tiles;
+	}
+
+	private long get(int suit) {
+		switch (suit) {
+		case MAN: return this.man;
+		case PIN: return this.pin;
+		case SOU: return this.sou;
+		default: return this.honor;
+		}
+	}
+
+	private void put(int suit, long bits) {
+		switch (suit) {
+		case MAN: this.man = bits; break;
+		case PIN: this.pin = bits; break;
+		case SOU: this.sou = bits; break;
+		default: this.honor = bits; break;
+		}
+	}
+
+	private void set(int suit, int rank, int count) {
+		int shift = rank * 3;
+		put(suit, (get(suit) & ~(7L << shift)) | ((long) count << shift));
+	}
+
+	@Override
+	public int hashCode() {
+		long h = this.man * 31 + this.pin;
+		h = h * 31 + this.sou;
+		h = h * 31 + this.honor;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o instanceof PackedHand == false) {
+			return false;
+		}
+		PackedHand other = (PackedHand) o;
+		return this.man == other.man && this.pin == other.pin
+				&& this.sou == other.sou && this.honor == other.honor;
+	}
+
+	@Override
+	public String toString() {
+		return toList().toString();
+	}
+}
@@ -1,6 +1,7 @@
 package com.example.mahjong.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -31,8 +32,20 @@ public class Player extends Mentsu implements Observer {
 	private boolean kan;
 	/** プレイヤーの現在の持ち点。 */
 	private int point;
-	/** あがり判定の結果を格納するリスト。 */
-	private List<Integer> agari;
+	/** 手牌の枚数を牌IDごとに数えた配列。手牌リストと常に同じ内容を保ちます。 */
+	private final int[] handCount = new int[34];
+	/** 13枚形（3n+1枚）のときの待ち牌のビット集合。ビットiが立っていれば牌IDiで和了れます。 */
+	private long waitMask;
+	/** 直前のツモであがり形になったかどうか。 */
+	private boolean agari;
+	/** 今の手牌がテンパイかどうか。1ならテンパイ、0ならテンパイでなく、-1なら手牌が変わってからまだ調べていません。 */
+	private int tenpai = -1;
+	/** 直前にツモした牌。 */
+	private TileType lastTsumo;
+	/** 直近の他家の捨て牌に対して取れる行動（{@link CallMatrix#PON}などの論理和）。 */
+	private int callOptions;
+	/** 役の判定に使い回すあがり状況。 */
+	private final AgariContext agariContext = new AgariContext();
 
 	/**
 	 * Playerの新しいインスタンスを生成します。
@@ -52,18 +65,34 @@ public class Player extends Mentsu implements Observer {
 	public void haipai(List<TileType> haipai) {
 		if (this.hand.isEmpty()) {
 			this.hand = haipai;
+			rebuildHandCount();
 		}
 	}
 
 	/**
 	 * 現在の手牌であがれる役を判定します。
+	 * 直前にツモした牌でのツモあがりとして、リーチや自風も含めて判定します。
 	 *
 	 * @return 成立している役（{@link Hands}）のリスト。役がない場合は空のリスト。
+	 * @see #agariMask()
 	 */
 	public List<Hands> agari() {
-		List<Hands> hands = Judge.judgeHand(this.hand);
-		hands.removeIf(tile -> tile.getId() == 99); // 'NONE' hand type removal
-		return hands;
+		return Hands.toList(agariMask());
+	}
+
+	/**
+	 * 現在の手牌であがれる役を、{@link Hands#bit()}の論理和で返します。
+	 * 判定は{@link #agari()}と同じですが、手牌カウント配列とあがり状況を使い回し、リストを作りません。
+	 *
+	 * @return 成立している役のビット集合。役がない場合は0
+	 */
+	public long agariMask() {
+		AgariContext context = this.agariContext;
+		context.setTsumo(true);
+		context.setAgariTile(this.lastTsumo == null ? -1 : this.lastTsumo.getId());
+		context.setSeatWind(this.wind);
+		context.setRiichi(this.riichi);
+		return Judge.judgeHandMask(this.handCount, context);
 	}
 
 	/**
@@ -82,19 +111,24 @@ public class Player extends Mentsu implements Observer {
 	}
 
 	/**
-	 * 副露できるかを判断するメソッドです。
+	 * 直近の他家の捨て牌に対して、ポン・カン・チー・ロンができるかを調べます。
+	 * 結果は{@link #getCallOptions()}で取り出します。実際に鳴くかどうかはコントローラーが決めます。
+	 * ロンはキャッシュしている待ち牌のビットで判定するため、あがり判定の探索は行いません。
+	 * 卓が{@link Table}ならフリテンも考えます。
 	 *
-	 * @param table
+	 * @param table 捨て牌があった卓
 	 */
 	public void canCall(SubjectTable table) {
-		// TODO: UIロジックを分離したため、コントローラーで実装する必要があります
-		// if (!table.getDiscard().containsKey((Integer) this.wind)) {
-		// 	Map<Integer, List<TileType>> callingTile = table.getDiscard();
-		// 	List<Boolean> canCalls = Judge.canCall(this.hand, callingTile, this.wind);
-		// }
+		int from = table.getDiscardWind();
+		if (from < 0 || from == this.wind) {
+			this.callOptions = 0;
+			return;
+		}
+		int tileId = table.getDiscardTile().getId();
+		long waits = table instanceof Table ? ((Table) table).ronWaitMask(this.wind, this.waitMask) : this.waitMask;
+		this.callOptions = CallMatrix.options(this.handCount, waits, tileId, (this.wind - from) & 3, this.riichi);
 	}
 
-	@Override
 	/**
 	 * 牌を1枚ツモり、手牌に加えます。
 	 * ツモ後に手牌は自動的にソートされ、あがり状態が判定されます。
@@ -103,16 +137,36 @@ public class Player extends Mentsu implements Observer {
 	 */
 	@Override
 	public void tsumo(List<TileType> tsumo) {
-		this.hand.addAll(tsumo);
-		sortHand(this.hand);
-		this.agari = Judge.judgeDuringTheGame(this.hand);
-		if (this.agari.get(0) == 1) {
-			// The decision to declare "agari" is now up to the controller
+		if (tsumo.size() == 1) {
+			tsumo(tsumo.get(0));
+			return;
+		}
+		for (TileType tile : tsumo) {
+			insertSorted(tile);
 		}
+		this.lastTsumo = tsumo.isEmpty() ? null : tsumo.get(tsumo.size() - 1);
+		this.agari = Judge.judgeAgari(this.handCount) == 1;
+		this.tenpai = this.agari ? 1 : -1;
+	}
+
+	/**
+	 * 牌を1枚ツモり、手牌に加えます。
+	 * あがり判定は、ツモ前の13枚形で求めておいた待ち牌のビットを調べるだけで済みます。
+	 * テンパイかどうかは、{@link #isTenpai()}で聞かれるまで調べません。
+	 *
+	 * @param tile ツモしてきた牌
+	 */
+	public void tsumo(TileType tile) {
+		this.agari = isWaiting(tile.getId());
+		insertSorted(tile);
+		this.lastTsumo = tile;
+		this.tenpai = this.agari ? 1 : -1;
 	}
 
 	/**
 	 * 指定されたインデックスの牌を捨てます。
+	 * 捨てた後の13枚形で待ち牌を求め直します。
+	 *
 	 * @param tileIndex 捨てる牌の、手牌リスト内でのインデックス。
 	 * @return 捨てられた牌。
 	 */
@@ -120,7 +174,54 @@ public class Player extends Mentsu implements Observer {
 		if (tileIndex < 0 || tileIndex >= this.hand.size()) {
 			throw new IndexOutOfBoundsException("Invalid index for discard: " + tileIndex);
 		}
-		return this.hand.remove(tileIndex);
+		TileType tile = this.hand.remove(tileIndex);
+		this.handCount[tile.getId()]--;
+		this.agari = false;
+		this.tenpai = -1;
+		updateWaitMask();
+		return tile;
+	}
+
+	/**
+	 * 指定された牌IDで和了れるかを、キャッシュしている待ち牌のビットで判定します。
+	 * ロンの可否判定にもそのまま使えます。
+	 *
+	 * @param tileId 牌ID
+	 * @return 待ち牌であればtrue
+	 */
+	public boolean isWaiting(int tileId) {
+		return (this.waitMask >>> tileId & 1L) != 0;
+	}
+
+	/**
+	 * 手牌リストの並び順を保ったまま牌を1枚挿入し、カウント配列も更新します。
+	 * 手牌全体をソートし直す必要はありません。
+	 */
+	private void insertSorted(TileType tile) {
+		int index = Collections.binarySearch(this.hand, tile);
+		this.hand.add(index < 0 ? -index - 1 : index, tile);
+		this.handCount[tile.getId()]++;
+		this.tenpai = -1;
+	}
+
+	/**
+	 * 手牌リストからカウント配列を作り直し、待ち牌も求め直します。
+	 */
+	private void rebuildHandCount() {
+		Arrays.fill(this.handCount, 0);
+		for (TileType tile : this.hand) {
+			this.handCount[tile.getId()]++;
+		}
+		this.tenpai = -1;
+		updateWaitMask();
+	}
+
+	/**
+	 * 3n+1枚の手牌の待ち牌ビットを求め直します。
+	 * 3n+1枚でないとき（ツモ直後など）は待ちなしとします。
+	 */
+	private void updateWaitMask() {
+		this.waitMask = this.hand.size() % 3 == 1 ? Judge.judgeMachi(this.handCount) : 0L;
 	}
 
 	@Override
@@ -159,7 +260,10 @@ public class Player extends Mentsu implements Observer {
 	 *
 	 */
 	public void pon(List<TileType> discard) {
-		this.hand.addAll(discard);
+		for (TileType tile : discard) {
+			insertSorted(tile);
+		}
+		this.waitMask = 0L;
 	}
 
 	@Override
@@ -180,6 +284,72 @@ public class Player extends Mentsu implements Observer {
 
 	public void setHand(List<TileType> hand) {
 		this.hand = hand;
+		sortHand(this.hand);
+		rebuildHandCount();
+	}
+
+	/**
+	 * 手牌のカウント配列を返します。
+	 * 内部の配列をそのまま返すため、呼び出し側で書き換えないでください。
+	 *
+	 * @return 牌IDごとの枚数（要素数34）
+	 */
+	public int[] getHandCount() {
+		return handCount;
+	}
+
+	/**
+	 * 現在の13枚形の待ち牌ビット集合を返します。
+	 *
+	 * @return ビットiが牌IDiの待ちを表すビット集合。テンパイしていなければ0
+	 */
+	public long getWaitMask() {
+		return waitMask;
+	}
+
+	/**
+	 * 直前のツモであがり形になったかを返します。
+	 *
+	 * @return あがり形ならtrue
+	 */
+	public boolean isAgari() {
+		return agari;
+	}
+
+	/**
+	 * 今の手牌がテンパイかを返します。
+	 * ツモ後の3n+2枚なら何かを切ればテンパイになる形か、3n+1枚なら{@link #getWaitMask()}に待ちがあるかです。
+	 * 待ちが手牌に4枚ある牌だけになる形はテンパイとしないため、切った後の{@link #getWaitMask()}と食い違いません。
+	 * 手牌が変わってから初めて聞かれたときに調べ、次に手牌が変わるまで覚えておきます。
+	 *
+	 * @return テンパイにとれるならtrue
+	 */
+	public boolean isTenpai() {
+		if (this.tenpai < 0) {
+			this.tenpai = this.hand.size() % 3 == 1 ? (this.waitMask != 0L ? 1 : 0) : Judge.judgeTempai(this.handCount);
+		}
+		return this.tenpai == 1;
+	}
+
+	/**
+	 * 直近の他家の捨て牌に対して取れる行動を返します。
+	 *
+	 * @return {@link CallMatrix#PON}, {@link CallMatrix#KAN}, {@link CallMatrix#CHII}, {@link CallMatrix#RON}の論理和
+	 */
+	public int getCallOptions() {
+		return callOptions;
+	}
+
+	public TileType getLastTsumo() {
+		return lastTsumo;
+	}
+
+	public int getWind() {
+		return wind;
+	}
+
+	public void setWind(int wind) {
+		this.wind = wind;
 	}
 
 	public boolean isRiichi() {
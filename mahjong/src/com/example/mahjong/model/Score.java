@@ -0,0 +1,96 @@
+package com.example.mahjong.model;
+
+/**
+ * 1回のあがりの点数計算の結果（符・翻・基本点・各席の点数の増減）を保持するクラスです。
+ * {@link ScoreCalculator}が1つのインスタンスを使い回して書き込むため、
+ * 値を残しておきたい場合は次の計算の前に読み取ってください。
+ */
+public final class Score {
+	/** 符 */
+	int fu;
+	/** 翻（ドラを含む。役満の場合は役満の数 × 13） */
+	int han;
+	/** 役満の数。役満でなければ0 */
+	int yakuman;
+	/** 基本点 */
+	int base;
+	/** 成立した役のビット集合 */
+	long hands;
+	/** あがった席 */
+	int winner;
+	/** 放銃した席。ツモなら-1 */
+	int loser;
+	/** 各席の点数の増減（あがった席は供託と積み棒を含む受け取り、支払った席は負の値） */
+	final int[] deltas = new int[4];
+
+	/**
+	 * 結果を空の状態に戻します。
+	 */
+	void clear() {
+		this.fu = 0;
+		this.han = 0;
+		this.yakuman = 0;
+		this.base = 0;
+		this.hands = 0L;
+		this.winner = -1;
+		this.loser = -1;
+		for (int i = 0; i < 4; i++) {
+			this.deltas[i] = 0;
+		}
+	}
+
+	public int getFu() {
+		return fu;
+	}
+
+	public int getHan() {
+		return han;
+	}
+
+	public int getYakuman() {
+		return yakuman;
+	}
+
+	public int getBase() {
+		return base;
+	}
+
+	public long getHands() {
+		return hands;
+	}
+
+	public int getWinner() {
+		return winner;
+	}
+
+	public int getLoser() {
+		return loser;
+	}
+
+	/**
+	 * 指定した席の点数の増減を返します。
+	 *
+	 * @param seat 席(0〜3)
+	 * @return 点数の増減
+	 */
+	public int getDelta(int seat) {
+		return deltas[seat];
+	}
+
+	/**
+	 * あがった席が受け取る点数（供託と積み棒を含む）を返します。
+	 *
+	 * @return 受け取る点数。役がなければ0
+	 */
+	public int getGain() {
+		return this.winner < 0 ? 0 : deltas[this.winner];
+	}
+
+	@Override
+	public String toString() {
+		if (this.yakuman > 0) {
+			return "役満×" + this.yakuman + " " + getGain() + "点";
+		}
+		return this.fu + "符" + this.han + "翻 " + getGain() + "点";
+	}
+}
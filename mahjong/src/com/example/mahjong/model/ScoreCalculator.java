@@ -0,0 +1,190 @@
+package com.example.mahjong.model;
+
+/**
+ * あがりの符と翻を求め、各席の支払いを計算するクラスです。
+ *
+ * 翻(0〜13) × 符(20, 25, 30〜110) のすべての組み合わせについて、ロン・ツモそれぞれの支払い額を
+ * 100点単位に切り上げた表をクラスの初期化時に作っておき、計算時は表を引くだけにしています。
+ * 結果は{@link Score}の1つのインスタンスに書き込むため、計算のたびにオブジェクトを生成しません。
+ * インスタンスはスレッドセーフではないので、スレッドごとに1つ用意してください。
+ */
+public final class ScoreCalculator {
+	/** 表で扱う翻の上限（13翻以上は数え役満） */
+	private static final int MAX_HAN = 13;
+	/** 表で扱う符の種類の数（20, 25, 30, 40, …, 110） */
+	private static final int FU_STEPS = 11;
+	/** 役満1つあたりの基本点 */
+	private static final int YAKUMAN_BASE = 8000;
+
+	/** 基本点 */
+	private static final int[] BASE = new int[(MAX_HAN + 1) * FU_STEPS];
+	/** 親のロンで放銃者が払う点数 */
+	private static final int[] RON_DEALER = new int[BASE.length];
+	/** 子のロンで放銃者が払う点数 */
+	private static final int[] RON_CHILD = new int[BASE.length];
+	/** 親のツモで子がそれぞれ払う点数 */
+	private static final int[] TSUMO_DEALER = new int[BASE.length];
+	/** 子のツモで親が払う点数 */
+	private static final int[] TSUMO_FROM_DEALER = new int[BASE.length];
+	/** 子のツモで子がそれぞれ払う点数 */
+	private static final int[] TSUMO_FROM_CHILD = new int[BASE.length];
+
+	static {
+		for (int han = 0; han <= MAX_HAN; han++) {
+			for (int step = 0; step < FU_STEPS; step++) {
+				int index = han * FU_STEPS + step;
+				int base = basePoints(han, fuOf(step));
+				BASE[index] = base;
+				RON_DEALER[index] = roundUp(base * 6);
+				RON_CHILD[index] = roundUp(base * 4);
+				TSUMO_DEALER[index] = roundUp(base * 2);
+				TSUMO_FROM_DEALER[index] = roundUp(base * 2);
+				TSUMO_FROM_CHILD[index] = roundUp(base);
+			}
+		}
+	}
+
+	/** 計算結果（使い回す） */
+	private final Score score = new Score();
+
+	/**
+	 * 卓の積み棒と供託リーチ棒を使って点数を計算します。
+	 *
+	 * @param evaluator 直前に{@link YakuEvaluator#evaluate(int[], AgariContext)}を呼んだ判定器
+	 * @param context 判定に使ったあがり状況（自風は必須）
+	 * @param dora ドラ・裏ドラ・赤ドラの合計枚数
+	 * @param winner あがった席
+	 * @param loser 放銃した席。ツモなら-1
+	 * @param table 積み棒と供託リーチ棒を持つ卓
+	 * @return 計算結果。このインスタンスが持つ{@link Score}で、次の計算で上書きされます
+	 */
+	public Score calculate(YakuEvaluator evaluator, AgariContext context, int dora, int winner, int loser, Table table) {
+		return calculate(evaluator, context, dora, winner, loser, table.getHonba(), table.getRiichiStick());
+	}
+
+	/**
+	 * 点数を計算します。
+	 * 親の席は、あがった席と自風から求めます。役がない場合は、増減がすべて0の結果を返します。
+	 *
+	 * @param evaluator 直前に{@link YakuEvaluator#evaluate(int[], AgariContext)}を呼んだ判定器
+	 * @param context 判定に使ったあがり状況（自風は必須）
+	 * @param dora ドラ・裏ドラ・赤ドラの合計枚数
+	 * @param winner あがった席
+	 * @param loser 放銃した席。ツモなら-1
+	 * @param honba 積み棒の数
+	 * @param riichiSticks 供託されているリーチ棒の数
+	 * @return 計算結果。このインスタンスが持つ{@link Score}で、次の計算で上書きされます
+	 * @throws IllegalArgumentException 自風が不明な場合や、ツモ・ロンと放銃した席が食い違う場合
+	 */
+	public Score calculate(YakuEvaluator evaluator, AgariContext context, int dora, int winner, int loser,
+			int honba, int riichiSticks) {
+		if (context.getSeatWind() < 0) {
+			throw new IllegalArgumentException("自風が設定されていません。");
+		}
+		if (context.isTsumo() ? loser != -1 : (loser < 0 || loser > 3 || loser == winner)) {
+			throw new IllegalArgumentException("Invalid loser: " + loser + " for winner " + winner);
+		}
+		Score score = this.score;
+		score.clear();
+		long hands = evaluator.getHands();
+		if (hands == 0L) {
+			return score;
+		}
+		score.hands = hands;
+		score.winner = winner;
+		score.loser = loser;
+
+		int yakuman = Long.bitCount(hands & Hands.YAKUMAN_MASK);
+		boolean dealerWin = context.isDealer();
+		int dealer = (winner - context.getSeatWind()) & 3;
+		int ron;
+		int fromDealer;
+		int fromChild;
+		if (yakuman > 0) {
+			int base = YAKUMAN_BASE * yakuman;
+			score.yakuman = yakuman;
+			score.han = Hands.YAKUMAN_HAN * yakuman;
+			score.fu = evaluator.getFu();
+			score.base = base;
+			ron = base * (dealerWin ? 6 : 4);
+			fromDealer = base * 2;
+			fromChild = dealerWin ? base * 2 : base;
+		} else {
+			int fu = evaluator.getFu();
+			int han = Math.min(evaluator.getHan() + dora, MAX_HAN);
+			int index = han * FU_STEPS + fuStep(fu);
+			score.fu = fu;
+			score.han = evaluator.getHan() + dora;
+			score.base = BASE[index];
+			ron = dealerWin ? RON_DEALER[index] : RON_CHILD[index];
+			fromDealer = TSUMO_FROM_DEALER[index];
+			fromChild = dealerWin ? TSUMO_DEALER[index] : TSUMO_FROM_CHILD[index];
+		}
+
+		int[] deltas = score.deltas;
+		if (context.isTsumo()) {
+			for (int seat = 0; seat < 4; seat++) {
+				if (seat != winner) {
+					int pay = (seat == dealer ? fromDealer : fromChild) + 100 * honba;
+					deltas[seat] -= pay;
+					deltas[winner] += pay;
+				}
+			}
+		} else {
+			int pay = ron + 300 * honba;
+			deltas[loser] -= pay;
+			deltas[winner] += pay;
+		}
+		deltas[winner] += 1000 * riichiSticks;
+		return score;
+	}
+
+	/**
+	 * 基本点を計算します（満貫以上は翻数で決まる値）。
+	 */
+	private static int basePoints(int han, int fu) {
+		if (han >= 13) {
+			return 8000;
+		} else if (han >= 11) {
+			return 6000;
+		} else if (han >= 8) {
+			return 4000;
+		} else if (han >= 6) {
+			return 3000;
+		} else if (han == 5) {
+			return 2000;
+		}
+		return Math.min(fu << (han + 2), 2000);
+	}
+
+	/**
+	 * 符を表の添字に変換します。
+	 */
+	private static int fuStep(int fu) {
+		if (fu == 20) {
+			return 0;
+		} else if (fu == 25) {
+			return 1;
+		}
+		return fu / 10 - 1;
+	}
+
+	/**
+	 * 表の添字を符に変換します。
+	 */
+	private static int fuOf(int step) {
+		if (step == 0) {
+			return 20;
+		} else if (step == 1) {
+			return 25;
+		}
+		return (step + 1) * 10;
+	}
+
+	/**
+	 * 100点単位に切り上げます。
+	 */
+	private static int roundUp(int points) {
+		return (points + 99) / 100 * 100;
+	}
+}
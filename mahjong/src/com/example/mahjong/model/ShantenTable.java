@@ -0,0 +1,286 @@
+package com.example.mahjong.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * 牌種ごとの面子・搭子の数を事前計算しておく、向聴数計算用の参照表です。
+ * {@link Judge#shanten(int[])} から利用されます。
+ *
+ * キーは{@link AgariTable}と同じ5進数です。各キーには「雀頭の有無(0,1) × 面子数(0〜4)」の
+ * 10通りについて、その牌種から取れる搭子（対子・両面・辺張・嵌張）の最大数を3ビットずつ詰めて持ちます。
+ * 搭子数は4で頭打ちにし、その面子数・雀頭数が取れない場合は7を入れます。
+ *
+ * 表はキーの小さい順に作ります。先頭の牌を含むブロック（孤立牌・対子・刻子・順子・搭子）を
+ * 1つ抜くとキーは必ず小さくなるため、抜いた後の値はすでに計算済みです。
+ *
+ * メモリ使用量:
+ * 数牌は 5^9 = 1,953,125 キー × int = 約7.8MB、字牌は 5^7 = 78,125 キー × int = 約312KBです。
+ * 表はこのクラスが初めて使われたときに{@link TableFile}から読み込まれます。
+ * ファイルがなければ一度だけ構築し（数百ミリ秒程度）、次回以降の起動のためにファイルへ保存します。
+ */
+final class ShantenTable {
+	/** 値が存在しない（その面子数・雀頭数が取れない）ことを表す3ビット値 */
+	static final int NONE = 7;
+	/** すべての欄が{@link #NONE}である値 */
+	private static final int ALL_NONE = (1 << 30) - 1;
+	/** 空の牌種の値。雀頭なし・面子0・搭子0のみが成立します。 */
+	static final int EMPTY = ALL_NONE & ~NONE;
+
+	/** 表のファイルのバージョン。表の作り方や値の詰め方を変えたら上げます */
+	private static final int VERSION = 1;
+
+	/** 数牌1色の表 */
+	private static final IntBuffer SUIT;
+	/** 字牌の表 */
+	private static final IntBuffer HONOR;
+
+	static {
+		ByteBuffer data = TableFile.load("shanten", VERSION,
+				(AgariTable.SUIT_KEYS + AgariTable.HONOR_KEYS) * Integer.BYTES, ShantenTable::build);
+		SUIT = data.slice(0, AgariTable.SUIT_KEYS * Integer.BYTES)
+				.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+		HONOR = data.slice(AgariTable.SUIT_KEYS * Integer.BYTES, AgariTable.HONOR_KEYS * Integer.BYTES)
+				.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+	}
+
+	/**
+	 * プライベートコンストラクタにより、このクラスのインスタンス化を防ぎます。
+	 */
+	private ShantenTable() {}
+
+	/**
+	 * 表の本体を作ります。数牌・字牌の順に並べます。
+	 */
+	private static void build(ByteBuffer data) {
+		int[] suit = new int[AgariTable.SUIT_KEYS];
+		int[] honor = new int[AgariTable.HONOR_KEYS];
+		build(suit, AgariTable.SUIT_SIZE, true);
+		build(honor, AgariTable.HONOR_SIZE, false);
+		data.asIntBuffer().put(suit).put(honor);
+	}
+
+	/**
+	 * 表の全キーを小さい順に埋めます。
+	 */
+	private static void build(int[] table, int size, boolean sequences) {
+		int[] counts = new int[size];
+		table[0] = EMPTY;
+		for (int key = 1; key < table.length; key++) {
+			// counts をキーの5進数表現に進める
+			for (int i = 0; i < size; i++) {
+				if (++counts[i] < 5) {
+					break;
+				}
+				counts[i] = 0;
+			}
+			int first = 0;
+			while (counts[first] == 0) {
+				first++;
+			}
+			int w = AgariTable.POW5[first];
+			// 孤立牌として捨てる
+			int value = table[key - w];
+			if (counts[first] >= 2) {
+				int rest = table[key - 2 * w];
+				value = max(value, addTaatsu(rest));
+				value = max(value, addPair(rest));
+			}
+			if (counts[first] >= 3) {
+				value = max(value, addMentsu(table[key - 3 * w]));
+			}
+			if (sequences) {
+				if (first + 1 < size && counts[first + 1] >= 1) {
+					int w1 = AgariTable.POW5[first + 1];
+					value = max(value, addTaatsu(table[key - w - w1]));
+					if (first + 2 < size && counts[first + 2] >= 1) {
+						int w2 = AgariTable.POW5[first + 2];
+						value = max(value, addMentsu(table[key - w - w1 - w2]));
+					}
+				}
+				if (first + 2 < size && counts[first + 2] >= 1) {
+					value = max(value, addTaatsu(table[key - w - AgariTable.POW5[first + 2]]));
+				}
+			}
+			table[key] = value;
+		}
+	}
+
+	/**
+	 * 値の欄を取り出します。
+	 *
+	 * @param value 詰めた値
+	 * @param pair 雀頭の数(0,1)
+	 * @param mentsu 面子数(0〜4)
+	 * @return 搭子数。成立しない場合は{@link #NONE}
+	 */
+	static int field(int value, int pair, int mentsu) {
+		return (value >>> ((pair * 5 + mentsu) * 3)) & 7;
+	}
+
+	private static int with(int value, int pair, int mentsu, int taatsu) {
+		int shift = (pair * 5 + mentsu) * 3;
+		return (value & ~(7 << shift)) | (taatsu << shift);
+	}
+
+	/** 欄ごとに大きいほうを取ります（NONEは最小として扱います）。 */
+	private static int max(int a, int b) {
+		int v = a;
+		for (int p = 0; p < 2; p++) {
+			for (int m = 0; m < 5; m++) {
+				int x = field(a, p, m);
+				int y = field(b, p, m);
+				if (x == NONE || (y != NONE && y > x)) {
+					v = with(v, p, m, y);
+				}
+			}
+		}
+		return v;
+	}
+
+	/** すべての欄に搭子を1つ加えます。 */
+	private static int addTaatsu(int value) {
+		int v = value;
+		for (int p = 0; p < 2; p++) {
+			for (int m = 0; m < 5; m++) {
+				int t = field(value, p, m);
+				if (t != NONE && t < 4) {
+					v = with(v, p, m, t + 1);
+				}
+			}
+		}
+		return v;
+	}
+
+	/** すべての欄に面子を1つ加えます（面子数が1つ増えた欄へ移します）。 */
+	private static int addMentsu(int value) {
+		int v = value;
+		for (int p = 0; p < 2; p++) {
+			v = with(v, p, 0, NONE);
+			for (int m = 1; m < 5; m++) {
+				v = with(v, p, m, field(value, p, m - 1));
+			}
+		}
+		return v;
+	}
+
+	/** 雀頭なしの欄を雀頭ありの欄へ移します。 */
+	private static int addPair(int value) {
+		int v = value;
+		for (int m = 0; m < 5; m++) {
+			v = with(v, 0, m, NONE);
+			v = with(v, 1, m, field(value, 0, m));
+		}
+		return v;
+	}
+
+	/**
+	 * 2つの牌種の値を合成します。面子数は4、搭子数は4で頭打ちにします。
+	 *
+	 * @param a 一方の牌種の値
+	 * @param b もう一方の牌種の値
+	 * @return 2つを合わせた値
+	 */
+	static int combine(int a, int b) {
+		int v = ALL_NONE;
+		for (int pa = 0; pa < 2; pa++) {
+			for (int ma = 0; ma < 5; ma++) {
+				int ta = field(a, pa, ma);
+				if (ta == NONE) {
+					continue;
+				}
+				for (int pb = 0; pb + pa < 2; pb++) {
+					for (int mb = 0; mb + ma < 5; mb++) {
+						int tb = field(b, pb, mb);
+						if (tb == NONE) {
+							continue;
+						}
+						int t = Math.min(ta + tb, 4);
+						int cur = field(v, pa + pb, ma + mb);
+						if (cur == NONE || t > cur) {
+							v = with(v, pa + pb, ma + mb, t);
+						}
+					}
+				}
+			}
+		}
+		return v;
+	}
+
+	/**
+	 * 数牌1色のキーの値を返します。
+	 */
+	static int suit(int key) {
+		return SUIT.get(key);
+	}
+
+	/**
+	 * 字牌のキーの値を返します。
+	 */
+	static int honor(int key) {
+		return HONOR.get(key);
+	}
+
+	/**
+	 * 4つの牌種を合成した値から、一般形の向聴数を求めます。
+	 * 必要な面子数をnとすると、向聴数は 2n - 2×面子数 - 搭子数 - 雀頭数 の最小値です。
+	 * ただし面子と搭子の合計がnを超える分の搭子は数えません。
+	 *
+	 * @param value 4つの牌種を合成した値
+	 * @param required 必要な面子数（13枚・14枚なら4）
+	 * @return 向聴数（あがり形なら-1）
+	 */
+	static int shanten(int value, int required) {
+		int best = 2 * required;
+		for (int p = 0; p < 2; p++) {
+			for (int m = 0; m <= required; m++) {
+				int t = field(value, p, m);
+				if (t == NONE) {
+					continue;
+				}
+				int s = 2 * required - 2 * m - Math.min(t, required - m) - p;
+				if (s < best) {
+					best = s;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * 2つの値を合成した場合の一般形の向聴数を、合成した値を作らずに求めます。
+	 * {@code shanten(combine(a, b), required)} と同じ結果になりますが、欄の書き込みがない分速くなります。
+	 * 打牌やツモで1つの牌種だけが変わる場合に、残りの牌種を合成した値と組み合わせて使います。
+	 *
+	 * @param a 一方の値
+	 * @param b もう一方の値
+	 * @param required 必要な面子数（4以下）
+	 * @return 向聴数（あがり形なら-1）
+	 */
+	static int shanten(int a, int b, int required) {
+		int best = 2 * required;
+		for (int pa = 0; pa < 2; pa++) {
+			for (int ma = 0; ma <= required; ma++) {
+				int ta = field(a, pa, ma);
+				if (ta == NONE) {
+					continue;
+				}
+				for (int pb = 0; pb + pa < 2; pb++) {
+					for (int mb = 0; mb + ma <= required; mb++) {
+						int tb = field(b, pb, mb);
+						if (tb == NONE) {
+							continue;
+						}
+						int m = ma + mb;
+						int s = 2 * required - 2 * m - Math.min(ta + tb, required - m) - pa - pb;
+						if (s < best) {
+							best = s;
+						}
+					}
+				}
+			}
+		}
+		return best;
+	}
+}
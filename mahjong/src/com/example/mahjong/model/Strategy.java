@@ -1,5 +1,69 @@
 package com.example.mahjong.model;
 
+/**
+ * 麻雀の参加者が打牌などを決めるための戦略を定義するインターフェースです。
+ *
+ * 手牌カウント配列を受け取るメソッドは、コンソールを使わない自動対局（シミュレーション）から呼び出されます。
+ * どれも既定の実装を持つため、必要なものだけを上書きして戦略を作れます。
+ * 既定の戦略は「向聴数が最も小さくなる牌を切り、テンパイしたらリーチし、あがれるときはあがり、鳴かない」です。
+ * 渡される配列と卓は呼び出し側のものなので、書き換えた場合は戻る前に元に戻してください。
+ */
 public interface Strategy {
 
+	/**
+	 * 3n+2枚の手牌から捨てる牌を選びます。
+	 * 既定では、切った後の向聴数が最も小さくなる牌のうち、么九牌を優先し、同じならIDの大きい牌を選びます。
+	 *
+	 * @param handCount 副露していない部分の手牌カウント配列(34)
+	 * @param drawnTile ツモした牌のID。鳴いた直後なら-1
+	 * @param table 卓（見えている牌・捨て牌・フリテンなど）
+	 * @param seat 自分の席
+	 * @return 捨てる牌のID。手牌にある牌でなければなりません
+	 */
+	default int selectDiscard(int[] handCount, int drawnTile, Table table, int seat) {
+		int best = -1;
+		int bestShanten = Integer.MAX_VALUE;
+		for (int t = 0; t < 34; t++) {
+			if (handCount[t] == 0) {
+				continue;
+			}
+			handCount[t]--;
+			int shanten = Judge.shanten(handCount);
+			handCount[t]++;
+			boolean yaochu = (YakuEvaluator.YAOCHU_MASK >>> t & 1L) != 0;
+			if (shanten < bestShanten || shanten == bestShanten && (yaochu || (YakuEvaluator.YAOCHU_MASK >>> best & 1L) == 0)) {
+				best = t;
+				bestShanten = shanten;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * テンパイしたときにリーチするかを決めます。門前で、点数と牌山の残りが足りるときだけ呼び出されます。
+	 *
+	 * @param handCount 打牌後の手牌カウント配列(34)
+	 * @param waitMask 待ち牌のビット集合
+	 * @param table 卓
+	 * @param seat 自分の席
+	 * @return リーチするならtrue
+	 */
+	default boolean declareRiichi(int[] handCount, long waitMask, Table table, int seat) {
+		return true;
+	}
+
+	/**
+	 * ほかの席の捨て牌に対して、ロン・ポン・チーをするかを決めます。
+	 * ロンは役があってフリテンでないときだけ、ポン・チーはできるときだけ呼び出されます。
+	 *
+	 * @param action {@link CallMatrix#RON}, {@link CallMatrix#PON}, {@link CallMatrix#CHII}のどれか
+	 * @param tileId 捨て牌のID
+	 * @param handCount 自分の手牌カウント配列(34)
+	 * @param table 卓
+	 * @param seat 自分の席
+	 * @return するならtrue
+	 */
+	default boolean call(int action, int tileId, int[] handCount, Table table, int seat) {
+		return action == CallMatrix.RON;
+	}
 }
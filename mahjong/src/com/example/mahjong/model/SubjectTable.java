@@ -1,25 +1,33 @@
 package com.example.mahjong.model;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * ObserverデザインパターンにおけるSubject（観察対象）を定義する抽象クラスです。
  * このクラスを継承するオブジェクト（{@link Table}など）の状態変化を、
  * 登録されたObserver（{@link Observer}）に通知する役割を持ちます。
+ *
+ * Observerの{@link Observer#update(SubjectTable)}は、これまでどおり{@link #notifyObservers()}を呼んだスレッド
+ * （ゲームループ）でその場で呼び出します。Observerは卓の状態をそのまま読み、書いた結果もゲームループから見えます。
+ * 登録と解除はどのスレッドからでもできます。
+ * 別のスレッドで受け取りたい場合やイベントの内容が必要な場合は、{@link #getEventBus()}に{@link GameEventHandler}を登録します。
+ * バスの購読者はゲームループを止めませんが、卓の状態ではなくイベントの内容だけを使ってください。
  */
 public abstract class SubjectTable {
-	/** このSubjectを観察しているObserverのリスト */
-	private final List<Observer> observers = new ArrayList<>();
+	/** イベントを配信するバス。まだ誰も購読していなければnull */
+	private volatile GameEventBus eventBus;
+	/** このSubjectを観察しているObserverのリスト。通知中に登録・解除されても壊れないよう、書き込み時にコピーします */
+	private final CopyOnWriteArrayList<Observer> observers = new CopyOnWriteArrayList<>();
 
 	/**
-	 * このSubjectに新しいObserverを登録します。
+	 * このSubjectに新しいObserverを登録します。すでに登録されている場合は何もしません。
 	 *
 	 * @param observer 登録するObserverオブジェクト
 	 */
 	public void addObserver(Observer observer) {
-		this.observers.add(observer);
+		this.observers.addIfAbsent(observer);
 	}
 
 	/**
@@ -33,11 +41,61 @@ public abstract class SubjectTable {
 
 	/**
 	 * 登録されているすべてのObserverに状態の更新を通知します。
+	 * Observerはこのスレッドで順に呼び出し、その後で種類が{@link GameEventType#UPDATE}のイベントをバスに配信します。
 	 */
 	public void notifyObservers() {
 		for (Observer observer : this.observers) {
 			observer.update(this);
 		}
+		publish(GameEventType.UPDATE, -1, -1, -1, 0, 0L);
+	}
+
+	/**
+	 * イベントを配信します。まだ誰も購読していなければ何もしません。
+	 * 配信はその卓のゲームループからだけ行ってください。
+	 *
+	 * @param type 種類
+	 * @param seat 行動した席
+	 * @param tile 牌ID
+	 * @param from 相手の席
+	 * @param info 種類ごとの整数の情報
+	 * @param value 種類ごとのビット集合などの情報
+	 * @see GameEventType
+	 */
+	public void publish(GameEventType type, int seat, int tile, int from, int info, long value) {
+		GameEventBus bus = this.eventBus;
+		if (bus != null) {
+			bus.publish(type, seat, tile, from, info, value);
+		}
+	}
+
+	/**
+	 * イベントを配信するバスを返します。まだなければ既定の大きさで作ります。
+	 *
+	 * @return イベントバス
+	 */
+	public GameEventBus getEventBus() {
+		GameEventBus bus = this.eventBus;
+		if (bus == null) {
+			synchronized (this.observers) {
+				bus = this.eventBus;
+				if (bus == null) {
+					bus = new GameEventBus();
+					this.eventBus = bus;
+				}
+			}
+		}
+		return bus;
+	}
+
+	/**
+	 * イベントを配信するバスを設定します。観戦用に複数の卓で共有するなど、大きさを変えたい場合に使います。
+	 * すでにバスに登録した購読者は、前のバスの購読のまま残ります。
+	 *
+	 * @param eventBus イベントバス
+	 */
+	public void setEventBus(GameEventBus eventBus) {
+		this.eventBus = eventBus;
 	}
 
 	/**
@@ -61,6 +119,13 @@ public abstract class SubjectTable {
 	 */
 	public abstract TileType getDiscardTile();
 
+	/**
+	 * 直近に牌を捨てたプレイヤーの風を取得します。
+	 *
+	 * @return 捨てたプレイヤーの風。まだ誰も捨てていない、または鳴かれた後なら-1
+	 */
+	public abstract int getDiscardWind();
+
 	/**
 	 * Subjectの状態を更新するなどの主要な処理を実行します。
 	 * 具体的な実装はサブクラスに委ねられます。
@@ -1,10 +1,12 @@
 package com.example.mahjong.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.random.RandomGenerator;
 
 /**
  * 麻雀のゲーム卓（場）の状態を管理するモデルクラスです。
@@ -27,9 +29,15 @@ public class Table extends SubjectTable {
     /** 現在成立している面子の数 */
     private int MentsuCount;
     /** ゲームの牌山。ここから牌がツモられます。 */
-    private List<TileType> wall;
+    private Wall wall;
+    /** 牌山をシャッフルする乱数。シードを指定すれば同じ牌山を再現できます。 */
+    private WallFactory wallFactory = new WallFactory();
     /** 各プレイヤーの捨て牌を管理するマップ。キーはプレイヤーの風。 */
     private Map<Integer, List<TileType>> discard = new HashMap<>();
+    /** 直近の捨て牌。鳴かれると null に戻ります。 */
+    private TileType lastDiscard;
+    /** 直近に牌を捨てたプレイヤーの風。鳴かれると -1 に戻ります。 */
+    private int lastDiscardWind = -1;
     /** 現在のドラ表示牌 */
     private TileType dora;
     /** 現在の巡目 */
@@ -46,6 +54,20 @@ public class Table extends SubjectTable {
     private Map<Mentsu, List<TileType>> chii = new HashMap<>();
     /** 各プレイヤーがカンした牌のマップ */
     private Map<Mentsu, List<TileType>> kan = new HashMap<>();
+    /**
+     * 場に見えている牌（捨て牌・副露した牌・ドラ表示牌）の枚数を牌IDごとに数えた配列。
+     * 捨て牌や副露を記録するメソッドが同時に更新するため、受け入れ枚数の計算で捨て牌のマップを走査し直す必要がありません。
+     */
+    private final int[] visible = new int[34];
+    /**
+     * 各プレイヤー（風）がこの局で一度でも捨てた牌のビット集合（ビットiが牌IDi）。
+     * 鳴かれた牌も含みます。フリテンの判定は待ち牌のビットとの論理積だけで済みます。
+     */
+    private final long[] discardedMask = new long[4];
+    /** 同巡内フリテンになっているプレイヤーのビット集合（ビットwが風w）。自分が次に捨てると解けます。 */
+    private int temporaryFuriten;
+    /** リーチ後に当たり牌を見逃して、この局の間ずっとフリテンになったプレイヤーのビット集合 */
+    private int riichiFuriten;
 
     /**
      * Tableの新しいインスタンスを生成します。
@@ -60,6 +82,8 @@ public class Table extends SubjectTable {
     	}
     	TileType calling = getDiscardTile();
     	this.discard.clear();
+    	this.lastDiscard = null;
+    	this.lastDiscardWind = -1;
     	System.out.println(wind + "家が副露！");
     	return calling;
     }
@@ -91,13 +115,12 @@ public class Table extends SubjectTable {
 
     /**
      * ランダムにシャッフルされた牌山を生成します。
+     * シャッフルには{@link #setWallFactory(WallFactory)}で設定した乱数を使うため、シードを指定すれば同じ牌山を再現できます。
      *
      * @return シャッフル済みの136枚の牌のリスト
      */
     public List<TileType> createShuffledWall() {
-        List<TileType> wall = createWall();
-        Collections.shuffle(wall);
-        return wall;
+        return this.wallFactory.nextList();
     }
 
     /**
@@ -119,18 +142,270 @@ public class Table extends SubjectTable {
 
         // 牌山から取り出した牌を削除
         // 注意: subListのclear()は元のリストからも要素を削除します
+        // getWall()のリストなら、牌山のカーソルを進めるだけで済みます
         wall.subList(0, count).clear();
-        sortHand(hand);
+        if (count > 1) {
+            sortHand(hand);
+        }
 
         return hand;
     }
 
+    /**
+     * 設定した乱数で牌山をシャッフルして局の始めの状態にします。牌山がまだなければ作ります。
+     * ドラ表示牌はめくらないので、必要なら{@link #revealDora()}を呼び出してください。
+     */
+    public void shuffleWall() {
+        if (this.wall == null) {
+            this.wall = new Wall();
+        }
+        this.wallFactory.shuffle(this.wall);
+    }
+
+    /**
+     * 指定した乱数で牌山をシャッフルして局の始めの状態にします。牌山がまだなければ作ります。
+     *
+     * @param random 乱数
+     */
+    public void shuffleWall(RandomGenerator random) {
+        if (this.wall == null) {
+            this.wall = new Wall();
+        }
+        this.wall.shuffle(random);
+    }
+
+    /**
+     * 牌山から1枚ツモります。配列のカーソルを進めるだけなので、オブジェクトは作りません。
+     *
+     * @return ツモした牌。牌山が残っていなければnull
+     */
+    public TileType draw() {
+        return this.wall == null ? null : this.wall.drawTile();
+    }
+
+    /**
+     * 嶺上牌を1枚引きます。
+     *
+     * @return 引いた牌。引けなければnull
+     */
+    public TileType drawRinshan() {
+        int id = this.wall == null ? -1 : this.wall.drawRinshan();
+        return id < 0 ? null : TileType.getTile(id);
+    }
+
+    /**
+     * 王牌から次のドラ表示牌をめくり、{@link #addDoraIndicator(TileType)}で記録します。
+     *
+     * @return めくったドラ表示牌。めくれなければnull
+     */
+    public TileType revealDora() {
+        int id = this.wall == null ? -1 : this.wall.revealIndicator();
+        if (id < 0) {
+            return null;
+        }
+        TileType indicator = TileType.getTile(id);
+        addDoraIndicator(indicator);
+        return indicator;
+    }
+
+    /**
+     * 捨て牌を記録し、見えている牌の枚数と、捨てたプレイヤーの捨て牌のビット集合に加えます。
+     * 捨てたプレイヤーの同巡内フリテンはここで解けます。
+     *
+     * @param wind 捨てたプレイヤーの風
+     * @param tile 捨てた牌
+     */
+    public void addDiscard(int wind, TileType tile) {
+        this.discard.computeIfAbsent(wind, k -> new ArrayList<>()).add(tile);
+        this.visible[tile.getId()]++;
+        this.lastDiscard = tile;
+        this.lastDiscardWind = wind;
+        this.discardedMask[wind] |= 1L << tile.getId();
+        this.temporaryFuriten &= ~(1 << wind);
+    }
+
+    /**
+     * ポンを記録します。鳴いた牌は捨て牌としてすでに数えているため、手牌から晒した2枚を加えます。
+     *
+     * @param player ポンしたプレイヤー
+     * @param tile ポンした牌
+     */
+    public void addPon(Mentsu player, TileType tile) {
+        List<TileType> melds = this.pon.computeIfAbsent(player, k -> new ArrayList<>());
+        for (int i = 0; i < 3; i++) {
+            melds.add(tile);
+        }
+        this.visible[tile.getId()] += 2;
+    }
+
+    /**
+     * チーを記録します。鳴いた牌は捨て牌としてすでに数えているため、手牌から晒した2枚を加えます。
+     *
+     * @param player チーしたプレイヤー
+     * @param first 順子の最も小さい牌
+     * @param called 鳴いた牌
+     */
+    public void addChii(Mentsu player, TileType first, TileType called) {
+        List<TileType> melds = this.chii.computeIfAbsent(player, k -> new ArrayList<>());
+        for (int id = first.getId(); id < first.getId() + 3; id++) {
+            melds.add(TileType.getTile(id));
+            if (id != called.getId()) {
+                this.visible[id]++;
+            }
+        }
+    }
+
+    /**
+     * カン（暗槓・明槓・加槓）を記録します。どのカンでも4枚すべてが見えるようになります。
+     *
+     * @param player カンしたプレイヤー
+     * @param tile カンした牌
+     */
+    public void addKan(Mentsu player, TileType tile) {
+        List<TileType> melds = this.kan.computeIfAbsent(player, k -> new ArrayList<>());
+        for (int i = 0; i < 4; i++) {
+            melds.add(tile);
+        }
+        this.visible[tile.getId()] = 4;
+    }
+
+    /**
+     * 副露で手牌から晒した牌を、見えている牌の枚数に加えます。
+     * 副露した面子をマップに残さない自動対局など、{@link #addPon(Mentsu, TileType)}を使わない場合に使います。
+     *
+     * @param tileId 晒した牌のID
+     * @param count 枚数
+     */
+    public void addExposed(int tileId, int count) {
+        this.visible[tileId] += count;
+    }
+
+    /**
+     * 新しいドラ表示牌をめくります。カンドラのように、前の表示牌も見えたまま残ります。
+     *
+     * @param indicator ドラ表示牌
+     */
+    public void addDoraIndicator(TileType indicator) {
+        this.dora = indicator;
+        this.visible[indicator.getId()]++;
+    }
+
+    /**
+     * 場に見えている牌の枚数を牌IDごとに返します。
+     * 内部の配列をそのまま返すため、書き換えないでください。
+     *
+     * @return 見えている牌の枚数の配列(34)
+     */
+    public int[] getVisible() {
+        return this.visible;
+    }
+
+    /**
+     * 場に見えている牌の枚数を0に戻します。局の開始時に呼び出します。
+     */
+    public void clearVisible() {
+        for (int i = 0; i < this.visible.length; i++) {
+            this.visible[i] = 0;
+        }
+    }
+
+    /**
+     * ロンできた牌を見逃したことを記録します。次に自分が捨てるまで同巡内フリテンになり、
+     * リーチしていればこの局の間ずっとフリテンになります。
+     *
+     * @param wind 見逃したプレイヤーの風
+     * @param riichi 見逃したプレイヤーがリーチしているか
+     */
+    public void passRon(int wind, boolean riichi) {
+        this.temporaryFuriten |= 1 << wind;
+        if (riichi) {
+            this.riichiFuriten |= 1 << wind;
+        }
+    }
+
+    /**
+     * 待ち牌に対してフリテンかどうかを判定します。
+     * 自分の捨て牌に待ち牌が1つでもあるか、同巡内・リーチ後の見逃しがあればフリテンです。
+     *
+     * @param wind プレイヤーの風
+     * @param waitMask そのプレイヤーの待ち牌のビット集合
+     * @return フリテンならtrue
+     */
+    public boolean isFuriten(int wind, long waitMask) {
+        return (waitMask & this.discardedMask[wind]) != 0 || ((this.temporaryFuriten | this.riichiFuriten) >>> wind & 1) != 0;
+    }
+
+    /**
+     * ロンに使える待ち牌のビット集合を返します。フリテンなら0、そうでなければ待ち牌のビット集合そのものです。
+     * {@link CallMatrix}に渡せば、フリテンの席にはロンが付きません。
+     *
+     * @param wind プレイヤーの風
+     * @param waitMask そのプレイヤーの待ち牌のビット集合
+     * @return ロンに使える待ち牌のビット集合
+     */
+    public long ronWaitMask(int wind, long waitMask) {
+        return isFuriten(wind, waitMask) ? 0L : waitMask;
+    }
+
+    /**
+     * この局で捨てた牌のビット集合を返します。
+     *
+     * @param wind プレイヤーの風
+     * @return ビットiが牌IDiの、一度でも捨てた牌のビット集合
+     */
+    public long getDiscardedMask(int wind) {
+        return this.discardedMask[wind];
+    }
+
+    /**
+     * 捨て牌のビット集合とフリテンの状態をすべて消します。局の開始時に呼び出します。
+     */
+    public void clearFuriten() {
+        Arrays.fill(this.discardedMask, 0L);
+        this.temporaryFuriten = 0;
+        this.riichiFuriten = 0;
+    }
+
+    /**
+     * 残りのツモ山をリストとして返します。リストは牌山と連動しており、
+     * {@link #dealHand(List, int)}で先頭から取り出すと牌山のカーソルが進みます。
+     *
+     * @return 残りのツモ山のリスト。牌山がまだなければnull
+     */
     public List<TileType> getWall() {
-        return wall;
+        return this.wall == null ? null : this.wall.asList();
     }
 
+    /**
+     * 牌のリストの並びで牌山を作ります。136枚なら最後の14枚が王牌になります。
+     *
+     * @param wall 牌のリスト（{@link #createShuffledWall()}など）
+     */
     public void setWall(List<TileType> wall) {
-        this.wall = wall;
+        if (wall == null) {
+            this.wall = null;
+            return;
+        }
+        Wall next = new Wall();
+        next.fill(wall);
+        this.wall = next;
+    }
+
+    public WallFactory getWallFactory() {
+        return wallFactory;
+    }
+
+    public void setWallFactory(WallFactory wallFactory) {
+        this.wallFactory = wallFactory;
+    }
+
+    /**
+     * 牌山そのものを返します。
+     *
+     * @return 牌山。まだなければnull
+     */
+    public Wall getLiveWall() {
+        return this.wall;
     }
 
     @Override
@@ -158,6 +433,14 @@ public class Table extends SubjectTable {
         this.dora = dora;
     }
 
+    public int getFieldWind() {
+        return fieldWind;
+    }
+
+    public void setFieldWind(int fieldWind) {
+        this.fieldWind = fieldWind;
+    }
+
     public int getTurn() {
         return turn;
     }
@@ -211,11 +494,24 @@ public class Table extends SubjectTable {
     	return this.discard.values().iterator().next();
     }
 
+    /**
+     * 直近の捨て牌を返します。{@link #addDiscard(int, TileType)}で記録した最後の牌です。
+     *
+     * @return 直近の捨て牌
+     */
     @Override
     public TileType getDiscardTile() {
+        if (this.lastDiscard != null) {
+            return this.lastDiscard;
+        }
         return this.discard.values().iterator().next().get(0);
     }
 
+    @Override
+    public int getDiscardWind() {
+        return this.lastDiscardWind;
+    }
+
     @Override
     public void execute() {
         // TODO Auto-generated method stub
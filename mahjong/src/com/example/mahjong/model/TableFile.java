@@ -0,0 +1,187 @@
+package com.example.mahjong.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * {@link AgariTable}・{@link ShantenTable}などの事前計算表を、ファイルに保存して読み込むためのクラスです。
+ *
+ * 表はファイルから{@link java.nio.MappedByteBuffer}として読み取り専用で割り当てるため、
+ * 起動時に表を作り直す必要がなく、ページは実際に引かれたときに読み込まれます。
+ * 同じファイルを使う複数のJVMは、OSのページキャッシュを共有します。
+ * ファイルがない・バージョンが違う・チェックサムが合わない場合は、メモリ上で表を作り直し、
+ * ファイルを書き直します（一時ファイルに書いてから置き換えるため、ほかのJVMが読みかけのファイルは壊れません）。
+ * ファイルに書けない場合は、メモリ上の表をそのまま使います。
+ *
+ * ファイルの形式（数値はすべてリトルエンディアン）:
+ * <pre>
+ * 0  "MJTB"(4バイト)
+ * 4  形式のバージョン(int)
+ * 8  表のバージョン(int)
+ * 12 本体のバイト数(int)
+ * 16 本体のCRC32(int)
+ * 20 ヘッダ(0〜19バイト目)のCRC32(int)
+ * 24 予約(8バイト)
+ * 32 本体
+ * </pre>
+ *
+ * 次のシステムプロパティで動作を変えられます。
+ * <ul>
+ * <li>{@code mahjong.tables.dir}: 表のファイルを置くディレクトリ。既定は{@code user.home}の下の{@code .mahjong/tables}。
+ *     共有の一時ディレクトリではほかのユーザーにファイルを置き換えられるおそれがあるため、ユーザーごとの場所にしています。
+ *     空文字列にするとファイルを使わず、毎回メモリ上で作ります</li>
+ * <li>{@code mahjong.tables.verify}: trueにすると、割り当てるたびに本体のCRC32も確かめます。既定はfalse。
+ *     既定ではヘッダ（バージョン・バイト数・ヘッダのCRC32）だけを確かめ、本体は読まないので、使われないページは読み込まれません。
+ *     本体のCRC32は書き込むときに必ず記録するので、ファイルが壊れた疑いがあるときだけ有効にします</li>
+ * </ul>
+ */
+public final class TableFile {
+	/** ファイルの先頭の識別子 */
+	private static final int MAGIC = 'M' | 'J' << 8 | 'T' << 16 | 'B' << 24;
+	/** 形式のバージョン */
+	private static final int FORMAT = 1;
+	/** ヘッダのバイト数 */
+	private static final int HEADER_BYTES = 32;
+
+	/**
+	 * プライベートコンストラクタにより、このクラスのインスタンス化を防ぎます。
+	 */
+	private TableFile() {}
+
+	/**
+	 * 表をファイルから読み込みます。使えるファイルがなければ作り直して保存します。
+	 *
+	 * @param name 表の名前（ファイル名になります）
+	 * @param version 表のバージョン。作り方を変えたら上げます
+	 * @param bytes 本体のバイト数
+	 * @param builder 本体を作る処理。リトルエンディアンのバッファの先頭から書き込みます
+	 * @return 本体（リトルエンディアン、読み取り専用とは限りません）
+	 */
+	static ByteBuffer load(String name, int version, int bytes, Consumer<ByteBuffer> builder) {
+		return load(directory(), name, version, bytes,
+				Boolean.parseBoolean(System.getProperty("mahjong.tables.verify")), builder);
+	}
+
+	/**
+	 * 表をディレクトリdirのファイルから読み込みます。使えるファイルがなければ作り直して保存します。
+	 * システムプロパティを使わずに、置き場所と本体のCRC32を確かめるかを指定します。
+	 *
+	 * @param dir 表のファイルを置くディレクトリ。nullならファイルを使わず、メモリ上で作ります
+	 * @param name 表の名前（ファイル名になります）
+	 * @param version 表のバージョン。作り方を変えたら上げます
+	 * @param bytes 本体のバイト数
+	 * @param verify 本体のCRC32も確かめるならtrue
+	 * @param builder 本体を作る処理。リトルエンディアンのバッファの先頭から書き込みます
+	 * @return 本体（リトルエンディアン、読み取り専用とは限りません）
+	 */
+	public static ByteBuffer load(Path dir, String name, int version, int bytes, boolean verify,
+			Consumer<ByteBuffer> builder) {
+		if (dir != null) {
+			Path file = dir.resolve(name + ".tbl");
+			ByteBuffer mapped = map(file, version, bytes, verify);
+			if (mapped != null) {
+				return mapped;
+			}
+		}
+		ByteBuffer data = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		builder.accept(data);
+		data.clear();
+		if (dir != null) {
+			save(dir, name, version, data);
+		}
+		return data;
+	}
+
+	/**
+	 * 表のファイルを置くディレクトリを返します。ファイルを使わない設定ならnullです。
+	 */
+	private static Path directory() {
+		String dir = System.getProperty("mahjong.tables.dir");
+		if (dir == null) {
+			return Paths.get(System.getProperty("user.home"), ".mahjong", "tables");
+		}
+		return dir.isEmpty() ? null : Paths.get(dir);
+	}
+
+	/**
+	 * ファイルを割り当てます。ファイルがない、または使えない場合はnullを返します。
+	 */
+	private static ByteBuffer map(Path file, int version, int bytes, boolean verify) {
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() != HEADER_BYTES + (long) bytes) {
+				return null;
+			}
+			ByteBuffer all = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+					.order(ByteOrder.LITTLE_ENDIAN);
+			ByteBuffer header = all.slice(0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT || header.getInt(8) != version
+					|| header.getInt(12) != bytes || header.getInt(20) != crc(header, 0, 20)) {
+				return null;
+			}
+			ByteBuffer data = all.slice(HEADER_BYTES, bytes).order(ByteOrder.LITTLE_ENDIAN);
+			if (verify && header.getInt(16) != crc(data, 0, bytes)) {
+				return null;
+			}
+			return data;
+		} catch (IOException | UnsupportedOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 表をファイルに保存します。保存できなくても例外は投げません。
+	 */
+	private static void save(Path dir, String name, int version, ByteBuffer data) {
+		Path temp = null;
+		try {
+			Files.createDirectories(dir);
+			temp = Files.createTempFile(dir, name, ".tmp");
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(0, MAGIC);
+			header.putInt(4, FORMAT);
+			header.putInt(8, version);
+			header.putInt(12, data.remaining());
+			header.putInt(16, crc(data, 0, data.remaining()));
+			header.putInt(20, crc(header, 0, 20));
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				ByteBuffer[] buffers = { header, data.duplicate() };
+				while (buffers[1].hasRemaining()) {
+					channel.write(buffers);
+				}
+				channel.force(false);
+			}
+			Files.move(temp, dir.resolve(name + ".tbl"), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | UnsupportedOperationException e) {
+			// 保存できなくてもメモリ上の表で動くので、ここでは何もしない
+			if (temp != null) {
+				try {
+					Files.deleteIfExists(temp);
+				} catch (IOException ignored) {
+					// 後片付けに失敗しても続ける
+				}
+			}
+		}
+	}
+
+	/**
+	 * バッファの一部分のCRC32を求めます。バッファの位置は変えません。
+	 */
+	private static int crc(ByteBuffer buffer, int offset, int length) {
+		CRC32 crc = new CRC32();
+		crc.update(buffer.slice(offset, length));
+		return (int) crc.getValue();
+	}
+}
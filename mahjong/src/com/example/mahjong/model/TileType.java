@@ -48,6 +48,12 @@ public enum TileType implements Comparable<TileType> {
     /** 字牌の發 */ HATSU(32, "GRN", "發", 5),
     /** 字牌の中 */ CHUN(33, "RED", "中", 5);
 
+    /**
+     * IDから牌を引くための表。定数はID順に並んでいるため、{@link #values()}をそのまま使います。
+     * {@code values()}は呼ぶたびに配列をコピーするので、一度だけ作って使い回します。
+     */
+    private static final TileType[] BY_ID = values();
+
     /** 牌を一意に識別するためのID (0-33) */
     private final int id;
     /** 牌の短い名前（例: "M1", "P5", "E"） */
@@ -95,12 +101,26 @@ public enum TileType implements Comparable<TileType> {
      * @throws IllegalArgumentException 指定されたIDが無効な場合
      */
     public static TileType getTile(int id) {
-        for (TileType tile : TileType.values()) {
-            if (tile.id == id) {
-                return tile;
-            }
+        if (id < 0 || id >= BY_ID.length) {
+            throw new IllegalArgumentException("Invalid TileType ID: " + id);
+        }
+        return BY_ID[id];
+    }
+
+    /**
+     * ドラ表示牌からドラの牌IDを求めます。数牌は次の数（九の次は一）、風牌は東南西北、三元牌は白發中の順に回ります。
+     *
+     * @param indicatorId ドラ表示牌のID (0-33)
+     * @return ドラの牌ID
+     */
+    public static int doraOf(int indicatorId) {
+        if (indicatorId < 27) {
+            return indicatorId / 9 * 9 + (indicatorId % 9 + 1) % 9;
+        }
+        if (indicatorId < 31) {
+            return 27 + (indicatorId - 27 + 1) % 4;
         }
-        throw new IllegalArgumentException("Invalid TileType ID: " + id);
+        return 31 + (indicatorId - 31 + 1) % 3;
     }
 
     /**
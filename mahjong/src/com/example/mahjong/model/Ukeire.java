@@ -0,0 +1,262 @@
+package com.example.mahjong.model;
+
+/**
+ * 14枚（3n+2枚）の手牌について、打牌の候補ごとに向聴数と受け入れ（向聴数を下げるツモ牌）を求めるクラスです。
+ *
+ * 受け入れの枚数は、4枚から自分の手牌の枚数と場に見えている枚数（{@link Table#getVisible()}）を引いた
+ * 「まだ見えていない枚数」の合計です。
+ *
+ * 向聴数は牌種ごとの5進数キーから{@link ShantenTable}を引いて求めます。打牌とツモでは1つの牌種のキーしか
+ * 変わらないため、他の3つの牌種を合成した値を打牌ごとに作っておき、ツモ牌ごとには表を1回引いて向聴数を求めるだけにしています。
+ * 七対子・国士無双の向聴数も、対子数と種類数を差分で更新します。
+ * 手牌のどの牌からも2つ以上離れた数牌や、持っていない字牌は一般形の向聴数を下げられないため、ツモ牌の候補から外します。
+ *
+ * 結果はこのインスタンスの配列に書き込むため、インスタンスはスレッドセーフではありません。
+ */
+public final class Ukeire {
+	/** 各牌と同じ牌種で、距離が2以内の牌のマスク（字牌は自分だけ） */
+	private static final long[] NEAR = new long[34];
+
+	static {
+		for (int i = 0; i < 34; i++) {
+			if (i >= 27) {
+				NEAR[i] = 1L << i;
+				continue;
+			}
+			int base = i / 9 * 9;
+			for (int j = Math.max(base, i - 2); j <= Math.min(base + 8, i + 2); j++) {
+				NEAR[i] |= 1L << j;
+			}
+		}
+	}
+
+	/** 打牌の候補（ビットiが立っていれば牌IDiを切れる） */
+	private long candidates;
+	/** 各打牌後の向聴数 */
+	private final int[] shanten = new int[34];
+	/** 各打牌後に向聴数を下げるツモ牌のマスク */
+	private final long[] acceptMask = new long[34];
+	/** 各打牌後の受け入れのうち、まだ見えていない枚数 */
+	private final int[] unseen = new int[34];
+	/** 牌種ごとの5進数キー（作業用） */
+	private final int[] keys = new int[4];
+	/** 牌種ごとに、その牌種以外の3つを合成した値（作業用） */
+	private final int[] others = new int[4];
+
+	/**
+	 * 卓に見えている牌を使って、すべての打牌の候補を解析します。
+	 *
+	 * @param handCount 3n+2枚の手牌カウント配列(34)。解析中に書き換えますが、戻る時点で元に戻っています
+	 * @param table 場に見えている牌を持つ卓
+	 */
+	public void analyze(int[] handCount, Table table) {
+		analyze(handCount, table.getVisible());
+	}
+
+	/**
+	 * すべての打牌の候補について、打牌後の向聴数・受け入れの牌・見えていない枚数を求めます。
+	 *
+	 * @param handCount 3n+2枚の手牌カウント配列(34)。解析中に書き換えますが、戻る時点で元に戻っています
+	 * @param visible 場に見えている牌の枚数(34)。自分の手牌は含めません
+	 * @throws IllegalArgumentException 手牌の枚数が3n+2枚でない場合
+	 */
+	public void analyze(int[] handCount, int[] visible) {
+		analyze(handCount, visible, -1L);
+	}
+
+	/**
+	 * 指定した打牌の候補だけについて、打牌後の向聴数・受け入れの牌・見えていない枚数を求めます。
+	 * 候補を分けて複数のスレッドで解析するときに使います。
+	 *
+	 * @param handCount 3n+2枚の手牌カウント配列(34)。解析中に書き換えますが、戻る時点で元に戻っています
+	 * @param visible 場に見えている牌の枚数(34)。自分の手牌は含めません
+	 * @param discards 解析する打牌のマスク（ビットiが立っていれば牌IDiを解析する）
+	 * @throws IllegalArgumentException 手牌の枚数が3n+2枚でない場合
+	 */
+	public void analyze(int[] handCount, int[] visible, long discards) {
+		int tiles = 0;
+		int kinds = 0;
+		int pairs = 0;
+		int yaochuKinds = 0;
+		int yaochuPairs = 0;
+		long present = 0L;
+		for (int i = 0; i < 34; i++) {
+			int c = handCount[i];
+			tiles += c;
+			if (c > 0) {
+				present |= 1L << i;
+				kinds++;
+				if (c >= 2) {
+					pairs++;
+				}
+				if ((YakuEvaluator.YAOCHU_MASK >>> i & 1L) != 0) {
+					yaochuKinds++;
+					if (c >= 2) {
+						yaochuPairs++;
+					}
+				}
+			}
+		}
+		if (tiles % 3 != 2) {
+			throw new IllegalArgumentException("Invalid tile count: " + tiles);
+		}
+		boolean closed = tiles == 14;
+		int required = (tiles - 1) / 3;
+		int[] keys = this.keys;
+		for (int s = 0; s < 4; s++) {
+			keys[s] = key(handCount, s);
+		}
+
+		this.candidates = present & discards;
+		for (long m = this.candidates; m != 0; m &= m - 1) {
+			int d = Long.numberOfTrailingZeros(m);
+			int ds = d / 9;
+			int dc = handCount[d];
+			// 打牌後の状態
+			handCount[d]--;
+			keys[ds] -= AgariTable.POW5[d % 9];
+			int kinds13 = kinds - (dc == 1 ? 1 : 0);
+			int pairs13 = pairs - (dc == 2 ? 1 : 0);
+			boolean dYaochu = (YakuEvaluator.YAOCHU_MASK >>> d & 1L) != 0;
+			int yaochuKinds13 = yaochuKinds - (dYaochu && dc == 1 ? 1 : 0);
+			int yaochuPairs13 = yaochuPairs - (dYaochu && dc == 2 ? 1 : 0);
+
+			int v0 = ShantenTable.suit(keys[0]);
+			int v1 = ShantenTable.suit(keys[1]);
+			int v2 = ShantenTable.suit(keys[2]);
+			int v3 = ShantenTable.honor(keys[3]);
+			int v01 = ShantenTable.combine(v0, v1);
+			int v23 = ShantenTable.combine(v2, v3);
+			// ツモ牌の牌種以外の3つを合成した値
+			this.others[0] = ShantenTable.combine(v1, v23);
+			this.others[1] = ShantenTable.combine(v0, v23);
+			this.others[2] = ShantenTable.combine(v01, v3);
+			this.others[3] = ShantenTable.combine(v01, v2);
+			int current = ShantenTable.shanten(v01, v23, required);
+			if (closed) {
+				current = Math.min(current, chiitoi(pairs13, kinds13));
+				current = Math.min(current, kokushi(yaochuKinds13, yaochuPairs13));
+			}
+
+			long draws = 0L;
+			long left = present & ~(dc == 1 ? 1L << d : 0L);
+			for (long n = left; n != 0; n &= n - 1) {
+				draws |= NEAR[Long.numberOfTrailingZeros(n)];
+			}
+			if (closed) {
+				draws |= YakuEvaluator.YAOCHU_MASK;
+				if (kinds13 < 7) {
+					draws = (1L << 34) - 1;
+				}
+			}
+
+			long accept = 0L;
+			int count = 0;
+			for (long n = draws; n != 0; n &= n - 1) {
+				int t = Long.numberOfTrailingZeros(n);
+				int tc = handCount[t];
+				if (tc >= 4) {
+					continue;
+				}
+				int ts = t / 9;
+				int key = keys[ts] + AgariTable.POW5[t % 9];
+				int value = ts == 3 ? ShantenTable.honor(key) : ShantenTable.suit(key);
+				int next = ShantenTable.shanten(this.others[ts], value, required);
+				if (closed && next >= current) {
+					next = Math.min(next, chiitoi(pairs13 + (tc == 1 ? 1 : 0), kinds13 + (tc == 0 ? 1 : 0)));
+					if ((YakuEvaluator.YAOCHU_MASK >>> t & 1L) != 0) {
+						next = Math.min(next, kokushi(yaochuKinds13 + (tc == 0 ? 1 : 0),
+								yaochuPairs13 + (tc == 1 ? 1 : 0)));
+					}
+				}
+				if (next < current) {
+					accept |= 1L << t;
+					// 打牌した牌は手牌から場に移るので、どちらにしても1枚分は見えている
+					count += Math.max(0, 4 - handCount[t] - (t == d ? 1 : 0) - visible[t]);
+				}
+			}
+
+			this.shanten[d] = current;
+			this.acceptMask[d] = accept;
+			this.unseen[d] = count;
+			handCount[d]++;
+			keys[ds] += AgariTable.POW5[d % 9];
+		}
+	}
+
+	/**
+	 * 牌種の5進数キーを求めます。
+	 */
+	private static int key(int[] handCount, int suit) {
+		int offset = suit * 9;
+		int size = suit == 3 ? AgariTable.HONOR_SIZE : AgariTable.SUIT_SIZE;
+		int key = 0;
+		for (int i = size - 1; i >= 0; i--) {
+			key = key * 5 + handCount[offset + i];
+		}
+		return key;
+	}
+
+	/**
+	 * 対子数と種類数から七対子の向聴数を求めます。
+	 */
+	private static int chiitoi(int pairs, int kinds) {
+		return 6 - pairs + Math.max(0, 7 - kinds);
+	}
+
+	/**
+	 * 么九牌の種類数と対子の有無から国士無双の向聴数を求めます。
+	 */
+	private static int kokushi(int yaochuKinds, int yaochuPairs) {
+		return 13 - yaochuKinds - (yaochuPairs > 0 ? 1 : 0);
+	}
+
+	/**
+	 * 直前の解析で解析した打牌の候補を返します。
+	 *
+	 * @return ビットiが立っていれば牌IDiを切れる
+	 */
+	public long getCandidates() {
+		return this.candidates;
+	}
+
+	/**
+	 * 指定した牌を切った後の向聴数を返します。
+	 *
+	 * @param discardId 切る牌のID
+	 * @return 向聴数
+	 */
+	public int getShanten(int discardId) {
+		return this.shanten[discardId];
+	}
+
+	/**
+	 * 指定した牌を切った後に、向聴数を下げるツモ牌のマスクを返します。
+	 *
+	 * @param discardId 切る牌のID
+	 * @return ビットiが立っていれば牌IDiで向聴数が下がる
+	 */
+	public long getAcceptMask(int discardId) {
+		return this.acceptMask[discardId];
+	}
+
+	/**
+	 * 指定した牌を切った後の受け入れの種類数を返します。
+	 *
+	 * @param discardId 切る牌のID
+	 * @return 受け入れの種類数
+	 */
+	public int getAcceptKinds(int discardId) {
+		return Long.bitCount(this.acceptMask[discardId]);
+	}
+
+	/**
+	 * 指定した牌を切った後の受け入れのうち、まだ見えていない枚数を返します。
+	 *
+	 * @param discardId 切る牌のID
+	 * @return 見えていない枚数
+	 */
+	public int getUnseen(int discardId) {
+		return this.unseen[discardId];
+	}
+}
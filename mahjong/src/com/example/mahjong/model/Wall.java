@@ -0,0 +1,310 @@
+package com.example.mahjong.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.random.RandomGenerator;
+
+/**
+ * 136枚の牌山を、牌IDのbyte配列とカーソルで表すクラスです。
+ *
+ * 配列の並びは次のとおりです。
+ * <pre>
+ * [0, 122)     ツモ山。先頭からツモります
+ * [122, 126)   嶺上牌（4枚）
+ * [126, 131)   ドラ表示牌（5枚）
+ * [131, 136)   裏ドラ表示牌（5枚）
+ * </pre>
+ * 嶺上牌を1枚引くたびに、海底（ツモ山の最後の1枚）が1枚手前に移り、王牌は14枚のまま保たれます。
+ *
+ * ツモや配牌はカーソルを進めるだけなので、牌を取り除くための配列の詰め直しもオブジェクトの生成もありません。
+ * 牌をリストで扱う既存のコード向けに、残りのツモ山をリストとして見せる{@link #asList()}があります。
+ * 1つの牌山を複数のスレッドから同時に使うことはできません。
+ */
+public final class Wall {
+	/** 牌山の枚数 */
+	public static final int SIZE = 136;
+	/** 王牌の枚数 */
+	public static final int DEAD_WALL = 14;
+	/** 嶺上牌の枚数 */
+	public static final int RINSHAN = 4;
+	/** ドラ表示牌の最大枚数 */
+	public static final int MAX_INDICATORS = 5;
+
+	/** 王牌の先頭の位置 */
+	private static final int DEAD_START = SIZE - DEAD_WALL;
+	/** ドラ表示牌の先頭の位置 */
+	private static final int INDICATOR_START = DEAD_START + RINSHAN;
+	/** 裏ドラ表示牌の先頭の位置 */
+	private static final int URA_START = INDICATOR_START + MAX_INDICATORS;
+
+	/** 牌IDの並び */
+	private final byte[] tiles = new byte[SIZE];
+	/** 次にツモる位置 */
+	private int next;
+	/** ツモ山の終わり（この位置の手前までツモれる） */
+	private int liveEnd;
+	/** 引いた嶺上牌の枚数 */
+	private int rinshan;
+	/** めくったドラ表示牌の枚数 */
+	private int indicators;
+	/** 王牌があるかどうか。136枚でないリストから作った牌山には王牌がありません */
+	private boolean deadWall;
+
+	/**
+	 * 各牌を4枚ずつID順に並べた牌山を生成します。
+	 */
+	public Wall() {
+		reset();
+	}
+
+	/**
+	 * 各牌を4枚ずつID順に並べ直し、カーソルを先頭に戻します。
+	 */
+	public void reset() {
+		for (int i = 0; i < SIZE; i++) {
+			this.tiles[i] = (byte) (i >>> 2);
+		}
+		rewind();
+	}
+
+	/**
+	 * 今の並びのまま、カーソルを先頭に戻します。ドラ表示牌はまだ1枚もめくっていない状態になります。
+	 */
+	public void rewind() {
+		this.next = 0;
+		this.liveEnd = DEAD_START;
+		this.rinshan = 0;
+		this.indicators = 0;
+		this.deadWall = true;
+	}
+
+	/**
+	 * 牌山全体をシャッフルし、カーソルを先頭に戻します。
+	 * ID順の並びから作り直す（inside-out版のFisher–Yates）ため、前の並びに関係なく、
+	 * 同じ状態の乱数を渡せば必ず同じ並びになります。
+	 *
+	 * @param random 乱数（{@link java.util.SplittableRandom}, {@link java.util.Random}など）
+	 * @see WallFactory
+	 */
+	public void shuffle(RandomGenerator random) {
+		byte[] t = this.tiles;
+		for (int i = 0; i < SIZE; i++) {
+			int j = random.nextInt(i + 1);
+			t[i] = t[j];
+			t[j] = (byte) (i >>> 2);
+		}
+		rewind();
+	}
+
+	/**
+	 * 牌のリストの並びで牌山を作り直します。136枚なら最後の14枚を王牌とし、
+	 * それ以外の枚数なら王牌なしですべてをツモ山にします。
+	 *
+	 * @param wall 牌のリスト（136枚以下）
+	 * @throws IllegalArgumentException 136枚を超える場合
+	 */
+	public void fill(List<TileType> wall) {
+		int size = wall.size();
+		if (size > SIZE) {
+			throw new IllegalArgumentException("牌山は" + SIZE + "枚までです: " + size);
+		}
+		for (int i = 0; i < size; i++) {
+			this.tiles[i] = (byte) wall.get(i).getId();
+		}
+		rewind();
+		if (size != SIZE) {
+			this.liveEnd = size;
+			this.deadWall = false;
+		}
+	}
+
+	/**
+	 * ツモ山から1枚ツモります。
+	 *
+	 * @return 牌ID。ツモ山が残っていなければ-1
+	 */
+	public int draw() {
+		return this.next < this.liveEnd ? this.tiles[this.next++] : -1;
+	}
+
+	/**
+	 * ツモ山から1枚ツモります。
+	 *
+	 * @return ツモした牌。ツモ山が残っていなければnull
+	 */
+	public TileType drawTile() {
+		int id = draw();
+		return id < 0 ? null : TileType.getTile(id);
+	}
+
+	/**
+	 * ツモ山から指定した枚数をツモり、手牌カウント配列に加えます。
+	 *
+	 * @param handCount 加える先の手牌カウント配列(34)
+	 * @param count ツモる枚数
+	 * @throws IllegalArgumentException ツモ山の残りが足りない場合
+	 */
+	public void deal(int[] handCount, int count) {
+		checkRemaining(count);
+		for (int i = 0; i < count; i++) {
+			handCount[this.tiles[this.next++]]++;
+		}
+	}
+
+	/**
+	 * ツモ山から指定した枚数をツモり、リストに加えます。
+	 *
+	 * @param hand 加える先のリスト
+	 * @param count ツモる枚数
+	 * @throws IllegalArgumentException ツモ山の残りが足りない場合
+	 */
+	public void deal(List<TileType> hand, int count) {
+		checkRemaining(count);
+		for (int i = 0; i < count; i++) {
+			hand.add(TileType.getTile(this.tiles[this.next++]));
+		}
+	}
+
+	private void checkRemaining(int count) {
+		if (remaining() < count) {
+			throw new IllegalArgumentException("牌山に残っている牌が不足しています。");
+		}
+	}
+
+	/**
+	 * 嶺上牌を1枚引きます。海底が1枚手前に移ります。
+	 *
+	 * @return 牌ID。嶺上牌が残っていない（4回カンした後など）か、王牌がなければ-1
+	 */
+	public int drawRinshan() {
+		if (!this.deadWall || this.rinshan >= RINSHAN || this.liveEnd <= this.next) {
+			return -1;
+		}
+		this.liveEnd--;
+		return this.tiles[DEAD_START + this.rinshan++];
+	}
+
+	/**
+	 * 次のドラ表示牌をめくります。局の始めに1回、カンのたびに1回（カンドラ）呼び出します。
+	 *
+	 * @return めくったドラ表示牌の牌ID。すでに5枚めくっているか、王牌がなければ-1
+	 */
+	public int revealIndicator() {
+		if (!this.deadWall || this.indicators >= MAX_INDICATORS) {
+			return -1;
+		}
+		return this.tiles[INDICATOR_START + this.indicators++];
+	}
+
+	/**
+	 * めくったドラ表示牌を返します。
+	 *
+	 * @param index 何枚目か（0から）
+	 * @return 牌ID
+	 * @throws IndexOutOfBoundsException まだめくっていない場合
+	 */
+	public int getIndicator(int index) {
+		if (index < 0 || index >= this.indicators) {
+			throw new IndexOutOfBoundsException("Indicator not revealed: " + index);
+		}
+		return this.tiles[INDICATOR_START + index];
+	}
+
+	/**
+	 * めくったドラ表示牌に対応する裏ドラ表示牌を返します。
+	 *
+	 * @param index 何枚目か（0から）
+	 * @return 牌ID
+	 * @throws IndexOutOfBoundsException 対応するドラ表示牌をまだめくっていない場合
+	 */
+	public int getUraIndicator(int index) {
+		if (index < 0 || index >= this.indicators) {
+			throw new IndexOutOfBoundsException("Indicator not revealed: " + index);
+		}
+		return this.tiles[URA_START + index];
+	}
+
+	/**
+	 * めくったドラ表示牌の枚数を返します。
+	 *
+	 * @return ドラ表示牌の枚数
+	 */
+	public int getIndicatorCount() {
+		return this.indicators;
+	}
+
+	/**
+	 * ツモ山の残り枚数を返します。
+	 *
+	 * @return 残り枚数
+	 */
+	public int remaining() {
+		return this.liveEnd - this.next;
+	}
+
+	/**
+	 * 牌IDの並び全体（王牌を含む136枚）のコピーを返します。
+	 *
+	 * @return 牌IDの配列
+	 */
+	public byte[] toArray() {
+		return Arrays.copyOf(this.tiles, SIZE);
+	}
+
+	/**
+	 * 牌IDの並び全体（王牌を含む136枚）を、指定した配列に写します。記録のように、配列を使い回す場合に使います。
+	 *
+	 * @param dest 写す先の配列
+	 * @param offset 写す先の位置
+	 */
+	public void copyTo(byte[] dest, int offset) {
+		System.arraycopy(this.tiles, 0, dest, offset, SIZE);
+	}
+
+	/**
+	 * 残りのツモ山をリストとして見せます。リストは牌山と連動し、ツモるとリストから消えます。
+	 * 先頭からの削除（{@code subList(0, n).clear()}や{@code remove(0)}）はカーソルを進めるだけで済みます。
+	 * それ以外の変更はできません。
+	 *
+	 * @return 残りのツモ山のリスト
+	 */
+	public List<TileType> asList() {
+		return new View();
+	}
+
+	/**
+	 * 残りのツモ山のリストとしての見え方です。
+	 */
+	private final class View extends AbstractList<TileType> implements RandomAccess {
+		@Override
+		public TileType get(int index) {
+			if (index < 0 || index >= size()) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+			}
+			return TileType.getTile(Wall.this.tiles[Wall.this.next + index]);
+		}
+
+		@Override
+		public int size() {
+			return remaining();
+		}
+
+		@Override
+		public TileType remove(int index) {
+			TileType tile = get(index);
+			removeRange(index, index + 1);
+			return tile;
+		}
+
+		@Override
+		protected void removeRange(int fromIndex, int toIndex) {
+			if (fromIndex != 0) {
+				throw new UnsupportedOperationException("牌山は先頭からしか取り出せません。");
+			}
+			Wall.this.next += toIndex;
+			this.modCount++;
+		}
+	}
+}
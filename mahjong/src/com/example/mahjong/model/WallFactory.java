@@ -0,0 +1,116 @@
+package com.example.mahjong.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * シードを指定して牌山をシャッフルするクラスです。
+ *
+ * 同じシードからは必ず同じ順番で同じ牌山が作られるため、シードを記録しておけば対局をそのまま再現できます。
+ * 乱数は{@link SplittableRandom}で、シャッフルは{@link Wall}のbyte配列をID順の並びから作り直すinside-out版のFisher–Yatesです。
+ *
+ * インスタンスはスレッドセーフではありません。並列に対局する場合は、ワーカーごとに
+ * {@link #split()}で独立した乱数列を持つインスタンスを作るか、{@link #forGame(long, long)}で
+ * 対局の番号ごとに作ります。後者なら、どのスレッドがどの順番で処理しても対局ごとの牌山は変わりません。
+ * どちらの方法でも乱数の状態を共有しないため、スレッドを増やしてもシャッフルの処理が競合しません。
+ */
+public final class WallFactory {
+	/** 乱数列 */
+	private final SplittableRandom random;
+	/** 作成時のシード */
+	private final long seed;
+
+	/**
+	 * シードを自動で選んでWallFactoryを生成します。選んだシードは{@link #getSeed()}で取り出せます。
+	 */
+	public WallFactory() {
+		this(new SplittableRandom().nextLong());
+	}
+
+	/**
+	 * 指定したシードでWallFactoryを生成します。
+	 *
+	 * @param seed シード
+	 */
+	public WallFactory(long seed) {
+		this.random = new SplittableRandom(seed);
+		this.seed = seed;
+	}
+
+	/**
+	 * 全体のシードと対局の番号から、その対局専用のWallFactoryを生成します。
+	 * 同じシードと番号からは必ず同じ乱数列が得られ、番号が違えば統計的に独立とみなせる乱数列になります（重ならないことを保証するものではありません）。
+	 *
+	 * @param seed 全体のシード
+	 * @param game 対局の番号
+	 * @return その対局専用のWallFactory
+	 */
+	public static WallFactory forGame(long seed, long game) {
+		return new WallFactory(mix(seed ^ mix(game + 0x9E3779B97F4A7C15L)));
+	}
+
+	/**
+	 * このインスタンスの乱数列から新しいシードを引き、そのシードで独立した乱数列を持つWallFactoryを作ります。ワーカーごとに1つずつ渡します。
+	 * 分けた順番が同じなら、分けた先のシードも毎回同じです。分けた先の{@link #getSeed()}は引いたシードを返すので、
+	 * {@code new WallFactory(split.getSeed())}で分けた先の乱数列だけを再現できます。
+	 *
+	 * @return 新しいWallFactory
+	 */
+	public WallFactory split() {
+		return new WallFactory(this.random.nextLong());
+	}
+
+	/**
+	 * 牌山をシャッフルし、カーソルを先頭に戻します。
+	 *
+	 * @param wall シャッフルする牌山
+	 */
+	public void shuffle(Wall wall) {
+		wall.shuffle(this.random);
+	}
+
+	/**
+	 * シャッフルした新しい牌山を作ります。
+	 *
+	 * @return シャッフル済みの牌山
+	 */
+	public Wall next() {
+		Wall wall = new Wall();
+		wall.shuffle(this.random);
+		return wall;
+	}
+
+	/**
+	 * シャッフルした136枚の牌を、王牌も含めてリストで返します。
+	 * {@link Table#createShuffledWall()}のような、リストで牌山を扱うコード向けです。
+	 *
+	 * @return シャッフル済みの136枚の牌のリスト
+	 */
+	public List<TileType> nextList() {
+		byte[] tiles = next().toArray();
+		List<TileType> wall = new ArrayList<>(tiles.length);
+		for (byte id : tiles) {
+			wall.add(TileType.getTile(id));
+		}
+		return wall;
+	}
+
+	/**
+	 * 作成時のシードを返します。{@link #split()}で作ったものは、分けるときに引いたシードを返します。
+	 *
+	 * @return シード
+	 */
+	public long getSeed() {
+		return this.seed;
+	}
+
+	/**
+	 * 64ビットの値をよく混ぜます（MurmurHash3の最終処理）。近いシードや番号から似た乱数列ができるのを防ぎます。
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+		z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		return z ^ (z >>> 33);
+	}
+}
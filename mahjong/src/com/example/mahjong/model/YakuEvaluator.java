@@ -0,0 +1,640 @@
+package com.example.mahjong.model;
+
+/**
+ * あがり形の手牌から成立する役を判定するクラスです。
+ *
+ * 牌ごとの属性（么九牌・字牌・緑一色の牌・牌種など）を、ビットiが牌IDiを表す34ビットのマスクとして
+ * 事前に作っておき、手牌に含まれる牌のマスクとの論理演算で役を判定します。
+ * 面子の組み方で決まる役（平和・一盃口・三色同順など）は、{@link MentsuDecomposer}で列挙した
+ * 分解ごとに判定し、翻数が最も高い分解を採用します。翻数が同じなら符が高い分解を採用します。
+ *
+ * 判定結果は{@link Hands#bit()}の論理和（ビット集合）で返すため、途中でリストを作りません。
+ * 作業用の配列をインスタンスに持つので、スレッドごとに1つ用意して使い回してください。
+ */
+public final class YakuEvaluator {
+	/** あがり形の種類: あがっていない */
+	public static final int FORM_NONE = 0;
+	/** あがり形の種類: 一般形（4面子1雀頭） */
+	public static final int FORM_STANDARD = 1;
+	/** あがり形の種類: 七対子 */
+	public static final int FORM_CHIITOI = 2;
+	/** あがり形の種類: 国士無双 */
+	public static final int FORM_KOKUSHI = 3;
+
+	/** 萬子・筒子・索子それぞれの牌のマスク */
+	static final long[] SUIT_MASK = new long[3];
+	/** 一・九牌のマスク */
+	static final long TERMINAL_MASK;
+	/** 字牌のマスク */
+	static final long HONOR_MASK;
+	/** 風牌のマスク */
+	static final long WIND_MASK;
+	/** 三元牌のマスク */
+	static final long DRAGON_MASK;
+	/** 么九牌（一・九牌と字牌）のマスク */
+	static final long YAOCHU_MASK;
+	/** 緑一色に使える牌（二・三・四・六・八索と發）のマスク */
+	static final long GREEN_MASK;
+
+	static {
+		long terminal = 0L;
+		long wind = 0L;
+		long dragon = 0L;
+		for (TileType tile : TileType.values()) {
+			long bit = 1L << tile.getId();
+			switch (tile.getTileType()) {
+			case 1:
+			case 2:
+			case 3:
+				SUIT_MASK[tile.getTileType() - 1] |= bit;
+				if (tile.getId() % 9 == 0 || tile.getId() % 9 == 8) {
+					terminal |= bit;
+				}
+				break;
+			case 4:
+				wind |= bit;
+				break;
+			default:
+				dragon |= bit;
+				break;
+			}
+		}
+		TERMINAL_MASK = terminal;
+		WIND_MASK = wind;
+		DRAGON_MASK = dragon;
+		HONOR_MASK = wind | dragon;
+		YAOCHU_MASK = terminal | wind | dragon;
+		long green = 0L;
+		for (TileType tile : new TileType[] { TileType.SOU2, TileType.SOU3, TileType.SOU4,
+				TileType.SOU6, TileType.SOU8, TileType.HATSU }) {
+			green |= 1L << tile.getId();
+		}
+		GREEN_MASK = green;
+	}
+
+	/** 分解を列挙するためのインスタンス */
+	private final MentsuDecomposer decomposer = new MentsuDecomposer();
+	/** 分解を受け取るコールバック（生成は1回だけ） */
+	private final MentsuDecomposer.Visitor visitor = this::visitDecomposition;
+	/** 手牌と副露を合わせた牌の枚数 */
+	private final int[] total = new int[34];
+
+	/** 判定中のあがり状況 */
+	private AgariContext context;
+	/** 判定中の手牌が門前かどうか */
+	private boolean menzen;
+	/** 分解によらない役のビット集合 */
+	private long handMask;
+	/** 判定中の手牌に含まれる牌のマスク */
+	private long present;
+
+	/** 採用した役のビット集合 */
+	private long bestMask;
+	/** 採用した役の翻数（ドラを除く） */
+	private int bestHan;
+	/** 採用した分解の符（10符単位に切り上げ済み） */
+	private int bestFu;
+	/** 採用したあがり形の種類 */
+	private int bestForm;
+	/** 採用した分解の雀頭 */
+	private int bestJantou;
+	/** 採用した分解の面子の数（手牌の中の面子のみ） */
+	private int bestCount;
+	/** 採用した分解の面子の種類 */
+	private final int[] bestKinds = new int[4];
+	/** 採用した分解の面子の牌ID */
+	private final int[] bestTiles = new int[4];
+	/** 採用した分解で取りうる待ちの形（{@link Machi#bit()}の論理和） */
+	private int bestWaits;
+
+	/**
+	 * 手牌の役を判定します。
+	 * 役満が成立する場合は役満だけを返します。あがり形でない場合や役がない場合は0を返します。
+	 *
+	 * @param handCount あがり牌を含む、副露していない部分の手牌カウント配列(34)。判定後は元の状態に戻っています
+	 * @param context あがり状況と副露した面子
+	 * @return 成立した役のビット集合（{@link Hands#bit()}の論理和）
+	 */
+	public long evaluate(int[] handCount, AgariContext context) {
+		this.context = context;
+		this.menzen = context.isMenzen();
+		this.bestMask = 0L;
+		this.bestHan = -1;
+		this.bestFu = 0;
+		this.bestForm = FORM_NONE;
+		this.bestCount = 0;
+		this.bestWaits = 0;
+
+		long present = 0L;
+		for (int i = 0; i < 34; i++) {
+			this.total[i] = handCount[i];
+		}
+		for (int m = 0; m < context.getMeldCount(); m++) {
+			int tile = context.getMeldTile(m);
+			if (context.getMeldKind(m) == MentsuDecomposer.SHUNTSU) {
+				this.total[tile]++;
+				this.total[tile + 1]++;
+				this.total[tile + 2]++;
+			} else {
+				this.total[tile] += 3;
+			}
+		}
+		for (int i = 0; i < 34; i++) {
+			if (this.total[i] > 0) {
+				present |= 1L << i;
+			}
+		}
+		this.present = present;
+		this.handMask = colorYaku(present) | honorYaku(this.total, context) | situationYaku(context, this.menzen);
+
+		if (context.getMeldCount() == 0) {
+			if (isKokushi(handCount, present)) {
+				long mask = Hands.KOKUSHI.bit() | (this.handMask & (Hands.TENHOU.bit() | Hands.CHIIHOU.bit()));
+				offer(mask, FORM_KOKUSHI, -1, null, null, 0, Machi.TANKI.bit());
+			}
+			if (Judge.sevenPairs(handCount) == Hands.CHITOI) {
+				offer(Hands.CHITOI.bit() | this.handMask, FORM_CHIITOI, -1, null, null, 0, Machi.TANKI.bit());
+			}
+			if (isChuuren(handCount, present)) {
+				this.handMask |= Hands.CHUUREN.bit();
+			}
+		}
+		this.decomposer.decompose(handCount, this.visitor);
+
+		if (this.bestHan <= 0) {
+			this.bestMask = 0L;
+			this.bestFu = 0;
+		}
+		return this.bestMask;
+	}
+
+	/**
+	 * 1つの分解について役を判定し、それまでの最良の分解より翻数が高ければ採用します。
+	 */
+	private void visitDecomposition(int jantou, int[] kinds, int[] tiles, int count) {
+		AgariContext ctx = this.context;
+		int agari = ctx.getAgariTile();
+		long shuntsuMask = 0L;
+		long koutsuMask = 0L;
+		long peikouOnce = 0L;
+		int peikou = 0;
+		int shuntsu = 0;
+		int anko = 0;
+		int kans = 0;
+		boolean chanta = (YAOCHU_MASK >>> jantou & 1L) != 0;
+		boolean agariElsewhere = jantou == agari;
+		boolean ankoByRon = false;
+		int waits = jantou == agari ? Machi.TANKI.bit() : 0;
+
+		for (int i = 0; i < count; i++) {
+			int tile = tiles[i];
+			if (kinds[i] == MentsuDecomposer.SHUNTSU) {
+				long bit = 1L << tile;
+				shuntsu++;
+				shuntsuMask |= bit;
+				if ((peikouOnce & bit) != 0) {
+					peikou++;
+					peikouOnce &= ~bit;
+				} else {
+					peikouOnce |= bit;
+				}
+				int rank = tile % 9;
+				chanta &= rank == 0 || rank == 6;
+				if (agari >= tile && agari <= tile + 2 && agari < 27) {
+					agariElsewhere = true;
+					if (agari == tile + 1) {
+						waits |= Machi.KANCHAN.bit();
+					} else if (agari == tile) {
+						waits |= rank == 6 ? Machi.PENCHAN.bit() : Machi.RYANMEN.bit();
+					} else {
+						waits |= rank == 0 ? Machi.PENCHAN.bit() : Machi.RYANMEN.bit();
+					}
+				}
+			} else {
+				koutsuMask |= 1L << tile;
+				anko++;
+				chanta &= (YAOCHU_MASK >>> tile & 1L) != 0;
+				if (tile == agari) {
+					ankoByRon = !ctx.isTsumo();
+					waits |= Machi.SHANPON.bit();
+				}
+			}
+		}
+		for (int m = 0; m < ctx.getMeldCount(); m++) {
+			int tile = ctx.getMeldTile(m);
+			int kind = ctx.getMeldKind(m);
+			if (kind == MentsuDecomposer.SHUNTSU) {
+				shuntsu++;
+				shuntsuMask |= 1L << tile;
+				chanta &= tile % 9 == 0 || tile % 9 == 6;
+			} else {
+				koutsuMask |= 1L << tile;
+				chanta &= (YAOCHU_MASK >>> tile & 1L) != 0;
+				if (kind == AgariContext.KANTSU) {
+					kans++;
+				}
+				if (!ctx.isMeldOpen(m)) {
+					anko++;
+				}
+			}
+		}
+		// ロンで完成した刻子は、あがり牌を他の面子や雀頭に取れない限り明刻として数える
+		if (ankoByRon && !agariElsewhere) {
+			anko--;
+		}
+
+		long mask = this.handMask;
+		if (shuntsu == 0) {
+			mask |= Hands.TOITOI.bit();
+		}
+		if (anko == 4) {
+			mask |= Hands.SUUANKOU.bit();
+		} else if (anko == 3) {
+			mask |= Hands.SANANKOU.bit();
+		}
+		if (kans == 4) {
+			mask |= Hands.SUUKANTSU.bit();
+		} else if (kans == 3) {
+			mask |= Hands.SANKANTSU.bit();
+		}
+		if (this.menzen) {
+			if (peikou == 2) {
+				mask |= Hands.RYANPEIKOU.bit();
+			} else if (peikou == 1) {
+				mask |= Hands.IIPEIKOU.bit();
+			}
+			if (count == 4 && shuntsu == 4 && !isYakuhai(jantou, ctx)
+					&& (waits & Machi.RYANMEN.bit()) != 0) {
+				mask |= Hands.PINFU.bit();
+			}
+		}
+		for (int r = 0; r < 9; r++) {
+			long three = (1L << r) | (1L << (r + 9)) | (1L << (r + 18));
+			if (r < 7 && (shuntsuMask & three) == three) {
+				mask |= Hands.SANSHOKU.bit();
+			}
+			if ((koutsuMask & three) == three) {
+				mask |= Hands.SANSHOKU_DOUKOU.bit();
+			}
+		}
+		for (int base = 0; base < 27; base += 9) {
+			long straight = (1L << base) | (1L << (base + 3)) | (1L << (base + 6));
+			if ((shuntsuMask & straight) == straight) {
+				mask |= Hands.ITTSU.bit();
+			}
+		}
+		if (chanta && shuntsu > 0) {
+			mask |= (this.present & HONOR_MASK) != 0 ? Hands.CHANTA.bit() : Hands.JUNCHAN.bit();
+		}
+		offer(mask, FORM_STANDARD, jantou, kinds, tiles, count, waits);
+	}
+
+	/**
+	 * 候補の役の組み合わせを評価し、それまでより翻数が高いか、翻数が同じで符が高ければ採用します。
+	 * 役満を含む場合は役満以外の役を落とします。
+	 */
+	private void offer(long mask, int form, int jantou, int[] kinds, int[] tiles, int count, int waits) {
+		if ((mask & Hands.YAKUMAN_MASK) != 0) {
+			mask &= Hands.YAKUMAN_MASK;
+		}
+		int han = Hands.sumHan(mask, this.menzen);
+		if (han < this.bestHan) {
+			return;
+		}
+		int fu = fu(mask, form, jantou, kinds, tiles, count, waits);
+		if (han == this.bestHan && fu <= this.bestFu) {
+			return;
+		}
+		this.bestHan = han;
+		this.bestFu = fu;
+		this.bestMask = mask;
+		this.bestForm = form;
+		this.bestJantou = jantou;
+		this.bestCount = count;
+		this.bestWaits = waits;
+		for (int i = 0; i < count; i++) {
+			this.bestKinds[i] = kinds[i];
+			this.bestTiles[i] = tiles[i];
+		}
+	}
+
+	/**
+	 * 1つの分解の符を計算します（10符単位に切り上げ済み）。
+	 */
+	private int fu(long mask, int form, int jantou, int[] kinds, int[] tiles, int count, int waits) {
+		AgariContext ctx = this.context;
+		if (form == FORM_CHIITOI) {
+			return 25;
+		}
+		if (form != FORM_STANDARD) {
+			return 30;
+		}
+		boolean pinfu = (mask & Hands.PINFU.bit()) != 0;
+		if (pinfu && ctx.isTsumo()) {
+			return 20;
+		}
+		int fu = 20;
+		if (ctx.isMenzen() && !ctx.isTsumo()) {
+			fu += 10;
+		}
+		if (ctx.isTsumo()) {
+			fu += 2;
+		}
+
+		int agari = ctx.getAgariTile();
+		if (!pinfu && (waits & (Machi.KANCHAN.bit() | Machi.PENCHAN.bit() | Machi.TANKI.bit())) != 0) {
+			fu += 2;
+		}
+		if ((DRAGON_MASK >>> jantou & 1L) != 0) {
+			fu += 2;
+		}
+		if (jantou == 27 + ctx.getSeatWind()) {
+			fu += 2;
+		}
+		if (jantou == 27 + ctx.getFieldWind()) {
+			fu += 2;
+		}
+
+		// ロンで完成した刻子は、あがり牌を雀頭や順子に取れる場合を除いて明刻として数える
+		boolean agariElsewhere = jantou == agari;
+		for (int i = 0; i < count; i++) {
+			int tile = tiles[i];
+			if (kinds[i] == MentsuDecomposer.SHUNTSU && agari >= tile && agari <= tile + 2 && agari < 27) {
+				agariElsewhere = true;
+			}
+		}
+		for (int i = 0; i < count; i++) {
+			if (kinds[i] == MentsuDecomposer.KOUTSU) {
+				boolean minko = !ctx.isTsumo() && tiles[i] == agari && !agariElsewhere;
+				fu += setFu(tiles[i], minko ? 2 : 4);
+			}
+		}
+		for (int m = 0; m < ctx.getMeldCount(); m++) {
+			int kind = ctx.getMeldKind(m);
+			if (kind == MentsuDecomposer.SHUNTSU) {
+				continue;
+			}
+			int setFu = ctx.isMeldOpen(m) ? 2 : 4;
+			if (kind == AgariContext.KANTSU) {
+				setFu *= 4;
+			}
+			fu += setFu(ctx.getMeldTile(m), setFu);
+		}
+
+		if (fu == 20) {
+			// 鳴いた平和形は30符に切り上げる
+			return 30;
+		}
+		return Math.min((fu + 9) / 10 * 10, 110);
+	}
+
+	/**
+	 * 刻子・槓子の符を返します。么九牌なら2倍です。
+	 */
+	private static int setFu(int tile, int fu) {
+		return (YAOCHU_MASK >>> tile & 1L) != 0 ? fu * 2 : fu;
+	}
+
+	/**
+	 * 手牌に含まれる牌の種類だけで決まる役（断么九・混一色・清一色・字一色など）を判定します。
+	 */
+	private static long colorYaku(long present) {
+		long mask = 0L;
+		int suits = 0;
+		for (int s = 0; s < 3; s++) {
+			if ((present & SUIT_MASK[s]) != 0) {
+				suits++;
+			}
+		}
+		boolean honors = (present & HONOR_MASK) != 0;
+		if ((present & YAOCHU_MASK) == 0) {
+			mask |= Hands.TANYAO.bit();
+		}
+		if (suits == 1) {
+			mask |= honors ? Hands.HONITSU.bit() : Hands.CHINITSU.bit();
+		}
+		if (suits == 0) {
+			mask |= Hands.TSUUIISOU.bit();
+		}
+		if ((present & ~GREEN_MASK) == 0) {
+			mask |= Hands.RYUUIISOU.bit();
+		}
+		if ((present & ~TERMINAL_MASK) == 0) {
+			mask |= Hands.CHINROUTOU.bit();
+		} else if ((present & ~YAOCHU_MASK) == 0 && suits > 0 && honors) {
+			mask |= Hands.HONROUTOU.bit();
+		}
+		return mask;
+	}
+
+	/**
+	 * 字牌の刻子・対子で決まる役（役牌・三元・四喜）を判定します。
+	 * 字牌は順子にならないため、3枚以上あれば刻子、2枚なら雀頭とみなせます。
+	 */
+	private static long honorYaku(int[] total, AgariContext ctx) {
+		long mask = 0L;
+		int dragonSets = 0;
+		boolean dragonPair = false;
+		for (int i = 31; i <= 33; i++) {
+			if (total[i] >= 3) {
+				dragonSets++;
+			} else if (total[i] == 2) {
+				dragonPair = true;
+			}
+		}
+		if (total[TileType.HAKU.getId()] >= 3) {
+			mask |= Hands.HAKU.bit();
+		}
+		if (total[TileType.HATSU.getId()] >= 3) {
+			mask |= Hands.HATSU.bit();
+		}
+		if (total[TileType.CHUN.getId()] >= 3) {
+			mask |= Hands.CHUN.bit();
+		}
+		if (dragonSets == 3) {
+			mask |= Hands.DAISANGEN.bit();
+		} else if (dragonSets == 2 && dragonPair) {
+			mask |= Hands.SHOUSANGEN.bit();
+		}
+		int windSets = 0;
+		boolean windPair = false;
+		for (int i = 27; i <= 30; i++) {
+			if (total[i] >= 3) {
+				windSets++;
+			} else if (total[i] == 2) {
+				windPair = true;
+			}
+		}
+		if (windSets == 4) {
+			mask |= Hands.DAISUUSHII.bit();
+		} else if (windSets == 3 && windPair) {
+			mask |= Hands.SHOUSUUSHII.bit();
+		}
+		if (ctx.getSeatWind() >= 0 && total[27 + ctx.getSeatWind()] >= 3) {
+			mask |= Hands.JIKAZE.bit();
+		}
+		if (ctx.getFieldWind() >= 0 && total[27 + ctx.getFieldWind()] >= 3) {
+			mask |= Hands.BAKAZE.bit();
+		}
+		return mask;
+	}
+
+	/**
+	 * あがり方で決まる役（リーチ・一発・ツモ・海底など）を判定します。
+	 */
+	private static long situationYaku(AgariContext ctx, boolean menzen) {
+		long mask = 0L;
+		if (menzen) {
+			if (ctx.isDoubleRiichi()) {
+				mask |= Hands.DOUBLE_RIICHI.bit();
+			} else if (ctx.isRiichi()) {
+				mask |= Hands.RIICHI.bit();
+			}
+			if (ctx.isIppatsu() && (ctx.isRiichi() || ctx.isDoubleRiichi())) {
+				mask |= Hands.IPPATSU.bit();
+			}
+			if (ctx.isTsumo()) {
+				mask |= Hands.MENZEN_TSUMO.bit();
+			}
+		}
+		if (ctx.isHaitei() && ctx.isTsumo()) {
+			mask |= Hands.HAITEI.bit();
+		}
+		if (ctx.isHoutei() && !ctx.isTsumo()) {
+			mask |= Hands.HOUTEI.bit();
+		}
+		if (ctx.isRinshan() && ctx.isTsumo()) {
+			mask |= Hands.RINSHAN.bit();
+		}
+		if (ctx.isChankan() && !ctx.isTsumo()) {
+			mask |= Hands.CHANKAN.bit();
+		}
+		if (ctx.isTenhou()) {
+			mask |= Hands.TENHOU.bit();
+		}
+		if (ctx.isChiihou()) {
+			mask |= Hands.CHIIHOU.bit();
+		}
+		return mask;
+	}
+
+	/**
+	 * 国士無双の形かを判定します（么九牌13種がすべてあり、么九牌以外を含まない14枚）。
+	 */
+	private static boolean isKokushi(int[] handCount, long present) {
+		if (present != YAOCHU_MASK) {
+			return false;
+		}
+		int tiles = 0;
+		for (int i = 0; i < 34; i++) {
+			tiles += handCount[i];
+		}
+		return tiles == 14;
+	}
+
+	/**
+	 * 九蓮宝燈の形か（1つの数牌だけで 1112345678999 + 1枚）を判定します。
+	 */
+	private static boolean isChuuren(int[] handCount, long present) {
+		for (int s = 0; s < 3; s++) {
+			if (present != (present & SUIT_MASK[s])) {
+				continue;
+			}
+			int base = s * 9;
+			int extra = 0;
+			for (int r = 0; r < 9; r++) {
+				int need = r == 0 || r == 8 ? 3 : 1;
+				int c = handCount[base + r];
+				if (c < need) {
+					return false;
+				}
+				extra += c - need;
+			}
+			return extra == 1;
+		}
+		return false;
+	}
+
+	/**
+	 * 雀頭にすると符がつく牌（三元牌・自風・場風）かどうかを判定します。
+	 *
+	 * @param tile 牌ID
+	 * @param ctx あがり状況
+	 * @return 役牌ならtrue
+	 */
+	static boolean isYakuhai(int tile, AgariContext ctx) {
+		return (DRAGON_MASK >>> tile & 1L) != 0
+				|| (ctx.getSeatWind() >= 0 && tile == 27 + ctx.getSeatWind())
+				|| (ctx.getFieldWind() >= 0 && tile == 27 + ctx.getFieldWind());
+	}
+
+	/**
+	 * 直前の判定で採用した役のビット集合を返します。{@link #evaluate(int[], AgariContext)}の戻り値と同じです。
+	 */
+	public long getHands() {
+		return this.bestMask;
+	}
+
+	/**
+	 * 直前の判定で採用した役の翻数（ドラを除く）を返します。役満は1つにつき13翻です。
+	 */
+	public int getHan() {
+		return Math.max(this.bestHan, 0);
+	}
+
+	/**
+	 * 直前の判定で採用した分解の符（10符単位に切り上げ済み）を返します。
+	 * 七対子は25符、国士無双は30符です。役がなければ0です。
+	 */
+	public int getFu() {
+		return this.bestFu;
+	}
+
+	/**
+	 * 直前の判定で採用したあがり形の種類を返します。
+	 *
+	 * @return {@link #FORM_STANDARD}, {@link #FORM_CHIITOI}, {@link #FORM_KOKUSHI}, {@link #FORM_NONE}のいずれか
+	 */
+	public int getForm() {
+		return this.bestForm;
+	}
+
+	/**
+	 * 直前の判定で採用した分解の雀頭を返します。一般形以外では-1です。
+	 */
+	public int getJantou() {
+		return this.bestJantou;
+	}
+
+	/**
+	 * 直前の判定で採用した分解の、手牌の中の面子の数を返します。
+	 */
+	public int getMentsuCount() {
+		return this.bestCount;
+	}
+
+	/**
+	 * 直前の判定で採用した分解の面子の種類を返します。先頭から{@link #getMentsuCount()}個が有効です。
+	 * 内部の配列をそのまま返すため、書き換えないでください。
+	 */
+	public int[] getMentsuKinds() {
+		return this.bestKinds;
+	}
+
+	/**
+	 * 直前の判定で採用した分解の面子の牌IDを返します。先頭から{@link #getMentsuCount()}個が有効です。
+	 * 内部の配列をそのまま返すため、書き換えないでください。
+	 */
+	public int[] getMentsuTiles() {
+		return this.bestTiles;
+	}
+
+	/**
+	 * 直前の判定で採用した分解で、あがり牌が取りうる待ちの形を返します。
+	 *
+	 * @return {@link Machi#bit()}の論理和
+	 */
+	public int getWaits() {
+		return this.bestWaits;
+	}
+}
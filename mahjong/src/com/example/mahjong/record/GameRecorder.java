@@ -0,0 +1,311 @@
+package com.example.mahjong.record;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import com.example.mahjong.model.Score;
+import com.example.mahjong.model.Wall;
+
+/**
+ * 1つの卓（ゲームループ）の局を{@link RecordFormat}の形式で記録するクラスです。
+ *
+ * 局の記録は自分のbyte配列に書き足していき、たまった量が一定（既定で1 MiB）を超えたら{@link RecordWriter}にまとめて渡します。
+ * イベント1件の記録は配列に数バイトを書くだけなので、ゲームループにはほとんど負担をかけません。
+ * インスタンスはスレッドセーフではありません。ゲームループごとに1つずつ作り、最後に{@link #flush()}を呼び出します。
+ */
+public final class GameRecorder {
+	/** RecordWriterに渡す既定の量 */
+	public static final int DEFAULT_BATCH_BYTES = 1 << 20;
+	/** 局の記録の長さに予約するバイト数（3バイトのvarintで2 MiB未満まで） */
+	private static final int LENGTH_BYTES = 3;
+
+	/** 書き込み先 */
+	private final RecordWriter writer;
+	/** RecordWriterに渡す量 */
+	private final int batchBytes;
+	/** 記録の塊 */
+	private byte[] buffer;
+	/** 記録の塊の長さ */
+	private int size;
+	/** 記録中の局の長さを書く位置。局の外なら-1 */
+	private int roundStart = -1;
+	/** 記録した局の数 */
+	private long rounds;
+
+	/**
+	 * 既定の量ごとに書き込むGameRecorderを生成します。
+	 *
+	 * @param writer 書き込み先
+	 */
+	public GameRecorder(RecordWriter writer) {
+		this(writer, DEFAULT_BATCH_BYTES);
+	}
+
+	/**
+	 * 指定した量ごとに書き込むGameRecorderを生成します。
+	 *
+	 * @param writer 書き込み先
+	 * @param batchBytes RecordWriterに渡す量
+	 */
+	public GameRecorder(RecordWriter writer, int batchBytes) {
+		this.writer = writer;
+		this.batchBytes = batchBytes;
+		this.buffer = new byte[batchBytes + 4096];
+	}
+
+	/**
+	 * 局の記録を始めます。配牌の前に、シャッフルした直後の牌山で呼び出します。
+	 *
+	 * @param seed 全体のシード
+	 * @param game 対局の番号
+	 * @param hand 対局の中での局の番号
+	 * @param dealer 親の席
+	 * @param fieldWind 場風
+	 * @param honba 本場
+	 * @param riichiSticks 供託リーチ棒
+	 * @param points 席ごとの持ち点(4)
+	 * @param wall 牌山
+	 */
+	public void beginRound(long seed, long game, int hand, int dealer, int fieldWind, int honba, int riichiSticks,
+			int[] points, Wall wall) {
+		beginRoundHeader(seed, game, hand, dealer, fieldWind, honba, riichiSticks, points);
+		wall.copyTo(this.buffer, this.size);
+		this.size += Wall.SIZE;
+	}
+
+	/**
+	 * 牌IDの並びで表した牌山で、局の記録を始めます。
+	 * 外部の牌譜を取り込むときのように、牌山の一部が分からなければ{@link RecordFormat#UNKNOWN_TILE}を入れておきます。
+	 *
+	 * @param seed 全体のシード
+	 * @param game 対局の番号
+	 * @param hand 対局の中での局の番号
+	 * @param dealer 親の席
+	 * @param fieldWind 場風
+	 * @param honba 本場
+	 * @param riichiSticks 供託リーチ棒
+	 * @param points 席ごとの持ち点(4)
+	 * @param wall 牌山(136)
+	 */
+	public void beginRound(long seed, long game, int hand, int dealer, int fieldWind, int honba, int riichiSticks,
+			int[] points, byte[] wall) {
+		beginRoundHeader(seed, game, hand, dealer, fieldWind, honba, riichiSticks, points);
+		System.arraycopy(wall, 0, this.buffer, this.size, Wall.SIZE);
+		this.size += Wall.SIZE;
+	}
+
+	private void beginRoundHeader(long seed, long game, int hand, int dealer, int fieldWind, int honba,
+			int riichiSticks, int[] points) {
+		ensure(256);
+		this.roundStart = this.size;
+		this.size += LENGTH_BYTES;
+		putByte(RecordFormat.ROUND);
+		for (int i = 0; i < 8; i++) {
+			putByte((int) (seed >>> (i * 8)));
+		}
+		putVarLong(game);
+		putVarLong(hand);
+		putByte(dealer | fieldWind << 2);
+		putVarLong(honba);
+		putVarLong(riichiSticks);
+		for (int seat = 0; seat < 4; seat++) {
+			putVarLong(RecordFormat.zigzag((points[seat] - RecordFormat.BASE_POINTS) / RecordFormat.POINT_UNIT));
+		}
+	}
+
+	/**
+	 * ツモを記録します。
+	 *
+	 * @param seat 席
+	 * @param tile ツモした牌
+	 * @throws IllegalStateException 記録中の局がない場合
+	 */
+	public void draw(int seat, int tile) {
+		requireRound();
+		ensure(2);
+		putByte(RecordFormat.header(RecordFormat.DRAW, 0, seat));
+		putByte(tile);
+	}
+
+	/**
+	 * 打牌を記録します。
+	 *
+	 * @param seat 席
+	 * @param tile 捨てた牌
+	 * @param tsumogiri ツモ切りならtrue
+	 * @param riichi リーチ宣言牌ならtrue
+	 * @throws IllegalStateException 記録中の局がない場合
+	 */
+	public void discard(int seat, int tile, boolean tsumogiri, boolean riichi) {
+		requireRound();
+		ensure(2);
+		int flags = (tsumogiri ? RecordFormat.FLAG_TSUMOGIRI : 0) | (riichi ? RecordFormat.FLAG_RIICHI : 0);
+		putByte(RecordFormat.header(RecordFormat.DISCARD, flags, seat));
+		putByte(tile);
+	}
+
+	/**
+	 * ポン・チー・カンを記録します。
+	 *
+	 * @param op {@link RecordFormat#PON}, {@link RecordFormat#CHII}, {@link RecordFormat#KAN}のどれか
+	 * @param seat 鳴いた席
+	 * @param tile 鳴いた牌
+	 * @param first 面子の最も小さい牌（チーのときだけ記録します）
+	 * @param discarder 捨てた席。暗槓・加槓なら鳴いた席と同じ
+	 * @throws IllegalStateException 記録中の局がない場合
+	 */
+	public void call(int op, int seat, int tile, int first, int discarder) {
+		requireRound();
+		ensure(3);
+		putByte(RecordFormat.header(op, (seat - discarder) & 3, seat));
+		putByte(tile);
+		if (op == RecordFormat.CHII) {
+			putByte(first);
+		}
+	}
+
+	/**
+	 * あがりを記録します。
+	 *
+	 * @param seat あがった席
+	 * @param tile あがり牌
+	 * @param loser 放銃した席。ツモなら-1
+	 * @param waitShape 待ちの形（{@link com.example.mahjong.model.Machi#bit()}の論理和）
+	 * @param score 点数の計算結果
+	 * @throws IllegalStateException 記録中の局がない場合
+	 */
+	public void win(int seat, int tile, int loser, int waitShape, Score score) {
+		putWin(seat, tile, loser, waitShape, score.getHan(), score.getFu(), score.getHands());
+		for (int s = 0; s < 4; s++) {
+			putVarLong(RecordFormat.zigzag(score.getDelta(s) / RecordFormat.POINT_UNIT));
+		}
+	}
+
+	/**
+	 * 点数の計算結果の代わりに、翻・符・役・点数の増減を直接指定してあがりを記録します。
+	 *
+	 * @param seat あがった席
+	 * @param tile あがり牌
+	 * @param loser 放銃した席。ツモなら-1
+	 * @param waitShape 待ちの形（{@link com.example.mahjong.model.Machi#bit()}の論理和）
+	 * @param han 翻
+	 * @param fu 符
+	 * @param hands 役（{@link com.example.mahjong.model.Hands}のビット集合）
+	 * @param deltas 席ごとの点数の増減(4)
+	 * @throws IllegalStateException 記録中の局がない場合
+	 */
+	public void win(int seat, int tile, int loser, int waitShape, int han, int fu, long hands, int[] deltas) {
+		putWin(seat, tile, loser, waitShape, han, fu, hands);
+		for (int s = 0; s < 4; s++) {
+			putVarLong(RecordFormat.zigzag(deltas[s] / RecordFormat.POINT_UNIT));
+		}
+	}
+
+	private void putWin(int seat, int tile, int loser, int waitShape, int han, int fu, long hands) {
+		requireRound();
+		ensure(64);
+		putByte(RecordFormat.header(RecordFormat.WIN, loser < 0 ? 0 : (seat - loser) & 3, seat));
+		putByte(tile);
+		putVarLong(han);
+		putVarLong(fu);
+		putByte(waitShape);
+		putVarLong(hands);
+	}
+
+	/**
+	 * 荒牌流局を記録します。
+	 *
+	 * @param tenpaiSeats テンパイの席のビット集合
+	 * @param deltas 席ごとの点数の増減(4)
+	 * @throws IllegalStateException 記録中の局がない場合
+	 */
+	public void exhaustiveDraw(int tenpaiSeats, int[] deltas) {
+		requireRound();
+		ensure(32);
+		putByte(RecordFormat.header(RecordFormat.EXHAUSTIVE_DRAW, 0, 0));
+		putByte(tenpaiSeats);
+		for (int s = 0; s < 4; s++) {
+			putVarLong(RecordFormat.zigzag(deltas[s] / RecordFormat.POINT_UNIT));
+		}
+	}
+
+	/**
+	 * 局の記録を終えます。たまった量が一定を超えていれば{@link RecordWriter}に渡します。
+	 *
+	 * @throws UncheckedIOException 書き込みに失敗した場合
+	 * @throws IllegalStateException 記録中の局がないか、局の記録が2 MiB以上になった場合
+	 */
+	public void endRound() {
+		requireRound();
+		ensure(1);
+		putByte(RecordFormat.END);
+		int length = this.size - this.roundStart - LENGTH_BYTES;
+		if (length >= 1 << (7 * LENGTH_BYTES)) {
+			throw new IllegalStateException("局の記録が長すぎます: " + length);
+		}
+		// 3バイトに揃えたvarint（続きのビットを立てた0を詰める）
+		this.buffer[this.roundStart] = (byte) (length & 0x7F | 0x80);
+		this.buffer[this.roundStart + 1] = (byte) (length >>> 7 & 0x7F | 0x80);
+		this.buffer[this.roundStart + 2] = (byte) (length >>> 14);
+		this.roundStart = -1;
+		this.rounds++;
+		if (this.size >= this.batchBytes) {
+			flush();
+		}
+	}
+
+	/**
+	 * 記録し終えた局をすべて{@link RecordWriter}に渡します。記録中の局があれば、その局は捨てます。
+	 * 局を捨てた後は、次の{@link #beginRound}までイベントを記録できません。
+	 *
+	 * @throws UncheckedIOException 書き込みに失敗した場合
+	 */
+	public void flush() {
+		int end = this.roundStart < 0 ? this.size : this.roundStart;
+		try {
+			this.writer.append(this.buffer, 0, end);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.size = 0;
+		this.roundStart = -1;
+	}
+
+	/**
+	 * 記録した局の数を返します。
+	 *
+	 * @return 局の数
+	 */
+	public long getRounds() {
+		return this.rounds;
+	}
+
+	/**
+	 * 記録中の局があることを確かめます。{@link #flush()}で捨てた局の続きを書くと、局の長さを書く位置が分からなくなるためです。
+	 */
+	private void requireRound() {
+		if (this.roundStart < 0) {
+			throw new IllegalStateException("記録中の局がありません。");
+		}
+	}
+
+	private void ensure(int bytes) {
+		if (this.size + bytes > this.buffer.length) {
+			this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.size + bytes));
+		}
+	}
+
+	private void putByte(int value) {
+		this.buffer[this.size++] = (byte) value;
+	}
+
+	private void putVarLong(long value) {
+		ensure(10);
+		while ((value & ~0x7FL) != 0) {
+			this.buffer[this.size++] = (byte) (value & 0x7F | 0x80);
+			value >>>= 7;
+		}
+		this.buffer[this.size++] = (byte) value;
+	}
+}
@@ -0,0 +1,821 @@
+package com.example.mahjong.record;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.example.mahjong.model.Hands;
+import com.example.mahjong.model.Judge;
+import com.example.mahjong.model.Wall;
+
+/**
+ * mjlog形式（天鳳などのXML）の牌譜を読み、{@link RecordFormat}の記録に変換するクラスです。
+ *
+ * XMLはStAXで要素ごとに読み、ファイル全体も対局全体も保持しません。保持するのは組み立て中の1局のイベントだけなので、
+ * 入力がどれだけ大きくても（1つのファイルに多くの対局を並べたものでも）使うメモリは変わりません。
+ * 牌譜の牌の番号(0〜135)は4で割って{@link com.example.mahjong.model.TileType}のIDにし、赤ドラは区別しません。
+ *
+ * 記録の牌山は、配牌を席0から順に13枚ずつ、続けてツモを順に、カンの後のツモを嶺上牌に、めくったドラ表示牌と裏ドラ表示牌をそれぞれの位置に並べて作ります。
+ * 最後までめくられなかった牌は{@link RecordFormat#UNKNOWN_TILE}です。
+ * 牌山は局が終わるまで決まらないため、局のイベントをいったん配列にため、局が終わってから{@link RecordReplayer}を通して書き込みます。
+ * RecordReplayerが{@link com.example.mahjong.model.Table}と{@link com.example.mahjong.model.Player}に当てはめて確かめ、
+ * 待ちの形は組み立て直した手牌から{@link Judge#judgeMachiShape(int[], int)}で求めます。
+ *
+ * 三人打ちの対局は読み飛ばします。九種九牌などの途中流局は、テンパイの席のない荒牌流局として記録します。
+ * 流し満貫は途中流局に数えず、荒牌流局と同じく手牌を見せた席をテンパイの席として記録します。
+ * 結果のない局と、手牌と合わずに組み立て直せない局は捨てます。
+ * 牌の番号や席が範囲外の局も捨てます。ファイルごとに読めなかったものは数えて次のファイルに進み、それまでに組み立てた局は書き込みます。
+ * 記録のシードはファイル名のハッシュ、対局の番号はファイルの中での番号です。
+ * インスタンスはスレッドセーフではありません。ファイルを並列に取り込むときは、スレッドごとに1つずつ作ります。
+ */
+public final class MjlogImporter {
+	/** 天鳳の役のIDに対応する役。ドラや人和のように対応する役がなければnull */
+	private static final Hands[] YAKU = {
+			Hands.MENZEN_TSUMO, Hands.RIICHI, Hands.IPPATSU, Hands.CHANKAN, Hands.RINSHAN, // 0〜4
+			Hands.HAITEI, Hands.HOUTEI, Hands.PINFU, Hands.TANYAO, Hands.IIPEIKOU, // 5〜9
+			Hands.JIKAZE, Hands.JIKAZE, Hands.JIKAZE, Hands.JIKAZE, // 10〜13 自風 東南西北
+			Hands.BAKAZE, Hands.BAKAZE, Hands.BAKAZE, Hands.BAKAZE, // 14〜17 場風 東南西北
+			Hands.HAKU, Hands.HATSU, Hands.CHUN, Hands.DOUBLE_RIICHI, Hands.CHITOI, // 18〜22
+			Hands.CHANTA, Hands.ITTSU, Hands.SANSHOKU, Hands.SANSHOKU_DOUKOU, Hands.SANKANTSU, // 23〜27
+			Hands.TOITOI, Hands.SANANKOU, Hands.SHOUSANGEN, Hands.HONROUTOU, Hands.RYANPEIKOU, // 28〜32
+			Hands.JUNCHAN, Hands.HONITSU, Hands.CHINITSU, null, Hands.TENHOU, // 33〜37 (36 人和)
+			Hands.CHIIHOU, Hands.DAISANGEN, Hands.SUUANKOU, Hands.SUUANKOU, Hands.TSUUIISOU, // 38〜42
+			Hands.RYUUIISOU, Hands.CHINROUTOU, Hands.CHUUREN, Hands.CHUUREN, Hands.KOKUSHI, // 43〜47
+			Hands.KOKUSHI, Hands.DAISUUSHII, Hands.SHOUSUUSHII, Hands.SUUKANTSU, // 48〜51
+			null, null, null, // 52〜54 ドラ・裏ドラ・赤ドラ
+	};
+	/** 三人打ちを表すGOのtypeのビット */
+	private static final int SANMA = 0x10;
+	/** ツモ山の終わり（嶺上牌の先頭） */
+	private static final int LIVE_END = Wall.SIZE - Wall.DEAD_WALL;
+	/** ドラ表示牌の先頭 */
+	private static final int INDICATOR_START = LIVE_END + Wall.RINSHAN;
+	/** 裏ドラ表示牌の先頭 */
+	private static final int URA_START = INDICATOR_START + Wall.MAX_INDICATORS;
+
+	/** 書き込み先 */
+	private final GameRecorder recorder;
+	/** 局を確かめながら書き込み先に渡すハンドラー */
+	private final RecordReplayer replayer;
+	/** XMLの読み手を作るファクトリー */
+	private final XMLInputFactory factory;
+
+	/** 取り込んだ対局の数 */
+	private long games;
+	/** 取り込んだ局の数 */
+	private long rounds;
+	/** 読み飛ばした対局（三人打ち）の数 */
+	private long skippedGames;
+	/** 捨てた局の数 */
+	private long rejectedRounds;
+	/** 途中流局の数 */
+	private long abortiveDraws;
+
+	/** 対局のシード（ファイル名のハッシュ） */
+	private long seed;
+	/** ファイルの中での対局の番号 */
+	private long game;
+	/** 対局の中での局の番号 */
+	private int hand;
+	/** 対局の中にいるか */
+	private boolean inGame;
+	/** 対局を読み飛ばすか */
+	private boolean skipGame;
+	/** 組み立て中の局があるか */
+	private boolean roundOpen;
+	/** 組み立て中の局に結果（あがりか流局）があるか */
+	private boolean roundFinished;
+	/** 組み立て中の局が牌山に収まらないなど、記録できない形か */
+	private boolean roundBroken;
+	/** 親の席 */
+	private int dealer;
+	/** 場風 */
+	private int fieldWind;
+	/** 本場 */
+	private int honba;
+	/** 供託リーチ棒 */
+	private int sticks;
+	/** 局の始めの持ち点 */
+	private final int[] points = new int[4];
+	/** 組み立て中の牌山 */
+	private final byte[] wall = new byte[Wall.SIZE];
+	/** 次のツモを置く位置 */
+	private int liveNext;
+	/** 引いた嶺上牌の枚数 */
+	private int rinshanCount;
+	/** めくったドラ表示牌の枚数 */
+	private int indicators;
+	/** 次のツモが嶺上牌になる席のビット集合 */
+	private int rinshanSeats;
+	/** リーチを宣言して、まだ宣言牌を捨てていない席のビット集合 */
+	private int pendingRiichi;
+	/** 席ごとの直前のツモ（牌譜の牌の番号）。ツモの後でなければ-1 */
+	private final int[] lastDraw = new int[4];
+	/** 席ごとのリーチ宣言牌のイベントのフラグの位置 */
+	private final int[] riichiFlag = new int[4];
+	/** 組み立て中の局のイベント */
+	private int[] events = new int[1024];
+	/** 組み立て中の局のイベントの長さ */
+	private int eventSize;
+	/** 属性の数の並びを読む配列 */
+	private final int[] values = new int[64];
+	/** 席ごとの点数の増減 */
+	private final int[] deltas = new int[4];
+	/** 待ちの形を求めるための手牌 */
+	private final int[] hand13 = new int[34];
+
+	/**
+	 * MjlogImporterの新しいインスタンスを生成します。
+	 *
+	 * @param recorder 書き込み先
+	 */
+	public MjlogImporter(GameRecorder recorder) {
+		this.recorder = recorder;
+		this.replayer = new RecordReplayer(new Sink());
+		this.factory = XMLInputFactory.newFactory();
+		this.factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		this.factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	}
+
+	/**
+	 * 牌譜を取り込みます。
+	 * <pre>
+	 * java com.example.mahjong.record.MjlogImporter ディレクトリかファイル... --out ディレクトリ [--prefix 接頭辞] [--threads N]
+	 * </pre>
+	 * ディレクトリは中のファイルをすべて取り込みます。gzipで圧縮したファイルはそのまま読めます。
+	 *
+	 * @param args コマンドライン引数
+	 * @throws IOException 読み書きに失敗した場合
+	 * @throws InterruptedException 中断された場合
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int threads = Runtime.getRuntime().availableProcessors();
+		Path out = null;
+		String prefix = "mjlog";
+		List<Path> files = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			if ("--threads".equals(args[i]) && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			} else if ("--out".equals(args[i]) && i + 1 < args.length) {
+				out = Paths.get(args[++i]);
+			} else if ("--prefix".equals(args[i]) && i + 1 < args.length) {
+				prefix = args[++i];
+			} else {
+				try (Stream<Path> walk = Files.walk(Paths.get(args[i]))) {
+					files.addAll(walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList()));
+				}
+			}
+		}
+		if (out == null) {
+			throw new IllegalArgumentException("--out is required");
+		}
+		long start = System.nanoTime();
+		AtomicInteger next = new AtomicInteger();
+		long[] totals = new long[8];
+		int workerCount = Math.max(1, Math.min(threads, files.size()));
+		ExecutorService pool = Executors.newFixedThreadPool(workerCount);
+		List<Future<long[]>> workers = new ArrayList<>(workerCount);
+		try (RecordWriter writer = new RecordWriter(out, prefix)) {
+			for (int t = 0; t < workerCount; t++) {
+				workers.add(pool.submit(() -> {
+					MjlogImporter importer = new MjlogImporter(new GameRecorder(writer));
+					long bytes = 0;
+					long failed = 0;
+					int index;
+					try {
+						while ((index = next.getAndIncrement()) < files.size()) {
+							Path file = files.get(index);
+							try {
+								importer.importFile(file);
+								bytes += Files.size(file);
+							} catch (XMLStreamException | IOException | RuntimeException e) {
+								// 壊れたファイルは数えるだけにして、ほかのファイルの取り込みを続ける
+								failed++;
+								System.err.println(file + ": " + e);
+							}
+						}
+					} finally {
+						importer.flush();
+					}
+					return new long[] { importer.getGames(), importer.getRounds(), importer.getSkippedGames(),
+							importer.getRejectedRounds(), importer.getMismatches(), bytes, failed,
+							importer.getAbortiveDraws() };
+				}));
+			}
+			for (Future<long[]> worker : workers) {
+				long[] counts = worker.get();
+				for (int i = 0; i < totals.length; i++) {
+					totals[i] += counts[i];
+				}
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException io) {
+				throw io;
+			}
+			throw new IllegalStateException("牌譜の取り込みに失敗しました。", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("%,dファイル %,d対局 %,d局（%.2f秒, %,.0f対局/秒, %,.0f局/秒, %,.1f MB/秒）%n"
+				+ "途中流局 %,d / 読み飛ばした対局 %,d / 捨てた局 %,d / 食い違い %,d / 読めなかったファイル %,d",
+				files.size(), totals[0], totals[1], seconds, totals[0] / seconds, totals[1] / seconds,
+				totals[5] / 1e6 / seconds, totals[7], totals[2], totals[3], totals[4], totals[6]));
+	}
+
+	/**
+	 * 1つのファイルを取り込みます。gzipで圧縮したファイルはそのまま読めます。
+	 *
+	 * @param file 牌譜のファイル
+	 * @throws IOException 読み込みに失敗した場合
+	 * @throws XMLStreamException XMLとして読めない場合
+	 */
+	public void importFile(Path file) throws IOException, XMLStreamException {
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+			in.mark(2);
+			boolean gzip = in.read() == 0x1F && in.read() == 0x8B;
+			in.reset();
+			importStream(gzip ? new GZIPInputStream(in, 1 << 16) : in, file.getFileName().toString());
+		}
+	}
+
+	/**
+	 * XMLの牌譜を取り込みます。mjloggm要素を1つの対局とし、入れ子の深さは問いません。
+	 *
+	 * @param in XMLの入力
+	 * @param source 入力の名前（シードに使います）
+	 * @throws XMLStreamException XMLとして読めない場合
+	 */
+	public void importStream(InputStream in, String source) throws XMLStreamException {
+		this.seed = hash(source);
+		this.game = 0;
+		this.inGame = false;
+		this.roundOpen = false;
+		XMLStreamReader xml = this.factory.createXMLStreamReader(in);
+		try {
+			while (xml.hasNext()) {
+				int type = xml.next();
+				if (type == XMLStreamConstants.START_ELEMENT) {
+					startElement(xml);
+				} else if (type == XMLStreamConstants.END_ELEMENT && "mjloggm".equals(xml.getLocalName())) {
+					endGame();
+				}
+			}
+		} finally {
+			xml.close();
+		}
+	}
+
+	/**
+	 * 記録し終えた局をすべて書き込み先に渡します。
+	 */
+	public void flush() {
+		this.recorder.flush();
+	}
+
+	private void startElement(XMLStreamReader xml) {
+		String name = xml.getLocalName();
+		if ("mjloggm".equals(name)) {
+			this.inGame = true;
+			this.skipGame = false;
+			this.hand = 0;
+			return;
+		}
+		if (!this.inGame) {
+			return;
+		}
+		char c = name.charAt(0);
+		if (name.length() > 1 && name.charAt(1) >= '0' && name.charAt(1) <= '9') {
+			if (c >= 'T' && c <= 'W') {
+				draw(c - 'T', parseInt(name, 1));
+			} else if (c >= 'D' && c <= 'G') {
+				discard(c - 'D', parseInt(name, 1));
+			}
+			return;
+		}
+		switch (name) {
+			case "GO":
+				if ((attribute(xml, "type", 0) & SANMA) != 0) {
+					this.skipGame = true;
+				}
+				break;
+			case "INIT":
+				finishRound();
+				beginRound(xml);
+				break;
+			case "DORA":
+				if (this.indicators < Wall.MAX_INDICATORS) {
+					this.wall[INDICATOR_START + this.indicators++] = (byte) tile(attribute(xml, "hai", 0));
+				}
+				break;
+			case "REACH":
+				reach(attribute(xml, "who", 0), attribute(xml, "step", 0));
+				break;
+			case "N":
+				call(attribute(xml, "who", 0), attribute(xml, "m", 0));
+				break;
+			case "AGARI":
+				win(xml);
+				break;
+			case "RYUUKYOKU":
+				exhaustiveDraw(xml);
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * INIT要素から局の始めの状態を作ります。
+	 */
+	private void beginRound(XMLStreamReader xml) {
+		this.roundOpen = true;
+		this.roundFinished = false;
+		this.roundBroken = false;
+		this.eventSize = 0;
+		int[] v = this.values;
+		int n = parseInts(xml.getAttributeValue(null, "seed"), v);
+		this.fieldWind = n > 0 ? v[0] / 4 & 3 : 0;
+		this.honba = n > 1 ? v[1] : 0;
+		this.sticks = n > 2 ? v[2] : 0;
+		Arrays.fill(this.wall, (byte) RecordFormat.UNKNOWN_TILE);
+		this.indicators = 0;
+		if (n > 5) {
+			this.wall[INDICATOR_START + this.indicators++] = (byte) tile(v[5]);
+		}
+		this.dealer = attribute(xml, "oya", 0) & 3;
+		n = parseInts(xml.getAttributeValue(null, "ten"), v);
+		for (int seat = 0; seat < 4; seat++) {
+			this.points[seat] = seat < n ? v[seat] * RecordFormat.POINT_UNIT : RecordFormat.BASE_POINTS;
+		}
+		for (int seat = 0; seat < 4; seat++) {
+			n = parseInts(xml.getAttributeValue(null, "hai" + seat), v);
+			if (n != 13) {
+				this.roundBroken = true;
+				n = Math.min(n, 13);
+			}
+			for (int i = 0; i < n; i++) {
+				this.wall[seat * 13 + i] = (byte) tile(v[i]);
+			}
+			this.lastDraw[seat] = -1;
+			this.riichiFlag[seat] = 0;
+		}
+		this.liveNext = 52;
+		this.rinshanCount = 0;
+		this.rinshanSeats = 0;
+		this.pendingRiichi = 0;
+	}
+
+	private void draw(int seat, int tile136) {
+		if (!this.roundOpen) {
+			return;
+		}
+		int tile = tile(tile136);
+		if ((this.rinshanSeats >>> seat & 1) != 0) {
+			this.rinshanSeats &= ~(1 << seat);
+			if (this.rinshanCount < Wall.RINSHAN) {
+				this.wall[LIVE_END + this.rinshanCount++] = (byte) tile;
+			} else {
+				this.roundBroken = true;
+			}
+		} else if (this.liveNext < LIVE_END - this.rinshanCount) {
+			this.wall[this.liveNext++] = (byte) tile;
+		} else {
+			this.roundBroken = true;
+		}
+		this.lastDraw[seat] = tile136;
+		ensureEvents(3);
+		this.events[this.eventSize++] = RecordFormat.DRAW;
+		this.events[this.eventSize++] = seat;
+		this.events[this.eventSize++] = tile;
+	}
+
+	private void discard(int seat, int tile136) {
+		if (!this.roundOpen) {
+			return;
+		}
+		int flags = tile136 == this.lastDraw[seat] ? RecordFormat.FLAG_TSUMOGIRI : 0;
+		this.lastDraw[seat] = -1;
+		ensureEvents(4);
+		this.events[this.eventSize++] = RecordFormat.DISCARD;
+		this.events[this.eventSize++] = seat;
+		this.events[this.eventSize++] = tile(tile136);
+		if ((this.pendingRiichi >>> seat & 1) != 0) {
+			this.pendingRiichi &= ~(1 << seat);
+			this.riichiFlag[seat] = this.eventSize;
+		}
+		this.events[this.eventSize++] = flags;
+	}
+
+	/**
+	 * リーチを記録します。宣言牌が通った（step=2）ときだけ、宣言牌にリーチのフラグを立てます。
+	 */
+	private void reach(int seat, int step) {
+		if (!this.roundOpen || !seat(seat)) {
+			return;
+		}
+		if (step == 1) {
+			this.pendingRiichi |= 1 << seat;
+		} else if (step == 2 && this.riichiFlag[seat] > 0) {
+			this.events[this.riichiFlag[seat]] |= RecordFormat.FLAG_RIICHI;
+			this.riichiFlag[seat] = 0;
+		}
+	}
+
+	/**
+	 * N要素の面子のコード（m）を読み、ポン・チー・カンを記録します。
+	 */
+	private void call(int seat, int m) {
+		if (!this.roundOpen || !seat(seat)) {
+			return;
+		}
+		int discarder = (seat + (m & 3)) & 3;
+		int op;
+		int tile;
+		int first;
+		if ((m & 0x4) != 0) {
+			// チー: 上位6ビットが 順子の種類 * 3 + 鳴いた牌の位置
+			int pattern = m >>> 10 & 0x3F;
+			int kind = pattern / 3;
+			first = kind / 7 * 9 + kind % 7;
+			tile = first + pattern % 3;
+			op = RecordFormat.CHII;
+			if (kind >= 21) {
+				this.roundBroken = true;
+				return;
+			}
+		} else if ((m & 0x18) != 0) {
+			// ポン・加槓: 上位7ビットが 牌ID * 3 + 鳴いた牌の位置
+			tile = (m >>> 9 & 0x7F) / 3;
+			first = tile;
+			if ((m & 0x8) != 0) {
+				op = RecordFormat.PON;
+			} else {
+				op = RecordFormat.KAN;
+				discarder = seat;
+			}
+		} else if ((m & 0x20) != 0) {
+			// 北抜きは三人打ちだけ
+			this.skipGame = true;
+			return;
+		} else {
+			// 暗槓・大明槓: 上位8ビットが牌譜の牌の番号
+			tile = (m >>> 8 & 0xFF) / 4;
+			first = tile;
+			op = RecordFormat.KAN;
+		}
+		if (tile >= 34) {
+			this.roundBroken = true;
+			return;
+		}
+		if (op == RecordFormat.KAN) {
+			this.rinshanSeats |= 1 << seat;
+		}
+		this.lastDraw[seat] = -1;
+		ensureEvents(5);
+		this.events[this.eventSize++] = op;
+		this.events[this.eventSize++] = seat;
+		this.events[this.eventSize++] = tile;
+		this.events[this.eventSize++] = first;
+		this.events[this.eventSize++] = discarder;
+	}
+
+	private void win(XMLStreamReader xml) {
+		if (!this.roundOpen) {
+			return;
+		}
+		int seat = attribute(xml, "who", 0);
+		int from = attribute(xml, "fromWho", seat);
+		if (!seat(seat) || !seat(from)) {
+			return;
+		}
+		int tile = tile(attribute(xml, "machi", 0));
+		int[] v = this.values;
+		int fu = parseInts(xml.getAttributeValue(null, "ten"), v) > 0 ? v[0] : 0;
+		int han = 0;
+		long hands = 0L;
+		int n = parseInts(xml.getAttributeValue(null, "yaku"), v);
+		for (int i = 0; i + 1 < n; i += 2) {
+			han += v[i + 1];
+			hands |= yaku(v[i]);
+		}
+		n = parseInts(xml.getAttributeValue(null, "yakuman"), v);
+		for (int i = 0; i < n; i++) {
+			han += Hands.YAKUMAN_HAN;
+			hands |= yaku(v[i]);
+		}
+		n = parseInts(xml.getAttributeValue(null, "doraHaiUra"), v);
+		for (int i = 0; i < n && i < Wall.MAX_INDICATORS; i++) {
+			this.wall[URA_START + i] = (byte) tile(v[i]);
+		}
+		parseDeltas(xml);
+		ensureEvents(12);
+		int[] e = this.events;
+		e[this.eventSize++] = RecordFormat.WIN;
+		e[this.eventSize++] = seat;
+		e[this.eventSize++] = tile;
+		e[this.eventSize++] = from == seat ? -1 : from;
+		e[this.eventSize++] = han;
+		e[this.eventSize++] = fu;
+		e[this.eventSize++] = (int) hands;
+		e[this.eventSize++] = (int) (hands >>> 32);
+		for (int s = 0; s < 4; s++) {
+			e[this.eventSize++] = this.deltas[s];
+		}
+		this.roundFinished = true;
+	}
+
+	private void exhaustiveDraw(XMLStreamReader xml) {
+		if (!this.roundOpen) {
+			return;
+		}
+		// typeのない荒牌流局と流し満貫(nm)だけが、手牌を見せた席(haiN)をテンパイの席とする。
+		// 九種九牌などの途中流局のhaiNは宣言した席の手牌なので、テンパイの席はなしとする
+		String type = xml.getAttributeValue(null, "type");
+		boolean exhaustive = type == null || "nm".equals(type);
+		if (!exhaustive && !this.skipGame) {
+			this.abortiveDraws++;
+		}
+		int tenpaiSeats = 0;
+		for (int seat = 0; exhaustive && seat < 4; seat++) {
+			if (xml.getAttributeValue(null, "hai" + seat) != null) {
+				tenpaiSeats |= 1 << seat;
+			}
+		}
+		parseDeltas(xml);
+		ensureEvents(6);
+		this.events[this.eventSize++] = RecordFormat.EXHAUSTIVE_DRAW;
+		this.events[this.eventSize++] = tenpaiSeats;
+		for (int s = 0; s < 4; s++) {
+			this.events[this.eventSize++] = this.deltas[s];
+		}
+		this.roundFinished = true;
+	}
+
+	/**
+	 * 対局の終わりです。最後の局を書き込み、対局を数えます。
+	 */
+	private void endGame() {
+		finishRound();
+		if (this.inGame) {
+			if (this.skipGame) {
+				this.skippedGames++;
+			} else {
+				this.games++;
+			}
+			this.game++;
+		}
+		this.inGame = false;
+	}
+
+	/**
+	 * 組み立て中の局を{@link RecordReplayer}に通して書き込みます。結果のない局と記録できない局は捨てます。
+	 */
+	private void finishRound() {
+		if (!this.roundOpen) {
+			return;
+		}
+		this.roundOpen = false;
+		if (this.skipGame) {
+			return;
+		}
+		int index = this.hand++;
+		if (!this.roundFinished || this.roundBroken) {
+			this.rejectedRounds++;
+			return;
+		}
+		RecordReplayer r = this.replayer;
+		int[] e = this.events;
+		try {
+			r.beginRound(this.seed, this.game, index, this.dealer, this.fieldWind, this.honba, this.sticks, this.points,
+					this.wall);
+			int i = 0;
+			while (i < this.eventSize) {
+				switch (e[i]) {
+					case RecordFormat.DRAW:
+						r.draw(e[i + 1], e[i + 2]);
+						i += 3;
+						break;
+					case RecordFormat.DISCARD:
+						r.discard(e[i + 1], e[i + 2], (e[i + 3] & RecordFormat.FLAG_TSUMOGIRI) != 0,
+								(e[i + 3] & RecordFormat.FLAG_RIICHI) != 0);
+						i += 4;
+						break;
+					case RecordFormat.WIN:
+						for (int s = 0; s < 4; s++) {
+							this.deltas[s] = e[i + 8 + s];
+						}
+						r.win(e[i + 1], e[i + 2], e[i + 3], e[i + 4], e[i + 5], 0,
+								e[i + 6] & 0xFFFFFFFFL | (long) e[i + 7] << 32, this.deltas);
+						i += 12;
+						break;
+					case RecordFormat.EXHAUSTIVE_DRAW:
+						for (int s = 0; s < 4; s++) {
+							this.deltas[s] = e[i + 2 + s];
+						}
+						r.exhaustiveDraw(e[i + 1], this.deltas);
+						i += 6;
+						break;
+					default:
+						r.call(e[i], e[i + 1], e[i + 2], e[i + 3], e[i + 4]);
+						i += 5;
+						break;
+				}
+			}
+			r.endRound();
+			this.rounds++;
+		} catch (RuntimeException ex) {
+			// 手牌と合わないなど組み立て直せなかった局は、書きかけのまま捨てる
+			this.recorder.flush();
+			this.rejectedRounds++;
+		}
+	}
+
+	/**
+	 * 組み立て直した局を{@link GameRecorder}に書き込むハンドラーです。あがりの待ちの形はここで求めます。
+	 */
+	private final class Sink implements RecordHandler {
+		@Override
+		public void beginRound(long seed, long game, int hand, int dealer, int fieldWind, int honba, int riichiSticks,
+				int[] points, byte[] wall) {
+			recorder.beginRound(seed, game, hand, dealer, fieldWind, honba, riichiSticks, points, wall);
+		}
+
+		@Override
+		public void draw(int seat, int tile) {
+			recorder.draw(seat, tile);
+		}
+
+		@Override
+		public void discard(int seat, int tile, boolean tsumogiri, boolean riichi) {
+			recorder.discard(seat, tile, tsumogiri, riichi);
+		}
+
+		@Override
+		public void call(int op, int seat, int tile, int first, int discarder) {
+			recorder.call(op, seat, tile, first, discarder);
+		}
+
+		@Override
+		public void win(int seat, int tile, int loser, int han, int fu, int waitShape, long hands, int[] deltas) {
+			System.arraycopy(replayer.getPlayer(seat).getHandCount(), 0, hand13, 0, hand13.length);
+			if (loser < 0) {
+				hand13[tile]--;
+			}
+			recorder.win(seat, tile, loser, Judge.judgeMachiShape(hand13, tile), han, fu, hands, deltas);
+		}
+
+		@Override
+		public void exhaustiveDraw(int tenpaiSeats, int[] deltas) {
+			recorder.exhaustiveDraw(tenpaiSeats, deltas);
+		}
+
+		@Override
+		public void endRound() {
+			recorder.endRound();
+		}
+	}
+
+	/**
+	 * 牌譜の牌の番号(0〜135)を{@link com.example.mahjong.model.TileType}のIDにします。
+	 * 範囲外なら組み立て中の局を記録できない形とし、仮に0を返します。
+	 */
+	private int tile(int tile136) {
+		if (tile136 < 0 || tile136 >= Wall.SIZE) {
+			this.roundBroken = true;
+			return 0;
+		}
+		return tile136 / 4;
+	}
+
+	/**
+	 * 席が0〜3に収まっているかを調べます。範囲外なら組み立て中の局を記録できない形にします。
+	 */
+	private boolean seat(int seat) {
+		if (seat < 0 || seat > 3) {
+			this.roundBroken = true;
+			return false;
+		}
+		return true;
+	}
+
+	private void parseDeltas(XMLStreamReader xml) {
+		int n = parseInts(xml.getAttributeValue(null, "sc"), this.values);
+		for (int seat = 0; seat < 4; seat++) {
+			this.deltas[seat] = 2 * seat + 1 < n ? this.values[2 * seat + 1] * RecordFormat.POINT_UNIT : 0;
+		}
+	}
+
+	private void ensureEvents(int count) {
+		if (this.eventSize + count > this.events.length) {
+			this.events = Arrays.copyOf(this.events, this.events.length * 2);
+		}
+	}
+
+	private static long yaku(int id) {
+		return id >= 0 && id < YAKU.length && YAKU[id] != null ? YAKU[id].bit() : 0L;
+	}
+
+	private static int attribute(XMLStreamReader xml, String name, int defaultValue) {
+		String value = xml.getAttributeValue(null, name);
+		return value == null ? defaultValue : parseInt(value, 0);
+	}
+
+	/**
+	 * 文字列の指定した位置からの10進数を読みます。先頭の'-'を受け付けます。
+	 */
+	private static int parseInt(String s, int from) {
+		boolean negative = from < s.length() && s.charAt(from) == '-';
+		int value = 0;
+		for (int i = negative ? from + 1 : from; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c < '0' || c > '9') {
+				break;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * カンマで区切った10進数の並びを読みます。配列に入りきらない分は捨てます。
+	 *
+	 * @return 読んだ数の個数。nullなら0
+	 */
+	private static int parseInts(String s, int[] out) {
+		if (s == null || s.isEmpty()) {
+			return 0;
+		}
+		int n = 0;
+		int start = 0;
+		while (start <= s.length() && n < out.length) {
+			int end = s.indexOf(',', start);
+			if (end < 0) {
+				end = s.length();
+			}
+			out[n++] = parseInt(s, start);
+			start = end + 1;
+		}
+		return n;
+	}
+
+	/**
+	 * 入力の名前から64ビットのハッシュ（FNV-1a）を作ります。
+	 */
+	private static long hash(String source) {
+		long h = 0xCBF29CE484222325L;
+		for (byte b : source.getBytes(StandardCharsets.UTF_8)) {
+			h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+		}
+		return h;
+	}
+
+	public long getGames() {
+		return games;
+	}
+
+	public long getRounds() {
+		return rounds;
+	}
+
+	public long getSkippedGames() {
+		return skippedGames;
+	}
+
+	public long getRejectedRounds() {
+		return rejectedRounds;
+	}
+
+	public long getAbortiveDraws() {
+		return abortiveDraws;
+	}
+
+	/**
+	 * {@link RecordReplayer}で確かめたときの食い違いの数を返します。
+	 *
+	 * @return 食い違いの数
+	 */
+	public long getMismatches() {
+		return this.replayer.getMismatches();
+	}
+}
@@ -0,0 +1,178 @@
+package com.example.mahjong.record;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * セグメントファイルを並列に読んで集計するクラスです。
+ *
+ * セグメントを1つずつタスクにして固定のスレッドプールで読み、タスクごとの{@link RecordStats}を最後に足し合わせます。
+ * タスクどうしで共有するものはないため、セグメントの数がスレッドの数より多ければ、コアの数に比例して速くなります。
+ * 大きいセグメントから先に渡し、最後に大きなタスクが1つだけ残らないようにします。
+ *
+ * 組み立て直しを有効にすると、{@link RecordReplayer}で局の状態を組み立て直しながら集計し、食い違いの数も数えます。
+ * 手牌の待ちを求め直すため、集計だけの場合より遅くなります。
+ */
+public final class RecordAnalytics {
+	/** スレッドの数 */
+	private final int threads;
+	/** 局の状態を組み立て直すか */
+	private boolean replay;
+
+	/**
+	 * RecordAnalyticsの新しいインスタンスを生成します。
+	 *
+	 * @param threads スレッドの数
+	 */
+	public RecordAnalytics(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * 記録を集計します。
+	 * <pre>
+	 * java com.example.mahjong.record.RecordAnalytics ディレクトリかファイル... [--threads N] [--replay]
+	 * </pre>
+	 *
+	 * @param args コマンドライン引数
+	 * @throws IOException 読み込みに失敗したか、記録が壊れている場合
+	 * @throws InterruptedException 中断された場合
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean replay = false;
+		List<Path> segments = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			if ("--threads".equals(args[i]) && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			} else if ("--replay".equals(args[i])) {
+				replay = true;
+			} else {
+				segments.addAll(listSegments(Paths.get(args[i])));
+			}
+		}
+		RecordAnalytics analytics = new RecordAnalytics(threads);
+		analytics.setReplay(replay);
+		long start = System.nanoTime();
+		RecordStats stats = analytics.analyze(segments);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(stats);
+		System.out.println(String.format("%dスレッド %.2f秒（%,.1f MB/秒, %,.0f局/秒, %,.0fイベント/秒）%s", threads,
+				seconds, stats.getBytes() / 1e6 / seconds, stats.getRounds() / seconds, stats.getEvents() / seconds,
+				replay ? "、食い違い " + stats.getMismatches() : ""));
+	}
+
+	/**
+	 * ファイルならそのまま、ディレクトリなら中のセグメントファイルを名前の順に返します。
+	 *
+	 * @param path ディレクトリかファイル
+	 * @return セグメントファイル
+	 * @throws IOException ディレクトリを読めない場合
+	 */
+	public static List<Path> listSegments(Path path) throws IOException {
+		List<Path> segments = new ArrayList<>();
+		if (!Files.isDirectory(path)) {
+			segments.add(path);
+			return segments;
+		}
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(path, "*" + RecordFormat.EXTENSION)) {
+			for (Path file : files) {
+				segments.add(file);
+			}
+		}
+		segments.sort(null);
+		return segments;
+	}
+
+	/**
+	 * セグメントを並列に読んで集計します。
+	 *
+	 * @param segments セグメントファイル
+	 * @return 集計の結果
+	 * @throws IOException 読み込みに失敗したか、記録が壊れている場合
+	 * @throws InterruptedException 中断された場合
+	 * @throws IllegalStateException 組み立て直せない記録があった場合
+	 */
+	public RecordStats analyze(List<Path> segments) throws IOException, InterruptedException {
+		List<Path> order = new ArrayList<>(segments);
+		order.sort(Comparator.comparingLong(RecordAnalytics::sizeOf).reversed());
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(this.threads, Math.max(1, order.size())));
+		List<Future<RecordStats>> tasks = new ArrayList<>(order.size());
+		RecordStats result = new RecordStats();
+		try {
+			for (Path segment : order) {
+				tasks.add(pool.submit(() -> analyze(segment)));
+			}
+			for (Future<RecordStats> task : tasks) {
+				result.merge(task.get());
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException io) {
+				throw io;
+			}
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw new IllegalStateException("記録の集計に失敗しました。", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		return result;
+	}
+
+	/**
+	 * 1つのセグメントを読んで集計します。
+	 *
+	 * @param segment セグメントファイル
+	 * @return 集計の結果
+	 * @throws IOException 読み込みに失敗したか、記録が壊れている場合
+	 */
+	public RecordStats analyze(Path segment) throws IOException {
+		RecordStats stats = new RecordStats();
+		RecordReplayer replayer = this.replay ? new RecordReplayer(stats) : null;
+		try (RecordReader reader = new RecordReader(segment)) {
+			reader.readAll(replayer == null ? stats : replayer);
+			stats.addSegment(reader);
+		}
+		if (replayer != null) {
+			stats.mismatches += replayer.getMismatches();
+		}
+		return stats;
+	}
+
+	private static long sizeOf(Path file) {
+		try {
+			return Files.size(file);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public boolean isReplay() {
+		return replay;
+	}
+
+	/**
+	 * 局の状態を組み立て直しながら集計するかを設定します。
+	 *
+	 * @param replay 組み立て直すならtrue
+	 */
+	public void setReplay(boolean replay) {
+		this.replay = replay;
+	}
+}
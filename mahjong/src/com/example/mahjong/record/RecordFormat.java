@@ -0,0 +1,144 @@
+package com.example.mahjong.record;
+
+/**
+ * 対局の記録（牌譜）のバイナリ形式の定数です。
+ *
+ * 記録はセグメントファイルに追記していきます。セグメントは8バイトのヘッダーの後に、局の記録を並べたものです。
+ * <pre>
+ * セグメント : "MJRS" バージョン(1バイト) 0(3バイト) 局の記録*
+ * 局の記録   : 長さ(varint) 本体          長さは本体のバイト数。途中で切れた記録は読み飛ばします
+ * 本体       : 種類(1バイト={@link #ROUND})
+ *              シード(8バイト, リトルエンディアン) 対局の番号(varint) 局の番号(varint)
+ *              親と場風(1バイト: 親 | 場風 &lt;&lt; 2) 本場(varint) 供託リーチ棒(varint)
+ *              席ごとの持ち点(zigzag varint × 4, 100点単位, 25000点との差)
+ *              牌山(136バイト, 王牌を含む並び。1バイトが{@link com.example.mahjong.model.TileType}のID。分からない牌は{@link #UNKNOWN_TILE})
+ *              イベント* {@link #END}
+ * イベント   : 先頭(1バイト: 種類 &lt;&lt; 4 | フラグ &lt;&lt; 2 | 席) 種類ごとの内容
+ * </pre>
+ * イベントの種類ごとの内容は次のとおりです。
+ * <pre>
+ * {@link #DRAW}    牌(1バイト)
+ * {@link #DISCARD} 牌(1バイト)                    フラグ: ビット0 ツモ切り, ビット1 リーチ宣言
+ * {@link #PON}     牌(1バイト)                    フラグ: 捨てた席から見た位置(1:下家, 2:対面, 3:上家。捨てた席 = (席 - 位置) &amp; 3)
+ * {@link #CHII}    牌(1バイト) 順子の最も小さい牌(1バイト)   フラグ: 同上
+ * {@link #KAN}     牌(1バイト)                    フラグ: 同上（0なら暗槓・加槓）
+ * {@link #WIN}     牌(1バイト) 翻(varint) 符(varint) 待ちの形(1バイト, {@link com.example.mahjong.model.Machi#bit()}の論理和)
+ *                  役(varint, {@link com.example.mahjong.model.Hands}のビット集合) 点数の増減(zigzag varint × 4, 100点単位)
+ *                                                  フラグ: 放銃した席から見た位置（ツモなら0）
+ * {@link #EXHAUSTIVE_DRAW} テンパイの席のビット集合(1バイト) 点数の増減(zigzag varint × 4, 100点単位)
+ * </pre>
+ * 巡目は記録しません。ツモのイベントが巡目の区切りになるので、差分は常に0か1で、読み手がツモを数えれば復元できます。
+ * 同じように、リーチ棒による1000点の減少はリーチ宣言のフラグから、ツモの牌は牌山から復元できますが、
+ * 監査のために牌は省略せずに記録します。1局はおおよそ500バイトです。
+ * 記録は{@link RecordReader}で読み、{@link RecordReplayer}で局の状態を組み立て直せます。
+ */
+public final class RecordFormat {
+	/** セグメントの先頭の識別子 */
+	public static final byte[] MAGIC = { 'M', 'J', 'R', 'S' };
+	/** 形式のバージョン */
+	public static final int VERSION = 1;
+	/** セグメントのヘッダーの長さ */
+	public static final int HEADER_BYTES = 8;
+	/** セグメントファイルの拡張子 */
+	public static final String EXTENSION = ".mjr";
+
+	/** 牌山の分からない牌。外部の牌譜から取り込んだ局で、最後までめくられなかった牌に使います */
+	public static final int UNKNOWN_TILE = 0xFF;
+
+	/** 記録の種類: 1局 */
+	public static final int ROUND = 1;
+
+	/** イベント: 局の終わり */
+	public static final int END = 0;
+	/** イベント: ツモ */
+	public static final int DRAW = 1;
+	/** イベント: 打牌 */
+	public static final int DISCARD = 2;
+	/** イベント: ポン */
+	public static final int PON = 3;
+	/** イベント: チー */
+	public static final int CHII = 4;
+	/** イベント: カン */
+	public static final int KAN = 5;
+	/** イベント: あがり */
+	public static final int WIN = 6;
+	/** イベント: 荒牌流局 */
+	public static final int EXHAUSTIVE_DRAW = 7;
+
+	/** 打牌のフラグ: ツモ切り */
+	public static final int FLAG_TSUMOGIRI = 1;
+	/** 打牌のフラグ: リーチ宣言 */
+	public static final int FLAG_RIICHI = 2;
+
+	/** 持ち点の基準 */
+	public static final int BASE_POINTS = 25000;
+	/** 点数の単位 */
+	public static final int POINT_UNIT = 100;
+
+	/**
+	 * プライベートコンストラクタにより、このクラスのインスタンス化を防ぎます。
+	 */
+	private RecordFormat() {}
+
+	/**
+	 * イベントの先頭の1バイトを作ります。
+	 *
+	 * @param op イベントの種類
+	 * @param flags フラグ(0〜3)
+	 * @param seat 席(0〜3)
+	 * @return 先頭の1バイト
+	 */
+	public static int header(int op, int flags, int seat) {
+		return op << 4 | flags << 2 | seat;
+	}
+
+	/**
+	 * 先頭の1バイトからイベントの種類を取り出します。
+	 *
+	 * @param header 先頭の1バイト
+	 * @return イベントの種類
+	 */
+	public static int op(int header) {
+		return header >>> 4 & 0xF;
+	}
+
+	/**
+	 * 先頭の1バイトからフラグを取り出します。
+	 *
+	 * @param header 先頭の1バイト
+	 * @return フラグ
+	 */
+	public static int flags(int header) {
+		return header >>> 2 & 3;
+	}
+
+	/**
+	 * 先頭の1バイトから席を取り出します。
+	 *
+	 * @param header 先頭の1バイト
+	 * @return 席
+	 */
+	public static int seat(int header) {
+		return header & 3;
+	}
+
+	/**
+	 * 符号つきの値を、0に近いほど短くなる符号なしの値に変換します（zigzag）。
+	 *
+	 * @param value 値
+	 * @return 変換した値
+	 */
+	public static long zigzag(long value) {
+		return value << 1 ^ value >> 63;
+	}
+
+	/**
+	 * {@link #zigzag(long)}で変換した値を元に戻します。
+	 *
+	 * @param value 変換した値
+	 * @return 元の値
+	 */
+	public static long unzigzag(long value) {
+		return value >>> 1 ^ -(value & 1);
+	}
+}
@@ -0,0 +1,89 @@
+package com.example.mahjong.record;
+
+/**
+ * {@link RecordReader}が読んだ局の記録を、イベントごとに受け取るインターフェースです。
+ *
+ * メソッドは{@link GameRecorder}の記録のメソッドと1対1に対応し、記録した順に呼び出されます。
+ * 読み手はイベントごとにオブジェクトを作らず、配列の引数も使い回すため、呼び出しの後まで残したい値はコピーしてください。
+ * すべてのメソッドは何もしないデフォルト実装を持つので、必要なものだけをオーバーライドします。
+ */
+public interface RecordHandler {
+	/**
+	 * 局の始まりです。
+	 *
+	 * @param seed 全体のシード
+	 * @param game 対局の番号
+	 * @param hand 対局の中での局の番号
+	 * @param dealer 親の席
+	 * @param fieldWind 場風
+	 * @param honba 本場
+	 * @param riichiSticks 供託リーチ棒
+	 * @param points 席ごとの持ち点(4)。使い回す配列です
+	 * @param wall 牌山(136)。使い回す配列です
+	 */
+	default void beginRound(long seed, long game, int hand, int dealer, int fieldWind, int honba, int riichiSticks,
+			int[] points, byte[] wall) {
+	}
+
+	/**
+	 * ツモです。
+	 *
+	 * @param seat 席
+	 * @param tile ツモした牌
+	 */
+	default void draw(int seat, int tile) {
+	}
+
+	/**
+	 * 打牌です。
+	 *
+	 * @param seat 席
+	 * @param tile 捨てた牌
+	 * @param tsumogiri ツモ切りならtrue
+	 * @param riichi リーチ宣言牌ならtrue
+	 */
+	default void discard(int seat, int tile, boolean tsumogiri, boolean riichi) {
+	}
+
+	/**
+	 * ポン・チー・カンです。
+	 *
+	 * @param op {@link RecordFormat#PON}, {@link RecordFormat#CHII}, {@link RecordFormat#KAN}のどれか
+	 * @param seat 鳴いた席
+	 * @param tile 鳴いた牌
+	 * @param first 面子の最も小さい牌（チー以外は鳴いた牌と同じ）
+	 * @param discarder 捨てた席。暗槓・加槓なら鳴いた席と同じ
+	 */
+	default void call(int op, int seat, int tile, int first, int discarder) {
+	}
+
+	/**
+	 * あがりです。
+	 *
+	 * @param seat あがった席
+	 * @param tile あがり牌
+	 * @param loser 放銃した席。ツモなら-1
+	 * @param han 翻
+	 * @param fu 符
+	 * @param waitShape 待ちの形（{@link com.example.mahjong.model.Machi#bit()}の論理和）
+	 * @param hands 役（{@link com.example.mahjong.model.Hands}のビット集合）
+	 * @param deltas 席ごとの点数の増減(4)。使い回す配列です
+	 */
+	default void win(int seat, int tile, int loser, int han, int fu, int waitShape, long hands, int[] deltas) {
+	}
+
+	/**
+	 * 荒牌流局です。
+	 *
+	 * @param tenpaiSeats テンパイの席のビット集合
+	 * @param deltas 席ごとの点数の増減(4)。使い回す配列です
+	 */
+	default void exhaustiveDraw(int tenpaiSeats, int[] deltas) {
+	}
+
+	/**
+	 * 局の終わりです。
+	 */
+	default void endRound() {
+	}
+}
@@ -0,0 +1,342 @@
+package com.example.mahjong.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.example.mahjong.model.Wall;
+
+/**
+ * 1つのセグメントファイルから局の記録を順に読み、{@link RecordHandler}に渡すクラスです。
+ *
+ * ファイルは一定の大きさ（既定で64 MiB）の窓ごとにメモリマップして読むため、ファイル全体をヒープに読み込むことはありません。
+ * 局の記録が窓の終わりをまたぐときは、その局の先頭から窓をマップし直します。
+ * 読むときにオブジェクトを作らず、{@link RecordHandler}に渡す配列も使い回すため、大量の記録でもGCの負担はほとんどありません。
+ * 書き込み中に止まるなどして途中で切れた最後の記録は読み飛ばし、{@link #isTruncated()}で分かるようにします。
+ *
+ * インスタンスはスレッドセーフではありません。複数のセグメントを並列に読むときは、セグメントごとに1つずつ作ります。
+ */
+public final class RecordReader implements Closeable {
+	/** 一度にマップする既定の大きさ */
+	public static final long DEFAULT_WINDOW_BYTES = 64L << 20;
+	/** 長さのvarintの最大のバイト数 */
+	private static final int MAX_LENGTH_BYTES = 5;
+
+	/** 読んでいるファイル */
+	private final Path file;
+	/** 読んでいるファイルのチャネル */
+	private final FileChannel channel;
+	/** ファイルの大きさ */
+	private final long size;
+	/** 一度にマップする大きさ */
+	private final long windowBytes;
+	/** マップしている窓 */
+	private MappedByteBuffer buffer;
+	/** 窓の先頭のファイル上の位置 */
+	private long base;
+	/** 次の記録のファイル上の位置 */
+	private long position;
+	/** 読んだ局の数 */
+	private long rounds;
+	/** 読んだイベントの数（局の終わりを含みます） */
+	private long events;
+	/** 最後の記録が途中で切れていたか */
+	private boolean truncated;
+	/** 席ごとの持ち点（使い回す配列） */
+	private final int[] points = new int[4];
+	/** 席ごとの点数の増減（使い回す配列） */
+	private final int[] deltas = new int[4];
+	/** 牌山（使い回す配列） */
+	private final byte[] wall = new byte[Wall.SIZE];
+
+	/**
+	 * 既定の大きさの窓で読むRecordReaderを生成します。
+	 *
+	 * @param file セグメントファイル
+	 * @throws IOException ファイルを開けないか、セグメントの形式でない場合
+	 */
+	public RecordReader(Path file) throws IOException {
+		this(file, DEFAULT_WINDOW_BYTES);
+	}
+
+	/**
+	 * 指定した大きさの窓で読むRecordReaderを生成します。
+	 *
+	 * @param file セグメントファイル
+	 * @param windowBytes 一度にマップする大きさ（1 GiBまで）。局の記録より小さければ、その局だけ大きくマップします
+	 * @throws IOException ファイルを開けないか、セグメントの形式でない場合
+	 */
+	public RecordReader(Path file, long windowBytes) throws IOException {
+		this.file = file;
+		this.windowBytes = Math.max(RecordFormat.HEADER_BYTES, Math.min(windowBytes, 1L << 30));
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			this.size = this.channel.size();
+			if (this.size < RecordFormat.HEADER_BYTES) {
+				throw new IOException("セグメントのヘッダーがありません: " + file);
+			}
+			map(0, RecordFormat.HEADER_BYTES);
+			for (int i = 0; i < RecordFormat.MAGIC.length; i++) {
+				if (this.buffer.get(i) != RecordFormat.MAGIC[i]) {
+					throw new IOException("セグメントの形式ではありません: " + file);
+				}
+			}
+			int version = this.buffer.get(RecordFormat.MAGIC.length) & 0xFF;
+			if (version != RecordFormat.VERSION) {
+				throw new IOException("対応していないバージョンです: " + version + " (" + file + ")");
+			}
+		} catch (IOException | RuntimeException e) {
+			this.channel.close();
+			throw e;
+		}
+		this.position = RecordFormat.HEADER_BYTES;
+	}
+
+	/**
+	 * セグメントのすべての局を読み、ハンドラーに渡します。
+	 *
+	 * @param file セグメントファイル
+	 * @param handler 受け取るハンドラー
+	 * @return 読んだ局の数
+	 * @throws IOException 読み込みに失敗したか、記録が壊れている場合
+	 */
+	public static long read(Path file, RecordHandler handler) throws IOException {
+		try (RecordReader reader = new RecordReader(file)) {
+			return reader.readAll(handler);
+		}
+	}
+
+	/**
+	 * 残りのすべての局を読み、ハンドラーに渡します。
+	 *
+	 * @param handler 受け取るハンドラー
+	 * @return このRecordReaderで読んだ局の数
+	 * @throws IOException 読み込みに失敗したか、記録が壊れている場合
+	 */
+	public long readAll(RecordHandler handler) throws IOException {
+		while (next(handler)) {
+			// 1局ずつ読む
+		}
+		return this.rounds;
+	}
+
+	/**
+	 * 次の局を1つ読み、ハンドラーに渡します。局でない種類の記録は読み飛ばします。
+	 *
+	 * @param handler 受け取るハンドラー
+	 * @return 局を読んだならtrue。ファイルの終わりか、途中で切れた記録に達したならfalse
+	 * @throws IOException 読み込みに失敗したか、記録が壊れている場合
+	 */
+	public boolean next(RecordHandler handler) throws IOException {
+		while (this.position < this.size) {
+			map(this.position, Math.min(MAX_LENGTH_BYTES, this.size - this.position));
+			int offset = (int) (this.position - this.base);
+			long length = 0;
+			int lengthBytes = 0;
+			int b;
+			do {
+				if (lengthBytes == MAX_LENGTH_BYTES || this.position + lengthBytes >= this.size) {
+					return truncate(lengthBytes == MAX_LENGTH_BYTES);
+				}
+				b = this.buffer.get(offset + lengthBytes);
+				length |= (long) (b & 0x7F) << (7 * lengthBytes++);
+			} while ((b & 0x80) != 0);
+			long start = this.position + lengthBytes;
+			if (length == 0 || start + length > this.size) {
+				return truncate(length == 0);
+			}
+			map(start, length);
+			this.position = start + length;
+			if (decode((int) (start - this.base), (int) length, handler)) {
+				this.rounds++;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 途中で切れた記録に達したことを記録します。ファイルの途中で長さが壊れていれば例外を投げます。
+	 */
+	private boolean truncate(boolean corrupted) throws IOException {
+		if (corrupted) {
+			throw new IOException("局の記録の長さが壊れています: " + this.file + " @" + this.position);
+		}
+		this.truncated = true;
+		this.position = this.size;
+		return false;
+	}
+
+	/**
+	 * 指定した範囲が窓に入っていなければ、範囲の先頭から窓をマップし直します。
+	 */
+	private void map(long offset, long length) throws IOException {
+		if (this.buffer != null && offset >= this.base && offset + length <= this.base + this.buffer.limit()) {
+			return;
+		}
+		if (length > Integer.MAX_VALUE) {
+			throw new IOException("局の記録が長すぎます: " + this.file + " @" + offset);
+		}
+		long mapped = Math.min(this.size - offset, Math.max(this.windowBytes, length));
+		this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, offset, mapped);
+		this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+		this.base = offset;
+	}
+
+	/**
+	 * 窓の中の1つの記録を読み、局ならハンドラーに渡します。
+	 *
+	 * @return 局ならtrue。局でない種類の記録ならfalse
+	 */
+	private boolean decode(int offset, int length, RecordHandler handler) throws IOException {
+		MappedByteBuffer b = this.buffer;
+		int end = offset + length;
+		b.limit(end).position(offset);
+		try {
+			if ((b.get() & 0xFF) != RecordFormat.ROUND) {
+				return false;
+			}
+			long seed = b.getLong();
+			long game = getVarLong(b);
+			int hand = (int) getVarLong(b);
+			int dealerAndWind = b.get() & 0xFF;
+			int honba = (int) getVarLong(b);
+			int sticks = (int) getVarLong(b);
+			for (int seat = 0; seat < 4; seat++) {
+				this.points[seat] = RecordFormat.BASE_POINTS
+						+ (int) RecordFormat.unzigzag(getVarLong(b)) * RecordFormat.POINT_UNIT;
+			}
+			b.get(this.wall);
+			handler.beginRound(seed, game, hand, dealerAndWind & 3, dealerAndWind >>> 2 & 3, honba, sticks,
+					this.points, this.wall);
+			while (true) {
+				int header = b.get() & 0xFF;
+				int seat = RecordFormat.seat(header);
+				int flags = RecordFormat.flags(header);
+				this.events++;
+				switch (RecordFormat.op(header)) {
+					case RecordFormat.END:
+						if (b.position() != end) {
+							throw new IOException("局の記録の終わりが合いません: " + this.file + " @" + (this.base + offset));
+						}
+						handler.endRound();
+						return true;
+					case RecordFormat.DRAW:
+						handler.draw(seat, b.get() & 0xFF);
+						break;
+					case RecordFormat.DISCARD:
+						handler.discard(seat, b.get() & 0xFF, (flags & RecordFormat.FLAG_TSUMOGIRI) != 0,
+								(flags & RecordFormat.FLAG_RIICHI) != 0);
+						break;
+					case RecordFormat.PON:
+					case RecordFormat.KAN: {
+						int tile = b.get() & 0xFF;
+						handler.call(RecordFormat.op(header), seat, tile, tile, (seat - flags) & 3);
+						break;
+					}
+					case RecordFormat.CHII: {
+						int tile = b.get() & 0xFF;
+						handler.call(RecordFormat.CHII, seat, tile, b.get() & 0xFF, (seat - flags) & 3);
+						break;
+					}
+					case RecordFormat.WIN: {
+						int tile = b.get() & 0xFF;
+						int han = (int) getVarLong(b);
+						int fu = (int) getVarLong(b);
+						int waitShape = b.get() & 0xFF;
+						long hands = getVarLong(b);
+						getDeltas(b);
+						handler.win(seat, tile, flags == 0 ? -1 : (seat - flags) & 3, han, fu, waitShape, hands, this.deltas);
+						break;
+					}
+					case RecordFormat.EXHAUSTIVE_DRAW: {
+						int tenpaiSeats = b.get() & 0xFF;
+						getDeltas(b);
+						handler.exhaustiveDraw(tenpaiSeats, this.deltas);
+						break;
+					}
+					default:
+						throw new IOException("不明なイベントです: " + RecordFormat.op(header) + " (" + this.file + " @"
+								+ (this.base + b.position() - 1) + ")");
+				}
+			}
+		} catch (BufferUnderflowException e) {
+			throw new IOException("局の記録が途中で終わっています: " + this.file + " @" + (this.base + offset), e);
+		} finally {
+			b.limit(b.capacity());
+		}
+	}
+
+	private void getDeltas(MappedByteBuffer b) {
+		for (int seat = 0; seat < 4; seat++) {
+			this.deltas[seat] = (int) RecordFormat.unzigzag(getVarLong(b)) * RecordFormat.POINT_UNIT;
+		}
+	}
+
+	private static long getVarLong(MappedByteBuffer b) {
+		long value = 0;
+		int shift = 0;
+		int next;
+		do {
+			next = b.get();
+			value |= (long) (next & 0x7F) << shift;
+			shift += 7;
+		} while ((next & 0x80) != 0 && shift < 64);
+		return value;
+	}
+
+	/**
+	 * ファイルを閉じます。マップした窓は、参照がなくなった後にGCで解放されます。
+	 *
+	 * @throws IOException 閉じるのに失敗した場合
+	 */
+	@Override
+	public void close() throws IOException {
+		this.buffer = null;
+		this.channel.close();
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * ファイルの大きさを返します。
+	 *
+	 * @return バイト数
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * 読み終えた位置を返します。ヘッダーを含むファイル上の位置です。
+	 *
+	 * @return バイト数
+	 */
+	public long getPosition() {
+		return position;
+	}
+
+	public long getRounds() {
+		return rounds;
+	}
+
+	public long getEvents() {
+		return events;
+	}
+
+	/**
+	 * 最後の記録が途中で切れていたかを返します。
+	 *
+	 * @return 途中で切れた記録を読み飛ばしたならtrue
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+}
@@ -0,0 +1,225 @@
+package com.example.mahjong.record;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.example.mahjong.model.Player;
+import com.example.mahjong.model.Table;
+import com.example.mahjong.model.TileType;
+import com.example.mahjong.model.Wall;
+
+/**
+ * 局の記録をイベントごとに{@link Table}と4人の{@link Player}に当てはめ、局の状態を少しずつ組み立て直すハンドラーです。
+ *
+ * 配牌は{@link com.example.mahjong.controller.SimulationEngine}と同じく、牌山の先頭から席0, 1, 2, 3の順に13枚ずつ配ります。
+ * ツモは牌山から引き、記録された牌と違っていれば食い違いとして数えます（手牌には記録された牌を加えます）。
+ * 牌山の{@link RecordFormat#UNKNOWN_TILE}は仮の牌に置き換えるため、それをツモると食い違いになります。
+ * あがりと流局では、組み立て直した手牌があがり・テンパイの形になっているかも確かめ、違っていれば食い違いとして数えます。
+ * 手牌にない牌を捨てたり鳴いたりしている記録は、それ以上組み立てられないため例外を投げます。
+ *
+ * 当てはめた後のイベントは、コンストラクタで渡したハンドラーにそのまま渡します。
+ * 渡された先では{@link #getTable()}や{@link #getPlayer(int)}で、そのイベントの後の状態を見られます。
+ */
+public final class RecordReplayer implements RecordHandler {
+	/** 当てはめた後にイベントを渡すハンドラー */
+	private final RecordHandler next;
+	/** 組み立て直す卓 */
+	private final Table table = new Table();
+	/** 組み立て直す席ごとのプレイヤー */
+	private final Player[] players = new Player[4];
+	/** 牌山のリスト（使い回します） */
+	private final List<TileType> wall = new ArrayList<>(Wall.SIZE);
+	/** 次のツモが嶺上牌になる席のビット集合 */
+	private int rinshan;
+	/** 食い違いの数 */
+	private long mismatches;
+
+	/**
+	 * 状態を組み立て直すだけのRecordReplayerを生成します。
+	 */
+	public RecordReplayer() {
+		this(new RecordHandler() {});
+	}
+
+	/**
+	 * 状態を組み立て直した後に、イベントを指定したハンドラーに渡すRecordReplayerを生成します。
+	 *
+	 * @param next イベントを渡すハンドラー
+	 */
+	public RecordReplayer(RecordHandler next) {
+		this.next = next;
+	}
+
+	@Override
+	public void beginRound(long seed, long game, int hand, int dealer, int fieldWind, int honba, int riichiSticks,
+			int[] points, byte[] wall) {
+		Table table = this.table;
+		table.clearVisible();
+		table.clearFuriten();
+		for (List<TileType> discards : table.getDiscard().values()) {
+			discards.clear();
+		}
+		table.setFieldWind(fieldWind);
+		table.setHonba(honba);
+		table.setRiichiStick(riichiSticks);
+		this.wall.clear();
+		for (byte tile : wall) {
+			// 分からない牌は、めくられないはずなので仮の牌で埋める
+			this.wall.add(TileType.getTile((tile & 0xFF) == RecordFormat.UNKNOWN_TILE ? 0 : tile));
+		}
+		table.setWall(this.wall);
+		table.revealDora();
+		for (int seat = 0; seat < 4; seat++) {
+			List<TileType> tiles = new ArrayList<>(14);
+			table.getLiveWall().deal(tiles, 13);
+			Player player = new Player();
+			player.setHand(tiles);
+			player.setWind((seat - dealer) & 3);
+			player.setPoint(points[seat]);
+			player.setMenzen(true);
+			this.players[seat] = player;
+		}
+		this.rinshan = 0;
+		this.next.beginRound(seed, game, hand, dealer, fieldWind, honba, riichiSticks, points, wall);
+	}
+
+	@Override
+	public void draw(int seat, int tile) {
+		TileType drawn;
+		if ((this.rinshan >>> seat & 1) != 0) {
+			this.rinshan &= ~(1 << seat);
+			drawn = this.table.drawRinshan();
+			this.table.revealDora();
+		} else {
+			drawn = this.table.draw();
+		}
+		if (drawn == null || drawn.getId() != tile) {
+			this.mismatches++;
+		}
+		this.players[seat].tsumo(TileType.getTile(tile));
+		this.next.draw(seat, tile);
+	}
+
+	@Override
+	public void discard(int seat, int tile, boolean tsumogiri, boolean riichi) {
+		Player player = this.players[seat];
+		TileType discarded = TileType.getTile(tile);
+		int index = Collections.binarySearch(player.getHand(), discarded);
+		if (index < 0) {
+			throw new IllegalStateException("席" + seat + "の手牌にない牌を捨てています: " + discarded);
+		}
+		player.discard(index);
+		if (riichi) {
+			player.setRiichi(true);
+			player.setPoint(player.getPoint() - 1000);
+			this.table.setRiichiStick(this.table.getRiichiStick() + 1);
+		}
+		this.table.addDiscard(seat, discarded);
+		this.next.discard(seat, tile, tsumogiri, riichi);
+	}
+
+	@Override
+	public void call(int op, int seat, int tile, int first, int discarder) {
+		Player player = this.players[seat];
+		List<TileType> hand = new ArrayList<>(player.getHand());
+		TileType called = TileType.getTile(tile);
+		boolean concealed = false;
+		if (op == RecordFormat.CHII) {
+			for (int id = first; id < first + 3; id++) {
+				if (id != tile) {
+					expose(hand, TileType.getTile(id), 1, seat);
+				}
+			}
+		} else if (op == RecordFormat.PON) {
+			expose(hand, called, 2, seat);
+		} else if (discarder != seat) {
+			expose(hand, called, 3, seat);
+			this.rinshan |= 1 << seat;
+		} else {
+			// 手牌に4枚あれば暗槓、なければポンした刻子への加槓
+			concealed = Collections.frequency(hand, called) == 4;
+			expose(hand, called, concealed ? 4 : 1, seat);
+			this.rinshan |= 1 << seat;
+		}
+		player.setHand(hand);
+		player.setCall(true);
+		if (!concealed) {
+			player.setMenzen(false);
+		}
+		this.next.call(op, seat, tile, first, discarder);
+	}
+
+	/**
+	 * 手牌から副露で晒す牌を取り除き、見えている牌の枚数に加えます。
+	 */
+	private void expose(List<TileType> hand, TileType tile, int count, int seat) {
+		for (int i = 0; i < count; i++) {
+			if (!hand.remove(tile)) {
+				throw new IllegalStateException("席" + seat + "の手牌にない牌で鳴いています: " + tile);
+			}
+		}
+		this.table.addExposed(tile.getId(), count);
+	}
+
+	@Override
+	public void win(int seat, int tile, int loser, int han, int fu, int waitShape, long hands, int[] deltas) {
+		Player player = this.players[seat];
+		if (loser < 0 ? !player.isAgari() : !player.isWaiting(tile)) {
+			this.mismatches++;
+		}
+		applyDeltas(deltas);
+		this.table.setRiichiStick(0);
+		this.next.win(seat, tile, loser, han, fu, waitShape, hands, deltas);
+	}
+
+	@Override
+	public void exhaustiveDraw(int tenpaiSeats, int[] deltas) {
+		for (int seat = 0; seat < 4; seat++) {
+			if ((this.players[seat].getWaitMask() != 0) != ((tenpaiSeats >>> seat & 1) != 0)) {
+				this.mismatches++;
+			}
+		}
+		applyDeltas(deltas);
+		this.next.exhaustiveDraw(tenpaiSeats, deltas);
+	}
+
+	private void applyDeltas(int[] deltas) {
+		for (int seat = 0; seat < 4; seat++) {
+			this.players[seat].setPoint(this.players[seat].getPoint() + deltas[seat]);
+		}
+	}
+
+	@Override
+	public void endRound() {
+		this.next.endRound();
+	}
+
+	/**
+	 * 組み立て直している卓を返します。
+	 *
+	 * @return 卓
+	 */
+	public Table getTable() {
+		return this.table;
+	}
+
+	/**
+	 * 組み立て直している席のプレイヤーを返します。局ごとに新しいインスタンスになります。
+	 *
+	 * @param seat 席(0〜3)
+	 * @return プレイヤー。まだ局を読んでいなければnull
+	 */
+	public Player getPlayer(int seat) {
+		return this.players[seat];
+	}
+
+	/**
+	 * 牌山・あがり・テンパイの食い違いの数を返します。
+	 *
+	 * @return 食い違いの数
+	 */
+	public long getMismatches() {
+		return this.mismatches;
+	}
+}
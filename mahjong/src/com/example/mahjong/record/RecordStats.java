@@ -0,0 +1,286 @@
+package com.example.mahjong.record;
+
+import java.util.Arrays;
+
+import com.example.mahjong.model.Hands;
+import com.example.mahjong.model.Machi;
+
+/**
+ * 局の記録を集計するハンドラーです。
+ *
+ * あがり率・放銃率・平均打点のほか、役（{@link Hands}）ごとの出現数と、待ちの形（{@link Machi}）ごとの出現数を数えます。
+ * 率は1人の1局を単位とし、局の数の4倍で割ります。
+ * 役と待ちの形はビット集合の立っているビットを数えるだけなので、1つのあがりに複数の待ちの形が成立すれば、それぞれに数えます。
+ *
+ * インスタンスはスレッドセーフではありません。セグメントごとに1つずつ持って集計し、最後に{@link #merge(RecordStats)}でまとめます。
+ */
+public final class RecordStats implements RecordHandler {
+	/** 役の一覧 */
+	private static final Hands[] HANDS = Hands.values();
+	/** 待ちの形の一覧 */
+	private static final Machi[] MACHI = Machi.values();
+
+	/** 読んだセグメントの数 */
+	long segments;
+	/** 読んだバイト数 */
+	long bytes;
+	/** 読んだイベントの数 */
+	long events;
+	/** 局の数 */
+	long rounds;
+	/** ツモあがりの数 */
+	long tsumo;
+	/** ロンあがりの数（放銃の数と同じ） */
+	long ron;
+	/** 荒牌流局の数 */
+	long draws;
+	/** リーチの数 */
+	long riichi;
+	/** ポン・チー・カンの数 */
+	long calls;
+	/** あがった席が得た点数の合計 */
+	long winPoints;
+	/** あがりの翻の合計 */
+	long han;
+	/** 役満の数 */
+	long yakuman;
+	/** {@link RecordReplayer}で組み立て直したときの食い違いの数 */
+	long mismatches;
+	/** 役（{@link Hands#ordinal()}）ごとの出現数 */
+	final long[] hands = new long[HANDS.length];
+	/** 待ちの形（{@link Machi#bit()}のビットの位置）ごとの出現数 */
+	final long[] machi = new long[MACHI.length];
+
+	@Override
+	public void beginRound(long seed, long game, int hand, int dealer, int fieldWind, int honba, int riichiSticks,
+			int[] points, byte[] wall) {
+		this.rounds++;
+	}
+
+	@Override
+	public void discard(int seat, int tile, boolean tsumogiri, boolean riichi) {
+		if (riichi) {
+			this.riichi++;
+		}
+	}
+
+	@Override
+	public void call(int op, int seat, int tile, int first, int discarder) {
+		this.calls++;
+	}
+
+	@Override
+	public void win(int seat, int tile, int loser, int han, int fu, int waitShape, long hands, int[] deltas) {
+		if (loser < 0) {
+			this.tsumo++;
+		} else {
+			this.ron++;
+		}
+		this.winPoints += deltas[seat];
+		this.han += han;
+		if ((hands & Hands.YAKUMAN_MASK) != 0) {
+			this.yakuman++;
+		}
+		for (long m = hands; m != 0; m &= m - 1) {
+			int bit = Long.numberOfTrailingZeros(m);
+			if (bit < this.hands.length) {
+				this.hands[bit]++;
+			}
+		}
+		for (int m = waitShape; m != 0; m &= m - 1) {
+			int bit = Integer.numberOfTrailingZeros(m);
+			if (bit < this.machi.length) {
+				this.machi[bit]++;
+			}
+		}
+	}
+
+	@Override
+	public void exhaustiveDraw(int tenpaiSeats, int[] deltas) {
+		this.draws++;
+	}
+
+	/**
+	 * 別の集計を足し合わせます。
+	 *
+	 * @param other 足す集計
+	 */
+	public void merge(RecordStats other) {
+		this.segments += other.segments;
+		this.bytes += other.bytes;
+		this.events += other.events;
+		this.rounds += other.rounds;
+		this.tsumo += other.tsumo;
+		this.ron += other.ron;
+		this.draws += other.draws;
+		this.riichi += other.riichi;
+		this.calls += other.calls;
+		this.winPoints += other.winPoints;
+		this.han += other.han;
+		this.yakuman += other.yakuman;
+		this.mismatches += other.mismatches;
+		for (int i = 0; i < this.hands.length; i++) {
+			this.hands[i] += other.hands[i];
+		}
+		for (int i = 0; i < this.machi.length; i++) {
+			this.machi[i] += other.machi[i];
+		}
+	}
+
+	/**
+	 * 1つのセグメントを読み終えたことを記録します。
+	 *
+	 * @param reader 読み終えたRecordReader
+	 */
+	public void addSegment(RecordReader reader) {
+		this.segments++;
+		this.bytes += reader.getPosition();
+		this.events += reader.getEvents();
+	}
+
+	public long getSegments() {
+		return segments;
+	}
+
+	public long getBytes() {
+		return bytes;
+	}
+
+	public long getEvents() {
+		return events;
+	}
+
+	public long getRounds() {
+		return rounds;
+	}
+
+	public long getTsumo() {
+		return tsumo;
+	}
+
+	public long getRon() {
+		return ron;
+	}
+
+	public long getDraws() {
+		return draws;
+	}
+
+	public long getRiichi() {
+		return riichi;
+	}
+
+	public long getCalls() {
+		return calls;
+	}
+
+	public long getYakuman() {
+		return yakuman;
+	}
+
+	public long getMismatches() {
+		return mismatches;
+	}
+
+	/**
+	 * あがりの数を返します。
+	 *
+	 * @return ツモとロンの合計
+	 */
+	public long getWins() {
+		return this.tsumo + this.ron;
+	}
+
+	/**
+	 * あがり率（1人の1局あたりのあがりの割合）を返します。
+	 *
+	 * @return あがり率。局がなければ0
+	 */
+	public double getWinRate() {
+		return this.rounds == 0 ? 0.0 : (double) getWins() / (this.rounds * 4);
+	}
+
+	/**
+	 * 放銃率（1人の1局あたりの放銃の割合）を返します。
+	 *
+	 * @return 放銃率。局がなければ0
+	 */
+	public double getDealInRate() {
+		return this.rounds == 0 ? 0.0 : (double) this.ron / (this.rounds * 4);
+	}
+
+	/**
+	 * 平均打点（あがった席が得た点数の平均。本場と供託を含みます）を返します。
+	 *
+	 * @return 平均打点。あがりがなければ0
+	 */
+	public double getAverageScore() {
+		long wins = getWins();
+		return wins == 0 ? 0.0 : (double) this.winPoints / wins;
+	}
+
+	/**
+	 * 平均の翻を返します。
+	 *
+	 * @return 平均の翻。あがりがなければ0
+	 */
+	public double getAverageHan() {
+		long wins = getWins();
+		return wins == 0 ? 0.0 : (double) this.han / wins;
+	}
+
+	/**
+	 * 役の出現数を返します。
+	 *
+	 * @param hand 役
+	 * @return 出現数
+	 */
+	public long getCount(Hands hand) {
+		return this.hands[hand.ordinal()];
+	}
+
+	/**
+	 * 待ちの形の出現数を返します。
+	 *
+	 * @param machi 待ちの形
+	 * @return 出現数
+	 */
+	public long getCount(Machi machi) {
+		return this.machi[Integer.numberOfTrailingZeros(machi.bit())];
+	}
+
+	/**
+	 * 集計の結果を、役は多い順に並べた表にして返します。
+	 *
+	 * @return 集計の結果
+	 */
+	@Override
+	public String toString() {
+		long wins = getWins();
+		StringBuilder sb = new StringBuilder(String.format(
+				"%,dセグメント %,d局 %,dイベント（%,.1f MB）%n"
+						+ "あがり率 %.2f%% / 放銃率 %.2f%% / 平均打点 %,.0f点 / 平均 %.2f翻%n"
+						+ "ツモ %,d / ロン %,d / 流局 %,d / リーチ %,d / 鳴き %,d / 役満 %,d%n",
+				this.segments, this.rounds, this.events, this.bytes / 1e6,
+				getWinRate() * 100, getDealInRate() * 100, getAverageScore(), getAverageHan(),
+				this.tsumo, this.ron, this.draws, this.riichi, this.calls, this.yakuman));
+		sb.append("待ち:");
+		for (Machi m : MACHI) {
+			long count = getCount(m);
+			sb.append(String.format(" %s %,d (%.1f%%)", m.getName(), count, wins == 0 ? 0.0 : count * 100.0 / wins));
+		}
+		sb.append(String.format("%n役:"));
+		Integer[] order = new Integer[HANDS.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(this.hands[b], this.hands[a]));
+		for (int i : order) {
+			if (this.hands[i] > 0) {
+				sb.append(String.format("%n  %-8s %,10d (%.2f%%)", HANDS[i].getName(), this.hands[i],
+						this.hands[i] * 100.0 / wins));
+			}
+		}
+		return sb.toString();
+	}
+}
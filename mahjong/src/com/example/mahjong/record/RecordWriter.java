@@ -0,0 +1,180 @@
+package com.example.mahjong.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 局の記録をセグメントファイルに追記するクラスです。
+ *
+ * ファイルは「接頭辞-000000.mjr」のように番号を付けて作り、1つのセグメントが指定した大きさを超えそうになったら次の番号のファイルに移ります。
+ * 既存のファイルは上書きせず、ディレクトリにある最大の番号の次から作ります。
+ * 書き込みは{@link GameRecorder}がまとめた大きな塊（既定で1 MiB）単位で、塊の途中でセグメントを分けることはありません。
+ *
+ * 複数のスレッドの{@link GameRecorder}から同時に使えます。塊ごとに1回だけロックを取るため、競合はほとんど起きません。
+ */
+public final class RecordWriter implements Closeable {
+	/** セグメントの既定の大きさ */
+	public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+
+	/** セグメントを作るディレクトリ */
+	private final Path directory;
+	/** ファイル名の接頭辞 */
+	private final String prefix;
+	/** セグメントの大きさの上限 */
+	private final long segmentBytes;
+	/** 作ったセグメント */
+	private final List<Path> segments = new ArrayList<>();
+	/** 書き込み中のセグメント。まだなければnull */
+	private FileChannel channel;
+	/** 書き込み中のセグメントの大きさ */
+	private long segmentSize;
+	/** 次のセグメントの番号 */
+	private int nextIndex;
+	/** 書き込んだ記録のバイト数（ヘッダーを除く） */
+	private long bytesWritten;
+	/** 閉じたか */
+	private boolean closed;
+
+	/**
+	 * 既定の大きさのセグメントに書き込むRecordWriterを生成します。
+	 *
+	 * @param directory セグメントを作るディレクトリ（なければ作ります）
+	 * @param prefix ファイル名の接頭辞
+	 * @throws IOException ディレクトリを作れない場合
+	 */
+	public RecordWriter(Path directory, String prefix) throws IOException {
+		this(directory, prefix, DEFAULT_SEGMENT_BYTES);
+	}
+
+	/**
+	 * 指定した大きさのセグメントに書き込むRecordWriterを生成します。
+	 *
+	 * @param directory セグメントを作るディレクトリ（なければ作ります）
+	 * @param prefix ファイル名の接頭辞
+	 * @param segmentBytes セグメントの大きさの上限
+	 * @throws IOException ディレクトリを作れない場合
+	 */
+	public RecordWriter(Path directory, String prefix, long segmentBytes) throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.prefix = prefix;
+		this.segmentBytes = segmentBytes;
+		try (DirectoryStream<Path> existing = Files.newDirectoryStream(directory, prefix + "-*" + RecordFormat.EXTENSION)) {
+			for (Path file : existing) {
+				String name = file.getFileName().toString();
+				String number = name.substring(prefix.length() + 1, name.length() - RecordFormat.EXTENSION.length());
+				try {
+					this.nextIndex = Math.max(this.nextIndex, Integer.parseInt(number) + 1);
+				} catch (NumberFormatException e) {
+					// 番号でないファイルは無視する
+				}
+			}
+		}
+	}
+
+	/**
+	 * 局の記録の塊を追記します。塊は1つ以上の完全な局の記録でなければなりません。
+	 *
+	 * @param data 記録の塊
+	 * @param offset 塊の開始位置
+	 * @param length 塊の長さ
+	 * @throws IOException 書き込みに失敗した場合。途中まで書いた分は切り詰めて、呼び出す前の大きさに戻します
+	 * @throws IllegalStateException 閉じた後に呼び出した場合
+	 */
+	public synchronized void append(byte[] data, int offset, int length) throws IOException {
+		if (this.closed) {
+			throw new IllegalStateException("RecordWriterは閉じています。");
+		}
+		if (length == 0) {
+			return;
+		}
+		if (this.channel == null || this.segmentSize > RecordFormat.HEADER_BYTES && this.segmentSize + length > this.segmentBytes) {
+			roll();
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(data, offset, length);
+		try {
+			while (buffer.hasRemaining()) {
+				this.channel.write(buffer);
+			}
+		} catch (IOException e) {
+			// 書きかけの塊を残すと、後ろに続く局まで読めなくなるため、最後の完全な局の後ろまで戻す
+			try {
+				this.channel.truncate(this.segmentSize);
+				this.channel.position(this.segmentSize);
+			} catch (IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			throw e;
+		}
+		this.segmentSize += length;
+		this.bytesWritten += length;
+	}
+
+	/**
+	 * 今のセグメントを閉じて、次の番号のセグメントを作ります。
+	 */
+	private void roll() throws IOException {
+		if (this.channel != null) {
+			this.channel.close();
+		}
+		Path file = this.directory.resolve(String.format("%s-%06d%s", this.prefix, this.nextIndex++, RecordFormat.EXTENSION));
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		ByteBuffer header = ByteBuffer.allocate(RecordFormat.HEADER_BYTES);
+		header.put(RecordFormat.MAGIC).put((byte) RecordFormat.VERSION).rewind();
+		while (header.hasRemaining()) {
+			this.channel.write(header);
+		}
+		this.segmentSize = RecordFormat.HEADER_BYTES;
+		this.segments.add(file);
+	}
+
+	/**
+	 * 書き込んだ内容をディスクに書き出します。
+	 *
+	 * @throws IOException 書き出しに失敗した場合
+	 */
+	public synchronized void force() throws IOException {
+		if (this.channel != null) {
+			this.channel.force(false);
+		}
+	}
+
+	/**
+	 * セグメントを閉じます。閉じた後は追記できません。
+	 *
+	 * @throws IOException 閉じるのに失敗した場合
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		this.closed = true;
+		if (this.channel != null) {
+			this.channel.close();
+			this.channel = null;
+		}
+	}
+
+	/**
+	 * このRecordWriterが作ったセグメントを、作った順に返します。
+	 *
+	 * @return セグメントのファイル
+	 */
+	public synchronized List<Path> getSegments() {
+		return new ArrayList<>(this.segments);
+	}
+
+	/**
+	 * 書き込んだ記録のバイト数を返します。セグメントのヘッダーは含みません。
+	 *
+	 * @return バイト数
+	 */
+	public synchronized long getBytesWritten() {
+		return this.bytesWritten;
+	}
+}
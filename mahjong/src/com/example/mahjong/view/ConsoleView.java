@@ -2,6 +2,7 @@ package com.example.mahjong.view;
 
 import java.util.List;
 import java.util.Scanner;
+import com.example.mahjong.model.DiscardOption;
 import com.example.mahjong.model.TileType;
 import com.example.mahjong.model.Hands;
 
@@ -75,6 +76,18 @@ public class ConsoleView {
         System.out.println(tile + "をツモってきたよ");
     }
 
+    /**
+     * 打牌の候補の評価を、順位の高いものから最大3つ表示します。
+     *
+     * @param options 順位の高い順に並べた打牌の候補
+     */
+    public void showDiscardAdvice(List<DiscardOption> options) {
+        System.out.println("おすすめの打牌:");
+        for (int i = 0; i < Math.min(3, options.size()); i++) {
+            System.out.println("  " + (i + 1) + ". " + options.get(i));
+        }
+    }
+
     /**
      * ユーザーに捨てる牌のインデックスを入力させます。
      * 有効な数値（1から手牌のサイズまで）が入力されるまで、入力を求め続けます。
@@ -0,0 +1,197 @@
+package test.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import com.example.mahjong.controller.HostedTable;
+import com.example.mahjong.controller.QueuedSeatInput;
+import com.example.mahjong.controller.SeatInput;
+import com.example.mahjong.controller.TableHost;
+import com.example.mahjong.controller.TableListener;
+import com.example.mahjong.model.CallMatrix;
+import com.example.mahjong.model.Strategy;
+import com.example.mahjong.model.Table;
+
+/**
+ * {@link QueuedSeatInput}の答えの受け渡しと、{@link TableHost}の卓の数の制限・取り消し・終了を確かめるテストです。
+ */
+@Timeout(60)
+public class TableHostTest {
+	/**
+	 * 問いが見えた直後に答えると、ゲームループが待ち始める前でも答えを受け取ることを確かめます。
+	 */
+	@Test
+	public void answerBeforeLoopBlocksIsKept() throws InterruptedException {
+		QueuedSeatInput input = new QueuedSeatInput();
+		for (int i = 0; i < 1000; i++) {
+			boolean expected = i % 2 == 0;
+			AtomicBoolean result = new AtomicBoolean(!expected);
+			Thread loop = new Thread(() -> {
+				try {
+					result.set(input.declareRiichi(new int[34], 0L, null, 0));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			loop.start();
+			while (input.getPending() == null) {
+				Thread.onSpinWait();
+			}
+			assertEquals(QueuedSeatInput.Request.RIICHI, input.getPending());
+			assertTrue(input.submit(input.getQuestion(), expected ? 1 : 0), "答えを受け取りませんでした: " + i);
+			loop.join();
+			assertEquals(expected, result.get());
+			assertNull(input.getPending());
+		}
+	}
+
+	/**
+	 * 前の問いの番号をつけた答えは断り、今の問いの答えだけを受け取ることを確かめます。
+	 */
+	@Test
+	public void staleAnswersAreRejected() throws InterruptedException {
+		QueuedSeatInput input = new QueuedSeatInput();
+		assertFalse(input.submit(input.getQuestion(), 0), "何も尋ねていません");
+
+		int[] hand = new int[34];
+		hand[5] = 1;
+		hand[9] = 1;
+		AtomicInteger discard = new AtomicInteger(-1);
+		Thread loop = new Thread(() -> {
+			try {
+				discard.set(input.selectDiscard(hand, 9, null, 0));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		loop.start();
+		while (input.getPending() == null) {
+			Thread.onSpinWait();
+		}
+		long question = input.getQuestion();
+		assertFalse(input.submit(question - 1, 5));
+		assertTrue(input.submit(question, 5));
+		loop.join();
+		assertEquals(5, discard.get());
+	}
+
+	/**
+	 * 時間切れなら代わりの戦略で判断することを確かめます。
+	 */
+	@Test
+	public void timeoutFallsBackToStrategy() throws InterruptedException {
+		QueuedSeatInput input = new QueuedSeatInput(10, TimeUnit.MILLISECONDS, new Strategy() {
+			@Override
+			public boolean call(int action, int tileId, int[] handCount, Table table, int seat) {
+				return true;
+			}
+		});
+		assertTrue(input.call(CallMatrix.PON, 3, new int[34], null, 0));
+		assertNull(input.getPending());
+	}
+
+	@Test
+	public void openIsLimitedByMaxTables() throws Exception {
+		try (TableHost host = new TableHost(2)) {
+			QueuedSeatInput[] humans = { new QueuedSeatInput(), new QueuedSeatInput() };
+			HostedTable first = host.open(seats(humans[0]), 1, Long.MAX_VALUE);
+			host.open(seats(humans[1]), 2, Long.MAX_VALUE);
+			assertEquals(2, host.getOpenTables());
+			assertThrows(RejectedExecutionException.class,
+					() -> host.open(seats(new QueuedSeatInput()), 3, Long.MAX_VALUE));
+			assertThrows(RejectedExecutionException.class,
+					() -> host.open(seats(new QueuedSeatInput()), 3, Long.MAX_VALUE, 10, TimeUnit.MILLISECONDS));
+
+			// どちらの卓も最初の打牌の入力待ちで止まっている
+			for (QueuedSeatInput human : humans) {
+				while (human.getPending() == null) {
+					Thread.sleep(1);
+				}
+			}
+			first.cancel();
+			awaitDone(first);
+			assertTrue(first.getCompletion().isCancelled());
+
+			// 取り消した卓の許可が戻れば、次の卓を開ける
+			HostedTable third = host.open(seats(new QueuedSeatInput()), 3, Long.MAX_VALUE, 10, TimeUnit.SECONDS);
+			assertFalse(third.isDone());
+			assertEquals(2, host.getOpenTables());
+		}
+	}
+
+	@Test
+	public void closeCancelsEveryTable() throws InterruptedException {
+		TableHost host = new TableHost(4);
+		AtomicInteger closed = new AtomicInteger();
+		AtomicInteger failed = new AtomicInteger();
+		CountDownLatch opened = new CountDownLatch(3);
+		host.addListener(new TableListener() {
+			@Override
+			public void tableOpened(HostedTable table) {
+				opened.countDown();
+			}
+
+			@Override
+			public void tableClosed(HostedTable table, Throwable failure) {
+				closed.incrementAndGet();
+				if (failure != null) {
+					failed.incrementAndGet();
+				}
+			}
+		});
+		HostedTable[] tables = new HostedTable[3];
+		for (int i = 0; i < tables.length; i++) {
+			tables[i] = host.open(seats(new QueuedSeatInput()), i, Long.MAX_VALUE);
+		}
+		assertTrue(opened.await(10, TimeUnit.SECONDS));
+		host.close();
+
+		for (HostedTable table : tables) {
+			assertTrue(table.isDone());
+			assertTrue(table.getCompletion().isCancelled());
+		}
+		assertEquals(3, closed.get());
+		assertEquals(0, failed.get());
+		assertEquals(0, host.getOpenTables());
+		assertThrows(IllegalStateException.class, () -> host.open(seats(new QueuedSeatInput()), 9, 1));
+		// 2回目のcloseは何もしない
+		host.close();
+	}
+
+	/**
+	 * ボットだけの卓は、決めた数の対局を終えると正常に閉じることを確かめます。
+	 */
+	@Test
+	public void botTableFinishes() throws Exception {
+		try (TableHost host = new TableHost(1)) {
+			SeatInput bot = SeatInput.bot(new Strategy() {});
+			HostedTable table = host.open(new SeatInput[] { bot, bot, bot, bot }, 7, 3);
+			table.getCompletion().get(30, TimeUnit.SECONDS);
+			assertEquals(3, table.getGamesPlayed());
+			assertFalse(table.isCancelled());
+		}
+	}
+
+	private static SeatInput[] seats(QueuedSeatInput human) {
+		SeatInput bot = SeatInput.bot(new Strategy() {});
+		return new SeatInput[] { human, bot, bot, bot };
+	}
+
+	private static void awaitDone(HostedTable table) throws InterruptedException {
+		while (!table.isDone()) {
+			Thread.sleep(1);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package test.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.mahjong.model.AgariCorpus;
+import com.example.mahjong.model.AgariCorpusGenerator;
+import com.example.mahjong.model.Judge;
+
+/**
+ * {@link AgariCorpusGenerator}で作ったコーパスのすべてのレコードを、{@link Judge}の判定と突き合わせる差分テストです。
+ *
+ * あがり形だけのコーパス（約1700万件、約190MB）は毎回作って確かめます。
+ * テンパイ形まで含めたコーパスは約1億件・1.6GBあり生成に時間がかかるため、
+ * {@code mvn test -Dmahjong.corpus.tenpai=true}を指定したときだけ確かめます。
+ */
+public class AgariCorpusTest {
+	/** 么九牌のID */
+	private static final int[] YAOCHU = { 0, 8, 9, 17, 18, 26, 27, 28, 29, 30, 31, 32, 33 };
+
+	/**
+	 * あがり形のレコードがすべてあがり形で、種類の七対子・国士無双のビットが手牌と合っていることを確かめます。
+	 * 各レコードから1枚抜いた13枚の待ちに、抜いた牌が含まれることも{@link Judge#judgeMachi(int[])}で確かめます。
+	 */
+	@Test
+	public void everyAgariRecordMatchesJudge(@TempDir Path dir) throws IOException {
+		Path file = dir.resolve("agari.mjac");
+		long[] counts = new AgariCorpusGenerator(false, Runtime.getRuntime().availableProcessors()).generate(file);
+		assertEquals(0, counts[1]);
+
+		long records = AgariCorpus.forEach(file, new AgariCheck());
+		assertEquals(counts[0], records);
+
+		// 同じシードからは同じ手牌を選び、選んだ手牌はすべてあがり形
+		int[][] sample = AgariCorpus.sample(file, false, 256, 1L);
+		assertEquals(256, sample.length);
+		assertArrayEquals(sample, AgariCorpus.sample(file, false, 256, 1L));
+		for (int[] hand : sample) {
+			assertEquals(1, Judge.judgeAgari(hand), Arrays.toString(hand));
+		}
+		assertEquals(0, AgariCorpus.sample(file, true, 16, 1L).length);
+	}
+
+	/**
+	 * テンパイ形のレコードの待ちが、{@link Judge#judgeMachi(int[])}と一致することを確かめます。
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "mahjong.corpus.tenpai", matches = "true")
+	public void everyTenpaiRecordMatchesJudge(@TempDir Path dir) throws IOException {
+		Path file = dir.resolve("tenpai.mjac");
+		long[] counts = new AgariCorpusGenerator(true, Runtime.getRuntime().availableProcessors()).generate(file);
+		AgariCheck check = new AgariCheck();
+		long[] tenpai = new long[1];
+		long records = AgariCorpus.forEach(file, (kind, handCount, waits) -> {
+			if ((kind & AgariCorpus.TENPAI) == 0) {
+				check.visit(kind, handCount, waits);
+				return;
+			}
+			Supplier<String> message = () -> Arrays.toString(handCount);
+			assertEquals(13, Arrays.stream(handCount).sum(), message);
+			assertEquals(waits, Judge.judgeMachi(handCount), message);
+			tenpai[0]++;
+		});
+		assertEquals(counts[0] + counts[1], records);
+		assertEquals(counts[1], tenpai[0]);
+	}
+
+	/**
+	 * あがり形のレコードを1件ずつ確かめます。
+	 */
+	private static final class AgariCheck implements AgariCorpus.Visitor {
+		/** 確かめたレコードの数。抜く牌を選ぶのに使います */
+		private long seen;
+
+		@Override
+		public void visit(int kind, int[] handCount, long waits) {
+			Supplier<String> message = () -> Arrays.toString(handCount);
+			assertEquals(0L, waits, message);
+			assertEquals(1, Judge.judgeAgari(handCount), message);
+			assertEquals(1, Judge.judgeAgariByTable(handCount), message);
+			boolean chiitoi = isChiitoi(handCount);
+			boolean kokushi = isKokushi(handCount);
+			assertEquals(chiitoi, (kind & AgariCorpus.CHIITOI) != 0, message);
+			assertEquals(kokushi, (kind & AgariCorpus.KOKUSHI) != 0, message);
+			if (!chiitoi && !kokushi) {
+				assertTrue((kind & AgariCorpus.STANDARD) != 0, message);
+			}
+
+			// レコードごとに違う牌を抜き、抜いた牌で待っていることを確かめる
+			int skip = (int) (this.seen++ % 14);
+			int removed = 0;
+			while (skip >= handCount[removed]) {
+				skip -= handCount[removed];
+				removed++;
+			}
+			handCount[removed]--;
+			int tile = removed;
+			assertTrue((Judge.judgeMachi(handCount) >>> tile & 1L) != 0, () -> message.get() + " 抜いた牌" + tile);
+			handCount[removed]++;
+		}
+	}
+
+	private static boolean isChiitoi(int[] hand) {
+		int pairs = 0;
+		for (int count : hand) {
+			if (count == 2) {
+				pairs++;
+			}
+		}
+		return pairs == 7;
+	}
+
+	private static boolean isKokushi(int[] hand) {
+		int total = 0;
+		for (int id : YAOCHU) {
+			if (hand[id] == 0) {
+				return false;
+			}
+			total += hand[id];
+		}
+		return total == 14;
+	}
+}
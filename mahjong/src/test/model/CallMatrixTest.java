@@ -0,0 +1,169 @@
+package test.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.mahjong.model.CallMatrix;
+import com.example.mahjong.model.Judge;
+
+/**
+ * {@link CallMatrix}の席ごとの行動、優先される席と行動の決め方、結果の詰め方を確かめるテストです。
+ * 手牌は{@link JudgeTest#hand(String)}の表記で書き、待ち牌のビットは{@link Judge#judgeMachi(int[])}で求めます。
+ */
+public class CallMatrixTest {
+	/** 5sのID */
+	private static final int SOU5 = 22;
+	/** 2mのID */
+	private static final int MAN2 = 1;
+	/** 3mのID */
+	private static final int MAN3 = 2;
+
+	/**
+	 * 同じ牌で2人がロンできれば、どちらもロンが付き、捨てた席に近いほうが優先されることを確かめます。
+	 */
+	@Test
+	public void doubleRonKeepsEverySeat() {
+		int[][] hands = {
+				null,
+				JudgeTest.hand("234567m678p66s34s"),
+				JudgeTest.hand("123456789m55s19p"),
+				JudgeTest.hand("123p456p789s22s34s") };
+		int matrix = CallMatrix.evaluate(0, SOU5, hands, waits(hands), 0);
+		// 下家はチーもできるが、ロンと一緒に付く
+		assertEquals(CallMatrix.RON | CallMatrix.CHII, CallMatrix.options(matrix, 1));
+		assertEquals(CallMatrix.PON, CallMatrix.options(matrix, 2));
+		assertEquals(CallMatrix.RON, CallMatrix.options(matrix, 3));
+		assertEquals(0b1010, CallMatrix.ronSeats(matrix));
+		assertEquals(1, CallMatrix.caller(matrix));
+		assertEquals(CallMatrix.RON, CallMatrix.action(matrix));
+
+		// 席2が捨てれば、下家の席3が頭ハネで優先される
+		hands[0] = hands[2];
+		hands[2] = null;
+		matrix = CallMatrix.evaluate(2, SOU5, hands, waits(hands), 0);
+		assertEquals(0b1010, CallMatrix.ronSeats(matrix));
+		assertEquals(3, CallMatrix.caller(matrix));
+		assertEquals(CallMatrix.RON, CallMatrix.action(matrix));
+	}
+
+	/**
+	 * 下家のチーより、ほかの席のポンが優先されることを確かめます。
+	 */
+	@Test
+	public void ponBeatsChiiFromAnotherSeat() {
+		int[][] hands = {
+				null,
+				JudgeTest.hand("24m159p159s12345z"),
+				JudgeTest.hand("19m159p159s12345z"),
+				JudgeTest.hand("33m19p159s123456z") };
+		int matrix = CallMatrix.evaluate(0, MAN3, hands, new long[4], 0);
+		assertEquals(CallMatrix.CHII, CallMatrix.options(matrix, 1));
+		assertEquals(0, CallMatrix.options(matrix, 2));
+		assertEquals(CallMatrix.PON, CallMatrix.options(matrix, 3));
+		assertEquals(3, CallMatrix.caller(matrix));
+		assertEquals(CallMatrix.PON, CallMatrix.action(matrix));
+
+		// ポンの席がいなければチーが優先される
+		hands[3] = hands[2];
+		matrix = CallMatrix.evaluate(0, MAN3, hands, new long[4], 0);
+		assertEquals(1, CallMatrix.caller(matrix));
+		assertEquals(CallMatrix.CHII, CallMatrix.action(matrix));
+	}
+
+	/**
+	 * チーは捨てた席の下家だけが取れることを確かめます。
+	 */
+	@Test
+	public void chiiOnlyFromKamicha() {
+		int[] hand = JudgeTest.hand("24m159p159s12345z");
+		assertEquals(CallMatrix.CHII, CallMatrix.options(hand, 0L, MAN3, 1, false));
+		assertEquals(0, CallMatrix.options(hand, 0L, MAN3, 2, false));
+		assertEquals(0, CallMatrix.options(hand, 0L, MAN3, 3, false));
+
+		int[][] hands = { null, null, hand, hand };
+		int matrix = CallMatrix.evaluate(0, MAN3, hands, new long[4], 0);
+		assertEquals(0, matrix);
+		assertEquals(-1, CallMatrix.caller(matrix));
+		assertEquals(0, CallMatrix.action(matrix));
+	}
+
+	/**
+	 * リーチしている席には、ポン・チーができる牌でもロンだけが付くことを確かめます。
+	 */
+	@Test
+	public void riichiSeatIsOfferedOnlyRon() {
+		// 22m 34m 345p 678p 999sの2m5m待ち。2mはポンもチーもできる
+		int[] hand = JudgeTest.hand("2234m345678p999s");
+		long waits = Judge.judgeMachi(hand);
+		assertEquals(1L << MAN2 | 1L << 4, waits);
+		assertEquals(CallMatrix.PON | CallMatrix.CHII | CallMatrix.RON,
+				CallMatrix.options(hand, waits, MAN2, 1, false));
+		assertEquals(CallMatrix.RON, CallMatrix.options(hand, waits, MAN2, 1, true));
+		// 待ちでない牌は、チーできてもリーチ中は何も付かない
+		assertEquals(CallMatrix.CHII, CallMatrix.options(hand, waits, MAN3, 1, false));
+		assertEquals(0, CallMatrix.options(hand, waits, MAN3, 1, true));
+
+		int[][] hands = { null, hand, null, null };
+		long[] waitMasks = { 0L, waits, 0L, 0L };
+		int matrix = CallMatrix.evaluate(0, MAN2, hands, waitMasks, 0b0010);
+		assertEquals(CallMatrix.RON, CallMatrix.options(matrix, 1));
+		assertEquals(CallMatrix.RON, CallMatrix.action(matrix));
+	}
+
+	/**
+	 * 大明槓は同じ牌を3枚持っているときだけ付くことを確かめます。
+	 */
+	@Test
+	public void kanNeedsThreeTiles() {
+		int[] hand = JudgeTest.hand("333m19p159s12345z");
+		assertEquals(CallMatrix.PON | CallMatrix.KAN, CallMatrix.options(hand, 0L, MAN3, 2, false));
+		hand[MAN3]--;
+		assertEquals(CallMatrix.PON, CallMatrix.options(hand, 0L, MAN3, 2, false));
+		hand[MAN3]--;
+		assertEquals(0, CallMatrix.options(hand, 0L, MAN3, 2, false));
+
+		int[][] hands = { null, null, JudgeTest.hand("333m19p159s12345z"), null };
+		int matrix = CallMatrix.evaluate(0, MAN3, hands, new long[4], 0);
+		assertEquals(2, CallMatrix.caller(matrix));
+		assertEquals(CallMatrix.PON | CallMatrix.KAN, CallMatrix.action(matrix));
+	}
+
+	/**
+	 * ビット0〜15に席ごとの行動、ビット16〜18に優先される席 + 1、ビット20〜23にその行動を詰めることを確かめます。
+	 */
+	@Test
+	public void resolvePacksCallerAndAction() {
+		// 席1が捨て、席2がチー、席3と席0がポンできる。先に調べる席3のポンが優先される
+		int options = CallMatrix.CHII << 8 | CallMatrix.PON << 12 | CallMatrix.PON;
+		int matrix = CallMatrix.resolve(options, 1);
+		assertEquals(options | (3 + 1) << 16 | CallMatrix.PON << 20, matrix);
+		assertEquals(0, CallMatrix.ronSeats(matrix));
+		// ロンは最後に調べる席でも優先され、ビット16〜23はいつも書き直す
+		options |= CallMatrix.RON;
+		matrix = CallMatrix.resolve(options | 0xFF0000, 1);
+		assertEquals(options | (0 + 1) << 16 | CallMatrix.RON << 20, matrix);
+		assertEquals(0b0001, CallMatrix.ronSeats(matrix));
+
+		// 席3が捨てて3人ともロンできれば、ロンの席をすべて拾い、下家の席0を優先する
+		int triple = CallMatrix.RON | CallMatrix.RON << 4 | CallMatrix.RON << 8;
+		assertEquals(0b0111, CallMatrix.ronSeats(CallMatrix.resolve(triple, 3)));
+		assertEquals(0, CallMatrix.caller(CallMatrix.resolve(triple, 3)));
+		// 席1が捨てれば、席0より先に調べる席3が優先される
+		assertEquals(3, CallMatrix.caller(CallMatrix.resolve(CallMatrix.RON << 12 | CallMatrix.RON, 1)));
+
+		assertEquals(0, CallMatrix.resolve(0, 2));
+		assertEquals(-1, CallMatrix.caller(0));
+		assertEquals(0, CallMatrix.ronSeats(0));
+	}
+
+	private static long[] waits(int[][] hands) {
+		long[] waits = new long[4];
+		for (int seat = 0; seat < 4; seat++) {
+			if (hands[seat] != null) {
+				waits[seat] = Judge.judgeMachi(hands[seat]);
+			}
+		}
+		return waits;
+	}
+}
@@ -0,0 +1,174 @@
+package test.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.mahjong.model.AgariContext;
+import com.example.mahjong.model.DiscardAnalyzer;
+import com.example.mahjong.model.DiscardOption;
+import com.example.mahjong.model.Judge;
+
+/**
+ * {@link DiscardAnalyzer}の候補と順位を、打牌とツモを1枚ずつ試して向聴数を求め直す総当たりと突き合わせるテストです。
+ * 時間の上限を過ぎた候補が、見込み点数だけを省いて残ることも確かめます。
+ */
+public class DiscardAnalyzerTest {
+	/** 総当たりと突き合わせるときの時間の上限。見込み点数を省かないように十分長くします */
+	private static final long NO_LIMIT = 60_000_000_000L;
+
+	@Test
+	public void analyzeMatchesBruteForce() {
+		Random random = new Random(2);
+		DiscardAnalyzer analyzer = new DiscardAnalyzer();
+		AgariContext context = riichi();
+		int[] visible = new int[34];
+		int tenpai = 0;
+		for (int i = 0; i < 1500; i++) {
+			int[] hand = JudgeTest.randomHand(random, i % 2 == 0 ? 14 : 11, i % 3);
+			for (int id = 0; id < 34; id++) {
+				visible[id] = Math.min(random.nextInt(3), 4 - hand[id]);
+			}
+			int[] original = hand.clone();
+			List<DiscardOption> options = analyzer.analyze(hand, visible, i % 4 == 0 ? null : context, NO_LIMIT);
+			assertArrayEquals(original, hand, "手牌を書き換えています");
+			assertRanked(options);
+
+			// 手牌にある牌の種類ごとに、ちょうど1つずつ候補がある
+			long discards = 0L;
+			for (DiscardOption option : options) {
+				discards |= 1L << option.getTile().getId();
+			}
+			assertEquals(options.size(), Long.bitCount(discards));
+			for (int id = 0; id < 34; id++) {
+				assertEquals(hand[id] > 0, (discards >>> id & 1L) != 0, "牌" + id);
+			}
+
+			for (DiscardOption option : options) {
+				int discard = option.getTile().getId();
+				String message = Arrays.toString(original) + " 打" + discard;
+				hand[discard]--;
+				int shanten = Judge.shanten(hand);
+				long accept = 0L;
+				int unseen = 0;
+				for (int id = 0; id < 34; id++) {
+					if (hand[id] >= 4) {
+						continue;
+					}
+					hand[id]++;
+					if (Judge.shanten(hand) < shanten) {
+						accept |= 1L << id;
+						unseen += 4 - original[id] - visible[id];
+					}
+					hand[id]--;
+				}
+				hand[discard]++;
+				assertEquals(shanten, option.getShanten(), message);
+				assertEquals(accept, option.getAcceptMask(), message);
+				assertEquals(unseen, option.getUnseen(), message);
+				if (shanten != 0 || i % 4 == 0) {
+					assertEquals(-1, option.getExpectedScore(), message);
+				} else {
+					// リーチしているので、残っている待ち牌があれば必ず点数がつく
+					assertEquals(unseen > 0, option.getExpectedScore() > 0, message);
+					tenpai++;
+				}
+				if (shanten != 0) {
+					assertEquals(0, option.getWaitShapes(), message);
+				}
+			}
+		}
+		assertTrue(tenpai > 100, "見込み点数を求めたテンパイの候補 " + tenpai);
+	}
+
+	/**
+	 * 時間の上限を過ぎていれば、候補は減らさず、向聴数と受け入れを求めたうえで見込み点数を-1にすることを確かめます。
+	 */
+	@Test
+	public void candidatesPastDeadlineAreKeptWithoutScore() {
+		Random random = new Random(3);
+		DiscardAnalyzer analyzer = new DiscardAnalyzer();
+		AgariContext context = riichi();
+		int[] visible = new int[34];
+		for (int i = 0; i < 300; i++) {
+			int[] hand = JudgeTest.randomHand(random, 14, 0);
+			List<DiscardOption> full = analyzer.analyze(hand, visible, context, NO_LIMIT);
+			List<DiscardOption> late = analyzer.analyze(hand, visible, context, 0L);
+			assertEquals(full.size(), late.size());
+			assertRanked(late);
+			for (DiscardOption option : late) {
+				assertEquals(-1, option.getExpectedScore());
+				DiscardOption expected = full.stream()
+						.filter(other -> other.getTile() == option.getTile())
+						.findFirst().orElseThrow();
+				String message = Arrays.toString(hand) + " 打" + option.getTile().getId();
+				assertEquals(expected.getShanten(), option.getShanten(), message);
+				assertEquals(expected.getAcceptMask(), option.getAcceptMask(), message);
+				assertEquals(expected.getUnseen(), option.getUnseen(), message);
+				assertEquals(expected.getWaitShapes(), option.getWaitShapes(), message);
+			}
+		}
+	}
+
+	/**
+	 * 見込み点数まで求めるテンパイの手牌でも、1手の解析が既定の上限（5ミリ秒）に収まることを確かめます。
+	 * 負荷の高いマシンで1回だけ遅れても落ちないように、中央値で比べます。
+	 */
+	@Test
+	public void typicalTurnFitsDefaultBudget() {
+		assertEquals(5_000_000L, DiscardAnalyzer.DEFAULT_BUDGET_NANOS);
+		Random random = new Random(5);
+		DiscardAnalyzer analyzer = new DiscardAnalyzer();
+		AgariContext context = riichi();
+		int[] visible = new int[34];
+		int[][] hands = new int[200][];
+		for (int i = 0; i < hands.length; i++) {
+			hands[i] = JudgeTest.randomHand(random, 14, i % 2);
+		}
+		// JITの分を除くため、一度通してから測る
+		for (int[] hand : hands) {
+			analyzer.analyze(hand, visible, context, DiscardAnalyzer.DEFAULT_BUDGET_NANOS);
+		}
+		long[] elapsed = new long[hands.length];
+		for (int i = 0; i < hands.length; i++) {
+			long start = System.nanoTime();
+			analyzer.analyze(hands[i], visible, context, DiscardAnalyzer.DEFAULT_BUDGET_NANOS);
+			elapsed[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(elapsed);
+		long median = elapsed[elapsed.length / 2];
+		assertTrue(median < DiscardAnalyzer.DEFAULT_BUDGET_NANOS, "中央値 " + median + "ns");
+	}
+
+	/**
+	 * 候補が、向聴数が小さい順、見えていない受け入れが多い順、良形、見込み点数が高い順、牌IDの順に並んでいることを確かめます。
+	 */
+	private static void assertRanked(List<DiscardOption> options) {
+		for (int i = 1; i < options.size(); i++) {
+			DiscardOption a = options.get(i - 1);
+			DiscardOption b = options.get(i);
+			int[] keyA = { a.getShanten(), -a.getUnseen(), a.isGoodShape() ? 0 : 1, -a.getExpectedScore(),
+					a.getTile().getId() };
+			int[] keyB = { b.getShanten(), -b.getUnseen(), b.isGoodShape() ? 0 : 1, -b.getExpectedScore(),
+					b.getTile().getId() };
+			assertTrue(Arrays.compare(keyA, keyB) < 0, a + " / " + b);
+		}
+	}
+
+	/**
+	 * 子の立直の、ロンあがりのあがり状況を作ります。
+	 */
+	private static AgariContext riichi() {
+		AgariContext context = new AgariContext();
+		context.setSeatWind(1);
+		context.setFieldWind(0);
+		context.setRiichi(true);
+		return context;
+	}
+}
@@ -0,0 +1,105 @@
+package test.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.mahjong.model.CallMatrix;
+import com.example.mahjong.model.Player;
+import com.example.mahjong.model.Table;
+import com.example.mahjong.model.TileType;
+
+/**
+ * {@link Table}が記録するフリテンで、{@link Player#canCall}と{@link CallMatrix}がロンを付けなくなることを確かめるテストです。
+ * 席1は123p 456p 789s 22s 34sの2s5s待ちで、席0が2sを捨てます。
+ */
+public class FuritenTest {
+	/** 2sのID */
+	private static final int SOU2 = 19;
+	/** 5sのID */
+	private static final int SOU5 = 22;
+	/** 席1が2sに対してロンのほかに取れる行動。22sでポン、34sでチーができる */
+	private static final int CALLS = CallMatrix.PON | CallMatrix.CHII;
+
+	/**
+	 * 自分の捨て牌に待ち牌があればロンが付かず、{@link Table#clearFuriten()}で元に戻ることを確かめます。
+	 */
+	@Test
+	public void ownDiscardOfWaitBlocksRon() {
+		Table table = new Table();
+		Player[] players = players();
+		long waits = players[1].getWaitMask();
+		assertEquals(1L << SOU2 | 1L << SOU5, waits);
+
+		// 席1が5sを捨てた後で、席0が2sを捨てる
+		table.addDiscard(1, TileType.getTile(SOU5));
+		table.addDiscard(0, TileType.getTile(SOU2));
+		assertTrue(table.isFuriten(1, waits));
+		assertEquals(0L, table.ronWaitMask(1, waits));
+		players[1].canCall(table);
+		assertEquals(CALLS, players[1].getCallOptions());
+
+		int matrix = CallMatrix.evaluate(0, TileType.getTile(SOU2), players, table);
+		assertEquals(CALLS, CallMatrix.options(matrix, 1));
+		assertEquals(0, CallMatrix.ronSeats(matrix));
+		// 卓を渡さなければフリテンを考えない
+		matrix = CallMatrix.evaluate(0, TileType.getTile(SOU2), players);
+		assertEquals(CALLS | CallMatrix.RON, CallMatrix.options(matrix, 1));
+
+		table.clearFuriten();
+		assertFalse(table.isFuriten(1, waits));
+		assertEquals(waits, table.ronWaitMask(1, waits));
+		players[1].canCall(table);
+		assertEquals(CALLS | CallMatrix.RON, players[1].getCallOptions());
+		assertEquals(0b0010, CallMatrix.ronSeats(CallMatrix.evaluate(0, TileType.getTile(SOU2), players, table)));
+	}
+
+	/**
+	 * 見逃しの同巡内フリテンは自分が次に捨てると解け、リーチ後の見逃しは局の間ずっと続くことを確かめます。
+	 */
+	@Test
+	public void passedRonIsTemporaryUnlessRiichi() {
+		Table table = new Table();
+		Player[] players = players();
+		long waits = players[1].getWaitMask();
+
+		table.passRon(1, false);
+		table.addDiscard(0, TileType.getTile(SOU2));
+		assertTrue(table.isFuriten(1, waits));
+		players[1].canCall(table);
+		assertEquals(CALLS, players[1].getCallOptions());
+		table.addDiscard(1, TileType.getTile(0));
+		assertFalse(table.isFuriten(1, waits));
+
+		table.passRon(1, true);
+		table.addDiscard(1, TileType.getTile(0));
+		table.addDiscard(0, TileType.getTile(SOU2));
+		assertTrue(table.isFuriten(1, waits));
+		table.clearFuriten();
+		assertFalse(table.isFuriten(1, waits));
+	}
+
+	private static Player[] players() {
+		Player[] players = new Player[4];
+		players[1] = new Player();
+		players[1].setWind(1);
+		players[1].setHand(tiles("123p456p789s22s34s"));
+		return players;
+	}
+
+	private static List<TileType> tiles(String notation) {
+		int[] hand = JudgeTest.hand(notation);
+		List<TileType> tiles = new ArrayList<>();
+		for (int id = 0; id < hand.length; id++) {
+			for (int i = 0; i < hand[id]; i++) {
+				tiles.add(TileType.getTile(id));
+			}
+		}
+		return tiles;
+	}
+}
@@ -0,0 +1,130 @@
+package test.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import com.example.mahjong.model.GameEvent;
+import com.example.mahjong.model.GameEventBus;
+import com.example.mahjong.model.GameEventType;
+
+/**
+ * {@link GameEventBus}の配信の順序、遅い購読者の読み飛ばし、配信中の購読の解除を確かめるテストです。
+ * どのテストもイベントの{@link GameEvent#getInfo()}に通し番号と同じ値を入れて配信し、購読者は食い違えば-1を記録します。
+ */
+@Timeout(30)
+public class GameEventBusTest {
+	@Test
+	public void everySubscriberSeesEventsInOrder() throws InterruptedException {
+		GameEventBus bus = new GameEventBus(1024);
+		int events = 1000;
+		List<List<Integer>> received = new ArrayList<>();
+		List<GameEventBus.Subscription> subscriptions = new ArrayList<>();
+		for (int s = 0; s < 3; s++) {
+			List<Integer> infos = new ArrayList<>();
+			received.add(infos);
+			subscriptions.add(bus.subscribe(
+					event -> infos.add(event.getSequence() == event.getInfo() ? event.getInfo() : -1)));
+		}
+		for (int i = 0; i < events; i++) {
+			bus.publish(GameEventType.DISCARD, i & 3, i % 34, -1, i, i);
+		}
+		for (GameEventBus.Subscription subscription : subscriptions) {
+			awaitSequence(subscription, events - 1);
+			subscription.close();
+			assertEquals(0, subscription.getDropped());
+			assertEquals(0, subscription.getLag());
+		}
+		for (List<Integer> infos : received) {
+			assertEquals(events, infos.size());
+			for (int i = 0; i < events; i++) {
+				assertEquals(i, infos.get(i));
+			}
+		}
+	}
+
+	/**
+	 * 最初のイベントで止まった購読者は、リングバッファより古いイベントを読み飛ばし、読み飛ばした数を数えます。
+	 */
+	@Test
+	public void slowSubscriberIsOverrun() throws InterruptedException {
+		GameEventBus bus = new GameEventBus(16);
+		int events = 100;
+		CountDownLatch first = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<Long> sequences = new ArrayList<>();
+		GameEventBus.Subscription subscription = bus.subscribe(event -> {
+			sequences.add(event.getSequence() == event.getInfo() ? event.getSequence() : -1L);
+			first.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		bus.publish(GameEventType.DRAW, 0, 0, -1, 0, 0L);
+		assertTrue(first.await(10, TimeUnit.SECONDS));
+		for (int i = 1; i < events; i++) {
+			bus.publish(GameEventType.DISCARD, 0, i % 34, -1, i, i);
+		}
+		release.countDown();
+		awaitSequence(subscription, events - 1);
+		subscription.close();
+
+		assertEquals(events - 1 - bus.getCapacity(), subscription.getDropped());
+		assertEquals(events, sequences.size() + subscription.getDropped());
+		assertEquals(0L, sequences.get(0));
+		// 残っている最後のcapacity件を順に読む
+		for (int i = 1; i < sequences.size(); i++) {
+			assertEquals(events - bus.getCapacity() + i - 1, sequences.get(i));
+		}
+	}
+
+	/**
+	 * 配信が続いていても、購読の解除は解除した時点までのイベントを渡したところで戻ることを確かめます。
+	 */
+	@Test
+	public void closeWhilePublishingReturns() throws InterruptedException {
+		GameEventBus bus = new GameEventBus(64);
+		AtomicLong delivered = new AtomicLong();
+		GameEventBus.Subscription subscription = bus.subscribe(event -> {
+			LockSupport.parkNanos(10_000);
+			delivered.incrementAndGet();
+		});
+		Thread producer = new Thread(() -> {
+			for (long i = 0; !Thread.currentThread().isInterrupted(); i++) {
+				bus.publish(GameEventType.DISCARD, 0, 0, -1, (int) i, i);
+			}
+		});
+		producer.start();
+		while (delivered.get() < 10) {
+			Thread.sleep(1);
+		}
+		subscription.close();
+		long cursor = bus.getCursor();
+		long count = delivered.get();
+		assertTrue(subscription.getSequence() <= cursor);
+
+		// 解除した後は購読者が呼ばれない
+		Thread.sleep(50);
+		assertEquals(count, delivered.get());
+		producer.interrupt();
+		producer.join();
+	}
+
+	private static void awaitSequence(GameEventBus.Subscription subscription, long sequence)
+			throws InterruptedException {
+		while (subscription.getSequence() < sequence) {
+			Thread.sleep(1);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package test.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.mahjong.model.Judge;
+import com.example.mahjong.model.JudgeBatch;
+import com.example.mahjong.model.PackedHand;
+
+/**
+ * {@link JudgeBatch}のまとめた判定が、1つずつの{@link Judge}の判定と同じ結果になることを確かめるテストです。
+ */
+public class JudgeBatchTest {
+	/** 1回に判定する手牌の数 */
+	private static final int N = 20000;
+
+	@Test
+	public void batchMatchesScalarFor13Tiles() {
+		check(13, new Random(3));
+	}
+
+	@Test
+	public void batchMatchesScalarFor14Tiles() {
+		check(14, new Random(4));
+	}
+
+	private static void check(int tiles, Random random) {
+		byte[] hands = new byte[N * 34];
+		long[] packed = new long[N * 4];
+		for (int i = 0; i < N; i++) {
+			int[] hand = JudgeTest.randomHand(random, tiles, i % 3);
+			for (int id = 0; id < 34; id++) {
+				hands[i * 34 + id] = (byte) hand[id];
+			}
+			JudgeBatch.put(PackedHand.of(hand), packed, i);
+		}
+		byte[] agari = new byte[N];
+		byte[] shanten = new byte[N];
+		long[] machi = new long[N];
+		byte[] packedAgari = new byte[N];
+		byte[] packedShanten = new byte[N];
+		long[] packedMachi = new long[N];
+		JudgeBatch.judgeAgari(hands, agari);
+		JudgeBatch.shanten(hands, shanten);
+		JudgeBatch.judgeMachi(hands, machi);
+		JudgeBatch.judgeAgari(packed, packedAgari);
+		JudgeBatch.shanten(packed, packedShanten);
+		JudgeBatch.judgeMachi(packed, packedMachi);
+
+		for (int i = 0; i < N; i++) {
+			int[] hand = new int[34];
+			for (int id = 0; id < 34; id++) {
+				hand[id] = hands[i * 34 + id];
+			}
+			String message = "手牌" + i;
+			assertEquals(Judge.judgeAgariByTable(hand), agari[i], message);
+			assertEquals(Judge.shanten(hand), shanten[i], message);
+			assertEquals(tiles == 13 ? Judge.judgeMachi(hand) : 0L, machi[i], message);
+			assertEquals(agari[i], packedAgari[i], message);
+			assertEquals(shanten[i], packedShanten[i], message);
+			assertEquals(machi[i], packedMachi[i], message);
+		}
+	}
+}
@@ -0,0 +1,409 @@
+package test.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.mahjong.model.Judge;
+import com.example.mahjong.model.PackedHand;
+import com.example.mahjong.model.Player;
+import com.example.mahjong.model.TileType;
+
+/**
+ * {@link Judge}のあがり判定・待ちの判定・向聴数を、素朴な総当たりの判定と突き合わせるテストです。
+ */
+public class JudgeTest {
+	/** 么九牌のID */
+	private static final int[] YAOCHU = { 0, 8, 9, 17, 18, 26, 27, 28, 29, 30, 31, 32, 33 };
+
+	@Test
+	public void judgeAgariMatchesBruteForce() {
+		Random random = new Random(1);
+		for (int i = 0; i < 50000; i++) {
+			int[] hand = i % 2 == 0 ? randomHand(random, 14, i / 2 % 3) : completeHand(random);
+			String message = Arrays.toString(hand);
+			int expected = isAgari(hand) ? 1 : 0;
+			assertEquals(expected, Judge.judgeAgari(hand), message);
+			assertEquals(expected, Judge.judgeAgariByTable(hand), message);
+			assertEquals(expected, Judge.judgeAgari(PackedHand.of(hand)), message);
+		}
+	}
+
+	@Test
+	public void judgeMachiMatchesBruteForce() {
+		Random random = new Random(2);
+		for (int i = 0; i < 50000; i++) {
+			int[] hand = randomHand(random, 13, i % 3);
+			String message = Arrays.toString(hand);
+			long expected = machi(hand);
+			assertEquals(expected, Judge.judgeMachi(hand), message);
+			assertEquals(expected, Judge.judgeMachi(PackedHand.of(hand)), message);
+		}
+	}
+
+	@Test
+	public void kokushiHasWaitsAndWins() {
+		int[] thirteen = new int[34];
+		for (int id : YAOCHU) {
+			thirteen[id] = 1;
+		}
+		long all = 0;
+		for (int id : YAOCHU) {
+			all |= 1L << id;
+		}
+		assertEquals(all, Judge.judgeMachi(thirteen));
+
+		int[] single = thirteen.clone();
+		single[0] = 2;
+		single[33] = 0;
+		assertEquals(1L << 33, Judge.judgeMachi(single));
+		single[33]++;
+		assertEquals(1, Judge.judgeAgari(single));
+		assertEquals(1, Judge.judgeAgariByTable(single));
+	}
+
+	@Test
+	public void shantenMatchesBruteForce() {
+		Random random = new Random(5);
+		for (int i = 0; i < 20000; i++) {
+			int tiles = i % 2 == 0 ? 13 : 14;
+			int[] hand = randomHand(random, tiles, i / 2 % 3);
+			int expected = Math.min(standardShanten(hand), Math.min(chiitoiShanten(hand), kokushiShanten(hand)));
+			assertEquals(expected, Judge.shanten(hand), Arrays.toString(hand));
+		}
+	}
+
+	/**
+	 * 13枚の手牌の向聴数が0になるのは、牌を1枚足してあがれる場合だけであることを確かめます。
+	 * 向聴数は残り枚数を見ないため、ここでは手牌に4枚ある牌も5枚目として足します。
+	 */
+	@Test
+	public void zeroShantenMeansSomeTileCompletes() {
+		Random random = new Random(6);
+		for (int i = 0; i < 20000; i++) {
+			int[] hand = randomHand(random, 13, i % 3);
+			boolean completes = false;
+			for (int id = 0; id < 34 && !completes; id++) {
+				hand[id]++;
+				completes = isAgari(hand);
+				hand[id]--;
+			}
+			assertEquals(completes, Judge.shanten(hand) == 0, Arrays.toString(hand));
+		}
+	}
+
+	/**
+	 * 1萬を4枚持った1111m 234p 567p 789sは、1萬の単騎しか待ちがないため、向聴数は0でもテンパイではありません。
+	 */
+	@Test
+	public void waitOnlyOnFourHeldTileIsNotTenpai() {
+		int[] hand = new int[34];
+		hand[0] = 4;
+		for (int id : new int[] { 10, 11, 12, 13, 14, 15, 24, 25, 26 }) {
+			hand[id]++;
+		}
+		assertEquals(0, Judge.shanten(hand));
+		assertEquals(0L, Judge.judgeMachi(hand));
+		assertFalse(Judge.judgeTempai13(hand));
+		assertEquals(0, Judge.judgeTempai(hand));
+
+		Player player = new Player();
+		player.setHand(tiles(hand));
+		assertEquals(0L, player.getWaitMask());
+
+		// 1萬を切れば5字の単騎になるので、5字をツモった14枚はテンパイにとれる
+		player.tsumo(TileType.getTile(31));
+		assertTrue(player.isTenpai());
+		hand[31]++;
+		assertEquals(1, Judge.judgeTempai(hand));
+	}
+
+	/**
+	 * {@link Player}がツモ後と打牌後に答えるあがり・テンパイを、{@link Judge}で手牌から求め直した結果と突き合わせます。
+	 */
+	@Test
+	public void playerTenpaiMatchesJudge() {
+		Random random = new Random(4);
+		int tenpai = 0;
+		for (int i = 0; i < 2000; i++) {
+			int[] hand = randomHand(random, 13, i % 2);
+			Player player = new Player();
+			player.setHand(tiles(hand));
+			int draw;
+			do {
+				draw = random.nextInt(34);
+			} while (hand[draw] == 4);
+			player.tsumo(TileType.getTile(draw));
+			hand[draw]++;
+			String message = Arrays.toString(hand);
+			assertEquals(Judge.judgeAgari(hand) == 1, player.isAgari(), message);
+			assertEquals(Judge.judgeTempai(hand) == 1, player.isTenpai(), message);
+
+			// 打牌した後は、切った後の13枚形の待ちがあるかを答える
+			TileType discard = player.discard(random.nextInt(14));
+			hand[discard.getId()]--;
+			assertEquals(Judge.judgeTempai(hand) == 1, player.isTenpai(), message + " 打" + discard.getId());
+			assertEquals(player.getWaitMask() != 0L, player.isTenpai());
+			if (player.isTenpai()) {
+				tenpai++;
+			}
+		}
+		assertTrue(tenpai > 100, "テンパイの手牌 " + tenpai);
+	}
+
+	/**
+	 * "123m456p789s11z"のような表記から手牌カウント配列を作ります。字牌は1z〜7zが東南西北白發中です。
+	 */
+	static int[] hand(String notation) {
+		int[] hand = new int[34];
+		StringBuilder ranks = new StringBuilder();
+		for (char c : notation.toCharArray()) {
+			if (Character.isDigit(c)) {
+				ranks.append(c);
+				continue;
+			}
+			int base = "mpsz".indexOf(c) * 9;
+			for (int i = 0; i < ranks.length(); i++) {
+				hand[base + ranks.charAt(i) - '1']++;
+			}
+			ranks.setLength(0);
+		}
+		return hand;
+	}
+
+	/**
+	 * 指定した枚数の手牌を作ります。mode 0は萬子だけ、1は萬子と字牌、2はすべての牌から選びます。
+	 */
+	static int[] randomHand(Random random, int tiles, int mode) {
+		int[] hand = new int[34];
+		for (int n = 0; n < tiles;) {
+			int id = switch (mode) {
+				case 0 -> random.nextInt(9);
+				case 1 -> random.nextBoolean() ? random.nextInt(9) : 27 + random.nextInt(7);
+				default -> random.nextInt(34);
+			};
+			if (hand[id] < 4) {
+				hand[id]++;
+				n++;
+			}
+		}
+		return hand;
+	}
+
+	/**
+	 * 牌IDごとの枚数から、{@link Player}に渡す牌のリストを作ります。
+	 */
+	private static List<TileType> tiles(int[] hand) {
+		List<TileType> tiles = new ArrayList<>();
+		for (int id = 0; id < 34; id++) {
+			for (int n = 0; n < hand[id]; n++) {
+				tiles.add(TileType.getTile(id));
+			}
+		}
+		return tiles;
+	}
+
+	/**
+	 * 4面子1雀頭を組み合わせて、あがり形になりやすい14枚の手牌を作ります。
+	 * 同じ牌が5枚以上になった場合は作り直します。
+	 */
+	private static int[] completeHand(Random random) {
+		while (true) {
+			int[] hand = new int[34];
+			hand[random.nextInt(34)] += 2;
+			for (int m = 0; m < 4; m++) {
+				if (random.nextBoolean()) {
+					hand[random.nextInt(34)] += 3;
+				} else {
+					int first = random.nextInt(3) * 9 + random.nextInt(7);
+					hand[first]++;
+					hand[first + 1]++;
+					hand[first + 2]++;
+				}
+			}
+			if (Arrays.stream(hand).allMatch(count -> count <= 4)) {
+				return hand;
+			}
+		}
+	}
+
+	/**
+	 * 13枚の手牌に牌を1枚ずつ足して、あがりになる牌を集めます。4枚とも手牌にある牌は足しません。
+	 */
+	private static long machi(int[] hand) {
+		long machi = 0;
+		for (int id = 0; id < 34; id++) {
+			if (hand[id] < 4) {
+				hand[id]++;
+				if (isAgari(hand)) {
+					machi |= 1L << id;
+				}
+				hand[id]--;
+			}
+		}
+		return machi;
+	}
+
+	/**
+	 * 一般形の向聴数を、面子・搭子・雀頭の取り方をすべて試して求めます。
+	 * 向聴数は 2×必要な面子数 - 2×面子 - 搭子 - 雀頭 で、搭子は足りない面子の数までしか数えません。
+	 */
+	private static int standardShanten(int[] hand) {
+		int blocks = Arrays.stream(hand).sum() / 3;
+		int[] best = { 2 * blocks };
+		searchBlocks(hand, 0, 0, 0, false, blocks, best);
+		return best[0];
+	}
+
+	private static void searchBlocks(int[] hand, int from, int mentsu, int taatsu, boolean pair, int blocks,
+			int[] best) {
+		int id = from;
+		while (id < 34 && hand[id] == 0) {
+			id++;
+		}
+		if (id == 34) {
+			int shanten = 2 * blocks - 2 * mentsu - Math.min(taatsu, blocks - mentsu) - (pair ? 1 : 0);
+			best[0] = Math.min(best[0], shanten);
+			return;
+		}
+		boolean number = id < 27;
+		int rank = id % 9;
+		if (hand[id] >= 3) {
+			hand[id] -= 3;
+			searchBlocks(hand, id, mentsu + 1, taatsu, pair, blocks, best);
+			hand[id] += 3;
+		}
+		if (number && rank <= 6 && hand[id + 1] > 0 && hand[id + 2] > 0) {
+			hand[id]--;
+			hand[id + 1]--;
+			hand[id + 2]--;
+			searchBlocks(hand, id, mentsu + 1, taatsu, pair, blocks, best);
+			hand[id]++;
+			hand[id + 1]++;
+			hand[id + 2]++;
+		}
+		if (hand[id] >= 2) {
+			hand[id] -= 2;
+			if (!pair) {
+				searchBlocks(hand, id, mentsu, taatsu, true, blocks, best);
+			}
+			searchBlocks(hand, id, mentsu, taatsu + 1, pair, blocks, best);
+			hand[id] += 2;
+		}
+		for (int gap = 1; gap <= 2; gap++) {
+			if (number && rank + gap <= 8 && hand[id + gap] > 0) {
+				hand[id]--;
+				hand[id + gap]--;
+				searchBlocks(hand, id, mentsu, taatsu + 1, pair, blocks, best);
+				hand[id]++;
+				hand[id + gap]++;
+			}
+		}
+		// どのブロックにも使わない孤立牌
+		hand[id]--;
+		searchBlocks(hand, id, mentsu, taatsu, pair, blocks, best);
+		hand[id]++;
+	}
+
+	/**
+	 * 七対子の向聴数です。対子は違う種類の牌で7組必要なので、種類が7に満たない分も足します。
+	 */
+	private static int chiitoiShanten(int[] hand) {
+		int pairs = 0;
+		int kinds = 0;
+		for (int count : hand) {
+			pairs += count >= 2 ? 1 : 0;
+			kinds += count >= 1 ? 1 : 0;
+		}
+		return 6 - pairs + Math.max(0, 7 - kinds);
+	}
+
+	/**
+	 * 国士無双の向聴数です。么九牌の種類の数と、么九牌の対子があるかで決まります。
+	 */
+	private static int kokushiShanten(int[] hand) {
+		int kinds = 0;
+		boolean pair = false;
+		for (int id : YAOCHU) {
+			kinds += hand[id] >= 1 ? 1 : 0;
+			pair |= hand[id] >= 2;
+		}
+		return 13 - kinds - (pair ? 1 : 0);
+	}
+
+	/**
+	 * 14枚の手牌が基本形・七対子・国士無双のどれかになっているかを総当たりで調べます。
+	 */
+	private static boolean isAgari(int[] hand) {
+		int pairs = 0;
+		for (int count : hand) {
+			if (count == 2) {
+				pairs++;
+			}
+		}
+		if (pairs == 7 || isKokushi(hand)) {
+			return true;
+		}
+		for (int id = 0; id < 34; id++) {
+			if (hand[id] >= 2) {
+				hand[id] -= 2;
+				boolean agari = isMentsu(hand, 0);
+				hand[id] += 2;
+				if (agari) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean isKokushi(int[] hand) {
+		int total = 0;
+		for (int id : YAOCHU) {
+			if (hand[id] == 0) {
+				return false;
+			}
+			total += hand[id];
+		}
+		return total == 14;
+	}
+
+	/**
+	 * 残りの牌がすべて面子に分けられるかを調べます。一番小さい牌は、刻子か順子の先頭のどちらかに使うしかありません。
+	 */
+	private static boolean isMentsu(int[] hand, int from) {
+		int id = from;
+		while (id < 34 && hand[id] == 0) {
+			id++;
+		}
+		if (id == 34) {
+			return true;
+		}
+		if (hand[id] >= 3) {
+			hand[id] -= 3;
+			boolean ok = isMentsu(hand, id);
+			hand[id] += 3;
+			if (ok) {
+				return true;
+			}
+		}
+		if (id < 27 && id % 9 <= 6 && hand[id + 1] > 0 && hand[id + 2] > 0) {
+			hand[id]--;
+			hand[id + 1]--;
+			hand[id + 2]--;
+			boolean ok = isMentsu(hand, id);
+			hand[id]++;
+			hand[id + 1]++;
+			hand[id + 2]++;
+			return ok;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,190 @@
+package test.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.mahjong.model.MentsuDecomposer;
+
+/**
+ * {@link MentsuDecomposer}が、あがり形の分解を重複なく、すべて列挙することを確かめるテストです。
+ * 分解は「雀頭 面子…」の文字列にし、面子はKが刻子、Sが順子です（K0は1mの刻子、S9は123pの順子）。
+ */
+public class MentsuDecomposerTest {
+	@Test
+	public void sameTilesSplitAsKoutsuOrShuntsu() {
+		assertEquals(List.of("17 K0 K1 K2", "17 S0 S0 S0"), decompositions(JudgeTest.hand("111222333m99p")));
+		// 4枚ずつなら、刻子3つと順子1つか、順子4つ
+		assertEquals(List.of("13 K0 K1 K2 S0", "13 S0 S0 S0 S0"),
+				decompositions(JudgeTest.hand("111122223333m55p")));
+	}
+
+	@Test
+	public void ryanpeikouHasOneSplit() {
+		assertEquals(List.of("16 S0 S0 S21 S21"), decompositions(JudgeTest.hand("112233m445566s88p")));
+		// 1色で続いていても、112233と445566に分けるほかない
+		assertEquals(List.of("16 S0 S0 S3 S3"), decompositions(JudgeTest.hand("112233m445566m88p")));
+	}
+
+	@Test
+	public void nonWinningHandHasNoSplit() {
+		assertEquals(List.of(), decompositions(JudgeTest.hand("13579m2468p13579s")));
+		assertEquals(List.of(), decompositions(JudgeTest.hand("19m19p19s1234567z1m")));
+		// 3n+2枚でなければ探さない
+		assertEquals(0, new MentsuDecomposer().decompose(JudgeTest.hand("123m456p789s1122z"),
+				(jantou, kinds, tiles, size) -> {}));
+	}
+
+	/**
+	 * 無作為に作ったあがり形で、分解の数を総当たりで数えた数と突き合わせます。
+	 * 分解が起きやすいように、半分は1色だけで作ります。
+	 */
+	@Test
+	public void countMatchesBruteForce() {
+		Random random = new Random(7L);
+		MentsuDecomposer decomposer = new MentsuDecomposer();
+		int multiple = 0;
+		for (int n = 0; n < 5000; n++) {
+			int[] hand = randomAgari(random, n % 2 == 0);
+			int[] before = hand.clone();
+			List<String> found = new ArrayList<>();
+			int count = decomposer.decompose(hand, (jantou, kinds, tiles, size) -> {
+				found.add(decomposition(jantou, kinds, tiles, size));
+				assertArrayEquals(before, rebuild(jantou, kinds, tiles, size), Arrays.toString(before));
+			});
+			assertArrayEquals(before, hand);
+			assertEquals(found.size(), count);
+			assertEquals(found.size(), found.stream().distinct().count(), () -> "重複した分解: " + found);
+			assertEquals(bruteForce(hand), count, Arrays.toString(hand));
+			if (count > 1) {
+				multiple++;
+			}
+		}
+		// 分解が複数ある手牌も十分に確かめている
+		assertTrue(multiple > 100, "分解が複数ある手牌 " + multiple);
+	}
+
+	/**
+	 * 分解を並べた文字列のリストを返します。
+	 */
+	private static List<String> decompositions(int[] hand) {
+		List<String> found = new ArrayList<>();
+		new MentsuDecomposer().decompose(hand, (jantou, kinds, tiles, size) -> {
+			found.add(decomposition(jantou, kinds, tiles, size));
+		});
+		found.sort(null);
+		return found;
+	}
+
+	/**
+	 * 面子を種類と牌の順に並べた、分解の文字列を作ります。並べ替えるので、面子を抜いた順番によりません。
+	 */
+	private static String decomposition(int jantou, int[] kinds, int[] tiles, int size) {
+		String[] mentsu = new String[size];
+		for (int i = 0; i < size; i++) {
+			mentsu[i] = (kinds[i] == MentsuDecomposer.KOUTSU ? "K" : "S") + tiles[i];
+		}
+		Arrays.sort(mentsu, (a, b) -> a.charAt(0) != b.charAt(0) ? a.charAt(0) - b.charAt(0)
+				: Integer.parseInt(a.substring(1)) - Integer.parseInt(b.substring(1)));
+		return jantou + " " + String.join(" ", mentsu);
+	}
+
+	private static int[] rebuild(int jantou, int[] kinds, int[] tiles, int size) {
+		int[] hand = new int[34];
+		hand[jantou] += 2;
+		for (int i = 0; i < size; i++) {
+			if (kinds[i] == MentsuDecomposer.KOUTSU) {
+				hand[tiles[i]] += 3;
+			} else {
+				hand[tiles[i]]++;
+				hand[tiles[i] + 1]++;
+				hand[tiles[i] + 2]++;
+			}
+		}
+		return hand;
+	}
+
+	/**
+	 * 雀頭1つと4面子を無作為に選んだあがり形を作ります。同じ牌が5枚以上になれば選び直します。
+	 */
+	private static int[] randomAgari(Random random, boolean oneSuit) {
+		int suit = random.nextInt(3) * 9;
+		while (true) {
+			int[] hand = new int[34];
+			hand[oneSuit ? suit + random.nextInt(9) : random.nextInt(34)] += 2;
+			for (int m = 0; m < 4; m++) {
+				int tile = oneSuit ? suit + random.nextInt(9) : random.nextInt(34);
+				if (random.nextBoolean() && tile < 27 && tile % 9 <= 6) {
+					hand[tile]++;
+					hand[tile + 1]++;
+					hand[tile + 2]++;
+				} else {
+					hand[tile] += 3;
+				}
+			}
+			if (Arrays.stream(hand).allMatch(count -> count <= 4)) {
+				return hand;
+			}
+		}
+	}
+
+	/**
+	 * 雀頭と、面子の組み合わせ（34種の刻子と21種の順子から重複を許して4つ）をすべて試して、手牌と一致する数を数えます。
+	 */
+	private static int bruteForce(int[] hand) {
+		int count = 0;
+		for (int jantou = 0; jantou < 34; jantou++) {
+			if (hand[jantou] >= 2) {
+				int[] rest = hand.clone();
+				rest[jantou] -= 2;
+				count += chooseMentsu(rest, 0, 4);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 番号first以上の面子をleft個選んで、restをちょうど使い切る組み合わせの数を返します。
+	 * 番号0〜33は牌IDの刻子、34〜54は順子（萬子・筒子・索子の順に、最も小さい牌が1〜7）です。
+	 */
+	private static int chooseMentsu(int[] rest, int first, int left) {
+		if (left == 0) {
+			return Arrays.stream(rest).allMatch(count -> count == 0) ? 1 : 0;
+		}
+		int count = 0;
+		for (int m = first; m < 55; m++) {
+			int[] tiles = m < 34 ? new int[] { m, m, m } : shuntsu(m - 34);
+			if (take(rest, tiles)) {
+				count += chooseMentsu(rest, m, left - 1);
+				for (int tile : tiles) {
+					rest[tile]++;
+				}
+			}
+		}
+		return count;
+	}
+
+	private static int[] shuntsu(int index) {
+		int first = index / 7 * 9 + index % 7;
+		return new int[] { first, first + 1, first + 2 };
+	}
+
+	private static boolean take(int[] rest, int[] tiles) {
+		for (int i = 0; i < tiles.length; i++) {
+			if (--rest[tiles[i]] < 0) {
+				for (int j = 0; j <= i; j++) {
+					rest[tiles[j]]++;
+				}
+				return false;
+			}
+		}
+		return true;
+	}
+}
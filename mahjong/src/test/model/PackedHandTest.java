@@ -0,0 +1,167 @@
+package test.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.mahjong.model.PackedHand;
+import com.example.mahjong.model.TileType;
+
+/**
+ * {@link PackedHand}の枚数の上限と下限、等価性、リストや手牌カウント配列との変換を確かめるテストです。
+ */
+public class PackedHandTest {
+	/** 5mのID */
+	private static final int MAN5 = 4;
+	/** 中のID */
+	private static final int CHUN = 33;
+
+	@Test
+	public void fifthTileIsRejected() {
+		PackedHand hand = new PackedHand();
+		for (int i = 0; i < 4; i++) {
+			hand.add(MAN5);
+			hand.add(CHUN);
+		}
+		assertThrows(IllegalArgumentException.class, () -> hand.add(MAN5));
+		assertThrows(IllegalArgumentException.class, () -> hand.add(TileType.getTile(CHUN)));
+		// 失敗しても、隣の牌に繰り上がったり、枚数が変わったりしない
+		assertEquals(4, hand.count(MAN5));
+		assertEquals(0, hand.count(MAN5 + 1));
+		assertEquals(4, hand.count(CHUN));
+		assertEquals(8, hand.size());
+
+		int[] counts = new int[34];
+		counts[MAN5] = 5;
+		assertThrows(IllegalArgumentException.class, () -> PackedHand.of(counts));
+		counts[MAN5] = -1;
+		assertThrows(IllegalArgumentException.class, () -> PackedHand.of(counts));
+		List<TileType> five = Collections.nCopies(5, TileType.getTile(MAN5));
+		assertThrows(IllegalArgumentException.class, () -> PackedHand.of(five));
+	}
+
+	@Test
+	public void removingMissingTileIsRejected() {
+		PackedHand hand = new PackedHand();
+		assertThrows(IllegalArgumentException.class, () -> hand.remove(MAN5));
+		assertEquals(new PackedHand(), hand);
+		assertEquals(0, hand.size());
+
+		hand.add(MAN5 + 1);
+		assertThrows(IllegalArgumentException.class, () -> hand.remove(TileType.getTile(MAN5)));
+		// 失敗しても、隣の牌から借りたりしない
+		assertEquals(1, hand.count(MAN5 + 1));
+		assertEquals(0, hand.count(MAN5));
+		assertEquals(1, hand.size());
+		hand.remove(MAN5 + 1);
+		assertEquals(new PackedHand(), hand);
+	}
+
+	/**
+	 * 同じ牌を持つ手牌は、作り方や加えた順番によらず等しく、ハッシュ値も等しいことを確かめます。
+	 */
+	@Test
+	public void equalHandsHashEqual() {
+		Random random = new Random(6);
+		for (int i = 0; i < 2000; i++) {
+			List<TileType> tiles = randomTiles(random, 1 + random.nextInt(14));
+			PackedHand hand = PackedHand.of(tiles);
+			Collections.shuffle(tiles, random);
+			PackedHand shuffled = new PackedHand();
+			for (TileType tile : tiles) {
+				shuffled.add(tile);
+			}
+			assertEqualHands(hand, shuffled);
+			assertEqualHands(hand, PackedHand.of(hand.toCounts(new int[34])));
+			assertEqualHands(hand, hand.copy());
+			assertEqualHands(hand, new PackedHand(hand.suit(PackedHand.MAN), hand.suit(PackedHand.PIN),
+					hand.suit(PackedHand.SOU), hand.suit(PackedHand.HONOR)));
+
+			// 加えてから取り除けば元と等しく、加えたままなら等しくない
+			int id = random.nextInt(34);
+			if (shuffled.count(id) < 4) {
+				shuffled.add(id);
+				assertNotEquals(hand, shuffled);
+				shuffled.remove(id);
+				assertEqualHands(hand, shuffled);
+			}
+			TileType tile = tiles.get(random.nextInt(tiles.size()));
+			shuffled.remove(tile);
+			assertNotEquals(hand, shuffled);
+			shuffled.add(tile);
+			assertEqualHands(hand, shuffled);
+		}
+	}
+
+	@Test
+	public void ofListRoundTrips() {
+		Random random = new Random(7);
+		for (int i = 0; i < 2000; i++) {
+			List<TileType> tiles = randomTiles(random, random.nextInt(19));
+			List<TileType> sorted = new ArrayList<>(tiles);
+			sorted.sort(Comparator.comparingInt(TileType::getId));
+			PackedHand hand = PackedHand.of(tiles);
+			assertEquals(sorted, hand.toList());
+			assertEquals(tiles.size(), hand.size());
+			assertEquals(sorted, PackedHand.of(hand.toList()).toList());
+		}
+	}
+
+	/**
+	 * {@link PackedHand#of(int[])}で作った手牌の総枚数が、配列の合計と一致し、加えたり取り除いたりしても合い続けることを確かめます。
+	 */
+	@Test
+	public void sizeStaysConsistentAfterOfCounts() {
+		Random random = new Random(8);
+		for (int i = 0; i < 2000; i++) {
+			int[] counts = JudgeTest.randomHand(random, random.nextInt(15), 2);
+			PackedHand hand = PackedHand.of(counts);
+			assertEquals(Arrays.stream(counts).sum(), hand.size());
+			assertArrayEquals(counts, hand.toCounts(new int[34]));
+			for (int n = 0; n < 10; n++) {
+				int id = random.nextInt(34);
+				if (random.nextBoolean() && counts[id] < 4) {
+					hand.add(id);
+					counts[id]++;
+				} else if (counts[id] > 0) {
+					hand.remove(id);
+					counts[id]--;
+				}
+				assertEquals(Arrays.stream(counts).sum(), hand.size());
+				assertEquals(hand.toList().size(), hand.size());
+			}
+			assertArrayEquals(counts, hand.toCounts(new int[34]));
+		}
+	}
+
+	private static void assertEqualHands(PackedHand expected, PackedHand actual) {
+		assertEquals(expected, actual);
+		assertEquals(expected.hashCode(), actual.hashCode());
+		assertEquals(expected.size(), actual.size());
+	}
+
+	/**
+	 * 同じ牌が4枚を超えないように、無作為に牌を選んだリストを作ります。
+	 */
+	private static List<TileType> randomTiles(Random random, int size) {
+		int[] counts = JudgeTest.randomHand(random, size, 2);
+		List<TileType> tiles = new ArrayList<>();
+		for (int id = 0; id < 34; id++) {
+			for (int n = 0; n < counts[id]; n++) {
+				tiles.add(TileType.getTile(id));
+			}
+		}
+		Collections.shuffle(tiles, random);
+		return tiles;
+	}
+}
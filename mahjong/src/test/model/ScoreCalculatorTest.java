@@ -0,0 +1,127 @@
+package test.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.mahjong.model.AgariContext;
+import com.example.mahjong.model.MentsuDecomposer;
+import com.example.mahjong.model.Score;
+import com.example.mahjong.model.ScoreCalculator;
+import com.example.mahjong.model.YakuEvaluator;
+
+/**
+ * {@link ScoreCalculator}の支払いを、決まった手牌とドラ・積み棒・供託の組み合わせごとに点数表の値と突き合わせるテストです。
+ * あがるのはいつも席1で、ロンなら席2が放銃します。親の席は自風から決まります。
+ */
+public class ScoreCalculatorTest {
+	/** 234567m 345p 678s 99sの2mツモ。平和・ツモの2翻20符 */
+	private static final int PINFU_TSUMO = 0;
+	/** 111222333m 456p 77sの4pロン。三暗刻の2翻50符 */
+	private static final int SANANKOU_RON = 1;
+	/** 234sをチーした234567m 345p 88pの2mロン。断么九の1翻30符 */
+	private static final int TANYAO_RON = 2;
+	/** 111m 99m 333p 555s 777sの7sツモ。四暗刻 */
+	private static final int SUUANKOU_TSUMO = 3;
+
+	/** 手牌, 自風, ドラ, 積み棒, 供託, 席0〜3の増減 */
+	private static final int[][] CASES = {
+			// 子の4翻20符ツモは1300/2600
+			{ PINFU_TSUMO, 1, 2, 0, 0, -2600, 5200, -1300, -1300 },
+			// 子の2翻50符ロンは3200
+			{ SANANKOU_RON, 1, 0, 0, 0, 0, 3200, -3200, 0 },
+			// 親の1翻30符ロンは1440を切り上げて1500
+			{ TANYAO_RON, 0, 0, 0, 0, 0, 1500, -1500, 0 },
+			// 親の2翻20符ツモは640を切り上げて700オール
+			{ PINFU_TSUMO, 0, 0, 0, 0, -700, 2100, -700, -700 },
+			// 子の四暗刻ツモは親が16000、子が8000ずつ
+			{ SUUANKOU_TSUMO, 1, 0, 0, 0, -16000, 32000, -8000, -8000 },
+			// 親の四暗刻ツモは16000オール
+			{ SUUANKOU_TSUMO, 0, 0, 0, 0, -16000, 48000, -16000, -16000 },
+			// 4翻50符は満貫で止める
+			{ SANANKOU_RON, 1, 2, 0, 0, 0, 8000, -8000, 0 },
+			// 満貫・跳満・倍満・三倍満・数え役満
+			{ PINFU_TSUMO, 1, 3, 0, 0, -4000, 8000, -2000, -2000 },
+			{ PINFU_TSUMO, 1, 4, 0, 0, -6000, 12000, -3000, -3000 },
+			{ PINFU_TSUMO, 1, 6, 0, 0, -8000, 16000, -4000, -4000 },
+			{ PINFU_TSUMO, 1, 9, 0, 0, -12000, 24000, -6000, -6000 },
+			{ PINFU_TSUMO, 1, 11, 0, 0, -16000, 32000, -8000, -8000 },
+			// 親の跳満ロンは18000
+			{ SANANKOU_RON, 0, 4, 0, 0, 0, 18000, -18000, 0 },
+			// ロンの積み棒は1本300点を放銃者が払う
+			{ SANANKOU_RON, 1, 0, 2, 0, 0, 3800, -3800, 0 },
+			// ツモの積み棒は1本100点ずつ、供託のリーチ棒はあがった席が受け取る
+			{ PINFU_TSUMO, 1, 2, 1, 2, -2700, 7500, -1400, -1400 },
+			{ TANYAO_RON, 0, 0, 1, 1, 0, 2800, -1800, 0 },
+	};
+
+	@Test
+	public void paymentsMatchTable() {
+		YakuEvaluator evaluator = new YakuEvaluator();
+		ScoreCalculator calculator = new ScoreCalculator();
+		for (int[] row : CASES) {
+			AgariContext context = context(row[0], row[1]);
+			evaluator.evaluate(hand(row[0]), context);
+			int loser = context.isTsumo() ? -1 : 2;
+			Score score = calculator.calculate(evaluator, context, row[2], 1, loser, row[3], row[4]);
+			for (int seat = 0; seat < 4; seat++) {
+				assertEquals(row[5 + seat], score.getDelta(seat), score + " 席" + seat + " 手牌" + row[0]);
+			}
+			assertEquals(row[6], score.getGain());
+		}
+	}
+
+	@Test
+	public void scoreKeepsHanAndFu() {
+		YakuEvaluator evaluator = new YakuEvaluator();
+		ScoreCalculator calculator = new ScoreCalculator();
+		AgariContext context = context(PINFU_TSUMO, 1);
+		evaluator.evaluate(hand(PINFU_TSUMO), context);
+		Score score = calculator.calculate(evaluator, context, 2, 1, -1, 0, 0);
+		assertEquals(4, score.getHan());
+		assertEquals(20, score.getFu());
+		assertEquals(0, score.getYakuman());
+
+		context = context(SUUANKOU_TSUMO, 1);
+		evaluator.evaluate(hand(SUUANKOU_TSUMO), context);
+		score = calculator.calculate(evaluator, context, 3, 1, -1, 0, 0);
+		assertEquals(1, score.getYakuman());
+		assertEquals(8000, score.getBase());
+	}
+
+	private static int[] hand(int fixture) {
+		return switch (fixture) {
+			case PINFU_TSUMO -> JudgeTest.hand("234567m345p678s99s");
+			case SANANKOU_RON -> JudgeTest.hand("111222333m456p77s");
+			case TANYAO_RON -> JudgeTest.hand("234567m345p88p");
+			default -> JudgeTest.hand("11199m333p555777s");
+		};
+	}
+
+	/**
+	 * 手牌に合わせたあがり状況を作ります。場風は東です。
+	 */
+	private static AgariContext context(int fixture, int seatWind) {
+		AgariContext context = new AgariContext();
+		context.setSeatWind(seatWind);
+		context.setFieldWind(0);
+		switch (fixture) {
+		case PINFU_TSUMO:
+			context.setAgariTile(1);
+			context.setTsumo(true);
+			break;
+		case SANANKOU_RON:
+			context.setAgariTile(12);
+			break;
+		case TANYAO_RON:
+			context.setAgariTile(1);
+			context.addMeld(MentsuDecomposer.SHUNTSU, 19, true);
+			break;
+		default:
+			context.setAgariTile(24);
+			context.setTsumo(true);
+			break;
+		}
+		return context;
+	}
+}
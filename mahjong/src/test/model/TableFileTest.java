@@ -0,0 +1,129 @@
+package test.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.mahjong.model.TableFile;
+
+/**
+ * {@link TableFile}が、使えないファイルの代わりにメモリ上で表を作り直し、ファイルを書き直すことを確かめるテストです。
+ * 表の本体は、i番目のバイトがi * 31 + versionのものを使います。
+ */
+public class TableFileTest {
+	/** 表の名前 */
+	private static final String NAME = "test";
+	/** 本体のバイト数 */
+	private static final int BYTES = 1000;
+	/** ヘッダのバイト数 */
+	private static final int HEADER_BYTES = 32;
+
+	@TempDir
+	Path directory;
+
+	/** 表を作った回数 */
+	private int builds;
+
+	@Test
+	public void missingFileIsBuiltAndWritten() throws IOException {
+		Path file = this.directory.resolve(NAME + ".tbl");
+		assertBody(load(1, BYTES, false), 1, BYTES);
+		assertEquals(1, this.builds);
+		assertEquals(HEADER_BYTES + BYTES, Files.size(file));
+
+		// 書いたファイルは作り直さずに読み込む
+		assertBody(load(1, BYTES, false), 1, BYTES);
+		assertBody(load(1, BYTES, true), 1, BYTES);
+		assertEquals(1, this.builds);
+
+		// ディレクトリを指定しなければファイルを使わない
+		assertBody(TableFile.load(null, NAME, 2, BYTES, true, data -> build(data, 2)), 2, BYTES);
+		assertEquals(2, this.builds);
+		assertBody(load(1, BYTES, true), 1, BYTES);
+		assertEquals(2, this.builds);
+	}
+
+	@Test
+	public void staleVersionOrSizeIsRebuilt() {
+		load(1, BYTES, false);
+		// バージョンが違えば、本体を確かめなくても作り直す
+		assertBody(load(2, BYTES, false), 2, BYTES);
+		assertEquals(2, this.builds);
+		assertBody(load(2, BYTES, false), 2, BYTES);
+		assertEquals(2, this.builds);
+
+		// バイト数が違っても作り直す
+		assertBody(load(2, BYTES + 8, false), 2, BYTES + 8);
+		assertEquals(3, this.builds);
+		assertBody(load(2, BYTES + 8, false), 2, BYTES + 8);
+		assertEquals(3, this.builds);
+	}
+
+	@Test
+	public void corruptBodyIsRebuiltWhenVerified() throws IOException {
+		Path file = this.directory.resolve(NAME + ".tbl");
+		load(1, BYTES, false);
+		byte[] bytes = Files.readAllBytes(file);
+		bytes[HEADER_BYTES + 500] ^= 1;
+		Files.write(file, bytes);
+
+		// 既定ではヘッダだけを確かめるので、壊れた本体もそのまま使う
+		ByteBuffer data = load(1, BYTES, false);
+		assertEquals((byte) (500 * 31 + 1 ^ 1), data.get(500));
+		assertEquals(1, this.builds);
+
+		// 本体のCRC32を確かめれば作り直し、正しいファイルに書き直す
+		assertBody(load(1, BYTES, true), 1, BYTES);
+		assertEquals(2, this.builds);
+		assertBody(load(1, BYTES, true), 1, BYTES);
+		assertEquals(2, this.builds);
+
+		// ヘッダが壊れていれば、本体を確かめなくても作り直す
+		bytes = Files.readAllBytes(file);
+		bytes[8] ^= 1;
+		Files.write(file, bytes);
+		assertBody(load(1, BYTES, false), 1, BYTES);
+		assertEquals(3, this.builds);
+		assertBody(load(1, BYTES, true), 1, BYTES);
+		assertEquals(3, this.builds);
+	}
+
+	@Test
+	public void unwritableDirectoryStillBuilds() throws IOException {
+		// ディレクトリの代わりにファイルがあれば書けないが、メモリ上の表は使える
+		Path blocked = Files.createFile(this.directory.resolve("blocked"));
+		for (int i = 1; i <= 2; i++) {
+			assertBody(TableFile.load(blocked, NAME, 1, BYTES, true, data -> build(data, 1)), 1, BYTES);
+			assertEquals(i, this.builds);
+		}
+		assertTrue(Files.isRegularFile(blocked));
+	}
+
+	private ByteBuffer load(int version, int bytes, boolean verify) {
+		return TableFile.load(this.directory, NAME, version, bytes, verify, data -> build(data, version));
+	}
+
+	/**
+	 * 表の本体を作り、作った回数を数えます。
+	 */
+	private void build(ByteBuffer data, int version) {
+		this.builds++;
+		for (int i = 0; i < data.capacity(); i++) {
+			data.put((byte) (i * 31 + version));
+		}
+	}
+
+	private static void assertBody(ByteBuffer data, int version, int bytes) {
+		assertEquals(bytes, data.remaining());
+		for (int i = 0; i < bytes; i++) {
+			assertEquals((byte) (i * 31 + version), data.get(i), "バイト" + i);
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package test.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.mahjong.model.Judge;
+import com.example.mahjong.model.Ukeire;
+
+/**
+ * {@link Ukeire}の結果を、打牌とツモを1枚ずつ試して向聴数を求め直す総当たりと突き合わせるテストです。
+ */
+public class UkeireTest {
+	@Test
+	public void analyzeMatchesBruteForce() {
+		Random random = new Random(1);
+		Ukeire ukeire = new Ukeire();
+		int[] visible = new int[34];
+		for (int i = 0; i < 3000; i++) {
+			int tiles = i % 3 == 0 ? 14 : i % 3 == 1 ? 11 : 8;
+			int[] hand = JudgeTest.randomHand(random, tiles, i % 3);
+			for (int id = 0; id < 34; id++) {
+				visible[id] = Math.min(random.nextInt(3), 4 - hand[id]);
+			}
+			int[] original = hand.clone();
+			ukeire.analyze(hand, visible);
+			assertArrayEquals(original, hand, "手牌を書き換えています");
+
+			for (int discard = 0; discard < 34; discard++) {
+				if (hand[discard] == 0) {
+					continue;
+				}
+				hand[discard]--;
+				int shanten = Judge.shanten(hand);
+				long accept = 0;
+				int unseen = 0;
+				for (int id = 0; id < 34; id++) {
+					if (hand[id] >= 4) {
+						continue;
+					}
+					hand[id]++;
+					if (Judge.shanten(hand) < shanten) {
+						accept |= 1L << id;
+						unseen += 4 - original[id] - visible[id];
+					}
+					hand[id]--;
+				}
+				hand[discard]++;
+				String message = Arrays.toString(original) + " 打" + discard;
+				assertEquals(shanten, ukeire.getShanten(discard), message);
+				assertEquals(accept, ukeire.getAcceptMask(discard), message);
+				assertEquals(unseen, ukeire.getUnseen(discard), message);
+			}
+		}
+	}
+}
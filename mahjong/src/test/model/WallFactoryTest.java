@@ -0,0 +1,132 @@
+package test.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.mahjong.model.Wall;
+import com.example.mahjong.model.WallFactory;
+
+/**
+ * {@link WallFactory}の牌山が、シードと対局の番号だけで決まることを確かめるテストです。
+ */
+public class WallFactoryTest {
+	/** 全体のシード */
+	private static final long SEED = 20240601L;
+	/** 確かめる対局の数 */
+	private static final int GAMES = 200;
+	/** 1つの対局で作る牌山の数 */
+	private static final int HANDS = 3;
+
+	@Test
+	public void forGameIsReproducibleAcrossInstances() {
+		for (int game = 0; game < GAMES; game++) {
+			assertArrayEquals(walls(game), walls(game), "対局" + game);
+		}
+		assertEquals(SEED, new WallFactory(SEED).getSeed());
+	}
+
+	/**
+	 * 対局を並列に、ばらばらの順番で作っても、対局ごとの牌山は順に作ったものと同じになることを確かめます。
+	 */
+	@Test
+	public void forGameIsReproducibleAcrossThreads() throws InterruptedException, ExecutionException {
+		byte[][][] expected = new byte[GAMES][][];
+		for (int game = 0; game < GAMES; game++) {
+			expected[game] = walls(game);
+		}
+		List<Integer> order = new ArrayList<>();
+		for (int game = 0; game < GAMES; game++) {
+			order.add(game);
+		}
+		Collections.shuffle(order, new Random(1L));
+
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<byte[][]>> futures = new ArrayList<>();
+			for (int game : order) {
+				futures.add(pool.submit(() -> walls(game)));
+			}
+			for (int i = 0; i < order.size(); i++) {
+				assertArrayEquals(expected[order.get(i)], futures.get(i).get(), "対局" + order.get(i));
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void differentGamesGetDifferentWalls() {
+		Set<String> seen = new HashSet<>();
+		for (int game = 0; game < GAMES; game++) {
+			for (byte[] wall : walls(game)) {
+				assertFullSet(wall);
+				assertTrue(seen.add(Arrays.toString(wall)), "対局" + game + "の牌山が重なりました");
+			}
+		}
+		// シードが違えば、同じ番号でも違う牌山になる
+		assertFalse(Arrays.equals(WallFactory.forGame(SEED, 0).next().toArray(),
+				WallFactory.forGame(SEED + 1, 0).next().toArray()));
+	}
+
+	/**
+	 * 同じ順番で分けたWallFactoryは同じシードを持って同じ牌山を作り、そのシードだけで牌山を再現できることを確かめます。
+	 */
+	@Test
+	public void splitIsReproducible() {
+		WallFactory first = new WallFactory(SEED);
+		WallFactory second = new WallFactory(SEED);
+		Set<Long> seeds = new HashSet<>();
+		for (int i = 0; i < 4; i++) {
+			WallFactory a = first.split();
+			WallFactory b = second.split();
+			assertEquals(a.getSeed(), b.getSeed());
+			assertTrue(seeds.add(a.getSeed()), "分けた先のシードが重なりました");
+			WallFactory replay = new WallFactory(a.getSeed());
+			for (int n = 0; n < HANDS; n++) {
+				byte[] wall = a.next().toArray();
+				assertArrayEquals(wall, b.next().toArray());
+				assertArrayEquals(wall, replay.next().toArray());
+			}
+		}
+		assertFalse(seeds.contains(SEED));
+	}
+
+	/**
+	 * 対局専用のWallFactoryで、続けて作る牌山を返します。
+	 */
+	private static byte[][] walls(int game) {
+		WallFactory factory = WallFactory.forGame(SEED, game);
+		byte[][] walls = new byte[HANDS][];
+		for (int i = 0; i < HANDS; i++) {
+			walls[i] = factory.next().toArray();
+		}
+		return walls;
+	}
+
+	private static void assertFullSet(byte[] wall) {
+		assertEquals(Wall.SIZE, wall.length);
+		int[] counts = new int[34];
+		for (byte id : wall) {
+			counts[id]++;
+		}
+		for (int id = 0; id < 34; id++) {
+			assertEquals(4, counts[id], "牌" + id);
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package test.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.mahjong.model.Table;
+import com.example.mahjong.model.TileType;
+import com.example.mahjong.model.Wall;
+
+/**
+ * {@link Wall}のツモ山・嶺上牌・ドラ表示牌の位置と、{@link Table}が牌山をリストとして扱うときの動きを確かめるテストです。
+ * 牌山は{@link Table#createShuffledWall()}のリストから作り、どの位置の牌が出てくるかをリストと突き合わせます。
+ */
+public class WallTest {
+	/** ツモ山の枚数 */
+	private static final int LIVE = Wall.SIZE - Wall.DEAD_WALL;
+	/** ドラ表示牌の先頭の位置 */
+	private static final int INDICATOR_START = LIVE + Wall.RINSHAN;
+	/** 裏ドラ表示牌の先頭の位置 */
+	private static final int URA_START = INDICATOR_START + Wall.MAX_INDICATORS;
+
+	/**
+	 * 嶺上牌を1枚引くたびにツモ山の終わりが1枚手前に移り、122枚からツモれる枚数が減ることを確かめます。
+	 */
+	@Test
+	public void rinshanShrinksLiveWall() {
+		List<TileType> tiles = new Table().createShuffledWall();
+		Wall wall = new Wall();
+		wall.fill(tiles);
+		assertEquals(LIVE, wall.remaining());
+
+		for (int i = 0; i < 10; i++) {
+			assertEquals(tiles.get(i), wall.drawTile());
+		}
+		for (int k = 0; k < Wall.RINSHAN; k++) {
+			assertEquals(tiles.get(LIVE + k).getId(), wall.drawRinshan());
+			assertEquals(LIVE - 10 - k - 1, wall.remaining());
+		}
+		// 4枚引いた後は嶺上牌がなく、ツモ山も減らない
+		assertEquals(-1, wall.drawRinshan());
+		assertEquals(LIVE - 10 - Wall.RINSHAN, wall.remaining());
+
+		// 海底は嶺上牌の分だけ手前の牌になる
+		int drawn = 10;
+		TileType last = null;
+		for (TileType tile; (tile = wall.drawTile()) != null; drawn++) {
+			assertEquals(tiles.get(drawn), tile);
+			last = tile;
+		}
+		assertEquals(LIVE - Wall.RINSHAN, drawn);
+		assertEquals(tiles.get(LIVE - Wall.RINSHAN - 1), last);
+		assertEquals(-1, wall.draw());
+		assertEquals(0, wall.remaining());
+	}
+
+	/**
+	 * ツモ山を引き切った後は、嶺上牌も引けないことを確かめます。
+	 */
+	@Test
+	public void noRinshanAfterLiveWallRunsOut() {
+		List<TileType> tiles = new Table().createShuffledWall();
+		Wall wall = new Wall();
+		wall.fill(tiles);
+		assertEquals(tiles.get(LIVE).getId(), wall.drawRinshan());
+		while (wall.draw() >= 0) {
+			// 引き切る
+		}
+		assertEquals(-1, wall.drawRinshan());
+		assertEquals(0, wall.remaining());
+	}
+
+	@Test
+	public void indicatorsAndUraIndicatorsComeFromDeadWall() {
+		List<TileType> tiles = new Table().createShuffledWall();
+		Wall wall = new Wall();
+		wall.fill(tiles);
+		assertEquals(0, wall.getIndicatorCount());
+		assertThrows(IndexOutOfBoundsException.class, () -> wall.getIndicator(0));
+		assertThrows(IndexOutOfBoundsException.class, () -> wall.getUraIndicator(0));
+
+		for (int k = 0; k < Wall.MAX_INDICATORS; k++) {
+			assertEquals(tiles.get(INDICATOR_START + k).getId(), wall.revealIndicator());
+			assertEquals(k + 1, wall.getIndicatorCount());
+			// 嶺上牌を引いても、表示牌の位置は動かない
+			wall.drawRinshan();
+		}
+		assertEquals(-1, wall.revealIndicator());
+		assertEquals(Wall.MAX_INDICATORS, wall.getIndicatorCount());
+		for (int k = 0; k < Wall.MAX_INDICATORS; k++) {
+			assertEquals(tiles.get(INDICATOR_START + k).getId(), wall.getIndicator(k));
+			assertEquals(tiles.get(URA_START + k).getId(), wall.getUraIndicator(k));
+		}
+		assertThrows(IndexOutOfBoundsException.class, () -> wall.getIndicator(Wall.MAX_INDICATORS));
+		assertThrows(IndexOutOfBoundsException.class, () -> wall.getUraIndicator(-1));
+	}
+
+	/**
+	 * 136枚でないリストから作った牌山は、王牌なしですべてをツモ山にすることを確かめます。
+	 */
+	@Test
+	public void shortWallHasNoDeadWall() {
+		List<TileType> tiles = new Table().createShuffledWall().subList(0, 20);
+		Wall wall = new Wall();
+		wall.fill(tiles);
+		assertEquals(20, wall.remaining());
+		assertEquals(-1, wall.drawRinshan());
+		assertEquals(-1, wall.revealIndicator());
+		assertEquals(20, wall.remaining());
+		assertEquals(tiles.get(0), wall.drawTile());
+	}
+
+	/**
+	 * {@link Table#setWall(List)}がリストの並びを変えず、{@link Table#getWall()}がツモ山の122枚を見せることを確かめます。
+	 */
+	@Test
+	public void setWallKeepsOrder() {
+		Table table = new Table();
+		List<TileType> tiles = table.createShuffledWall();
+		assertEquals(Wall.SIZE, tiles.size());
+		table.setWall(tiles);
+
+		byte[] ids = new byte[Wall.SIZE];
+		for (int i = 0; i < Wall.SIZE; i++) {
+			ids[i] = (byte) tiles.get(i).getId();
+		}
+		assertArrayEquals(ids, table.getLiveWall().toArray());
+		assertEquals(tiles.subList(0, LIVE), table.getWall());
+
+		table.setWall(null);
+		assertNull(table.getWall());
+		assertNull(table.draw());
+	}
+
+	/**
+	 * {@link Table#dealHand(List, int)}に{@link Table#getWall()}を渡すと、{@code subList(0, n).clear()}で牌山のカーソルが進むことを確かめます。
+	 */
+	@Test
+	public void dealHandAdvancesCursor() {
+		Table table = new Table();
+		List<TileType> tiles = table.createShuffledWall();
+		table.setWall(tiles);
+		List<TileType> view = table.getWall();
+
+		List<TileType> expected = new ArrayList<>(tiles.subList(0, 13));
+		table.sortHand(expected);
+		assertEquals(expected, table.dealHand(view, 13));
+		assertEquals(LIVE - 13, view.size());
+		assertEquals(LIVE - 13, table.getLiveWall().remaining());
+		assertEquals(tiles.get(13), view.get(0));
+		assertEquals(tiles.get(13), table.draw());
+		// 前に取ったリストも牌山と連動する
+		assertEquals(LIVE - 14, view.size());
+		assertEquals(List.of(tiles.get(14)), table.dealHand(view, 1));
+
+		assertThrows(IllegalArgumentException.class, () -> table.dealHand(view, LIVE));
+		assertEquals(LIVE - 15, view.size());
+	}
+
+	/**
+	 * {@link Wall#asList()}は先頭からの削除だけを受け付け、それ以外の変更は拒むことを確かめます。
+	 */
+	@Test
+	public void listViewOnlyRemovesFromFront() {
+		List<TileType> tiles = new Table().createShuffledWall();
+		Wall wall = new Wall();
+		wall.fill(tiles);
+		List<TileType> view = wall.asList();
+
+		assertEquals(tiles.get(0), view.remove(0));
+		assertEquals(LIVE - 1, wall.remaining());
+		assertThrows(UnsupportedOperationException.class, () -> view.remove(1));
+		assertThrows(UnsupportedOperationException.class, () -> view.subList(1, 3).clear());
+		assertThrows(UnsupportedOperationException.class, () -> view.add(tiles.get(0)));
+		assertThrows(UnsupportedOperationException.class, () -> view.set(0, tiles.get(0)));
+		assertThrows(IndexOutOfBoundsException.class, () -> view.get(LIVE - 1));
+		// 拒んだ変更では牌山は動かない
+		assertEquals(LIVE - 1, wall.remaining());
+		assertEquals(tiles.get(1), view.get(0));
+
+		view.subList(0, 2).clear();
+		assertEquals(LIVE - 3, view.size());
+		assertEquals(tiles.get(3), TileType.getTile(wall.draw()));
+	}
+}
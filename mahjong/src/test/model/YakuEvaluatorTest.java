@@ -0,0 +1,120 @@
+package test.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.mahjong.model.AgariContext;
+import com.example.mahjong.model.Hands;
+import com.example.mahjong.model.Judge;
+import com.example.mahjong.model.MentsuDecomposer;
+import com.example.mahjong.model.YakuEvaluator;
+
+/**
+ * {@link YakuEvaluator}に決まった手牌を渡し、役のビット集合・翻数・符を手で数えた値と突き合わせるテストです。
+ */
+public class YakuEvaluatorTest {
+	/**
+	 * 111222333m 456p 77sの4pロンは、三暗刻（2翻50符）とも一盃口・平和（2翻30符）とも取れます。
+	 * 翻数が同じなので、符の高い三暗刻を採用します。
+	 */
+	@Test
+	public void sanankouBeatsIipeikouOnFu() {
+		AgariContext context = context(12, false);
+		assertYaku(JudgeTest.hand("111222333m456p77s"), context, Hands.SANANKOU.bit(), 2, 50);
+	}
+
+	/**
+	 * 同じ手牌を7sの単騎でツモると、三暗刻・ツモの3翻が一盃口・ツモの2翻を上回ります。
+	 * 符は20 + ツモ2 + 単騎2 + 1萬の暗刻8 + 2萬・3萬の暗刻4ずつで40符です。
+	 */
+	@Test
+	public void sanankouBeatsIipeikouOnHan() {
+		AgariContext context = context(24, true);
+		assertYaku(JudgeTest.hand("111222333m456p77s"), context, Hands.SANANKOU.bit() | Hands.MENZEN_TSUMO.bit(),
+				3, 40);
+	}
+
+	@Test
+	public void closedPinfuTsumoIsTwentyFu() {
+		AgariContext context = context(1, true);
+		assertYaku(JudgeTest.hand("234567m345p678s99s"), context, Hands.PINFU.bit() | Hands.MENZEN_TSUMO.bit(), 2, 20);
+	}
+
+	@Test
+	public void chiitoiIsTwentyFiveFu() {
+		AgariContext context = context(31, false);
+		YakuEvaluator evaluator = assertYaku(JudgeTest.hand("1133m5577p99s11z55z"), context, Hands.CHITOI.bit(), 2, 25);
+		assertEquals(YakuEvaluator.FORM_CHIITOI, evaluator.getForm());
+	}
+
+	/**
+	 * 234sをチーした両面待ちのロンは、符が20符のままなので30符に切り上げます。
+	 */
+	@Test
+	public void openPinfuShapeRonRoundsToThirtyFu() {
+		AgariContext context = context(1, false);
+		context.addMeld(MentsuDecomposer.SHUNTSU, 19, true);
+		assertYaku(JudgeTest.hand("234567m345p88p"), context, Hands.TANYAO.bit(), 1, 30);
+	}
+
+	/**
+	 * 223344m 556677p 88sは七対子（断么九と合わせて3翻）にも取れますが、二盃口・断么九・平和の5翻を採用します。
+	 */
+	@Test
+	public void ryanpeikouBeatsChiitoi() {
+		AgariContext context = context(1, false);
+		YakuEvaluator evaluator = assertYaku(JudgeTest.hand("223344m556677p88s"), context,
+				Hands.RYANPEIKOU.bit() | Hands.TANYAO.bit() | Hands.PINFU.bit(), 5, 30);
+		assertEquals(YakuEvaluator.FORM_STANDARD, evaluator.getForm());
+	}
+
+	@Test
+	public void kokushiIsYakuman() {
+		AgariContext context = context(33, false);
+		YakuEvaluator evaluator = assertYaku(JudgeTest.hand("119m19p19s1234567z"), context, Hands.KOKUSHI.bit(),
+				Hands.YAKUMAN_HAN, 30);
+		assertEquals(YakuEvaluator.FORM_KOKUSHI, evaluator.getForm());
+	}
+
+	/**
+	 * 九蓮宝燈は清一色などの役を落として役満だけを返します。符は分解によるので確かめません。
+	 */
+	@Test
+	public void chuurenIsYakuman() {
+		AgariContext context = context(4, false);
+		int[] hand = JudgeTest.hand("11123455678999m");
+		YakuEvaluator evaluator = new YakuEvaluator();
+		assertEquals(Hands.CHUUREN.bit(), evaluator.evaluate(hand, context));
+		assertEquals(Hands.YAKUMAN_HAN, evaluator.getHan());
+		assertEquals(Hands.CHUUREN.bit(), Judge.judgeHandMask(hand, context));
+	}
+
+	/**
+	 * 手牌を判定し、{@link YakuEvaluator}と{@link Judge#judgeHandMask(int[], AgariContext)}の結果を確かめます。
+	 */
+	private static YakuEvaluator assertYaku(int[] hand, AgariContext context, long mask, int han, int fu) {
+		int[] original = hand.clone();
+		YakuEvaluator evaluator = new YakuEvaluator();
+		assertEquals(Hands.toList(mask), Hands.toList(evaluator.evaluate(hand, context)));
+		assertEquals(mask, evaluator.getHands());
+		assertEquals(han, evaluator.getHan());
+		assertEquals(fu, evaluator.getFu());
+		assertArrayEquals(original, hand, "手牌を書き換えています");
+		assertEquals(mask, Judge.judgeHandMask(hand, context));
+		return evaluator;
+	}
+
+	/**
+	 * 南家（場風は東）のあがり状況を作ります。
+	 */
+	private static AgariContext context(int agariTile, boolean tsumo) {
+		AgariContext context = new AgariContext();
+		context.setAgariTile(agariTile);
+		context.setTsumo(tsumo);
+		context.setSeatWind(1);
+		context.setFieldWind(0);
+		return context;
+	}
+}
@@ -0,0 +1,199 @@
+package test.record;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.mahjong.model.Wall;
+import com.example.mahjong.record.GameRecorder;
+import com.example.mahjong.record.MjlogImporter;
+import com.example.mahjong.record.RecordAnalytics;
+import com.example.mahjong.record.RecordFormat;
+import com.example.mahjong.record.RecordHandler;
+import com.example.mahjong.record.RecordReader;
+import com.example.mahjong.record.RecordWriter;
+
+/**
+ * 小さなmjlogを{@link MjlogImporter}で取り込み、{@link RecordReader}で読み戻して記録を確かめるテストです。
+ *
+ * 1つ目の対局は3局です。東1局はチー・ポン・加槓・暗槓と嶺上牌のツモ、席0のリーチ、席3の5sへのダブロンです。
+ * 東1局1本場は席0の九種九牌、東1局2本場は席1の流し満貫で、席1と席3がテンパイです。
+ * 2つ目の対局は三人打ちなので読み飛ばします。
+ */
+public class MjlogImporterTest {
+	/** ツモ山の終わり（嶺上牌の先頭） */
+	private static final int LIVE_END = Wall.SIZE - Wall.DEAD_WALL;
+
+	private static final String MJLOG = "<mjlogs>"
+			+ "<mjloggm ver=\"2.3\"><GO type=\"169\" lobby=\"0\"/><TAIKYOKU oya=\"0\"/>"
+			// 東1局: 席0 123p456p789s22s3m北, 席1 24m567m678p66s34s中, 席2 中中東東南89m8p9p78s白發, 席3 西西西11s1p1m9s發白北東南
+			+ "<INIT seed=\"0,0,0,2,3,49\" ten=\"250,250,250,250\" oya=\"0\""
+			+ " hai0=\"8,36,40,44,48,52,56,76,77,96,100,104,120\""
+			+ " hai1=\"4,12,16,20,24,57,60,64,80,84,92,93,132\""
+			+ " hai2=\"28,32,65,68,97,101,108,109,112,124,128,133,134\""
+			+ " hai3=\"0,37,72,73,105,110,113,116,117,118,121,125,129\"/>"
+			// 席1が3mを234mでチーし、席2が中をポン
+			+ "<T85/><D8/><N who=\"1\" m=\"4103\"/><E132/><N who=\"2\" m=\"50795\"/><F112/>"
+			+ "<W1/><G110/>"
+			// 席0が北でリーチ（2s5s待ち）
+			+ "<T81/><REACH who=\"0\" ten=\"250,250,250,250\" step=\"1\"/><D120/>"
+			+ "<REACH who=\"0\" ten=\"240,250,250,250\" step=\"2\"/>"
+			+ "<U2/><E2/>"
+			// 席2が中を加槓して嶺上牌の發をツモ切り、席3が西を暗槓して嶺上牌の5sをツモ切り
+			+ "<V135/><N who=\"2\" m=\"50803\"/><DORA hai=\"53\"/><V130/><F130/>"
+			+ "<W119/><N who=\"3\" m=\"29696\"/><DORA hai=\"58\"/><W88/><G88/>"
+			+ "<AGARI ba=\"0,1\" hai=\"36,40,44,48,52,56,76,77,81,85,88,96,100,104\" machi=\"88\" ten=\"30,2900,0\""
+			+ " yaku=\"1,1,7,1,53,0\" doraHai=\"49,53,58\" doraHaiUra=\"0,1,2\" who=\"0\" fromWho=\"3\""
+			+ " sc=\"240,39,250,0,250,0,250,-29\"/>"
+			+ "<AGARI ba=\"0,0\" hai=\"16,20,24,57,60,64,80,84,88,92,93\" m=\"4103\" machi=\"88\" ten=\"30,1000,0\""
+			+ " yaku=\"8,1\" doraHai=\"49,53,58\" who=\"1\" fromWho=\"3\" sc=\"279,0,250,10,250,0,221,-10\"/>"
+			// 東1局1本場: 席0が中をツモって九種九牌。haiNは宣言した席の手牌で、テンパイではない
+			+ "<INIT seed=\"0,1,0,1,1,60\" ten=\"279,260,250,211\" oya=\"0\""
+			+ " hai0=\"0,4,32,36,68,72,104,108,112,116,120,124,128\""
+			+ " hai1=\"5,8,12,20,28,40,48,56,64,76,84,92,100\""
+			+ " hai2=\"6,13,21,24,29,41,49,57,65,77,85,93,101\""
+			+ " hai3=\"7,14,22,30,42,44,50,58,66,78,86,94,102\"/>"
+			+ "<T132/><RYUUKYOKU type=\"yao9\" ba=\"1,0\" sc=\"279,0,260,0,250,0,211,0\""
+			+ " hai0=\"0,4,32,36,68,72,104,108,112,116,120,124,128,132\"/>"
+			// 東1局2本場: 配牌のまま流し満貫の流局。席1は4p単騎、席3は東白のシャンポン
+			+ "<INIT seed=\"0,2,0,4,4,60\" ten=\"279,260,250,211\" oya=\"0\""
+			+ " hai0=\"1,9,17,25,33,41,53,65,77,89,101,113,129\""
+			+ " hai1=\"0,4,8,12,16,20,24,28,32,36,40,44,48\""
+			+ " hai2=\"5,13,21,29,45,56,68,81,93,105,116,120,132\""
+			+ " hai3=\"72,76,80,84,88,92,96,100,104,108,109,124,125\"/>"
+			+ "<RYUUKYOKU type=\"nm\" ba=\"2,0\" sc=\"279,-40,260,80,250,-20,211,-20\""
+			+ " hai1=\"0,4,8,12,16,20,24,28,32,36,40,44,48\""
+			+ " hai3=\"72,76,80,84,88,92,96,100,104,108,109,124,125\"/>"
+			+ "</mjloggm>"
+			// 三人打ち（typeの0x10）の対局
+			+ "<mjloggm ver=\"2.3\"><GO type=\"185\" lobby=\"0\"/><TAIKYOKU oya=\"0\"/>"
+			+ "<INIT seed=\"0,0,0,1,1,60\" ten=\"350,350,350,0\" oya=\"0\""
+			+ " hai0=\"0,4,32,36,68,72,104,108,112,116,120,124,128\""
+			+ " hai1=\"5,8,12,20,28,40,48,56,64,76,84,92,100\""
+			+ " hai2=\"6,13,21,24,29,41,49,57,65,77,85,93,101\" hai3=\"\"/>"
+			+ "<T132/><RYUUKYOKU type=\"yao9\" ba=\"0,0\" sc=\"350,0,350,0,350,0,0,0\"/>"
+			+ "</mjloggm>"
+			+ "</mjlogs>";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void importsThroughToRecordReader() throws IOException, XMLStreamException {
+		MjlogImporter importer;
+		try (RecordWriter writer = new RecordWriter(this.directory, "mjlog")) {
+			importer = new MjlogImporter(new GameRecorder(writer));
+			importer.importStream(new ByteArrayInputStream(MJLOG.getBytes(StandardCharsets.UTF_8)), "fixture.mjlog");
+			importer.flush();
+		}
+		assertEquals(1, importer.getGames());
+		assertEquals(1, importer.getSkippedGames());
+		assertEquals(3, importer.getRounds());
+		assertEquals(0, importer.getRejectedRounds());
+		assertEquals(0, importer.getMismatches());
+		// 流し満貫は途中流局に数えない
+		assertEquals(1, importer.getAbortiveDraws());
+
+		List<byte[]> walls = new ArrayList<>();
+		List<String> events = new ArrayList<>();
+		RecordHandler handler = new RecordHandler() {
+			@Override
+			public void beginRound(long seed, long game, int hand, int dealer, int fieldWind, int honba,
+					int riichiSticks, int[] points, byte[] wall) {
+				walls.add(wall.clone());
+				events.add("begin " + game + " " + hand + " " + dealer + " " + honba + " " + points[0] + " "
+						+ points[3]);
+			}
+
+			@Override
+			public void draw(int seat, int tile) {
+				events.add("draw " + seat + " " + tile);
+			}
+
+			@Override
+			public void discard(int seat, int tile, boolean tsumogiri, boolean riichi) {
+				events.add("discard " + seat + " " + tile + " " + tsumogiri + " " + riichi);
+			}
+
+			@Override
+			public void call(int op, int seat, int tile, int first, int discarder) {
+				events.add("call " + op + " " + seat + " " + tile + " " + first + " " + discarder);
+			}
+
+			@Override
+			public void win(int seat, int tile, int loser, int han, int fu, int waitShape, long hands,
+					int[] deltas) {
+				events.add("win " + seat + " " + tile + " " + loser + " " + han + " " + fu + " " + deltas[seat] + " "
+						+ deltas[loser]);
+			}
+
+			@Override
+			public void exhaustiveDraw(int tenpaiSeats, int[] deltas) {
+				events.add("draw-end " + tenpaiSeats + " " + deltas[0] + " " + deltas[1]);
+			}
+
+			@Override
+			public void endRound() {
+				events.add("end");
+			}
+		};
+		List<Path> segments = RecordAnalytics.listSegments(this.directory);
+		assertEquals(1, segments.size());
+		assertEquals(3, RecordReader.read(segments.get(0), handler));
+		assertEquals(List.of(
+				"begin 0 0 0 0 25000 25000",
+				"draw 0 21",
+				"discard 0 2 false false",
+				"call " + RecordFormat.CHII + " 1 2 1 0",
+				"discard 1 33 false false",
+				"call " + RecordFormat.PON + " 2 33 33 1",
+				"discard 2 28 false false",
+				"draw 3 0",
+				"discard 3 27 false false",
+				"draw 0 20",
+				// リーチのフラグは宣言牌に立つ
+				"discard 0 30 false true",
+				"draw 1 0",
+				"discard 1 0 true false",
+				"draw 2 33",
+				"call " + RecordFormat.KAN + " 2 33 33 2",
+				"draw 2 32",
+				"discard 2 32 true false",
+				"draw 3 29",
+				"call " + RecordFormat.KAN + " 3 29 29 3",
+				"draw 3 22",
+				"discard 3 22 true false",
+				// ダブロンは放銃した席が2回払う
+				"win 0 22 3 2 30 3900 -2900",
+				"win 1 22 3 1 30 1000 -1000",
+				"end",
+				"begin 0 1 0 1 27900 21100",
+				"draw 0 33",
+				"draw-end 0 0 0",
+				"end",
+				"begin 0 2 0 2 27900 21100",
+				"draw-end 10 -4000 8000",
+				"end"), events);
+
+		// 配牌の後にツモを順に、嶺上牌の位置にカンの後のツモを並べる
+		byte[] wall = walls.get(0);
+		assertEquals(21, wall[52]);
+		assertEquals(0, wall[53]);
+		assertEquals(33, wall[56]);
+		assertEquals(29, wall[57]);
+		assertEquals(RecordFormat.UNKNOWN_TILE, wall[58] & 0xFF);
+		assertEquals(32, wall[LIVE_END]);
+		assertEquals(22, wall[LIVE_END + 1]);
+		assertEquals(RecordFormat.UNKNOWN_TILE, wall[LIVE_END + 2] & 0xFF);
+	}
+}
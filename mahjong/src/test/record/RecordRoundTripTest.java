@@ -0,0 +1,128 @@
+package test.record;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.mahjong.controller.SimulationEngine;
+import com.example.mahjong.controller.SimulationResult;
+import com.example.mahjong.model.Strategy;
+import com.example.mahjong.model.Wall;
+import com.example.mahjong.record.GameRecorder;
+import com.example.mahjong.record.RecordAnalytics;
+import com.example.mahjong.record.RecordFormat;
+import com.example.mahjong.record.RecordHandler;
+import com.example.mahjong.record.RecordReader;
+import com.example.mahjong.record.RecordStats;
+import com.example.mahjong.record.RecordWriter;
+
+/**
+ * 局の記録を書いて読み戻し、{@link com.example.mahjong.record.RecordReplayer}で組み立て直せることを確かめるテストです。
+ */
+public class RecordRoundTripTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	public void readsBackWhatWasWritten() throws IOException {
+		byte[] wall = new byte[Wall.SIZE];
+		for (int i = 0; i < wall.length; i++) {
+			wall[i] = (byte) (i / 4);
+		}
+		List<String> events = new ArrayList<>();
+		try (RecordWriter writer = new RecordWriter(this.directory, "rt")) {
+			GameRecorder recorder = new GameRecorder(writer);
+			recorder.beginRound(7L, 3, 1, 2, 0, 1, 0, new int[] { 25000, 24000, 26000, 25000 }, wall);
+			recorder.draw(2, 13);
+			recorder.discard(2, 33, false, true);
+			recorder.call(RecordFormat.PON, 0, 33, 33, 2);
+			recorder.win(1, 5, 0, 0, 2, 40, 0L, new int[] { -2600, 2600, 0, 0 });
+			recorder.endRound();
+			recorder.flush();
+		}
+
+		RecordHandler handler = new RecordHandler() {
+			@Override
+			public void beginRound(long seed, long game, int hand, int dealer, int fieldWind, int honba,
+					int riichiSticks, int[] points, byte[] w) {
+				assertArrayEquals(wall, w);
+				events.add("begin " + seed + " " + game + " " + hand + " " + dealer + " " + honba + " "
+						+ points[1] + " " + points[2]);
+			}
+
+			@Override
+			public void draw(int seat, int tile) {
+				events.add("draw " + seat + " " + tile);
+			}
+
+			@Override
+			public void discard(int seat, int tile, boolean tsumogiri, boolean riichi) {
+				events.add("discard " + seat + " " + tile + " " + tsumogiri + " " + riichi);
+			}
+
+			@Override
+			public void call(int op, int seat, int tile, int first, int discarder) {
+				events.add("call " + op + " " + seat + " " + tile + " " + discarder);
+			}
+
+			@Override
+			public void win(int seat, int tile, int loser, int han, int fu, int waitShape, long hands,
+					int[] deltas) {
+				events.add("win " + seat + " " + tile + " " + loser + " " + han + " " + fu + " " + deltas[0]);
+			}
+
+			@Override
+			public void endRound() {
+				events.add("end");
+			}
+		};
+		List<Path> segments = RecordAnalytics.listSegments(this.directory);
+		assertEquals(1, segments.size());
+		assertEquals(1, RecordReader.read(segments.get(0), handler));
+		assertEquals(List.of(
+				"begin 7 3 1 2 1 24000 26000",
+				"draw 2 13",
+				"discard 2 33 false true",
+				"call " + RecordFormat.PON + " 0 33 2",
+				"win 1 5 0 2 40 -2600",
+				"end"), events);
+	}
+
+	@Test
+	public void rejectsEventsAfterDroppedRound() throws IOException {
+		try (RecordWriter writer = new RecordWriter(this.directory, "drop")) {
+			GameRecorder recorder = new GameRecorder(writer);
+			recorder.beginRound(0L, 0, 0, 0, 0, 0, 0, new int[] { 25000, 25000, 25000, 25000 }, new byte[Wall.SIZE]);
+			recorder.draw(0, 1);
+			recorder.flush();
+			assertThrows(IllegalStateException.class, () -> recorder.discard(0, 1, true, false));
+			assertThrows(IllegalStateException.class, recorder::endRound);
+			assertEquals(0, writer.getBytesWritten());
+		}
+	}
+
+	@Test
+	public void replaysSimulatedGamesWithoutMismatches() throws IOException, InterruptedException {
+		SimulationEngine engine = new SimulationEngine(seat -> new Strategy() {}, 2, 42L);
+		engine.setRecordDirectory(this.directory);
+		SimulationResult result = engine.run(200);
+
+		RecordAnalytics analytics = new RecordAnalytics(2);
+		analytics.setReplay(true);
+		RecordStats stats = analytics.analyze(RecordAnalytics.listSegments(this.directory));
+		assertEquals(result.getHands(), stats.getRounds());
+		assertEquals(result.getTsumo(), stats.getTsumo());
+		assertEquals(result.getRon(), stats.getRon());
+		assertEquals(result.getDraws(), stats.getDraws());
+		assertEquals(result.getRiichi(), stats.getRiichi());
+		assertEquals(0, stats.getMismatches());
+	}
+}
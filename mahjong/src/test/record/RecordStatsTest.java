@@ -0,0 +1,185 @@
+package test.record;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.mahjong.model.Hands;
+import com.example.mahjong.model.Machi;
+import com.example.mahjong.model.Wall;
+import com.example.mahjong.record.GameRecorder;
+import com.example.mahjong.record.RecordAnalytics;
+import com.example.mahjong.record.RecordFormat;
+import com.example.mahjong.record.RecordReader;
+import com.example.mahjong.record.RecordStats;
+import com.example.mahjong.record.RecordWriter;
+
+/**
+ * 結果のわかっている局を記録して{@link RecordStats}で集計し、率・平均・役と待ちの形の数を確かめるテストです。
+ * セグメントごとに集計して{@link RecordStats#merge(RecordStats)}でまとめた結果が、1つの集計で通して読んだ結果と同じになることも確かめます。
+ *
+ * 1つ目のセグメントは2局です。1局目は席0のリーチ宣言牌を席2がポンし、席1が席0からロン（リーチ・ピンフ、両面）、
+ * 2局目は席2のツモ（メンゼンツモ・タンヤオ・イーペーコー、嵌張）です。
+ * 2つ目のセグメントも2局です。3局目は席3から席0（国士無双、単騎）と席1（タンヤオ、双碰と単騎）へのダブロン、4局目は荒牌流局です。
+ */
+public class RecordStatsTest {
+	/** 局の数 */
+	private static final int ROUNDS = 4;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void countsKnownRounds() throws IOException {
+		RecordStats stats = readInOnePass(writeSegments());
+		assertEquals(2, stats.getSegments());
+		assertEquals(ROUNDS, stats.getRounds());
+		assertEquals(1, stats.getTsumo());
+		assertEquals(3, stats.getRon());
+		assertEquals(4, stats.getWins());
+		assertEquals(1, stats.getDraws());
+		assertEquals(1, stats.getRiichi());
+		assertEquals(1, stats.getCalls());
+		assertEquals(1, stats.getYakuman());
+
+		// 率は1人の1局あたりなので、局の数の4倍で割る
+		assertEquals(4.0 / (ROUNDS * 4), stats.getWinRate());
+		assertEquals(3.0 / (ROUNDS * 4), stats.getDealInRate());
+		assertEquals((2600 + 4000 + 32000 + 1000) / 4.0, stats.getAverageScore());
+		assertEquals((2 + 3 + 13 + 1) / 4.0, stats.getAverageHan());
+
+		for (Hands hand : Hands.values()) {
+			long expected = switch (hand) {
+				case TANYAO -> 2;
+				case RIICHI, PINFU, MENZEN_TSUMO, IIPEIKOU, KOKUSHI -> 1;
+				default -> 0;
+			};
+			assertEquals(expected, stats.getCount(hand), hand.name());
+		}
+		// 1つのあがりに複数の待ちの形があれば、それぞれに数える
+		assertEquals(1, stats.getCount(Machi.RYANMEN));
+		assertEquals(1, stats.getCount(Machi.KANCHAN));
+		assertEquals(0, stats.getCount(Machi.PENCHAN));
+		assertEquals(1, stats.getCount(Machi.SHANPON));
+		assertEquals(2, stats.getCount(Machi.TANKI));
+	}
+
+	@Test
+	public void emptyStatsHaveZeroRates() {
+		RecordStats stats = new RecordStats();
+		assertEquals(0.0, stats.getWinRate());
+		assertEquals(0.0, stats.getDealInRate());
+		assertEquals(0.0, stats.getAverageScore());
+		assertEquals(0.0, stats.getAverageHan());
+	}
+
+	/**
+	 * セグメントごとの集計をまとめた結果と、並列に集計した結果が、1つの集計で通して読んだ結果と一致することを確かめます。
+	 */
+	@Test
+	public void mergedSegmentsEqualSinglePass() throws IOException, InterruptedException {
+		List<Path> segments = writeSegments();
+		RecordStats single = readInOnePass(segments);
+
+		RecordAnalytics analytics = new RecordAnalytics(2);
+		RecordStats merged = analytics.analyze(segments.get(0));
+		RecordStats second = analytics.analyze(segments.get(1));
+		assertEquals(2, merged.getRounds());
+		assertEquals(2, second.getRounds());
+		merged.merge(second);
+		assertSameStats(single, merged);
+		assertSameStats(single, analytics.analyze(segments));
+
+		// 空の集計を足しても変わらない
+		merged.merge(new RecordStats());
+		assertSameStats(single, merged);
+	}
+
+	/**
+	 * 2つのセグメントに2局ずつ書き、セグメントを名前の順に返します。
+	 */
+	private List<Path> writeSegments() throws IOException {
+		byte[] wall = new byte[Wall.SIZE];
+		int[] points = { 25000, 25000, 25000, 25000 };
+		try (RecordWriter writer = new RecordWriter(this.directory, "a")) {
+			GameRecorder recorder = new GameRecorder(writer);
+			recorder.beginRound(1L, 0, 0, 0, 0, 0, 0, points, wall);
+			recorder.draw(0, 5);
+			recorder.discard(0, 30, false, true);
+			recorder.call(RecordFormat.PON, 2, 30, 30, 0);
+			recorder.win(1, 22, 0, Machi.RYANMEN.bit(), 2, 40, Hands.RIICHI.bit() | Hands.PINFU.bit(),
+					new int[] { -2600, 2600, 0, 0 });
+			recorder.endRound();
+
+			recorder.beginRound(1L, 0, 1, 1, 0, 0, 0, points, wall);
+			recorder.draw(2, 12);
+			recorder.win(2, 12, -1, Machi.KANCHAN.bit(), 3, 30,
+					Hands.MENZEN_TSUMO.bit() | Hands.TANYAO.bit() | Hands.IIPEIKOU.bit(),
+					new int[] { -1000, -2000, 4000, -1000 });
+			recorder.endRound();
+			recorder.flush();
+		}
+		try (RecordWriter writer = new RecordWriter(this.directory, "b")) {
+			GameRecorder recorder = new GameRecorder(writer);
+			recorder.beginRound(2L, 0, 2, 2, 0, 0, 0, points, wall);
+			recorder.discard(3, 8, false, false);
+			recorder.win(0, 8, 3, Machi.TANKI.bit(), 13, 0, Hands.KOKUSHI.bit(), new int[] { 32000, 0, 0, -32000 });
+			recorder.win(1, 8, 3, Machi.SHANPON.bit() | Machi.TANKI.bit(), 1, 30, Hands.TANYAO.bit(),
+					new int[] { 0, 1000, 0, -1000 });
+			recorder.endRound();
+
+			recorder.beginRound(2L, 0, 3, 3, 0, 0, 0, points, wall);
+			recorder.exhaustiveDraw(0b0101, new int[] { 1500, -1500, 1500, -1500 });
+			recorder.endRound();
+			recorder.flush();
+		}
+		List<Path> segments = RecordAnalytics.listSegments(this.directory);
+		assertEquals(2, segments.size());
+		segments.sort(null);
+		return segments;
+	}
+
+	/**
+	 * すべてのセグメントを1つの集計で順に読みます。
+	 */
+	private static RecordStats readInOnePass(List<Path> segments) throws IOException {
+		RecordStats stats = new RecordStats();
+		for (Path segment : segments) {
+			try (RecordReader reader = new RecordReader(segment)) {
+				reader.readAll(stats);
+				stats.addSegment(reader);
+			}
+		}
+		return stats;
+	}
+
+	private static void assertSameStats(RecordStats expected, RecordStats actual) {
+		assertEquals(expected.getSegments(), actual.getSegments());
+		assertEquals(expected.getBytes(), actual.getBytes());
+		assertEquals(expected.getEvents(), actual.getEvents());
+		assertEquals(expected.getRounds(), actual.getRounds());
+		assertEquals(expected.getTsumo(), actual.getTsumo());
+		assertEquals(expected.getRon(), actual.getRon());
+		assertEquals(expected.getDraws(), actual.getDraws());
+		assertEquals(expected.getRiichi(), actual.getRiichi());
+		assertEquals(expected.getCalls(), actual.getCalls());
+		assertEquals(expected.getYakuman(), actual.getYakuman());
+		assertEquals(expected.getMismatches(), actual.getMismatches());
+		assertEquals(expected.getWinRate(), actual.getWinRate());
+		assertEquals(expected.getDealInRate(), actual.getDealInRate());
+		assertEquals(expected.getAverageScore(), actual.getAverageScore());
+		assertEquals(expected.getAverageHan(), actual.getAverageHan());
+		for (Hands hand : Hands.values()) {
+			assertEquals(expected.getCount(hand), actual.getCount(hand), hand.name());
+		}
+		for (Machi machi : Machi.values()) {
+			assertEquals(expected.getCount(machi), actual.getCount(machi), machi.name());
+		}
+		assertEquals(expected.toString(), actual.toString());
+	}
+}